@@ -1,34 +1,81 @@
-import java.util.Scanner;
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.file.Files;
+import java.nio.file.Path;
 
+import entities.BoardSetup;
+import entities.GameState;
 import service.BoardService;
 import service.GameService;
+import service.InputManager;
 import service.PlayerService;
+import service.batch.BatchRunner;
+import service.records.GameRecordStore;
 
 public class GameManager {
     private PlayerService playerService;
     private BoardService boardService;
     private GameService gameService;
-    public static void main(String[] args) {
-        Scanner sc = new Scanner(System.in);
+    private final GameState gameState = new GameState();
+    public static void main(String[] args) throws IOException {
+        // --batch <file>, or - for standard input, plays a script of commands without prompts, see BatchCommand,
+        // followed by --record <directory> the finished games are added to the GameRecordStore there
+        if (args.length > 0 && args[0].equals("--batch")) {
+            String source = args.length > 1 ? args[1] : "-";
+            GameRecordStore gameRecordStore = args.length > 3 && args[2].equals("--record") ? new GameRecordStore(Path.of(args[3])) : null;
+            try (BufferedReader reader = source.equals("-")
+                ? new BufferedReader(new InputStreamReader(System.in))
+                : Files.newBufferedReader(Path.of(source))) {
+                System.out.println(new BatchRunner(gameRecordStore).run(reader));
+            } finally {
+                if (gameRecordStore != null) {
+                    gameRecordStore.close();
+                }
+            }
+            return;
+        }
+        // the game reads its actions from the same input, see InputManager
+        InputManager input = InputManager.systemIn();
         GameManager gameManager = new GameManager();
         System.out.println("How many players are participating? :");
-        int numberOfPlayers = sc.nextInt();
+        int numberOfPlayers = nextInts(input, 1)[0];
+        // more players than the boxed game seats play with the extra seats of a larger setup
+        if (numberOfPlayers > BoardSetup.standard().getMaximumPlayers()) {
+            System.out.println("Board width, depth and number of cubes? :");
+            int[] setup = nextInts(input, 3);
+            gameManager.gameState.setBoardSetup(BoardSetup.scaled(setup[0], setup[1], setup[2]));
+        }
 
         gameManager.initialise(numberOfPlayers);
 
         gameManager.startGame(numberOfPlayers);
     }
 
+    // numbers separated by spaces or lines
+    private static int[] nextInts(InputManager input, int count) {
+        int[] numbers = new int[count];
+        int read = 0;
+        while (read < count) {
+            for (String token : input.nextLine().trim().split("\\s+")) {
+                if (!token.isEmpty() && read < count) {
+                    numbers[read++] = Integer.parseInt(token);
+                }
+            }
+        }
+        return numbers;
+    }
+
     private void startGame(int numberOfPlayers) {
-        gameService = new GameService();
+        gameService = new GameService(gameState);
         gameService.startGame(numberOfPlayers);
     }
 
     private void initialise(int numberOfPlayers) {
-        playerService = new PlayerService();
+        playerService = new PlayerService(gameState);
         playerService.initialisePlayers(numberOfPlayers);
 
-        boardService = new BoardService();
+        boardService = new BoardService(gameState);
         boardService.initialiseBoard();
     }
 }
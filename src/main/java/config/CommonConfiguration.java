@@ -1,15 +1,11 @@
 package config;
 
 import java.util.Arrays;
-import java.util.HashMap;
 import java.util.HashSet;
 import java.util.List;
-import java.util.Map;
 import java.util.Set;
 
-import entities.Climber;
 import entities.ClimberColour;
-import entities.Piece;
 import entities.Position;
 import entities.PowerCard;
 
@@ -21,15 +17,23 @@ public class CommonConfiguration {
         add(new Position(-3, 0, -3));
     }};
 
-    public static final Set<ClimberColour> availablePlayerColours = new HashSet<>(Arrays.asList(ClimberColour.values()));
-
-    public static final Set<PowerCard> availablePowerCards = new HashSet<>(Arrays.asList(PowerCard.values()));
+    // seats 5 to 8 of larger boards, on a quarter turn ring around the centre like the first four
+    public static final List<Position> additionalPlayerPositions = List.of(
+        new Position(7, 0, 1),
+        new Position(-1, 0, 7),
+        new Position(-7, 0, -1),
+        new Position(1, 0, -7));
 
-    public static Map<Position, Piece> positionPieceMap = new HashMap<>();
+    // the ground cubes every game starts with, three around each corner of the centre
+    public static final List<Position> startingCubePositions = List.of(
+        new Position(1, 0, 1), new Position(1, 0, 3), new Position(3, 0, 1),
+        new Position(-1, 0, 1), new Position(-1, 0, 3), new Position(-3, 0, 1),
+        new Position(-1, 0, -1), new Position(-1, 0, -3), new Position(-3, 0, -1),
+        new Position(1, 0, -1), new Position(1, 0, -3), new Position(3, 0, -1));
 
-    public static int usedCubes = 0;
+    public static final Set<ClimberColour> availablePlayerColours = new HashSet<>(Arrays.asList(ClimberColour.values()));
 
-    public static List<Climber> playersList;
+    public static final Set<PowerCard> availablePowerCards = new HashSet<>(Arrays.asList(PowerCard.values()));
 
     public static final String BUILD_ACTION = "1";
     public static final String MOVE_ACTION = "2";
@@ -43,6 +47,49 @@ public class CommonConfiguration {
     public static final Integer CUBE_LENGTH_Y = 2;
     public static final Integer CUBE_LENGTH_Z = 2;
 
+    // number of cube columns along x and z, centered around the origin
+    public static final Integer BOARD_WIDTH = 8;
+    public static final Integer BOARD_DEPTH = 8;
+    // column codes hold grid coordinates from -32 to 31
+    public static final Integer MAXIMUM_BOARD_SIDE = 64;
+
+    public static final Integer LEGAL_ACTION_CACHE_SIZE = 4096;
+
+    public static final Integer SYNC_KEYFRAME_INTERVAL = 32;
+    // frames queued for a spectator before it is dropped back to a keyframe
+    public static final Integer SPECTATOR_QUEUE_FRAMES = 64;
+
+    // games kept on the heap by the SessionRegistry, idle ones beyond that are hibernated to a mapped file
+    public static final Integer RESIDENT_SESSION_LIMIT = 10_000;
+    public static final Integer HIBERNATION_SLOT_BYTES = 1024;
+    public static final Integer HIBERNATION_SLOTS_PER_SEGMENT = 65_536;
+    // retained heap a hosted game may hold with its caches, see GameFootprint, 0 for no limit
+    public static final Long SESSION_BYTE_BUDGET = 65_536L;
+    // releases of an unchanged game before its footprint is measured again, for caches that grow on their own
+    public static final Integer FOOTPRINT_SAMPLE_RELEASES = 64;
+    // most over budget measurements a game hibernated for its budget before is let off before the next hibernation
+    public static final Integer BUDGET_BACKOFF_LIMIT = 64;
+
+    // finished games buffered by the GameRecordStore before they are appended to the column files
+    public static final Integer RECORD_BLOCK_GAMES = 4096;
+
+    // turns from the start the opening book covers, and the self-play games an action needs to be booked
+    public static final Integer OPENING_BOOK_TURNS = 8;
+    public static final Integer OPENING_BOOK_MIN_GAMES = 16;
+
+    // cubes left from which the EndgameSolver searches a game through to its end
+    public static final Integer ENDGAME_CUBES_LEFT = 2;
+
+    // tournament matches a worker process takes from the queue at a time
+    public static final Integer TOURNAMENT_LEASE_MATCHES = 8;
+    // gradient steps of a texel WeightTuner run between checkpoints, an spsa run checkpoints every iteration
+    public static final Integer TEXEL_CHECKPOINT_ITERATIONS = 100;
+
+    public static final Long TURN_TIME_LIMIT_MILLIS = 120_000L;
+    public static final Long ACTION_TIME_LIMIT_MILLIS = 45_000L;
+    public static final Long TIMER_WHEEL_TICK_MILLIS = 100L;
+    public static final Integer TIMER_WHEEL_SIZE = 512;
+
     public static final String CUBE_PIECE = "CUBE";
     public static final String PLAYER_PIECE = "PLAYER";
 
@@ -0,0 +1,10 @@
+package entities;
+
+// told about every change of the board after it happened, see GameState.addBoardListener
+public interface BoardListener {
+    void cubePlaced(Position position);
+
+    void cubeRemoved(Position position);
+
+    void climberMoved(Climber climber, Position from);
+}
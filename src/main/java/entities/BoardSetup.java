@@ -0,0 +1,100 @@
+package entities;
+
+import static config.CommonConfiguration.BOARD_DEPTH;
+import static config.CommonConfiguration.BOARD_WIDTH;
+import static config.CommonConfiguration.MAXIMUM_BOARD_SIDE;
+import static config.CommonConfiguration.MAXIMUM_CUBE_PIECE;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+
+import config.CommonConfiguration;
+
+/*
+ * Size of the board, the cube supply and the seats a game is played with.
+ * The standard setup is the boxed game, 8x8 columns, 68 cubes and 4 seats. Larger setups keep the standard
+ * start in the centre of the board and seat up to one player per ClimberColour.
+ * The cubes left after the start are shared equally, 28, 18 or 14 each on the standard board.
+ */
+public class BoardSetup {
+    private static final BoardSetup STANDARD = new BoardSetup(BOARD_WIDTH, BOARD_DEPTH, MAXIMUM_CUBE_PIECE, standardSeats());
+
+    private final int width;
+    private final int depth;
+    private final int cubeSupply;
+    private final List<Position> seats;
+
+    public BoardSetup(int width, int depth, int cubeSupply, List<Position> seats) {
+        if (width < BOARD_WIDTH || depth < BOARD_DEPTH || width > MAXIMUM_BOARD_SIDE || depth > MAXIMUM_BOARD_SIDE) {
+            throw new IllegalArgumentException("Board sides must be " + BOARD_WIDTH + " to " + MAXIMUM_BOARD_SIDE + ", not " + width + "x" + depth);
+        }
+        if (cubeSupply < CommonConfiguration.startingCubePositions.size()) {
+            throw new IllegalArgumentException("A supply of " + cubeSupply + " cubes can't cover the starting cubes");
+        }
+        if (seats.size() > ClimberColour.values().length) {
+            throw new IllegalArgumentException("At most " + ClimberColour.values().length + " seats");
+        }
+        this.width = width;
+        this.depth = depth;
+        this.cubeSupply = cubeSupply;
+        this.seats = List.copyOf(seats);
+    }
+
+    public static BoardSetup standard() {
+        return STANDARD;
+    }
+
+    // all eight seats, on any board of at least the standard size
+    public static BoardSetup scaled(int width, int depth, int cubeSupply) {
+        List<Position> seats = new ArrayList<>(standardSeats());
+        seats.addAll(CommonConfiguration.additionalPlayerPositions);
+        return new BoardSetup(width, depth, cubeSupply, seats);
+    }
+
+    // opposite seats first, so two players don't start next to each other
+    private static List<Position> standardSeats() {
+        List<Position> seats = new ArrayList<>(CommonConfiguration.availablePlayerPositions);
+        seats.sort(Comparator.comparing((Position position) -> position.getX() * position.getZ()).reversed()
+            .thenComparing(Position::getX, Comparator.reverseOrder()));
+        return seats;
+    }
+
+    public boolean isStandard() {
+        return this == STANDARD || width == STANDARD.width && depth == STANDARD.depth
+            && cubeSupply == STANDARD.cubeSupply && seats.equals(STANDARD.seats);
+    }
+
+    public int getWidth() {
+        return width;
+    }
+
+    public int getDepth() {
+        return depth;
+    }
+
+    public int getCubeSupply() {
+        return cubeSupply;
+    }
+
+    public List<Position> getSeats() {
+        return seats;
+    }
+
+    public int getMaximumPlayers() {
+        return seats.size();
+    }
+
+    public List<Position> getStartingCubes() {
+        return CommonConfiguration.startingCubePositions;
+    }
+
+    public int cubesPerPlayer(int numberOfPlayers) {
+        return (cubeSupply - getStartingCubes().size()) / numberOfPlayers;
+    }
+
+    @Override
+    public String toString() {
+        return width + "x" + depth + ", " + cubeSupply + " cubes, " + seats.size() + " seats";
+    }
+}
@@ -4,112 +4,119 @@ import static config.CommonConfiguration.PLAYER_PIECE;
 
 import java.util.List;
 
+// view on one row of a PlayerTable
 public class Climber implements Piece{
-    int id;
-    int totalCubes;
-    Position position;
-    ClimberColour colour;
-    List<PowerCard> powerCards;
-    Boolean canBuild;
-    Boolean canMove;
-    Boolean canRoll;
-    String pieceType = PLAYER_PIECE;
-
-    public Climber(int id, int totalCubes, Position position, ClimberColour colour,
-                   List<PowerCard> powerCards, Boolean canBuild, Boolean canMove, Boolean canRoll) {
-        this.id = id;
-        this.totalCubes = totalCubes;
-        this.position = position;
-        this.colour = colour;
-        this.powerCards = powerCards;
-        this.canBuild = canBuild;
-        this.canMove = canMove;
-        this.canRoll = canRoll;
+    final PlayerTable table;
+    final int slot;
+
+    Climber(PlayerTable table, int slot) {
+        this.table = table;
+        this.slot = slot;
     }
 
     @Override
     public String getPieceType() {
-        return pieceType;
+        return PLAYER_PIECE;
+    }
+
+    public int getSlot() {
+        return slot;
     }
 
     public int getId() {
-        return id;
+        return table.ids[slot];
     }
 
     public int getTotalCubes() {
-        return totalCubes;
+        return table.cubesRemaining[slot];
     }
 
     @Override
     public Position getPosition() {
-        return position;
+        return table.positions[slot];
+    }
+
+    public int getCell() {
+        return table.cells[slot];
     }
 
     public ClimberColour getColour() {
-        return colour;
+        return table.colours[slot];
     }
 
     public List<PowerCard> getPowerCards() {
-        return powerCards;
+        return table.getPowerCards(slot);
     }
 
-    public Boolean getCanBuild() {
-        return canBuild;
+    public boolean getCanBuild() {
+        return table.hasAction(slot, PlayerTable.CAN_BUILD);
     }
 
-    public Boolean getCanMove() {
-        return canMove;
+    public boolean getCanMove() {
+        return table.hasAction(slot, PlayerTable.CAN_MOVE);
     }
 
-    public Boolean getCanRoll() {
-        return canRoll;
+    public boolean getCanRoll() {
+        return table.hasAction(slot, PlayerTable.CAN_ROLL);
+    }
+
+    public boolean hasActionsLeft() {
+        return table.actionFlags[slot] != 0;
     }
 
     public void setId(int id) {
-        this.id = id;
+        table.ids[slot] = id;
     }
 
     public void setTotalCubes(int totalCubes) {
-        this.totalCubes = totalCubes;
+        table.cubesRemaining[slot] = totalCubes;
     }
 
     @Override
     public void setPosition(Position position) {
-        this.position = position;
+        table.setPosition(slot, position);
     }
 
     public void setColour(ClimberColour colour) {
-        this.colour = colour;
+        table.colours[slot] = colour;
     }
 
     public void setPowerCards(List<PowerCard> powerCards) {
-        this.powerCards = powerCards;
+        table.setPowerCards(slot, powerCards);
+    }
+
+    public void setCanBuild(boolean canBuild) {
+        table.setAction(slot, PlayerTable.CAN_BUILD, canBuild);
+    }
+
+    public void setCanMove(boolean canMove) {
+        table.setAction(slot, PlayerTable.CAN_MOVE, canMove);
     }
 
-    public void setCanBuild(Boolean canBuild) {
-        this.canBuild = canBuild;
+    public void setCanRoll(boolean canRoll) {
+        table.setAction(slot, PlayerTable.CAN_ROLL, canRoll);
     }
 
-    public void setCanMove(Boolean canMove) {
-        this.canMove = canMove;
+    public void resetActions() {
+        table.resetActions(slot);
     }
 
-    public void setCanRoll(Boolean canRoll) {
-        this.canRoll = canRoll;
+    public void clearActions() {
+        table.clearActions(slot);
     }
 
     @Override
     public String toString() {
 //        return "P"+id+"_";
         return "Climber{" +
-            "id=" + id +
-            ", totalCubes=" + totalCubes +
-            ", position=" + position +
-            ", colour=" + colour +
-            ", powerCards=" + powerCards +
-            ", canBuild=" + canBuild +
-            ", canMove=" + canMove +
-            ", canRoll=" + canRoll +
+            "id=" + getId() +
+            ", totalCubes=" + getTotalCubes() +
+            ", position=" + getPosition() +
+            ", colour=" + getColour() +
+            ", powerCards=" + getPowerCards() +
+            ", canBuild=" + getCanBuild() +
+            ", canMove=" + getCanMove() +
+            ", canRoll=" + getCanRoll() +
             '}';
     }
 }
@@ -0,0 +1,8 @@
+package entities;
+
+// heights of the columns of a game, kept up to date by its board events from when the game is set up,
+// see GameState.setColumnHeights
+public interface ColumnHeights extends BoardListener {
+    // heights for a copy of the game, following the board events of the copy
+    ColumnHeights copy();
+}
@@ -0,0 +1,183 @@
+package entities;
+
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+public class GameState {
+    // discards everything written to it, see setOut
+    public static final PrintStream QUIET = new PrintStream(OutputStream.nullOutputStream());
+
+    // never replaced, services hold on to it for the life of the game
+    final Map<Position, Piece> positionPieceMap = new HashMap<>();
+    PlayerTable playerTable = new PlayerTable();
+    int usedCubes = 0;
+    BoardSetup boardSetup = BoardSetup.standard();
+    // set by the GameService hosting the game, tags profiling events
+    String gameId;
+    // where the services tell what happens in the game, System.out unless set
+    PrintStream out;
+    // not copied, a copy is watched by whoever searches on it
+    private final List<BoardListener> boardListeners = new ArrayList<>();
+    // set once when the game is set up, see service.rules.ColumnLayout.track, a copy gets a copy of them
+    private ColumnHeights columnHeights;
+
+    public Map<Position, Piece> getPositionPieceMap() {
+        return positionPieceMap;
+    }
+
+    public PlayerTable getPlayerTable() {
+        return playerTable;
+    }
+
+    // players in turn order, views on the player table
+    public List<Climber> getPlayersList() {
+        return playerTable.views();
+    }
+
+    // seats a new player on the board, able to perform every action
+    public Climber addPlayer(int id, int totalCubes, Position position, ClimberColour colour, List<PowerCard> powerCards) {
+        Climber climber = playerTable.add(id, totalCubes, position, colour, powerCards);
+        positionPieceMap.put(position, climber);
+        return climber;
+    }
+
+    // frees the cubes and positions of a hibernated game, the map itself, the players and listeners stay so the
+    // game can be restored in place
+    public void releaseBoard() {
+        positionPieceMap.clear();
+    }
+
+    public void addBoardListener(BoardListener listener) {
+        boardListeners.add(listener);
+    }
+
+    public void removeBoardListener(BoardListener listener) {
+        boardListeners.remove(listener);
+    }
+
+    public void notifyCubePlaced(Position position) {
+        for (BoardListener listener : boardListeners) {
+            listener.cubePlaced(position);
+        }
+    }
+
+    public void notifyCubeRemoved(Position position) {
+        for (BoardListener listener : boardListeners) {
+            listener.cubeRemoved(position);
+        }
+    }
+
+    public void notifyClimberMoved(Climber climber, Position from) {
+        for (BoardListener listener : boardListeners) {
+            listener.climberMoved(climber, from);
+        }
+    }
+
+    public ColumnHeights getColumnHeights() {
+        return columnHeights;
+    }
+
+    // the heights listen to the board from now on, in place of the ones set before
+    public void setColumnHeights(ColumnHeights columnHeights) {
+        if (this.columnHeights != null) {
+            removeBoardListener(this.columnHeights);
+        }
+        this.columnHeights = columnHeights;
+        if (columnHeights != null) {
+            addBoardListener(columnHeights);
+        }
+    }
+
+    public BoardSetup getBoardSetup() {
+        return boardSetup;
+    }
+
+    // set before the board and the players are initialised
+    public void setBoardSetup(BoardSetup boardSetup) {
+        this.boardSetup = boardSetup;
+    }
+
+    public String getGameId() {
+        return gameId;
+    }
+
+    public void setGameId(String gameId) {
+        this.gameId = gameId;
+    }
+
+    public PrintStream getOut() {
+        return out == null ? System.out : out;
+    }
+
+    // tools playing games in bulk and in parallel silence each game with QUIET instead of swapping System.out
+    public void setOut(PrintStream out) {
+        this.out = out;
+    }
+
+    public int getUsedCubes() {
+        return usedCubes;
+    }
+
+    public void setUsedCubes(int usedCubes) {
+        this.usedCubes = usedCubes;
+    }
+
+    public int nextCubeId() {
+        return usedCubes++;
+    }
+
+    // independent copy to search or simulate on, positions are shared as they are never mutated in place
+    public GameState copy() {
+        GameState copy = new GameState();
+        copy.playerTable = playerTable.copy();
+        copy.usedCubes = usedCubes;
+        copy.boardSetup = boardSetup;
+        copy.gameId = gameId;
+        copy.out = out;
+        if (columnHeights != null) {
+            copy.setColumnHeights(columnHeights.copy());
+        }
+        for (Map.Entry<Position, Piece> entry : positionPieceMap.entrySet()) {
+            Piece piece = entry.getValue();
+            if (piece instanceof Climber) {
+                copy.positionPieceMap.put(entry.getKey(), copy.playerTable.get(((Climber) piece).getSlot()));
+            } else {
+                Cube cube = (Cube) piece;
+                copy.positionPieceMap.put(entry.getKey(), new Cube(cube.getId(), cube.getPosition(), cube.getPlacedBy(), cube.isOnTop()));
+            }
+        }
+        return copy;
+    }
+
+    public long fingerprint() {
+        // order independent 64-bit hash of every piece, the players' action flags and the cube supply,
+        // two states with the same fingerprint have the same legal actions
+        long hash = mix(usedCubes);
+        for (Piece piece : positionPieceMap.values()) {
+            if (piece instanceof Climber) {
+                continue;
+            }
+            Position position = piece.getPosition();
+            hash += mix(((Math.round(position.getX()) & 0xFFFFL) << 32) | ((Math.round(position.getY()) & 0xFFFFL) << 16) | (Math.round(position.getZ()) & 0xFFFFL));
+        }
+        PlayerTable table = playerTable;
+        for (int slot = 0; slot < table.size; slot++) {
+            long climberHash = (1L << 62) | ((long) table.cells[slot] << 24) | ((long) table.ids[slot] << 12)
+                | ((long) table.cubesRemaining[slot] << 3) | table.actionFlags[slot];
+            hash += mix(climberHash);
+        }
+        return hash;
+    }
+
+    public static long mix(long value) {
+        // splitmix64 finalizer
+        long z = value + 0x9E3779B97F4A7C15L;
+        z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+        z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+        return z ^ (z >>> 31);
+    }
+}
@@ -0,0 +1,166 @@
+package entities;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import service.rules.ActionCodes;
+
+/*
+ * Every climber of a game in struct-of-arrays form, one row per seat in turn order.
+ * Climber objects are views on a row, so turn resets, flag checks and copies of the state
+ * for search are a few primitive array operations instead of an object graph traversal.
+ */
+public class PlayerTable {
+    public static final int CAN_BUILD = 1;
+    public static final int CAN_MOVE = 2;
+    public static final int CAN_ROLL = 4;
+    public static final int ALL_ACTIONS = CAN_BUILD | CAN_MOVE | CAN_ROLL;
+
+    int size = 0;
+    int[] ids;
+    // cell as in ActionCodes.cellOf, kept next to the position the board map is keyed by
+    int[] cells;
+    Position[] positions;
+    int[] cubesRemaining;
+    int[] actionFlags;
+    // bit i is set when the player holds PowerCard.values()[i]
+    long[] powerCards;
+    ClimberColour[] colours;
+    private final List<Climber> views = new ArrayList<>();
+
+    public PlayerTable() {
+        this(4);
+    }
+
+    public PlayerTable(int capacity) {
+        ids = new int[capacity];
+        cells = new int[capacity];
+        positions = new Position[capacity];
+        cubesRemaining = new int[capacity];
+        actionFlags = new int[capacity];
+        powerCards = new long[capacity];
+        colours = new ClimberColour[capacity];
+    }
+
+    private PlayerTable(PlayerTable other) {
+        size = other.size;
+        ids = other.ids.clone();
+        cells = other.cells.clone();
+        positions = other.positions.clone();
+        cubesRemaining = other.cubesRemaining.clone();
+        actionFlags = other.actionFlags.clone();
+        powerCards = other.powerCards.clone();
+        colours = other.colours.clone();
+        for (int slot = 0; slot < size; slot++) {
+            views.add(new Climber(this, slot));
+        }
+    }
+
+    public PlayerTable copy() {
+        return new PlayerTable(this);
+    }
+
+    // adds a player who can perform every action, returns the view on its row
+    public Climber add(int id, int totalCubes, Position position, ClimberColour colour, List<PowerCard> cards) {
+        if (size == ids.length) {
+            grow();
+        }
+        int slot = size++;
+        ids[slot] = id;
+        cubesRemaining[slot] = totalCubes;
+        colours[slot] = colour;
+        actionFlags[slot] = ALL_ACTIONS;
+        setPosition(slot, position);
+        setPowerCards(slot, cards);
+        Climber climber = new Climber(this, slot);
+        views.add(climber);
+        return climber;
+    }
+
+    private void grow() {
+        int capacity = Math.max(1, ids.length * 2);
+        ids = Arrays.copyOf(ids, capacity);
+        cells = Arrays.copyOf(cells, capacity);
+        positions = Arrays.copyOf(positions, capacity);
+        cubesRemaining = Arrays.copyOf(cubesRemaining, capacity);
+        actionFlags = Arrays.copyOf(actionFlags, capacity);
+        powerCards = Arrays.copyOf(powerCards, capacity);
+        colours = Arrays.copyOf(colours, capacity);
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public Climber get(int slot) {
+        return views.get(slot);
+    }
+
+    public List<Climber> views() {
+        return Collections.unmodifiableList(views);
+    }
+
+    public int getCell(int slot) {
+        return cells[slot];
+    }
+
+    public Position getPosition(int slot) {
+        return positions[slot];
+    }
+
+    public void setPosition(int slot, Position position) {
+        positions[slot] = position;
+        cells[slot] = ActionCodes.cellOf(position);
+    }
+
+    public int getCubesRemaining(int slot) {
+        return cubesRemaining[slot];
+    }
+
+    public int getActionFlags(int slot) {
+        return actionFlags[slot];
+    }
+
+    public boolean hasAction(int slot, int action) {
+        return (actionFlags[slot] & action) != 0;
+    }
+
+    public void setAction(int slot, int action, boolean allowed) {
+        actionFlags[slot] = allowed ? actionFlags[slot] | action : actionFlags[slot] & ~action;
+    }
+
+    // start of the player's turn
+    public void resetActions(int slot) {
+        actionFlags[slot] = ALL_ACTIONS;
+    }
+
+    public void clearActions(int slot) {
+        actionFlags[slot] = 0;
+    }
+
+    public long getPowerCardMask(int slot) {
+        return powerCards[slot];
+    }
+
+    void setPowerCards(int slot, List<PowerCard> cards) {
+        long mask = 0;
+        if (cards != null) {
+            for (PowerCard card : cards) {
+                mask |= 1L << card.ordinal();
+            }
+        }
+        powerCards[slot] = mask;
+    }
+
+    List<PowerCard> getPowerCards(int slot) {
+        List<PowerCard> cards = new ArrayList<>();
+        for (PowerCard card : PowerCard.values()) {
+            if ((powerCards[slot] & 1L << card.ordinal()) != 0) {
+                cards.add(card);
+            }
+        }
+        return cards;
+    }
+}
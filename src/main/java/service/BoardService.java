@@ -1,55 +1,35 @@
 package service;
 
-import static config.CommonConfiguration.positionPieceMap;
-import static config.CommonConfiguration.usedCubes;
-
 import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 
 import entities.Cube;
+import entities.GameState;
 import entities.Piece;
 import entities.Position;
+import service.rules.ColumnLayout;
 
 public class BoardService {
+    private final GameState gameState;
+    private final Map<Position, Piece> positionPieceMap;
 
-    public void initialiseBoard() {
-        Position position = null;
-
-        // top right
-        position = new Position(1, 0, 1);
-        positionPieceMap.put(position, new Cube(usedCubes++, position, "COMPUTER", true));
-        position = new Position(1, 0, 3);
-        positionPieceMap.put(position, new Cube(usedCubes++, position, "COMPUTER", true));
-        position = new Position(3, 0, 1);
-        positionPieceMap.put(position, new Cube(usedCubes++, position, "COMPUTER", true));
-
-        // top left
-        position = new Position(-1, 0, 1);
-        positionPieceMap.put(position, new Cube(usedCubes++, position, "COMPUTER", true));
-        position = new Position(-1, 0, 3);
-        positionPieceMap.put(position, new Cube(usedCubes++, position, "COMPUTER", true));
-        position = new Position(-3, 0, 1);
-        positionPieceMap.put(position, new Cube(usedCubes++, position, "COMPUTER", true));
-
-        // bottom left
-        position = new Position(-1, 0, -1);
-        positionPieceMap.put(position, new Cube(usedCubes++, position, "COMPUTER", true));
-        position = new Position(-1, 0, -3);
-        positionPieceMap.put(position, new Cube(usedCubes++, position, "COMPUTER", true));
-        position = new Position(-3, 0, -1);
-        positionPieceMap.put(position, new Cube(usedCubes++, position, "COMPUTER", true));
-
-        // bottom right
-        position = new Position(1, 0, -1);
-        positionPieceMap.put(position, new Cube(usedCubes++, position, "COMPUTER", true));
-        position = new Position(1, 0, -3);
-        positionPieceMap.put(position, new Cube(usedCubes++, position, "COMPUTER", true));
-        position = new Position(3, 0, -1);
-        positionPieceMap.put(position, new Cube(usedCubes++, position, "COMPUTER", true));
+    public BoardService(GameState gameState) {
+        this.gameState = gameState;
+        this.positionPieceMap = gameState.getPositionPieceMap();
+    }
 
-        System.out.println("Board Initialised: "+ positionPieceMap);
+    public void initialiseBoard() {
+        // the starting cubes of the game's BoardSetup, in the centre of the board
+        for (Position startingCube : gameState.getBoardSetup().getStartingCubes()) {
+            Position position = new Position(startingCube);
+            positionPieceMap.put(position, new Cube(gameState.nextCubeId(), position, "COMPUTER", true));
+        }
+        // the starting cubes are the last change of the board nobody is told about
+        ColumnLayout.track(gameState);
+
+        gameState.getOut().println("Board Initialised: "+ positionPieceMap);
     }
 
     public void printBoardLayout(int level) {
@@ -61,6 +41,6 @@ public class BoardService {
             }
             levelWisePieces.get(playerLevel).add(piece);
         });
-        System.out.println(levelWisePieces.get(level));
+        gameState.getOut().println(levelWisePieces.get(level));
     }
 }
@@ -4,47 +4,250 @@ import static config.CommonConfiguration.BUILD_ACTION;
 import static config.CommonConfiguration.GET_LAYOUT;
 import static config.CommonConfiguration.MOVE_ACTION;
 import static config.CommonConfiguration.ROLL_ACTION;
-import static config.CommonConfiguration.playersList;
 
-import java.util.Scanner;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
 
 import entities.Climber;
+import entities.GameState;
 import service.actions.BuildActionService;
 import service.actions.MoveActionService;
 import service.actions.RollDiceActionService;
+import service.profiling.TurnEndedEvent;
+import service.profiling.TurnStartedEvent;
+import service.records.GameRecordStore;
+import service.records.GameRecorder;
+import service.rules.GameOverDetector;
+import service.rules.ReachabilityTracker;
+import service.scheduler.TurnScheduler;
+import service.sync.SpectatorFanout;
+import service.sync.StateSyncService;
 
 public class GameService {
     int playerTurn = 0;
     boolean isGameOver = false;
-    private final Scanner sc = new Scanner(System.in);
+    private final InputManager input = InputManager.systemIn();
+    private final GameState gameState;
+    private final String gameId;
+    private final TurnScheduler turnScheduler;
+    private final ReentrantLock actionLock = new ReentrantLock();
+    // the turn being played, only changed under actionLock, and the last turn whose deadline passed
+    private volatile long turn = -1;
+    private final AtomicLong expiredTurn = new AtomicLong(-1);
+    private final StateSyncService stateSyncService;
+    private SpectatorFanout spectatorFanout;
+    private ReachabilityTracker reachabilityTracker;
+    private GameOverDetector gameOverDetector;
+    private GameRecordStore gameRecordStore;
+    private GameRecorder gameRecorder;
 
     BuildActionService buildActionService;
     MoveActionService moveActionService;
     BoardService boardService;
     RollDiceActionService diceActionService;
 
+    public GameService(GameState gameState) {
+        this(gameState, UUID.randomUUID().toString(), TurnScheduler.getSharedInstance());
+    }
+
+    public GameService(GameState gameState, String gameId, TurnScheduler turnScheduler) {
+        this.gameState = gameState;
+        this.gameId = gameId;
+        gameState.setGameId(gameId);
+        this.turnScheduler = turnScheduler;
+        this.stateSyncService = new StateSyncService(gameState);
+    }
+
+    public StateSyncService getStateSyncService() {
+        return stateSyncService;
+    }
+
+    // spectators are served by the fan-out, off the game thread, until the game is over
+    public synchronized SpectatorFanout getSpectatorFanout() {
+        if (spectatorFanout == null) {
+            spectatorFanout = new SpectatorFanout(stateSyncService);
+            if (isGameOver) {
+                // a late spectator finds the game over
+                spectatorFanout.close();
+            }
+        }
+        return spectatorFanout;
+    }
+
+    public ReachabilityTracker getReachabilityTracker() {
+        return reachabilityTracker;
+    }
+
+    public GameOverDetector getGameOverDetector() {
+        return gameOverDetector;
+    }
+
+    // finished games are recorded when a store is set
+    public void setGameRecordStore(GameRecordStore gameRecordStore) {
+        this.gameRecordStore = gameRecordStore;
+    }
+
     public void startGame(int numberOfPlayers) {
-        buildActionService = new BuildActionService();
-        moveActionService = new MoveActionService();
-        boardService = new BoardService();
-        diceActionService = new RollDiceActionService();
+        buildActionService = new BuildActionService(gameState);
+        moveActionService = new MoveActionService(gameState);
+        boardService = new BoardService(gameState);
+        diceActionService = new RollDiceActionService(gameState);
+        // baseline for the first delta
+        stateSyncService.publish();
+        reachabilityTracker = new ReachabilityTracker(gameState);
+        gameOverDetector = new GameOverDetector(gameState);
+        gameRecorder = new GameRecorder(gameState);
         while (!isGameOver) {
             playerTurn = playerTurn%numberOfPlayers;
-            Climber currentPlayer = playersList.get(playerTurn);
+            Climber currentPlayer = gameState.getPlayersList().get(playerTurn);
+            currentPlayer.resetActions();
+            actionLock.lock();
+            try {
+                turn++;
+                input.clearCancel();
+            } finally {
+                actionLock.unlock();
+            }
+            turnScheduler.startTurn(gameId, turn, currentPlayer, (expiredGameId, expiredTurn, player, deadlineType) -> onTurnExpired(expiredTurn, player, deadlineType));
+            TurnStartedEvent turnStartedEvent = new TurnStartedEvent();
+            if (turnStartedEvent.shouldCommit()) {
+                turnStartedEvent.describe(gameState, currentPlayer);
+                turnStartedEvent.commit();
+            }
+            TurnEndedEvent turnEndedEvent = new TurnEndedEvent();
+            turnEndedEvent.begin();
 
             while (true) {
-                System.out.println("Player " + currentPlayer + "'s turn");
-                System.out.println("Enter 1 to build\nEnter 2 to move\nEnter 3 to roll\nEnter 4 to get current layout");
+                gameState.getOut().println("Player " + currentPlayer + "'s turn");
+                gameState.getOut().println("Enter 1 to build\nEnter 2 to move\nEnter 3 to roll\nEnter 4 to get current layout");
 
-                if(!currentPlayer.getCanMove() && !currentPlayer.getCanBuild() && !currentPlayer.getCanRoll()){
-                    System.out.println("Player used all actions");
+                if(!currentPlayer.hasActionsLeft()){
+                    gameState.getOut().println("Player used all actions");
                     break;
                 }
-                String action = sc.nextLine();
-                performActionHelper(action, currentPlayer);
+                turnScheduler.startAction(gameId);
+                String action = null;
+                try {
+                    action = input.nextLine();
+                } catch (InputManager.InputCancelledException e) {
+                    // the deadline ended the turn while the player was thinking
+                }
+                if (isTurnExpired()) {
+                    if (action != null) {
+                        gameState.getOut().println("Turn time expired, ignoring input: " + action);
+                    }
+                    // the timer wheel leaves the turn to this thread when it finds an action in progress
+                    actionLock.lock();
+                    try {
+                        if (currentPlayer.hasActionsLeft()) {
+                            resolveExpiredTurn(currentPlayer);
+                        }
+                    } finally {
+                        actionLock.unlock();
+                    }
+                    continue;
+                }
+                if (action == null) {
+                    // cancelled for a turn that is over
+                    continue;
+                }
+                actionLock.lock();
+                try {
+                    gameRecorder.beginAction(currentPlayer);
+                    try {
+                        performActionHelper(action, currentPlayer);
+                    } catch (InputManager.InputCancelledException e) {
+                        gameState.getOut().println("Turn time expired during the action");
+                    }
+                    turnEndedEvent.actions++;
+                    gameRecorder.endAction(currentPlayer, diceActionService);
+                    stateSyncService.publish();
+                    reachabilityTracker.update();
+                    if (isTurnExpired()) {
+                        // the deadline passed while the action was still in progress
+                        resolveExpiredTurn(currentPlayer);
+                    }
+                } finally {
+                    actionLock.unlock();
+                }
+            }
+            turnScheduler.endTurn(gameId);
+            if (turnEndedEvent.shouldCommit()) {
+                turnEndedEvent.describe(gameState, currentPlayer);
+                turnEndedEvent.commit();
             }
             playerTurn++;
+            gameRecorder.turnEnded();
+            if (gameOverDetector.turnEnded() != GameOverDetector.Outcome.IN_PROGRESS) {
+                isGameOver = true;
+                gameState.getOut().println("Game over, " + gameOverDetector.getOutcome() + ". Highest level " + gameOverDetector.getHighestLevel()
+                    + " reached by " + gameOverDetector.getLeaders());
+                recordGame();
+                closeSpectatorFanout();
+            }
+        }
+    }
+
+    private synchronized void closeSpectatorFanout() {
+        if (spectatorFanout != null) {
+            spectatorFanout.close();
+        }
+    }
+
+    private void recordGame() {
+        if (gameRecordStore == null) {
+            return;
+        }
+        try {
+            gameRecordStore.append(gameRecorder.finish(gameOverDetector));
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private boolean isTurnExpired() {
+        return expiredTurn.get() == turn;
+    }
+
+    // a deadline of a turn that is already over is ignored, whether the game thread is between actions or in one
+    private void onTurnExpired(long expired, Climber player, TurnScheduler.DeadlineType deadlineType) {
+        // never block the timer wheel thread, if an action is in progress the game thread resolves the turn
+        if (actionLock.tryLock()) {
+            try {
+                if (expired != turn) {
+                    return;
+                }
+                gameState.getOut().println(deadlineType + " time limit expired for player " + player.getId());
+                expiredTurn.set(expired);
+                resolveExpiredTurn(player);
+                // wakes the game thread from waiting for the player, it then ends the turn
+                input.cancel();
+            } finally {
+                actionLock.unlock();
+            }
+            return;
+        }
+        // the expiry only ever counts for its own turn, a stale one doesn't match the turn being played
+        if (expiredTurn.accumulateAndGet(expired, Math::max) == turn) {
+            gameState.getOut().println(deadlineType + " time limit expired for player " + player.getId());
+            // wakes the action waiting for the player, a cancel slipping past the end of the turn is read as such
+            input.cancel();
+        }
+    }
+
+    private void resolveExpiredTurn(Climber player) {
+        // the rulebook places a player on the ground only when they can't move, the others keep their space
+        if (player.getCanMove() && gameOverDetector.mustPlaceAtGround(player)) {
+            gameRecorder.beginAction(player);
+            moveActionService.placeClimberAtGroundLevel(player);
+            gameRecorder.endAction(player, diceActionService);
         }
+        player.clearActions();
+        stateSyncService.publish();
+        reachabilityTracker.update();
     }
 
     private void performActionHelper(String action, Climber currentPlayer) {
@@ -59,12 +262,12 @@ public class GameService {
                 moveActionService.performMoveAction(currentPlayer);
                 break;
             case GET_LAYOUT:
-                System.out.println("Enter level whose layout you want to view: ");
-                int level = Integer.parseInt(sc.nextLine());
+                gameState.getOut().println("Enter level whose layout you want to view: ");
+                int level = Integer.parseInt(input.nextLine());
                 boardService.printBoardLayout(level);
                 break;
             default:
-                System.out.println("Wrong action input");
+                gameState.getOut().println("Wrong action input");
         }
     }
 }
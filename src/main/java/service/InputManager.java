@@ -0,0 +1,96 @@
+package service;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.util.ArrayDeque;
+import java.util.NoSuchElementException;
+import java.util.Queue;
+
+/*
+ * Lines typed by the players. One daemon thread reads the input stream for every game of the process,
+ * started on the first wait for a line, so a game never parks a thread of its own in a blocking read.
+ * A wait for a line can be cancelled from another thread, e.g. by a turn deadline on the timer wheel:
+ * the waiting read throws InputCancelledException, as does the next one if nobody was waiting.
+ */
+public class InputManager {
+    private static InputManager systemIn;
+
+    private final InputStream inputStream;
+    private final Queue<String> lines = new ArrayDeque<>();
+    private Thread reader;
+    private boolean cancelled = false;
+    private boolean ended = false;
+
+    public InputManager(InputStream inputStream) {
+        this.inputStream = inputStream;
+    }
+
+    // follows System.setIn, a reader left on the old stream ends with it
+    public static synchronized InputManager systemIn() {
+        if (systemIn == null || systemIn.inputStream != System.in) {
+            systemIn = new InputManager(System.in);
+        }
+        return systemIn;
+    }
+
+    public synchronized String nextLine() {
+        if (reader == null) {
+            reader = new Thread(this::read, "input-reader");
+            reader.setDaemon(true);
+            reader.start();
+        }
+        while (lines.isEmpty() && !cancelled && !ended) {
+            try {
+                wait();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new InputCancelledException();
+            }
+        }
+        if (cancelled) {
+            cancelled = false;
+            throw new InputCancelledException();
+        }
+        if (lines.isEmpty()) {
+            throw new NoSuchElementException("No line found");
+        }
+        return lines.poll();
+    }
+
+    public synchronized void cancel() {
+        cancelled = true;
+        notifyAll();
+    }
+
+    // forgets a cancellation nobody waited for, e.g. one for a turn that has already ended
+    public synchronized void clearCancel() {
+        cancelled = false;
+    }
+
+    private void read() {
+        try (BufferedReader bufferedReader = new BufferedReader(new InputStreamReader(inputStream))) {
+            for (String line = bufferedReader.readLine(); line != null; line = bufferedReader.readLine()) {
+                synchronized (this) {
+                    lines.add(line);
+                    notifyAll();
+                }
+            }
+        } catch (IOException e) {
+            System.err.println("Input stopped: " + e.getMessage());
+        }
+        synchronized (this) {
+            ended = true;
+            notifyAll();
+        }
+    }
+
+    public static class InputCancelledException extends RuntimeException {
+        private static final long serialVersionUID = 1L;
+
+        public InputCancelledException() {
+            super("Waiting for input was cancelled");
+        }
+    }
+}
@@ -1,61 +1,66 @@
 package service;
 
-import static config.CommonConfiguration.playersList;
-import static config.CommonConfiguration.positionPieceMap;
-
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
+import java.util.Random;
 
 import config.CommonConfiguration;
 import entities.Climber;
 import entities.ClimberColour;
+import entities.GameState;
 import entities.Position;
 import entities.PowerCard;
 
 public class PlayerService {
+    private final GameState gameState;
+    // every game deals from its own copy of the seats of its BoardSetup, colours and cards,
+    // colours and cards shuffled with the game's random so a seeded game deals the same hands again
+    private final List<Position> availablePlayerPositions;
+    private final List<ClimberColour> availablePlayerColours = new ArrayList<>(CommonConfiguration.availablePlayerColours);
+    private final List<PowerCard> availablePowerCards = new ArrayList<>(CommonConfiguration.availablePowerCards);
+
+    public PlayerService(GameState gameState) {
+        this(gameState, new Random());
+    }
+
+    public PlayerService(GameState gameState, Random random) {
+        this.gameState = gameState;
+        this.availablePlayerPositions = new ArrayList<>(gameState.getBoardSetup().getSeats());
+        // the configured sets have no stable order, shuffle from the enum order
+        Collections.sort(availablePlayerColours);
+        Collections.sort(availablePowerCards);
+        Collections.shuffle(availablePlayerColours, random);
+        Collections.shuffle(availablePowerCards, random);
+    }
 
     public void initialisePlayers(int numberOfPlayers) {
-        playersList = new ArrayList<>();
+        int maximumPlayers = gameState.getBoardSetup().getMaximumPlayers();
+        if (numberOfPlayers < 2 || numberOfPlayers > maximumPlayers) {
+            throw new IllegalArgumentException("2 to " + maximumPlayers + " players can play on a " + gameState.getBoardSetup());
+        }
         for(int i=0; i<numberOfPlayers; i++) {
-            Climber player = new Climber(i, getTotalCubes(numberOfPlayers), getAvailablePosition(), getAvailableColour(), getRandomPowerCards(), true, true, true);
-            playersList.add(player);
-            positionPieceMap.put(player.getPosition(), player);
-            System.out.println("Player initialised: " + player);
+            Climber player = gameState.addPlayer(i, getTotalCubes(numberOfPlayers), new Position(getAvailablePosition()), getAvailableColour(), getRandomPowerCards());
+            gameState.getOut().println("Player initialised: " + player);
         }
     }
 
     private int getTotalCubes(int numberOfPlayers) {
-        switch (numberOfPlayers) {
-            case 2:
-                return 28;
-            case 3:
-                return 18;
-            case 4:
-                return 14;
-            default:
-                return 0;
-        }
+        return gameState.getBoardSetup().cubesPerPlayer(numberOfPlayers);
     }
 
     private List<PowerCard> getRandomPowerCards() {
-        PowerCard powerCard1 = CommonConfiguration.availablePowerCards.stream().findAny().get();
-        CommonConfiguration.availablePowerCards.remove(powerCard1);
-
-        PowerCard powerCard2 = CommonConfiguration.availablePowerCards.stream().findAny().get();
-        CommonConfiguration.availablePowerCards.remove(powerCard2);
-
+        PowerCard powerCard1 = availablePowerCards.remove(availablePowerCards.size() - 1);
+        PowerCard powerCard2 = availablePowerCards.remove(availablePowerCards.size() - 1);
         return List.of(powerCard1, powerCard2);
     }
 
     private ClimberColour getAvailableColour() {
-        ClimberColour colour = CommonConfiguration.availablePlayerColours.stream().findAny().get();
-        CommonConfiguration.availablePlayerColours.remove(colour);
-        return colour;
+        return availablePlayerColours.remove(availablePlayerColours.size() - 1);
     }
 
+    // seats are taken in the order of the BoardSetup, opposite ones first
     private Position getAvailablePosition() {
-        Position position = CommonConfiguration.availablePlayerPositions.stream().findAny().get();
-        CommonConfiguration.availablePlayerPositions.remove(position);
-        return position;
+        return availablePlayerPositions.remove(0);
     }
 }
@@ -0,0 +1,55 @@
+package service.actions;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import entities.Climber;
+import entities.GameState;
+import entities.Position;
+import service.rules.ActionCodes;
+import service.rules.ColumnLayout;
+
+/*
+ * Carries out the action codes of the LegalActionService on one game through its action services,
+ * for players that don't go through the prompts. Positions are taken from the board as it is now:
+ * a build goes on top of its column, or two high when both cubes go on the same column.
+ */
+public class ActionExecutor {
+    private final GameState gameState;
+    private final BuildActionService buildActionService;
+    private final MoveActionService moveActionService;
+    private final RollDiceActionService rollDiceActionService;
+
+    public ActionExecutor(GameState gameState, Random random) {
+        this.gameState = gameState;
+        this.buildActionService = new BuildActionService(gameState);
+        this.moveActionService = new MoveActionService(gameState);
+        this.rollDiceActionService = new RollDiceActionService(gameState, random);
+    }
+
+    // false when the services rejected the action
+    public boolean perform(Climber climber, int code) {
+        ColumnLayout layout = ColumnLayout.of(gameState);
+        int first = ActionCodes.firstColumn(code);
+        Position firstPosition = ActionCodes.toPosition(first, layout.height(first));
+        switch (ActionCodes.type(code)) {
+            case ActionCodes.BUILD:
+                List<Position> cubes = new ArrayList<>(2);
+                cubes.add(firstPosition);
+                if (ActionCodes.hasSecondColumn(code)) {
+                    int second = ActionCodes.secondColumn(code);
+                    cubes.add(ActionCodes.toPosition(second, layout.height(second) + (second == first ? 1 : 0)));
+                }
+                return buildActionService.performBuildAction(climber, cubes);
+            case ActionCodes.MOVE:
+                return moveActionService.moveClimber(climber, firstPosition);
+            case ActionCodes.GRAPPLE:
+                return rollDiceActionService.performGrappleAction(climber, firstPosition);
+            case ActionCodes.WIND:
+                return rollDiceActionService.performWindAction(climber, ActionCodes.WIND_DIRECTIONS[ActionCodes.direction(code)]);
+            default:
+                return rollDiceActionService.performBlankAction(climber);
+        }
+    }
+}
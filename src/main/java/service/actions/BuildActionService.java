@@ -1,76 +1,131 @@
 package service.actions;
 
-import static config.CommonConfiguration.CUBE_LENGTH_X;
-import static config.CommonConfiguration.CUBE_LENGTH_Y;
-import static config.CommonConfiguration.CUBE_LENGTH_Z;
-import static config.CommonConfiguration.CUBE_PIECE;
-import static config.CommonConfiguration.MAXIMUM_BUILD_CAPACITY;
-import static config.CommonConfiguration.positionPieceMap;
-import static config.CommonConfiguration.usedCubes;
-
-import java.util.ArrayList;
-import java.util.Collections;
-import java.util.Comparator;
-import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
-import java.util.Scanner;
-import java.util.concurrent.atomic.AtomicBoolean;
-import java.util.stream.Collectors;
 
 import entities.Climber;
 import entities.Cube;
+import entities.GameState;
+import entities.Piece;
 import entities.Position;
+import service.InputManager;
+import service.profiling.BuildValidatedEvent;
+import service.rules.ActionCodes;
+import service.rules.ColumnLayout;
+import service.rules.GameRules;
 
 public class BuildActionService {
-    private final Scanner sc = new Scanner(System.in);
+    private final InputManager input = InputManager.systemIn();
+    private final GameState gameState;
+    private final Map<Position, Piece> positionPieceMap;
+
+    public BuildActionService() {
+        this(new GameState());
+    }
+
+    public BuildActionService(GameState gameState) {
+        this.gameState = gameState;
+        this.positionPieceMap = gameState.getPositionPieceMap();
+    }
 
     public void performBuildAction(Climber currentPlayer) {
 
         if(!currentPlayer.getCanBuild()){
-            System.out.println("Player cannot build in this turn, already used it");
+            gameState.getOut().println("Player cannot build in this turn, already used it");
             return;
         }
 
         Position playerPosition = currentPlayer.getPosition();
-        System.out.println("Current player position: " + playerPosition);
+        gameState.getOut().println("Current player position: " + playerPosition);
+        int cubesToBuild = GameRules.cubesToBuild(gameState, currentPlayer);
         int totalBuiltCells = 1;
-        while (totalBuiltCells <= MAXIMUM_BUILD_CAPACITY) {
-            System.out.println("Building cell number " + totalBuiltCells + " for player " + currentPlayer.getColour().name());
+        while (totalBuiltCells <= cubesToBuild) {
+            if (GameRules.buildColumns(ColumnLayout.of(gameState)).isEmpty()) {
+                gameState.getOut().println("No valid position left to build on");
+                break;
+            }
+            gameState.getOut().println("Building cell number " + totalBuiltCells + " for player " + currentPlayer.getColour().name());
 
-            System.out.println("Enter x-coordinate of the cell");
-            int x = Integer.parseInt(sc.nextLine());
-            System.out.println("Enter y-coordinate of the cell");
-            int y = Integer.parseInt(sc.nextLine());
-            System.out.println("Enter z-coordinate of the cell");
-            int z = Integer.parseInt(sc.nextLine());
+            gameState.getOut().println("Enter x-coordinate of the cell");
+            int x = Integer.parseInt(input.nextLine());
+            gameState.getOut().println("Enter y-coordinate of the cell");
+            int y = Integer.parseInt(input.nextLine());
+            gameState.getOut().println("Enter z-coordinate of the cell");
+            int z = Integer.parseInt(input.nextLine());
 
             Position position = new Position(x, y, z);
-            boolean isValidPosition = validatePositionToBuild(position, currentPlayer);
-
-            if(isValidPosition) {
-                System.out.println(position + " is a valid position!");
+            if(buildCube(position, currentPlayer)) {
                 totalBuiltCells++;
-                Cube builtCube = new Cube(usedCubes++, position, "Player"+currentPlayer.getId(), true);
-                // isOnTop below this cell should be set to false
-                Position belowCubePosition = new Position(position.getX(), position.getY() - CUBE_LENGTH_Y, position.getZ());
-                if(positionPieceMap.containsKey(belowCubePosition)){
-                    ((Cube)positionPieceMap.get(belowCubePosition)).setOnTop(false);
-                    System.out.println("Cube: "+((Cube) positionPieceMap.get(belowCubePosition)).getId()+" is no loner on the top");
-                } else {
-                    System.out.println("Cube: "+ builtCube.getId() + " is the first cube in the column");
-                }
-                // commented below line as the update is done before returning from validateConnectedNeighbours function
-                // updateCellStatus(new Position(position));
-                positionPieceMap.put(position, builtCube);
-            } else {
-                System.out.println(position + " is not a valid position!");
             }
         }
         // build action complete
         currentPlayer.setCanBuild(false);
     }
 
+    // non interactive build action, either all the given cubes are built in order or none
+    public boolean performBuildAction(Climber currentPlayer, List<Position> cubePositions) {
+        int cubesToBuild = GameRules.cubesToBuild(gameState, currentPlayer);
+        if(!currentPlayer.getCanBuild() || cubePositions.isEmpty() || cubePositions.size() > cubesToBuild){
+            return false;
+        }
+        for (int i = 0; i < cubePositions.size(); i++) {
+            if (!buildCube(cubePositions.get(i), currentPlayer)) {
+                removeBuiltCubes(cubePositions.subList(0, i), currentPlayer);
+                return false;
+            }
+        }
+        // fewer cubes are only allowed when there is no valid position left for the next one
+        if (cubePositions.size() < cubesToBuild && !GameRules.buildColumns(ColumnLayout.of(gameState)).isEmpty()) {
+            removeBuiltCubes(cubePositions, currentPlayer);
+            return false;
+        }
+        currentPlayer.setCanBuild(false);
+        return true;
+    }
+
+    private boolean buildCube(Position position, Climber currentPlayer) {
+        BuildValidatedEvent event = new BuildValidatedEvent();
+        event.begin();
+        boolean valid = validatePositionToBuild(position, currentPlayer);
+        if (event.shouldCommit()) {
+            event.describe(gameState, currentPlayer);
+            event.valid = valid;
+            event.commit();
+        }
+        if(!valid) {
+            gameState.getOut().println(position + " is not a valid position!");
+            return false;
+        }
+        gameState.getOut().println(position + " is a valid position!");
+        Cube builtCube = new Cube(gameState.nextCubeId(), position, "Player"+currentPlayer.getId(), true);
+        // isOnTop below this cell should be set to false
+        Position belowCubePosition = ActionCodes.toPosition(ActionCodes.columnOf(position), ActionCodes.level(position) - 1);
+        if(positionPieceMap.containsKey(belowCubePosition)){
+            ((Cube)positionPieceMap.get(belowCubePosition)).setOnTop(false);
+            gameState.getOut().println("Cube: "+((Cube) positionPieceMap.get(belowCubePosition)).getId()+" is no loner on the top");
+        } else {
+            gameState.getOut().println("Cube: "+ builtCube.getId() + " is the first cube in the column");
+        }
+        positionPieceMap.put(position, builtCube);
+        currentPlayer.setTotalCubes(currentPlayer.getTotalCubes() - 1);
+        gameState.notifyCubePlaced(position);
+        return true;
+    }
+
+    private void removeBuiltCubes(List<Position> builtPositions, Climber currentPlayer) {
+        for (int i = builtPositions.size() - 1; i >= 0; i--) {
+            Position position = builtPositions.get(i);
+            positionPieceMap.remove(position);
+            gameState.setUsedCubes(gameState.getUsedCubes() - 1);
+            currentPlayer.setTotalCubes(currentPlayer.getTotalCubes() + 1);
+            Position belowCubePosition = ActionCodes.toPosition(ActionCodes.columnOf(position), ActionCodes.level(position) - 1);
+            if(positionPieceMap.containsKey(belowCubePosition)){
+                ((Cube)positionPieceMap.get(belowCubePosition)).setOnTop(true);
+            }
+            gameState.notifyCubeRemoved(position);
+        }
+    }
+
     private boolean validatePositionToBuild(Position newCubePosition, Climber currentPlayer) {
         /*
         1. Players may build anywhere on the mountain by stacking cubes
@@ -79,102 +134,39 @@ public class BuildActionService {
         3. Players can’t build overhangs or disconnected cubes.
         4. Players must finish building 2 cubes before their next action.
         */
-        Map<String, List<Cube>> cubesAtSameXZ = new HashMap<>();
-
-        // map x and z coordinates with the players to get the
-        // valid level/position of the new cube position
-        positionPieceMap.values().stream()
-            .filter(piece -> piece.getPieceType().equals(CUBE_PIECE))
-            .forEach(piece -> {
-                Cube cube = (Cube) piece;
-                String currentXZ = cube.getPosition().getX()+","+ cube.getPosition().getZ();
-                if(!cubesAtSameXZ.containsKey(currentXZ)){
-                    cubesAtSameXZ.put(currentXZ, new ArrayList<>());
-                }
-                cubesAtSameXZ.get(currentXZ).add(cube);
-            });
-        cubesAtSameXZ.keySet().forEach(position -> {
-            cubesAtSameXZ.get(position).sort((o1, o2) -> Math.round(o1.getPosition().getY() - o2.getPosition().getY()));
-        });
-        System.out.println("Generated list of cubes per X-Z co-ordinate pair" + cubesAtSameXZ);
-        // check if no player's y-coordinate is between the range 0 to maximumHeightSoFar for the same value of x and z
-        boolean b1 = validateClashWithPlayerAndCubePiece(newCubePosition);
-        // check if current cube's y-coordinate is >= maximumHeightSoFar
-        boolean b2 = validateVerticalPosition(newCubePosition, cubesAtSameXZ, currentPlayer);
-        // check if current cube has at least one touching cube in 4-direction
-        boolean b3 = validateConnectedNeighbours(newCubePosition, cubesAtSameXZ);
+        if(GameRules.cubesToBuild(gameState, currentPlayer) <= 0) {
+            gameState.getOut().println("No cubes left to build");
+            return false;
+        }
+        ColumnLayout layout = ColumnLayout.of(gameState);
+        int column = ActionCodes.columnOf(newCubePosition);
+        // check if the new cube doesn't take the space of another piece or a player's column
+        boolean b1 = validateClashWithPlayerAndCubePiece(newCubePosition, layout, column);
+        // check if current cube's y-coordinate is the top of its column
+        boolean b2 = b1 && validateVerticalPosition(newCubePosition, layout, column);
+        // check if current cube stands on a cube or has at least one touching ground cube in 4-direction
+        boolean b3 = b2 && validateConnectedNeighbours(layout, column);
 
         return b1 && b2 && b3;
     }
 
-    private boolean validateClashWithPlayerAndCubePiece(Position newCubePosition) {
-        boolean res =  !positionPieceMap.containsKey(newCubePosition);
-        System.out.println("validateClashWithPlayerAndCubePiece returned " + res);
+    private boolean validateClashWithPlayerAndCubePiece(Position newCubePosition, ColumnLayout layout, int column) {
+        boolean res = !positionPieceMap.containsKey(newCubePosition) && layout.occupant(column) == null;
+        gameState.getOut().println("validateClashWithPlayerAndCubePiece returned " + res);
         return res;
     }
 
-    private boolean validateVerticalPosition(Position newCubePosition, Map<String, List<Cube>> cubesAtSameXZ, Climber currentPlayer) {
-        boolean res;
-        String newCubeXZ = newCubePosition.getX()+","+newCubePosition.getZ();
-        if(cubesAtSameXZ.containsKey(newCubeXZ)){
-            // there are already some cubes at that xz, so need to check y > max length of current vertical tower
-            // i.e the size of the tower * cube size
-            List<Position> cubePositionsForCurrentXZ = cubesAtSameXZ.get(newCubeXZ).stream().map(Cube::getPosition).collect(Collectors.toList());
-            int nextValidYCoordinatePosition = (int) (cubePositionsForCurrentXZ.get(cubePositionsForCurrentXZ.size()-1).getY() + CUBE_LENGTH_Y);
-            System.out.println("Next valid y-coordinate position should be "
-                + nextValidYCoordinatePosition + " for the provided x and z coordinates");
-            res = (nextValidYCoordinatePosition == newCubePosition.getY());
-        } else {
-            System.out.println("Adding new ground level cube");
-            positionPieceMap.put(newCubePosition, new Cube(usedCubes++, newCubePosition, currentPlayer.getId()+"", true));
-            res = true;
-        }
-        System.out.println("validateVerticalPosition returned " + res);
+    private boolean validateVerticalPosition(Position newCubePosition, ColumnLayout layout, int column) {
+        // the next cube of a column goes right on top of its highest cube, or on the ground for a new column
+        int nextValidLevel = layout.height(column);
+        boolean res = layout.isOnBoard(column) && ActionCodes.toPosition(column, nextValidLevel).equals(newCubePosition);
+        gameState.getOut().println("validateVerticalPosition returned " + res);
         return res;
     }
 
-    private boolean validateConnectedNeighbours(Position newCubePosition, Map<String, List<Cube>> cubesAtSameXZ) {
-        // check if there's any cube already attached to this cube in the 5 faces, i.e excluding the top face
-        AtomicBoolean result = new AtomicBoolean(false);
-        if(newCubePosition.getY() > 0){
-            // check bottom face if it is not the 1st cube on that vertical column
-            cubesAtSameXZ.values().forEach(x -> {
-                Cube highestCube = x.get(x.size()-1);
-                if (result.get()== Boolean.FALSE
-                    && highestCube.getPosition().getY() == newCubePosition.getY() - CUBE_LENGTH_Y
-                    && highestCube.getPosition().getX() == newCubePosition.getX()
-                    && highestCube.getPosition().getZ() == newCubePosition.getZ()){
-                    System.out.println(highestCube + " is touching the new cube's bottom face at " + newCubePosition);
-                    result.set(true);
-                    highestCube.setOnTop(false);
-                    positionPieceMap.put(highestCube.getPosition(), highestCube);
-                }
-            });
-        } else {
-            // else check for the other 4 faces of newCube with all vertical row's 1st cubes only
-            cubesAtSameXZ.values().forEach(x -> {
-                if (result.get() == Boolean.FALSE) {
-                    Cube firstCubeOfVerticalColumn = x.get((int) (newCubePosition.getY()/CUBE_LENGTH_Y));
-                    Position comparingPosition = firstCubeOfVerticalColumn.getPosition();
-                    if(comparingPosition.getY() == newCubePosition.getY()) {
-                        if (comparingPosition.getX() == newCubePosition.getX() - CUBE_LENGTH_X && comparingPosition.getZ() == newCubePosition.getZ()) {
-                            System.out.println(firstCubeOfVerticalColumn + " is touching the new cube's face at " + newCubePosition);
-                            result.set(true);
-                        } else if (comparingPosition.getX() == newCubePosition.getX() + CUBE_LENGTH_X && comparingPosition.getZ() == newCubePosition.getZ()) {
-                            System.out.println(firstCubeOfVerticalColumn + " is touching the new cube's face at " + newCubePosition);
-                            result.set(true);
-                        } else if (comparingPosition.getZ() == newCubePosition.getZ() - CUBE_LENGTH_Z && comparingPosition.getX() == newCubePosition.getX()) {
-                            System.out.println(firstCubeOfVerticalColumn + " is touching the new cube's face at " + newCubePosition);
-                            result.set(true);
-                        } else if (comparingPosition.getZ() == newCubePosition.getZ() + CUBE_LENGTH_Z && comparingPosition.getX() == newCubePosition.getX()) {
-                            System.out.println(firstCubeOfVerticalColumn + " is touching the new cube's face at " + newCubePosition);
-                            result.set(true);
-                        }
-                    }
-                }
-            });
-        }
-        System.out.println("validateConnectedNeighbours returned " + result.get());
-        return result.get();
+    private boolean validateConnectedNeighbours(ColumnLayout layout, int column) {
+        boolean res = GameRules.canBuildOn(layout, column);
+        gameState.getOut().println("validateConnectedNeighbours returned " + res);
+        return res;
     }
 }
@@ -0,0 +1,102 @@
+package service.actions;
+
+import static config.CommonConfiguration.BLANK;
+import static config.CommonConfiguration.GRAPPLE;
+
+import java.util.List;
+import java.util.Random;
+
+import entities.Climber;
+import entities.GameState;
+import service.rules.ActionCodes;
+import service.rules.ColumnLayout;
+import service.rules.GameRules;
+
+/*
+ * Random play for the players that don't go through the prompts, the codes it picks are for the ActionExecutor.
+ * A roll is one choice among the others and what it does is up to the dice: the face is rolled from the
+ * RollDiceActionService dice first, only then the space to grapple to or the wind direction is picked.
+ */
+public final class RandomPlayout {
+    public static final int NO_ACTION = -1;
+
+    private RandomPlayout() {
+    }
+
+    // a random action type the climber has left, then a random action of that type, NO_ACTION once there are none
+    public static int pickAction(GameState gameState, Climber climber, Random random) {
+        ColumnLayout layout = ColumnLayout.of(gameState);
+        int cubesToBuild = climber.getCanBuild() ? GameRules.cubesToBuild(gameState, climber) : 0;
+        List<Integer> buildColumns = cubesToBuild > 0 ? GameRules.buildColumns(layout) : List.of();
+        List<Integer> moveDestinations = climber.getCanMove()
+            ? GameRules.moveDestinations(layout, ActionCodes.columnOf(climber.getPosition()), ActionCodes.level(climber.getPosition()))
+            : List.of();
+        int[] types = new int[3];
+        int typeCount = 0;
+        if (!buildColumns.isEmpty()) {
+            types[typeCount++] = ActionCodes.BUILD;
+        }
+        if (!moveDestinations.isEmpty()) {
+            types[typeCount++] = ActionCodes.MOVE;
+        }
+        if (climber.getCanRoll()) {
+            types[typeCount++] = ActionCodes.ROLL;
+        }
+        if (typeCount == 0) {
+            return NO_ACTION;
+        }
+        switch (types[random.nextInt(typeCount)]) {
+            case ActionCodes.BUILD:
+                return drawBuild(layout, buildColumns, cubesToBuild, random);
+            case ActionCodes.MOVE:
+                return ActionCodes.move(moveDestinations.get(random.nextInt(moveDestinations.size())));
+            default:
+                return rollDice(gameState, climber, random);
+        }
+    }
+
+    // one of the legal actions with all the roll codes standing for a single roll, the dice decide what it does
+    public static int pickLegal(GameState gameState, Climber climber, int[] legalActions, Random random) {
+        int others = 0;
+        for (int code : legalActions) {
+            if (ActionCodes.type(code) < ActionCodes.ROLL) {
+                others++;
+            }
+        }
+        int pick = random.nextInt(others < legalActions.length ? others + 1 : others);
+        if (pick == others) {
+            return rollDice(gameState, climber, random);
+        }
+        for (int code : legalActions) {
+            if (ActionCodes.type(code) < ActionCodes.ROLL && pick-- == 0) {
+                return code;
+            }
+        }
+        throw new IllegalStateException("No action picked from " + legalActions.length);
+    }
+
+    // a build on one of the first columns, the second cube drawn against the board with the first one already built
+    public static int drawBuild(ColumnLayout layout, List<Integer> firstColumns, int cubesToBuild, Random random) {
+        int first = firstColumns.get(random.nextInt(firstColumns.size()));
+        if (cubesToBuild == 1) {
+            return ActionCodes.build(first);
+        }
+        layout.addCube(first);
+        List<Integer> secondColumns = GameRules.buildColumns(layout);
+        return secondColumns.isEmpty() ? ActionCodes.build(first) : ActionCodes.build(first, secondColumns.get(random.nextInt(secondColumns.size())));
+    }
+
+    // the code of a roll of the dice, a grapple with no space to grapple to is given up like a blank
+    public static int rollDice(GameState gameState, Climber climber, Random random) {
+        String face = RollDiceActionService.diceValues.get(random.nextInt(RollDiceActionService.diceValues.size()));
+        if (face.equals(BLANK)) {
+            return ActionCodes.roll();
+        }
+        if (face.equals(GRAPPLE)) {
+            List<Integer> destinations = GameRules.grappleDestinations(ColumnLayout.of(gameState),
+                    ActionCodes.columnOf(climber.getPosition()), ActionCodes.level(climber.getPosition()));
+            return destinations.isEmpty() ? ActionCodes.roll() : ActionCodes.grapple(destinations.get(random.nextInt(destinations.size())));
+        }
+        return ActionCodes.wind(random.nextInt(ActionCodes.WIND_DIRECTIONS.length));
+    }
+}
@@ -1,45 +1,78 @@
 package service.actions;
 
 import static config.CommonConfiguration.BLANK;
-import static config.CommonConfiguration.CUBE_LENGTH_X;
-import static config.CommonConfiguration.CUBE_LENGTH_Y;
-import static config.CommonConfiguration.CUBE_LENGTH_Z;
-import static config.CommonConfiguration.CUBE_PIECE;
 import static config.CommonConfiguration.GRAPPLE;
-import static config.CommonConfiguration.PLAYER_PIECE;
 import static config.CommonConfiguration.WIND;
-import static config.CommonConfiguration.playersList;
-import static config.CommonConfiguration.positionPieceMap;
 
 import java.util.ArrayList;
-import java.util.HashMap;
+import java.util.Arrays;
 import java.util.List;
-import java.util.Map;
-import java.util.Scanner;
-import java.util.stream.Collectors;
+import java.util.Random;
 
 import entities.Climber;
-import entities.Cube;
-import entities.Piece;
+import entities.GameState;
 import entities.Position;
+import service.InputManager;
+import service.profiling.DiceRolledEvent;
+import service.profiling.GrappleResolvedEvent;
+import service.profiling.WindResolvedEvent;
+import service.rules.ActionCodes;
+import service.rules.ColumnLayout;
+import service.rules.GameRules;
 
 public class RollDiceActionService {
 
-    private final Scanner sc = new Scanner(System.in);
-    final static List<String> diceValues = new ArrayList<>(List.of(GRAPPLE, GRAPPLE, GRAPPLE, BLANK, BLANK, WIND));
+    private final InputManager input = InputManager.systemIn();
+    private final GameState gameState;
+    private final Random random;
+    public final static List<String> diceValues = List.of(GRAPPLE, GRAPPLE, GRAPPLE, BLANK, BLANK, WIND);
+    // outcome of the last roll, for the game record
+    private String lastDiceValue;
+    private String lastWindDirection;
+
+    public RollDiceActionService() {
+        this(new GameState());
+    }
+
+    public RollDiceActionService(GameState gameState) {
+        this(gameState, new Random());
+    }
+
+    public RollDiceActionService(GameState gameState, Random random) {
+        this.gameState = gameState;
+        this.random = random;
+    }
 
     public String getRandomDiceValue(){
-        return diceValues.get((int) ((Math.round(Math.random()*53))%6));
+        return diceValues.get(random.nextInt(diceValues.size()));
+    }
+
+    public String getLastDiceValue() {
+        return lastDiceValue;
+    }
+
+    // null unless the last roll was the wind
+    public String getLastWindDirection() {
+        return lastWindDirection;
     }
 
     public void performRollAction(Climber currentPlayer) {
         if(!currentPlayer.getCanRoll()){
-            System.out.println("Player already rolled the dice");
+            gameState.getOut().println("Player already rolled the dice");
             return;
         }
-        System.out.println("Rolling the dice for player " + currentPlayer);
+        gameState.getOut().println("Rolling the dice for player " + currentPlayer);
+        DiceRolledEvent event = new DiceRolledEvent();
+        event.begin();
         String diceOutput = getRandomDiceValue();
-        System.out.println("Dice output: " + diceOutput);
+        if (event.shouldCommit()) {
+            event.describe(gameState, currentPlayer);
+            event.face = diceOutput;
+            event.commit();
+        }
+        gameState.getOut().println("Dice output: " + diceOutput);
+        lastDiceValue = diceOutput;
+        lastWindDirection = null;
 
         switch (diceOutput) {
             case GRAPPLE:
@@ -52,260 +85,125 @@ public class RollDiceActionService {
                 performBlankAction(currentPlayer);
                 break;
             default:
-                System.out.println("Invalid dice roll output");
+                gameState.getOut().println("Invalid dice roll output");
         }
     }
 
-    private void performBlankAction(Climber currentPlayer) {
-        System.out.println("Performing blank action");
+    public boolean performBlankAction(Climber currentPlayer) {
+        if (!currentPlayer.getCanRoll()) {
+            return false;
+        }
+        gameState.getOut().println("Performing blank action");
+        lastDiceValue = BLANK;
+        lastWindDirection = null;
         currentPlayer.setCanRoll(false);
-        positionPieceMap.put(currentPlayer.getPosition(), currentPlayer);
+        return true;
     }
 
     private void performWindAction(Climber currentPlayer) {
         boolean movementDone = false;
         while(!movementDone) {
-            System.out.println("Enter W to shift ALL players in the forward direction i.e away from camera");
-            System.out.println("Enter A to shift ALL players in the left direction");
-            System.out.println("Enter S to shift ALL players in the backward direction i.e towards the camera");
-            System.out.println("Enter D to shift ALL players in the right direction");
-
-            String choice = sc.nextLine();
-
-            switch (choice) {
-                case "W":
-                    movementDone = movePlayersInForwardDirection();
-                    break;
-                case "A":
-                    movementDone = movePlayersInLeftDirection();
-                    break;
-                case "S":
-                    movementDone = movePlayersInBackwardDirection();
-                    break;
-                case "D":
-                    movementDone = movePlayersInRightDirection();
-                    break;
-                default:
-                    System.out.println("Invalid input: " + choice);
+            gameState.getOut().println("Enter W to shift ALL players in the forward direction i.e away from camera");
+            gameState.getOut().println("Enter A to shift ALL players in the left direction");
+            gameState.getOut().println("Enter S to shift ALL players in the backward direction i.e towards the camera");
+            gameState.getOut().println("Enter D to shift ALL players in the right direction");
+
+            String choice = input.nextLine();
+            movementDone = performWindAction(currentPlayer, choice);
+            if (!movementDone) {
+                gameState.getOut().println("Invalid input: " + choice);
             }
         }
-        currentPlayer.setCanRoll(false);
-        positionPieceMap.put(currentPlayer.getPosition(), currentPlayer);
     }
 
-    private boolean movePlayersInForwardDirection() {
-        Map<Position, Piece> updatedPositionPieceMap = new HashMap<>();
-        List<Position> positionsToRemoveFromMap = new ArrayList<>();
-        positionPieceMap.values()
-            .stream().filter(piece -> piece.getPieceType().equals(PLAYER_PIECE))
-            .forEach(piece -> {
-                Position piecePosition = piece.getPosition();
-                positionsToRemoveFromMap.add(piecePosition);
-                piecePosition.setX(piecePosition.getZ() + CUBE_LENGTH_Z);
-                if(positionPieceMap.containsKey(piecePosition)){
-                    if(positionPieceMap.get(piecePosition).getPosition().getY() <= piecePosition.getY()) {
-                        // shift to the position
-                        System.out.println("Shifting position to new column in the back");
-                        piecePosition.setY(positionPieceMap.get(piecePosition).getPosition().getY());
-                        piece.setPosition(piecePosition);
-                        updatedPositionPieceMap.put(piecePosition, piece);
-                    } else {
-                        // cannot shift player because of a blocker
-                        positionsToRemoveFromMap.remove(positionsToRemoveFromMap.size()-1);
-                        System.out.println("Cannot shift player because of a blocker");
-                    }
-                } else {
-                    // shift player to ground position
-                    System.out.println("Shifting position to ground level as now new column exists");
-                    piecePosition.setY(0);
-                    piece.setPosition(piecePosition);
-                    updatedPositionPieceMap.put(piecePosition, piece);
-                }
-            });
-        System.out.println("Total pieces updated: " + updatedPositionPieceMap);
-        positionsToRemoveFromMap.forEach(position -> positionPieceMap.remove(position));
-        updatedPositionPieceMap.values().forEach(piece -> {
-            positionPieceMap.put(piece.getPosition(), piece);
-        });
-        if(!updatedPositionPieceMap.isEmpty()) {
-            System.out.println("New layout after using wind: " + positionPieceMap);
-        } else {
-            System.out.println("No changes made to the layout as no update to player positions");
+    // non interactive wind, the direction is one of W, A, S or D
+    public boolean performWindAction(Climber currentPlayer, String choice) {
+        int direction = Arrays.asList(ActionCodes.WIND_DIRECTIONS).indexOf(choice);
+        if (!currentPlayer.getCanRoll() || direction < 0) {
+            return false;
         }
-        return true;
-    }
-
-    private boolean movePlayersInLeftDirection() {
-        Map<Position, Piece> updatedPositionPieceMap = new HashMap<>();
-        List<Position> positionsToRemoveFromMap = new ArrayList<>();
-        positionPieceMap.values()
-            .stream().filter(piece -> piece.getPieceType().equals(PLAYER_PIECE))
-            .forEach(piece -> {
-                Position piecePosition = piece.getPosition();
-                positionsToRemoveFromMap.add(piecePosition);
-                piecePosition.setX(piecePosition.getX() - CUBE_LENGTH_X);
-                if(positionPieceMap.containsKey(piecePosition)){
-                    if(positionPieceMap.get(piecePosition).getPosition().getY() <= piecePosition.getY()) {
-                        // shift to the position
-                        System.out.println("Shifting position to new column in the left");
-                        piecePosition.setY(positionPieceMap.get(piecePosition).getPosition().getY());
-                        piece.setPosition(piecePosition);
-                        updatedPositionPieceMap.put(piecePosition, piece);
-                    } else {
-                        // cannot shift player because of a blocker
-                        positionsToRemoveFromMap.remove(positionsToRemoveFromMap.size()-1);
-                        System.out.println("Cannot shift player because of a blocker");
-                    }
-                } else {
-                    // shift player to ground position
-                    System.out.println("Shifting position to ground level as now new column exists");
-                    piecePosition.setY(0);
-                    piece.setPosition(piecePosition);
-                    updatedPositionPieceMap.put(piecePosition, piece);
-                }
-            });
-        System.out.println("Total pieces updated: " + updatedPositionPieceMap);
-        positionsToRemoveFromMap.forEach(position -> positionPieceMap.remove(position));
-        updatedPositionPieceMap.values().forEach(piece -> {
-            positionPieceMap.put(piece.getPosition(), piece);
-        });
-        if(!updatedPositionPieceMap.isEmpty()) {
-            System.out.println("New layout after using wind: " + positionPieceMap);
-        } else {
-            System.out.println("No changes made to the layout as no update to player positions");
+        WindResolvedEvent event = new WindResolvedEvent();
+        event.begin();
+        int shiftedPlayers = GameRules.applyWind(gameState, direction);
+        if (event.shouldCommit()) {
+            event.describe(gameState, currentPlayer);
+            event.direction = choice;
+            event.shiftedPlayers = shiftedPlayers;
+            event.commit();
         }
-        return true;
-    }
-
-    private boolean movePlayersInBackwardDirection() {
-        Map<Position, Piece> updatedPositionPieceMap = new HashMap<>();
-        List<Position> positionsToRemoveFromMap = new ArrayList<>();
-        positionPieceMap.values()
-            .stream().filter(piece -> piece.getPieceType().equals(PLAYER_PIECE))
-            .forEach(piece -> {
-                Position piecePosition = piece.getPosition();
-                positionsToRemoveFromMap.add(piecePosition);
-                piecePosition.setX(piecePosition.getZ() - CUBE_LENGTH_Z);
-                if(positionPieceMap.containsKey(piecePosition)){
-                    if(positionPieceMap.get(piecePosition).getPosition().getY() <= piecePosition.getY()) {
-                        // shift to the position
-                        System.out.println("Shifting position to new column in the back");
-                        piecePosition.setY(positionPieceMap.get(piecePosition).getPosition().getY());
-                        piece.setPosition(piecePosition);
-                        updatedPositionPieceMap.put(piecePosition, piece);
-                    } else {
-                        // cannot shift player because of a blocker
-                        positionsToRemoveFromMap.remove(positionsToRemoveFromMap.size()-1);
-                        System.out.println("Cannot shift player because of a blocker");
-                    }
-                } else {
-                    // shift player to ground position
-                    System.out.println("Shifting position to ground level as now new column exists");
-                    piecePosition.setY(0);
-                    piece.setPosition(piecePosition);
-                    updatedPositionPieceMap.put(piecePosition, piece);
-                }
-            });
-        System.out.println("Total pieces updated: " + updatedPositionPieceMap);
-        positionsToRemoveFromMap.forEach(position -> positionPieceMap.remove(position));
-        updatedPositionPieceMap.values().forEach(piece -> {
-            positionPieceMap.put(piece.getPosition(), piece);
-        });
-        if(!updatedPositionPieceMap.isEmpty()) {
-            System.out.println("New layout after using wind: " + positionPieceMap);
-        } else {
-            System.out.println("No changes made to the layout as no update to player positions");
-        }
-        return true;
-    }
-
-    private boolean movePlayersInRightDirection() {
-        Map<Position, Piece> updatedPositionPieceMap = new HashMap<>();
-        List<Position> positionsToRemoveFromMap = new ArrayList<>();
-        positionPieceMap.values()
-            .stream().filter(piece -> piece.getPieceType().equals(PLAYER_PIECE))
-            .forEach(piece -> {
-                Position piecePosition = piece.getPosition();
-                positionsToRemoveFromMap.add(piecePosition);
-                piecePosition.setX(piecePosition.getX() + CUBE_LENGTH_X);
-                if(positionPieceMap.containsKey(piecePosition)){
-                    if(positionPieceMap.get(piecePosition).getPosition().getY() <= piecePosition.getY()) {
-                        // shift to the position
-                        System.out.println("Shifting position to new column in the right");
-                        piecePosition.setY(positionPieceMap.get(piecePosition).getPosition().getY());
-                        piece.setPosition(piecePosition);
-                        updatedPositionPieceMap.put(piecePosition, piece);
-                    } else {
-                        // cannot shift player because of a blocker
-                        positionsToRemoveFromMap.remove(positionsToRemoveFromMap.size()-1);
-                        System.out.println("Cannot shift player because of a blocker");
-                    }
-                } else {
-                    // shift player to ground position
-                    System.out.println("Shifting position to ground level as now new column exists");
-                    piecePosition.setY(0);
-                    piece.setPosition(piecePosition);
-                    updatedPositionPieceMap.put(piecePosition, piece);
-                }
-            });
-        System.out.println("Total pieces updated: " + updatedPositionPieceMap);
-        positionsToRemoveFromMap.forEach(position -> positionPieceMap.remove(position));
-        updatedPositionPieceMap.values().forEach(piece -> {
-            positionPieceMap.put(piece.getPosition(), piece);
-        });
-        if(!updatedPositionPieceMap.isEmpty()) {
-            System.out.println("New layout after using wind: " + positionPieceMap);
+        if(shiftedPlayers > 0) {
+            gameState.getOut().println("Layout changed by wind for " + shiftedPlayers + " players");
         } else {
-            System.out.println("No changes made to the layout as no update to player positions");
+            gameState.getOut().println("No changes made to the layout as no update to player positions");
         }
+        lastDiceValue = WIND;
+        lastWindDirection = choice;
+        currentPlayer.setCanRoll(false);
         return true;
     }
 
     private void performGrappleAction(Climber currentPlayer) {
         Position playerPosition = currentPlayer.getPosition();
-        List<Position> possiblePositions = getAllPossiblePositionsToGrapple(playerPosition);
-        System.out.println("Possible grappling positions: " + possiblePositions);
+        List<Position> possiblePositions = getAllPossiblePositionsToGrapple(currentPlayer);
+        gameState.getOut().println("Possible grappling positions: " + possiblePositions);
+        if (possiblePositions.isEmpty()) {
+            gameState.getOut().println("No space to grapple to");
+            currentPlayer.setCanRoll(false);
+            return;
+        }
         while(true) {
-            System.out.println("Enter x-coordinate of the cell");
-            int x = Integer.parseInt(sc.nextLine());
-            System.out.println("Enter y-coordinate of the cell");
-            int y = Integer.parseInt(sc.nextLine());
-            System.out.println("Enter z-coordinate of the cell");
-            int z = Integer.parseInt(sc.nextLine());
+            gameState.getOut().println("Enter x-coordinate of the cell");
+            int x = Integer.parseInt(input.nextLine());
+            gameState.getOut().println("Enter y-coordinate of the cell");
+            int y = Integer.parseInt(input.nextLine());
+            gameState.getOut().println("Enter z-coordinate of the cell");
+            int z = Integer.parseInt(input.nextLine());
 
             Position position = new Position(x, y, z);
 
-            if (possiblePositions.contains(position)) {
-                System.out.println("Moving player from " + playerPosition + " => " + position);
-                positionPieceMap.remove(playerPosition);
-                currentPlayer.setPosition(position);
-                currentPlayer.setCanRoll(false);
-                positionPieceMap.put(position, currentPlayer);
-                System.out.println("All player status: " + playersList);
+            if (performGrappleAction(currentPlayer, position)) {
+                gameState.getOut().println("Moved player from " + playerPosition + " => " + position);
                 break;
             } else {
-                System.out.println("Enter valid input position");
+                gameState.getOut().println("Enter valid input position");
             }
         }
+    }
+
+    // non interactive grapple, a null position gives up the grapple when there is no space to grapple to
+    public boolean performGrappleAction(Climber currentPlayer, Position position) {
+        if (!currentPlayer.getCanRoll()) {
+            return false;
+        }
+        GrappleResolvedEvent event = new GrappleResolvedEvent();
+        event.begin();
+        List<Position> possiblePositions = getAllPossiblePositionsToGrapple(currentPlayer);
+        boolean accepted = position == null ? possiblePositions.isEmpty() : possiblePositions.contains(position);
+        if (accepted && position != null) {
+            GameRules.placeClimber(gameState, currentPlayer, position);
+        }
+        if (event.shouldCommit()) {
+            event.describe(gameState, currentPlayer);
+            event.destinations = possiblePositions.size();
+            event.accepted = accepted;
+            event.commit();
+        }
+        if (!accepted) {
+            return false;
+        }
+        lastDiceValue = GRAPPLE;
+        lastWindDirection = null;
         currentPlayer.setCanRoll(false);
-        positionPieceMap.put(currentPlayer.getPosition(), currentPlayer);
+        return true;
     }
 
-    private List<Position> getAllPossiblePositionsToGrapple(Position playerPosition) {
-        return positionPieceMap.values().stream()
-            .filter(piece -> piece.getPieceType().equals(CUBE_PIECE))
-            .filter(piece -> {
-                // filter only 1 and 2 level up cubes
-                return playerPosition.getY() + CUBE_LENGTH_Y == piece.getPosition().getY() ||
-                    playerPosition.getY() + (2 * CUBE_LENGTH_Y) == piece.getPosition().getY();
-            }).map(Piece::getPosition)
-            .filter(cubePosition -> {
-                // filter only adjacent positions to grapple
-                return (cubePosition.getX() + CUBE_LENGTH_X == playerPosition.getX() && cubePosition.getZ() == playerPosition.getZ()) ||
-                    (cubePosition.getX() - CUBE_LENGTH_X == playerPosition.getX() && cubePosition.getZ() == playerPosition.getZ()) ||
-                    (cubePosition.getZ() + CUBE_LENGTH_Z == playerPosition.getZ() && cubePosition.getX() == playerPosition.getX()) ||
-                    (cubePosition.getZ() - CUBE_LENGTH_Z == playerPosition.getZ() && cubePosition.getX() == playerPosition.getX());
-            })
-            .collect(Collectors.toList());
+    public List<Position> getAllPossiblePositionsToGrapple(Climber currentPlayer) {
+        ColumnLayout layout = ColumnLayout.of(gameState);
+        Position playerPosition = currentPlayer.getPosition();
+        List<Position> possiblePositions = new ArrayList<>();
+        for (int column : GameRules.grappleDestinations(layout, ActionCodes.columnOf(playerPosition), ActionCodes.level(playerPosition))) {
+            possiblePositions.add(ActionCodes.toPosition(column, layout.height(column)));
+        }
+        return possiblePositions;
     }
 }
@@ -0,0 +1,134 @@
+package service.batch;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.StringTokenizer;
+
+import entities.BoardSetup;
+import entities.Position;
+
+/*
+ * One line of a batch script, coordinates are the same x y z the prompts ask for.
+ * G players [w d c]  start a new game, on the standard board or a w x d board with c cubes and up to 8 seats
+ * B x y z [x y z]    build one or two cubes
+ * M [x y z]          move, without a position the climber who can't move is placed on the ground
+ * R                  roll a blank
+ * R W|A|S|D          roll the wind in the given direction
+ * R G [x y z]        roll the grapple, without a position when there is no space to grapple to
+ * E                  end the turn, as if its time ran out
+ */
+public class BatchCommand {
+    public static final char NEW_GAME = 'G';
+    public static final char BUILD = 'B';
+    public static final char MOVE = 'M';
+    public static final char ROLL = 'R';
+    public static final char END_TURN = 'E';
+
+    final char type;
+    final List<Position> positions;
+    // wind direction, G for grapple, null for a blank roll
+    final String roll;
+    final int players;
+    final BoardSetup boardSetup;
+
+    private BatchCommand(char type, List<Position> positions, String roll, int players) {
+        this(type, positions, roll, players, BoardSetup.standard());
+    }
+
+    private BatchCommand(char type, List<Position> positions, String roll, int players, BoardSetup boardSetup) {
+        this.type = type;
+        this.positions = positions;
+        this.roll = roll;
+        this.players = players;
+        this.boardSetup = boardSetup;
+    }
+
+    // null for blank and comment lines
+    public static BatchCommand parse(String line) {
+        StringTokenizer tokens = new StringTokenizer(line);
+        if (!tokens.hasMoreTokens()) {
+            return null;
+        }
+        String first = tokens.nextToken();
+        if (first.charAt(0) == '#') {
+            return null;
+        }
+        if (first.length() != 1) {
+            throw new IllegalArgumentException("unknown command " + first);
+        }
+        char type = Character.toUpperCase(first.charAt(0));
+        switch (type) {
+            case NEW_GAME:
+                int players = parseInt(tokens);
+                if (!tokens.hasMoreTokens()) {
+                    return new BatchCommand(type, List.of(), null, players);
+                }
+                int width = parseInt(tokens);
+                int depth = parseInt(tokens);
+                int cubeSupply = parseInt(tokens);
+                expectEnd(tokens);
+                return new BatchCommand(type, List.of(), null, players, BoardSetup.scaled(width, depth, cubeSupply));
+            case BUILD:
+                List<Position> cubes = parsePositions(tokens);
+                if (cubes.isEmpty() || cubes.size() > 2) {
+                    throw new IllegalArgumentException("build takes one or two positions");
+                }
+                return new BatchCommand(type, cubes, null, 0);
+            case MOVE:
+                List<Position> destination = parsePositions(tokens);
+                if (destination.size() > 1) {
+                    throw new IllegalArgumentException("move takes at most one position");
+                }
+                return new BatchCommand(type, destination, null, 0);
+            case ROLL:
+                if (!tokens.hasMoreTokens()) {
+                    return new BatchCommand(type, List.of(), null, 0);
+                }
+                String roll = tokens.nextToken().toUpperCase();
+                List<Position> target = parsePositions(tokens);
+                if (!roll.equals("G") && !target.isEmpty() || target.size() > 1) {
+                    throw new IllegalArgumentException("only a grapple takes a position");
+                }
+                return new BatchCommand(type, target, roll, 0);
+            case END_TURN:
+                expectEnd(tokens);
+                return new BatchCommand(type, List.of(), null, 0);
+            default:
+                throw new IllegalArgumentException("unknown command " + first);
+        }
+    }
+
+    private static List<Position> parsePositions(StringTokenizer tokens) {
+        List<Position> positions = new ArrayList<>(2);
+        while (tokens.hasMoreTokens()) {
+            int x = parseInt(tokens);
+            int y = parseInt(tokens);
+            int z = parseInt(tokens);
+            positions.add(new Position(x, y, z));
+        }
+        return positions;
+    }
+
+    private static int parseInt(StringTokenizer tokens) {
+        if (!tokens.hasMoreTokens()) {
+            throw new IllegalArgumentException("missing number");
+        }
+        String token = tokens.nextToken();
+        try {
+            return Integer.parseInt(token);
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("not a number " + token);
+        }
+    }
+
+    private static void expectEnd(StringTokenizer tokens) {
+        if (tokens.hasMoreTokens()) {
+            throw new IllegalArgumentException("unexpected " + tokens.nextToken());
+        }
+    }
+
+    @Override
+    public String toString() {
+        return type + (roll == null ? "" : " " + roll) + (positions.isEmpty() ? "" : " " + positions) + (players == 0 ? "" : " " + players);
+    }
+}
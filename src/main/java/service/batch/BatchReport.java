@@ -0,0 +1,63 @@
+package service.batch;
+
+import java.util.ArrayList;
+import java.util.List;
+
+public class BatchReport {
+    // only the first rejections are kept, a broken script would otherwise fill the report
+    private static final int MAXIMUM_LISTED_REJECTIONS = 50;
+
+    int gamesStarted = 0;
+    int gamesFinished = 0;
+    long commands = 0;
+    long rejected = 0;
+    long elapsedNanos = 0;
+    final List<String> rejections = new ArrayList<>();
+    final List<String> results = new ArrayList<>();
+
+    void reject(long lineNumber, String line, String reason) {
+        rejected++;
+        if (rejections.size() < MAXIMUM_LISTED_REJECTIONS) {
+            rejections.add("line " + lineNumber + " '" + line.trim() + "': " + reason);
+        }
+    }
+
+    public int getGamesStarted() {
+        return gamesStarted;
+    }
+
+    public int getGamesFinished() {
+        return gamesFinished;
+    }
+
+    public long getCommands() {
+        return commands;
+    }
+
+    public long getRejected() {
+        return rejected;
+    }
+
+    public List<String> getRejections() {
+        return rejections;
+    }
+
+    public List<String> getResults() {
+        return results;
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder builder = new StringBuilder();
+        builder.append("Executed ").append(commands).append(" commands in ").append(elapsedNanos / 1_000_000).append(" ms, ")
+            .append(rejected).append(" rejected, ").append(gamesStarted).append(" games started, ")
+            .append(gamesFinished).append(" finished");
+        for (String result : results) {
+            builder.append(System.lineSeparator()).append(result);
+        }
+        for (String rejection : rejections) {
+            builder.append(System.lineSeparator()).append("Rejected ").append(rejection);
+        }
+        return builder.toString();
+    }
+}
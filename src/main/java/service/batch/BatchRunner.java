@@ -0,0 +1,205 @@
+package service.batch;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.util.List;
+
+import entities.BoardSetup;
+import entities.Climber;
+import entities.GameState;
+import service.BoardService;
+import service.PlayerService;
+import service.actions.BuildActionService;
+import service.actions.MoveActionService;
+import service.actions.RollDiceActionService;
+import service.records.GameRecordStore;
+import service.records.GameRecorder;
+import service.rules.GameOverDetector;
+
+/*
+ * Plays the games of a batch script, see BatchCommand, through the non interactive paths of the
+ * action services without prompts. Turns pass on once the current player used every action,
+ * a G line starts the next game. The games are played quietly, see GameState.setOut,
+ * the report is the only output. With a GameRecordStore every finished game is recorded into it, the caller
+ * closes the store.
+ */
+public class BatchRunner {
+    private final GameRecordStore gameRecordStore;
+    private BatchGame game;
+
+    public BatchRunner() {
+        this(null);
+    }
+
+    public BatchRunner(GameRecordStore gameRecordStore) {
+        this.gameRecordStore = gameRecordStore;
+    }
+
+    public BatchReport run(BufferedReader reader) throws IOException {
+        BatchReport report = new BatchReport();
+        long start = System.nanoTime();
+        try {
+            long lineNumber = 0;
+            String line;
+            while ((line = reader.readLine()) != null) {
+                lineNumber++;
+                BatchCommand command;
+                try {
+                    command = BatchCommand.parse(line);
+                } catch (IllegalArgumentException e) {
+                    report.reject(lineNumber, line, e.getMessage());
+                    continue;
+                }
+                if (command == null) {
+                    continue;
+                }
+                report.commands++;
+                String rejection = execute(command, report);
+                if (rejection != null) {
+                    report.reject(lineNumber, line, rejection);
+                }
+            }
+        } finally {
+            report.elapsedNanos = System.nanoTime() - start;
+        }
+        if (game != null && !game.gameOverDetector.isGameOver()) {
+            report.results.add(game.result("unfinished"));
+        }
+        return report;
+    }
+
+    // null when the command was carried out, otherwise why it was rejected
+    private String execute(BatchCommand command, BatchReport report) throws IOException {
+        if (command.type == BatchCommand.NEW_GAME) {
+            if (command.players < 2 || command.players > command.boardSetup.getMaximumPlayers()) {
+                return "2 to " + command.boardSetup.getMaximumPlayers() + " players";
+            }
+            if (game != null && !game.gameOverDetector.isGameOver()) {
+                report.results.add(game.result("unfinished"));
+            }
+            report.gamesStarted++;
+            game = new BatchGame(report.gamesStarted, command.players, command.boardSetup, gameRecordStore != null);
+            return null;
+        }
+        if (game == null || game.gameOverDetector.isGameOver()) {
+            return "no game in progress";
+        }
+        Climber climber = game.currentClimber();
+        // the actions given up with the turn aren't recorded, only the placement on the ground
+        boolean recorded = game.gameRecorder != null && (command.type != BatchCommand.END_TURN || climber.getCanMove());
+        if (recorded) {
+            game.gameRecorder.beginAction(climber);
+        }
+        boolean accepted;
+        switch (command.type) {
+            case BatchCommand.BUILD:
+                accepted = game.buildActionService.performBuildAction(climber, command.positions);
+                break;
+            case BatchCommand.MOVE:
+                if (!command.positions.isEmpty()) {
+                    accepted = game.moveActionService.moveClimber(climber, command.positions.get(0));
+                } else if (climber.getCanMove() && game.gameOverDetector.mustPlaceAtGround(climber)) {
+                    game.moveActionService.placeClimberAtGroundLevel(climber);
+                    accepted = true;
+                } else {
+                    accepted = false;
+                }
+                break;
+            case BatchCommand.ROLL:
+                accepted = roll(command, climber);
+                break;
+            case BatchCommand.END_TURN:
+                if (climber.getCanMove()) {
+                    game.moveActionService.placeClimberAtGroundLevel(climber);
+                    if (recorded) {
+                        game.gameRecorder.endAction(climber, game.rollDiceActionService);
+                        recorded = false;
+                    }
+                }
+                climber.clearActions();
+                accepted = true;
+                break;
+            default:
+                accepted = false;
+        }
+        if (recorded) {
+            game.gameRecorder.endAction(climber, game.rollDiceActionService);
+        }
+        if (!accepted) {
+            return "not a legal action for player " + climber.getId();
+        }
+        if (!climber.hasActionsLeft() && game.endTurn()) {
+            report.gamesFinished++;
+            report.results.add(game.result(game.gameOverDetector.getOutcome().toString()));
+            if (game.gameRecorder != null) {
+                gameRecordStore.append(game.gameRecorder.finish(game.gameOverDetector));
+            }
+        }
+        return null;
+    }
+
+    private boolean roll(BatchCommand command, Climber climber) {
+        if (command.roll == null) {
+            return game.rollDiceActionService.performBlankAction(climber);
+        }
+        if (command.roll.equals("G")) {
+            return game.rollDiceActionService.performGrappleAction(climber, command.positions.isEmpty() ? null : command.positions.get(0));
+        }
+        return game.rollDiceActionService.performWindAction(climber, command.roll);
+    }
+
+    private static class BatchGame {
+        private final int number;
+        private final GameState gameState = new GameState();
+        private final BuildActionService buildActionService;
+        private final MoveActionService moveActionService;
+        private final RollDiceActionService rollDiceActionService;
+        private final GameOverDetector gameOverDetector;
+        private final GameRecorder gameRecorder;
+        private final int numberOfPlayers;
+        private int playerTurn = 0;
+        private int turns = 0;
+
+        BatchGame(int number, int numberOfPlayers, BoardSetup boardSetup, boolean recorded) {
+            this.number = number;
+            this.numberOfPlayers = numberOfPlayers;
+            gameState.setBoardSetup(boardSetup);
+            gameState.setOut(GameState.QUIET);
+            new PlayerService(gameState).initialisePlayers(numberOfPlayers);
+            new BoardService(gameState).initialiseBoard();
+            buildActionService = new BuildActionService(gameState);
+            moveActionService = new MoveActionService(gameState);
+            rollDiceActionService = new RollDiceActionService(gameState);
+            gameOverDetector = new GameOverDetector(gameState);
+            gameRecorder = recorded ? new GameRecorder(gameState) : null;
+        }
+
+        Climber currentClimber() {
+            return gameState.getPlayersList().get(playerTurn);
+        }
+
+        // passes the turn on, true when the game ended with it
+        boolean endTurn() {
+            turns++;
+            if (gameRecorder != null) {
+                gameRecorder.turnEnded();
+            }
+            if (gameOverDetector.turnEnded() != GameOverDetector.Outcome.IN_PROGRESS) {
+                return true;
+            }
+            playerTurn = (playerTurn + 1) % numberOfPlayers;
+            currentClimber().resetActions();
+            return false;
+        }
+
+        String result(String outcome) {
+            List<Climber> leaders = gameOverDetector.getLeaders();
+            StringBuilder ids = new StringBuilder();
+            for (Climber leader : leaders) {
+                ids.append(ids.length() == 0 ? "" : ", ").append(leader.getId());
+            }
+            return "Game " + number + ": " + outcome + " after " + turns + " turns, highest level "
+                + gameOverDetector.getHighestLevel() + " held by player " + ids;
+        }
+    }
+}
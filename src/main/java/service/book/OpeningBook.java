@@ -0,0 +1,64 @@
+package service.book;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.file.Path;
+
+import entities.Climber;
+import entities.GameState;
+import service.memory.MappedTable;
+import service.rules.BoardGeometry;
+import service.rules.CanonicalKey;
+import service.rules.StateCanonicalizer;
+
+/*
+ * Booked action of the early states, served from a MappedTable file without loading it.
+ * States are keyed by their canonical key from the mover's perspective (see StateCanonicalizer),
+ * the action is stored for the canonical state and mapped back through the inverse transform.
+ * A booked roll is only the decision to roll now, whatever the dice show is resolved as usual.
+ * entry: key long, code int, games int, score float (share of those games the mover won)
+ */
+public class OpeningBook implements Closeable {
+    public static final int NO_ENTRY = -1;
+    static final int MAGIC = 0x4D434F42;
+    static final int VERSION = 1;
+    static final int ENTRY_BYTES = Long.BYTES + 2 * Integer.BYTES + Float.BYTES;
+    private static final String KIND = "an opening book";
+
+    private final MappedTable table;
+
+    private OpeningBook(MappedTable table) {
+        this.table = table;
+    }
+
+    public static OpeningBook open(Path file) throws IOException {
+        return new OpeningBook(MappedTable.open(file, MAGIC, VERSION, ENTRY_BYTES, KIND));
+    }
+
+    public int size() {
+        return table.size();
+    }
+
+    // the booked action for the climber to take now, NO_ENTRY when the state isn't in the book
+    public int lookup(GameState gameState, Climber climber) {
+        BoardGeometry geometry = BoardGeometry.of(gameState.getBoardSetup());
+        CanonicalKey canonicalKey = StateCanonicalizer.canonicalKey(gameState, climber, geometry);
+        int entry = table.find(canonicalKey.getKey());
+        if (entry == MappedTable.NOT_FOUND) {
+            return NO_ENTRY;
+        }
+        return StateCanonicalizer.transformCode(table.getInt(entry, Long.BYTES),
+                BoardGeometry.inverse(canonicalKey.getTransform()), geometry);
+    }
+
+    // self-play games behind the booked action of the state, 0 when it isn't in the book
+    public int games(GameState gameState, Climber climber) {
+        int entry = table.find(StateCanonicalizer.canonicalKey(gameState, climber).getKey());
+        return entry == MappedTable.NOT_FOUND ? 0 : table.getInt(entry, Long.BYTES + Integer.BYTES);
+    }
+
+    @Override
+    public void close() {
+        table.close();
+    }
+}
@@ -0,0 +1,174 @@
+package service.book;
+
+import static config.CommonConfiguration.OPENING_BOOK_MIN_GAMES;
+import static config.CommonConfiguration.OPENING_BOOK_TURNS;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import entities.BoardSetup;
+import entities.Climber;
+import entities.GameState;
+import service.BoardService;
+import service.PlayerService;
+import service.actions.ActionExecutor;
+import service.actions.RandomPlayout;
+import service.memory.MappedTable;
+import service.rules.ActionCodes;
+import service.rules.BoardGeometry;
+import service.rules.CanonicalKey;
+import service.rules.GameOverDetector;
+import service.rules.StateCanonicalizer;
+
+/*
+ * Builds the OpeningBook offline from self-play. Seeded games of random actions are played to the end through
+ * the action services, and every decision of the first OPENING_BOOK_TURNS turns is credited with the mover's
+ * share of the win, shared when several climbers end on the highest level.
+ * The players play RandomPlayout.pickAction: an action type at random, then the action within it.
+ * An action played in at least OPENING_BOOK_MIN_GAMES games can be booked, a state books its best scoring one.
+ * usage: OpeningBookBuilder <games> <seed> <file> [players]
+ */
+public class OpeningBookBuilder {
+    private final BoardSetup boardSetup;
+    private final int players;
+    private final long seed;
+    private final Map<Long, Map<Integer, ActionStats>> stats = new HashMap<>();
+    private long games = 0;
+
+    public OpeningBookBuilder(BoardSetup boardSetup, int players, long seed) {
+        this.boardSetup = boardSetup;
+        this.players = players;
+        this.seed = seed;
+    }
+
+    public static void main(String[] args) throws IOException {
+        long games = args.length > 0 ? Long.parseLong(args[0]) : 100_000;
+        long seed = args.length > 1 ? Long.parseLong(args[1]) : System.currentTimeMillis();
+        Path file = Path.of(args.length > 2 ? args[2] : "opening.book");
+        int players = args.length > 3 ? Integer.parseInt(args[3]) : 4;
+
+        System.out.println("Self-play of " + games + " games of " + players + " players from seed " + seed);
+        long start = System.nanoTime();
+        OpeningBookBuilder builder = new OpeningBookBuilder(BoardSetup.standard(), players, seed);
+        builder.play(games);
+        int booked = builder.write(file);
+        System.out.printf("%d states seen, %d booked in %s, %.1f s%n",
+                builder.stats.size(), booked, file, (System.nanoTime() - start) / 1e9);
+    }
+
+    public void play(long count) {
+        for (long i = 0; i < count; i++) {
+            playGame(games++);
+        }
+    }
+
+    public long getGames() {
+        return games;
+    }
+
+    // writes the book, returns the number of states booked
+    public int write(Path file) throws IOException {
+        List<Long> keys = new ArrayList<>();
+        for (Map.Entry<Long, Map<Integer, ActionStats>> state : stats.entrySet()) {
+            if (bestAction(state.getValue()) != null) {
+                keys.add(state.getKey());
+            }
+        }
+        keys.sort(Long::compareUnsigned);
+        ByteBuffer book = MappedTable.allocate(OpeningBook.MAGIC, OpeningBook.VERSION, OpeningBook.ENTRY_BYTES, keys.size());
+        for (long key : keys) {
+            Map.Entry<Integer, ActionStats> best = bestAction(stats.get(key));
+            book.putLong(key).putInt(best.getKey()).putInt(best.getValue().games).putFloat((float) best.getValue().score());
+        }
+        Files.write(file, book.array());
+        return keys.size();
+    }
+
+    private static Map.Entry<Integer, ActionStats> bestAction(Map<Integer, ActionStats> actions) {
+        Map.Entry<Integer, ActionStats> best = null;
+        for (Map.Entry<Integer, ActionStats> action : actions.entrySet()) {
+            if (action.getValue().games >= OPENING_BOOK_MIN_GAMES
+                && (best == null || action.getValue().score() > best.getValue().score())) {
+                best = action;
+            }
+        }
+        return best;
+    }
+
+    private void playGame(long index) {
+        Random random = new Random(GameState.mix(GameState.mix(seed) + index));
+        GameState gameState = new GameState();
+        gameState.setBoardSetup(boardSetup);
+        gameState.setOut(GameState.QUIET);
+        new PlayerService(gameState, random).initialisePlayers(players);
+        new BoardService(gameState).initialiseBoard();
+        BoardGeometry geometry = BoardGeometry.of(boardSetup);
+        ActionExecutor actionExecutor = new ActionExecutor(gameState, random);
+        GameOverDetector gameOverDetector = new GameOverDetector(gameState);
+
+        // decisions of the book turns: canonical key, canonical code and the mover's slot
+        long[] keys = new long[16];
+        int[] codes = new int[16];
+        int[] slots = new int[16];
+        int decisions = 0;
+        int turn = 0;
+        Climber climber = gameState.getPlayersList().get(0);
+        climber.resetActions();
+        while (!gameOverDetector.isGameOver()) {
+            int code = RandomPlayout.pickAction(gameState, climber, random);
+            if (code == RandomPlayout.NO_ACTION) {
+                turn++;
+                gameOverDetector.turnEnded();
+                climber = gameState.getPlayersList().get(turn % players);
+                climber.resetActions();
+                continue;
+            }
+            if (turn < OPENING_BOOK_TURNS) {
+                CanonicalKey canonicalKey = StateCanonicalizer.canonicalKey(gameState, climber, geometry);
+                if (decisions == keys.length) {
+                    keys = Arrays.copyOf(keys, decisions * 2);
+                    codes = Arrays.copyOf(codes, decisions * 2);
+                    slots = Arrays.copyOf(slots, decisions * 2);
+                }
+                keys[decisions] = canonicalKey.getKey();
+                // a roll is booked as the decision to roll, whatever the dice show
+                int bookedCode = ActionCodes.type(code) >= ActionCodes.ROLL ? ActionCodes.roll() : code;
+                codes[decisions] = StateCanonicalizer.transformCode(bookedCode, canonicalKey.getTransform(), geometry);
+                slots[decisions++] = climber.getSlot();
+            }
+            if (!actionExecutor.perform(climber, code)) {
+                throw new IllegalStateException("Legal action " + ActionCodes.toString(code) + " was rejected in game " + index);
+            }
+        }
+
+        List<Climber> leaders = gameOverDetector.getLeaders();
+        for (int i = 0; i < decisions; i++) {
+            boolean won = leaders.contains(gameState.getPlayersList().get(slots[i]));
+            stats.computeIfAbsent(keys[i], key -> new HashMap<>(4))
+                .computeIfAbsent(codes[i], code -> new ActionStats())
+                .add(won ? 1.0 / leaders.size() : 0);
+        }
+    }
+
+    private static class ActionStats {
+        int games = 0;
+        double wins = 0;
+
+        void add(double share) {
+            games++;
+            wins += share;
+        }
+
+        double score() {
+            return wins / games;
+        }
+    }
+}
@@ -0,0 +1,45 @@
+package service.codec;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+
+// reads the bit fields of a BitOutput
+public class BitInput {
+    private final InputStream in;
+    private long buffer = 0;
+    private int bits = 0;
+
+    public BitInput(InputStream in) {
+        this.in = in;
+    }
+
+    public int read(int width) throws IOException {
+        while (bits < width) {
+            int next = in.read();
+            if (next < 0) {
+                throw new EOFException("Bit stream ended");
+            }
+            buffer = buffer << 8 | next;
+            bits += 8;
+        }
+        bits -= width;
+        return (int) (buffer >>> bits & (1L << width) - 1);
+    }
+
+    public int readNibbleVarInt() throws IOException {
+        int value = 0;
+        int shift = 0;
+        while (true) {
+            int group = read(4);
+            value |= (group & 0x7) << shift;
+            if ((group & 0x8) == 0) {
+                return value;
+            }
+            shift += 3;
+            if (shift > 30) {
+                throw new IllegalArgumentException("Malformed nibble varint");
+            }
+        }
+    }
+}
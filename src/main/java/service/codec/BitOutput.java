@@ -0,0 +1,46 @@
+package service.codec;
+
+import java.io.IOException;
+import java.io.OutputStream;
+
+// writes bit fields most significant bit first, the last byte is padded with zero bits on flush
+public class BitOutput {
+    private final OutputStream out;
+    private long buffer = 0;
+    private int bits = 0;
+    private long bytesWritten = 0;
+
+    public BitOutput(OutputStream out) {
+        this.out = out;
+    }
+
+    public void write(int value, int width) throws IOException {
+        buffer = buffer << width | (value & (1L << width) - 1);
+        bits += width;
+        while (bits >= 8) {
+            bits -= 8;
+            out.write((int) (buffer >>> bits) & 0xFF);
+            bytesWritten++;
+        }
+    }
+
+    // unsigned value in groups of 3 bits, each followed by a bit telling whether another group follows
+    public void writeNibbleVarInt(int value) throws IOException {
+        while ((value & ~0x7) != 0) {
+            write(0x8 | value & 0x7, 4);
+            value >>>= 3;
+        }
+        write(value, 4);
+    }
+
+    public void flush() throws IOException {
+        if (bits > 0) {
+            write(0, 8 - bits);
+        }
+        out.flush();
+    }
+
+    public long getBytesWritten() {
+        return bytesWritten;
+    }
+}
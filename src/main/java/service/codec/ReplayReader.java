@@ -0,0 +1,144 @@
+package service.codec;
+
+import static config.CommonConfiguration.BLANK;
+import static config.CommonConfiguration.GRAPPLE;
+import static config.CommonConfiguration.WIND;
+import static service.codec.VarInts.unZigZag;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.List;
+
+import entities.BoardSetup;
+import entities.ClimberColour;
+import entities.Cube;
+import entities.GameState;
+import entities.Piece;
+import entities.Position;
+import entities.PowerCard;
+import service.rules.ActionCodes;
+import service.rules.BoardGeometry;
+import service.rules.ColumnLayout;
+
+// reads back a ReplayWriter stream, the starting state first, then one action or END_TURN per next
+public class ReplayReader {
+    // not an ActionCodes code, every action type is above 0
+    public static final int END_TURN = 0;
+
+    private final BitInput in;
+    private final BoardGeometry geometry;
+    private final GameState initialState = new GameState();
+    private int lastColumn = 0;
+    private int code = END_TURN;
+    private String diceFace;
+
+    public ReplayReader(InputStream stream) throws IOException {
+        this.in = new BitInput(stream);
+        int version = in.read(4);
+        if (version != ReplayWriter.VERSION) {
+            throw new IllegalArgumentException("Unknown replay version " + version);
+        }
+        int width = in.readNibbleVarInt();
+        int depth = in.readNibbleVarInt();
+        int levels = in.readNibbleVarInt();
+        geometry = BoardGeometry.of(width, depth, levels);
+        // the seats aren't needed once the players sit
+        BoardSetup standard = BoardSetup.standard();
+        if (width != standard.getWidth() || depth != standard.getDepth() || levels != standard.getCubeSupply() + 1) {
+            initialState.setBoardSetup(BoardSetup.scaled(width, depth, levels - 1));
+        }
+
+        int[] heights = new int[geometry.columns()];
+        int cubes = in.readNibbleVarInt();
+        for (int id = 0; id < cubes; id++) {
+            int column = readColumn();
+            int index = geometry.columnIndex(column);
+            Position position = ActionCodes.toPosition(column, heights[index]);
+            Piece below = initialState.getPositionPieceMap().get(ActionCodes.toPosition(column, heights[index] - 1));
+            if (below != null) {
+                ((Cube) below).setOnTop(false);
+            }
+            initialState.getPositionPieceMap().put(position, new Cube(initialState.nextCubeId(), position, "COMPUTER", true));
+            heights[index]++;
+        }
+
+        int players = in.readNibbleVarInt();
+        for (int i = 0; i < players; i++) {
+            int id = in.readNibbleVarInt();
+            int column = readColumn();
+            ClimberColour colour = ClimberColour.values()[in.readNibbleVarInt()];
+            int cubesLeft = in.readNibbleVarInt();
+            List<PowerCard> cards = new ArrayList<>();
+            for (PowerCard card : PowerCard.values()) {
+                if (in.read(1) == 1) {
+                    cards.add(card);
+                }
+            }
+            initialState.addPlayer(id, cubesLeft, ActionCodes.toPosition(column, heights[geometry.columnIndex(column)]), colour, cards);
+        }
+        ColumnLayout.track(initialState);
+    }
+
+    public GameState getInitialState() {
+        return initialState;
+    }
+
+    public BoardGeometry getGeometry() {
+        return geometry;
+    }
+
+    // reads the next action or end of turn, false at the end of the replay
+    public boolean next() throws IOException {
+        int symbol = in.read(ReplayWriter.SYMBOL_BITS);
+        diceFace = null;
+        switch (symbol) {
+            case ReplayWriter.END:
+                if (in.read(1) == 1) {
+                    return false;
+                }
+                code = END_TURN;
+                break;
+            case ReplayWriter.BUILD_ONE:
+                code = ActionCodes.build(readColumn());
+                break;
+            case ReplayWriter.BUILD_TWO:
+                int first = readColumn();
+                code = ActionCodes.build(first, readColumn());
+                break;
+            case ReplayWriter.MOVE:
+                code = ActionCodes.move(readColumn());
+                break;
+            case ReplayWriter.ROLL_BLANK:
+                code = ActionCodes.roll();
+                diceFace = BLANK;
+                break;
+            case ReplayWriter.ROLL_NO_GRAPPLE:
+                code = ActionCodes.roll();
+                diceFace = GRAPPLE;
+                break;
+            case ReplayWriter.GRAPPLE_TO:
+                code = ActionCodes.grapple(readColumn());
+                diceFace = GRAPPLE;
+                break;
+            default:
+                code = ActionCodes.wind(in.read(2));
+                diceFace = WIND;
+        }
+        return true;
+    }
+
+    public int getCode() {
+        return code;
+    }
+
+    // face of the dice for roll, grapple and wind actions, null otherwise
+    public String getDiceFace() {
+        return diceFace;
+    }
+
+    private int readColumn() throws IOException {
+        lastColumn += unZigZag(in.readNibbleVarInt());
+        return geometry.columnCode(lastColumn);
+    }
+}
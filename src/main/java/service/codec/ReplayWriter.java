@@ -0,0 +1,151 @@
+package service.codec;
+
+import static config.CommonConfiguration.CUBE_PIECE;
+import static config.CommonConfiguration.GRAPPLE;
+import static service.codec.VarInts.zigZag;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+
+import entities.Cube;
+import entities.GameState;
+import entities.Piece;
+import entities.PlayerTable;
+import entities.PowerCard;
+import service.rules.ActionCodes;
+import service.rules.BoardGeometry;
+
+/*
+ * Streams a game as a compact bit packed replay, also used for action journals.
+ * Columns are written as the zigzag delta of their column index to the column written before, in nibble varints,
+ * most operands are a few columns away from the last one.
+ * header : version 4 bits, board width, depth and levels, cube count then the column of every cube in id order,
+ *          player count then per player id, seat column, colour ordinal, cubes left and one bit per PowerCard
+ * action : symbol 3 bits, the dice face is part of the symbol
+ *          BUILD_ONE column | BUILD_TWO column column | MOVE column | ROLL_BLANK | ROLL_NO_GRAPPLE
+ *          | GRAPPLE column | WIND direction 2 bits | END 1 bit, 0 for the end of a turn, 1 closes the replay
+ * Every end of turn is written, a turn without actions too, so the reader can tell whose turn it is.
+ */
+public class ReplayWriter implements Closeable {
+    static final int VERSION = 2;
+    static final int END = 0;
+    static final int BUILD_ONE = 1;
+    static final int BUILD_TWO = 2;
+    static final int MOVE = 3;
+    static final int ROLL_BLANK = 4;
+    static final int ROLL_NO_GRAPPLE = 5;
+    static final int GRAPPLE_TO = 6;
+    static final int WIND_TO = 7;
+    static final int SYMBOL_BITS = 3;
+
+    private final OutputStream stream;
+    private final BitOutput out;
+    private final BoardGeometry geometry;
+    private int lastColumn = 0;
+    private boolean turnOpen = false;
+
+    public ReplayWriter(OutputStream stream, GameState initialState) throws IOException {
+        this(stream, initialState, BoardGeometry.of(initialState.getBoardSetup()));
+    }
+
+    public ReplayWriter(OutputStream stream, GameState initialState, BoardGeometry geometry) throws IOException {
+        this.stream = stream;
+        this.out = new BitOutput(stream);
+        this.geometry = geometry;
+        out.write(VERSION, 4);
+        out.writeNibbleVarInt(geometry.width());
+        out.writeNibbleVarInt(geometry.depth());
+        out.writeNibbleVarInt(geometry.levels());
+
+        List<Cube> cubes = new ArrayList<>();
+        for (Piece piece : initialState.getPositionPieceMap().values()) {
+            if (piece.getPieceType().equals(CUBE_PIECE)) {
+                cubes.add((Cube) piece);
+            }
+        }
+        // in id order every cube lands on the one built before it in its column
+        cubes.sort(Comparator.comparingInt(Cube::getId));
+        out.writeNibbleVarInt(cubes.size());
+        for (Cube cube : cubes) {
+            writeColumn(ActionCodes.columnOf(cube.getPosition()));
+        }
+
+        PlayerTable players = initialState.getPlayerTable();
+        out.writeNibbleVarInt(players.size());
+        for (int slot = 0; slot < players.size(); slot++) {
+            out.writeNibbleVarInt(players.get(slot).getId());
+            writeColumn(ActionCodes.cellColumn(players.getCell(slot)));
+            out.writeNibbleVarInt(players.get(slot).getColour().ordinal());
+            out.writeNibbleVarInt(Math.max(0, players.getCubesRemaining(slot)));
+            for (PowerCard card : PowerCard.values()) {
+                out.write((int) (players.getPowerCardMask(slot) >>> card.ordinal()) & 1, 1);
+            }
+        }
+    }
+
+    // an ActionCodes action, the dice face tells a blank roll from a grapple without space
+    public void writeAction(int code, String diceFace) throws IOException {
+        turnOpen = true;
+        switch (ActionCodes.type(code)) {
+            case ActionCodes.BUILD:
+                out.write(ActionCodes.hasSecondColumn(code) ? BUILD_TWO : BUILD_ONE, SYMBOL_BITS);
+                writeColumn(ActionCodes.firstColumn(code));
+                if (ActionCodes.hasSecondColumn(code)) {
+                    writeColumn(ActionCodes.secondColumn(code));
+                }
+                break;
+            case ActionCodes.MOVE:
+                out.write(MOVE, SYMBOL_BITS);
+                writeColumn(ActionCodes.firstColumn(code));
+                break;
+            case ActionCodes.ROLL:
+                out.write(GRAPPLE.equals(diceFace) ? ROLL_NO_GRAPPLE : ROLL_BLANK, SYMBOL_BITS);
+                break;
+            case ActionCodes.GRAPPLE:
+                out.write(GRAPPLE_TO, SYMBOL_BITS);
+                writeColumn(ActionCodes.firstColumn(code));
+                break;
+            case ActionCodes.WIND:
+                out.write(WIND_TO, SYMBOL_BITS);
+                out.write(ActionCodes.direction(code), 2);
+                break;
+            default:
+                throw new IllegalArgumentException("Not an action code " + Integer.toHexString(code));
+        }
+    }
+
+    public void endTurn() throws IOException {
+        out.write(END, SYMBOL_BITS);
+        out.write(0, 1);
+        turnOpen = false;
+    }
+
+    private void writeColumn(int column) throws IOException {
+        int index = geometry.columnIndex(column);
+        if (index == BoardGeometry.OFF_BOARD) {
+            throw new IllegalArgumentException("Column off the board " + ActionCodes.gridX(column) + "," + ActionCodes.gridZ(column));
+        }
+        out.writeNibbleVarInt(zigZag(index - lastColumn));
+        lastColumn = index;
+    }
+
+    public long getBytesWritten() {
+        return out.getBytesWritten();
+    }
+
+    // ends a turn with actions still open, writes the closing END and pads the last byte
+    @Override
+    public void close() throws IOException {
+        if (turnOpen) {
+            endTurn();
+        }
+        out.write(END, SYMBOL_BITS);
+        out.write(1, 1);
+        out.flush();
+        stream.close();
+    }
+}
@@ -0,0 +1,67 @@
+package service.codec;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.ByteBuffer;
+
+// LEB128 style variable length integers, small values take a single byte
+public final class VarInts {
+
+    private VarInts() {
+    }
+
+    public static void writeVarInt(ByteArrayOutputStream out, int value) {
+        while ((value & ~0x7F) != 0) {
+            out.write((value & 0x7F) | 0x80);
+            value >>>= 7;
+        }
+        out.write(value);
+    }
+
+    public static void writeVarLong(ByteArrayOutputStream out, long value) {
+        while ((value & ~0x7FL) != 0) {
+            out.write((int) (value & 0x7F) | 0x80);
+            value >>>= 7;
+        }
+        out.write((int) value);
+    }
+
+    public static int readVarInt(ByteBuffer in) {
+        int value = 0;
+        int shift = 0;
+        while (true) {
+            byte b = in.get();
+            value |= (b & 0x7F) << shift;
+            if ((b & 0x80) == 0) {
+                return value;
+            }
+            shift += 7;
+            if (shift > 28) {
+                throw new IllegalArgumentException("Malformed varint");
+            }
+        }
+    }
+
+    public static long readVarLong(ByteBuffer in) {
+        long value = 0;
+        int shift = 0;
+        while (true) {
+            byte b = in.get();
+            value |= (long) (b & 0x7F) << shift;
+            if ((b & 0x80) == 0) {
+                return value;
+            }
+            shift += 7;
+            if (shift > 63) {
+                throw new IllegalArgumentException("Malformed varlong");
+            }
+        }
+    }
+
+    public static int zigZag(int value) {
+        return (value << 1) ^ (value >> 31);
+    }
+
+    public static int unZigZag(int value) {
+        return (value >>> 1) ^ -(value & 1);
+    }
+}
@@ -0,0 +1,137 @@
+package service.endgame;
+
+import static config.CommonConfiguration.MAXIMUM_BUILD_CAPACITY;
+
+import entities.Climber;
+import entities.GameState;
+import entities.PlayerTable;
+import service.rules.ActionCodes;
+import service.rules.BoardGeometry;
+import service.rules.CanonicalKey;
+import service.rules.ColumnLayout;
+
+/*
+ * The part of a game that decides how it ends: column heights, the column of every climber, the cubes in every
+ * hand and on the table, whose turn it is and which actions that player has left. Climbers stand on top of
+ * their column, the climber objects of the game only mark the occupied columns of the layout.
+ * The canonical key is the smallest hash over the symmetries of the board, like StateCanonicalizer's,
+ * over this state alone so positions of any game and any solver thread key the same.
+ */
+class EndgamePosition {
+    private static final long CUBE_TAG = 1L << 60;
+    private static final long CLIMBER_TAG = 2L << 60;
+    private static final long TURN_TAG = 3L << 60;
+    private static final long SUPPLY_TAG = 4L << 60;
+
+    final ColumnLayout layout;
+    final Climber[] climbers;
+    final int[] columns;
+    final int[] hands;
+    int supplyLeft;
+    int mover;
+    int actions;
+
+    private EndgamePosition(ColumnLayout layout, Climber[] climbers, int[] columns, int[] hands, int supplyLeft, int mover, int actions) {
+        this.layout = layout;
+        this.climbers = climbers;
+        this.columns = columns;
+        this.hands = hands;
+        this.supplyLeft = supplyLeft;
+        this.mover = mover;
+        this.actions = actions;
+    }
+
+    static EndgamePosition of(GameState gameState, Climber mover) {
+        PlayerTable players = gameState.getPlayerTable();
+        Climber[] climbers = new Climber[players.size()];
+        int[] columns = new int[players.size()];
+        int[] hands = new int[players.size()];
+        for (int slot = 0; slot < players.size(); slot++) {
+            climbers[slot] = players.get(slot);
+            columns[slot] = ActionCodes.cellColumn(players.getCell(slot));
+            hands[slot] = Math.max(0, players.getCubesRemaining(slot));
+        }
+        return new EndgamePosition(ColumnLayout.of(gameState), climbers, columns, hands,
+                gameState.getBoardSetup().getCubeSupply() - gameState.getUsedCubes(), mover.getSlot(), players.getActionFlags(mover.getSlot()));
+    }
+
+    EndgamePosition copy() {
+        return new EndgamePosition(layout.copy(), climbers, columns.clone(), hands.clone(), supplyLeft, mover, actions);
+    }
+
+    BoardGeometry geometry() {
+        return layout.geometry();
+    }
+
+    int level(int slot) {
+        return layout.height(columns[slot]);
+    }
+
+    boolean has(int action) {
+        return (actions & action) != 0;
+    }
+
+    int cubesToBuild() {
+        return Math.max(0, Math.min(Math.min(supplyLeft, hands[mover]), MAXIMUM_BUILD_CAPACITY));
+    }
+
+    // cubes that can still be built, as GameOverDetector counts them
+    int cubesLeft() {
+        int inHands = 0;
+        for (int hand : hands) {
+            inHands += hand;
+        }
+        return Math.max(0, Math.min(supplyLeft, inHands));
+    }
+
+    void build(int column) {
+        layout.addCube(column);
+        supplyLeft--;
+        hands[mover]--;
+    }
+
+    void place(int slot, int column) {
+        layout.setOccupant(columns[slot], null);
+        columns[slot] = column;
+        layout.setOccupant(column, climbers[slot]);
+    }
+
+    // every climber onto its new column at once, as the wind shifts them
+    void shift(int[] destinations) {
+        for (int slot = 0; slot < columns.length; slot++) {
+            layout.setOccupant(columns[slot], null);
+        }
+        for (int slot = 0; slot < columns.length; slot++) {
+            columns[slot] = destinations[slot];
+            layout.setOccupant(columns[slot], climbers[slot]);
+        }
+    }
+
+    CanonicalKey canonicalKey() {
+        BoardGeometry geometry = geometry();
+        long bestKey = 0;
+        int bestTransform = -1;
+        for (int transform = 0; transform < BoardGeometry.TRANSFORMS; transform++) {
+            if (!geometry.isSymmetry(transform)) {
+                continue;
+            }
+            long key = GameState.mix(SUPPLY_TAG | supplyLeft) + GameState.mix(TURN_TAG | (long) mover << 8 | actions);
+            for (int index = 0; index < layout.size(); index++) {
+                int height = layout.heightAt(index);
+                if (height > 0) {
+                    key += GameState.mix(CUBE_TAG | (long) geometry.transformColumn(transform, index) << 8 | height);
+                }
+            }
+            for (int slot = 0; slot < columns.length; slot++) {
+                int index = layout.index(columns[slot]);
+                long column = index == BoardGeometry.OFF_BOARD ? 0xFFFFL : geometry.transformColumn(transform, index);
+                key += GameState.mix(CLIMBER_TAG | (long) slot << 48 | (long) hands[slot] << 24 | column);
+            }
+            if (bestTransform < 0 || Long.compareUnsigned(key, bestKey) < 0) {
+                bestKey = key;
+                bestTransform = transform;
+            }
+        }
+        return new CanonicalKey(bestKey, bestTransform);
+    }
+}
@@ -0,0 +1,326 @@
+package service.endgame;
+
+import static config.CommonConfiguration.BLANK;
+import static config.CommonConfiguration.ENDGAME_CUBES_LEFT;
+import static config.CommonConfiguration.GRAPPLE;
+import static config.CommonConfiguration.WIND;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.IntStream;
+
+import entities.BoardSetup;
+import entities.Climber;
+import entities.GameState;
+import entities.PlayerTable;
+import service.actions.RollDiceActionService;
+import service.memory.MappedTable;
+import service.rules.ActionCodes;
+import service.rules.BoardGeometry;
+import service.rules.CanonicalKey;
+import service.rules.GameRules;
+import service.rules.StateCanonicalizer;
+import service.scenario.Scenario;
+import service.scenario.ScenarioGenerator;
+import service.scenario.ScenarioSpec;
+
+/*
+ * Exact outcome of late positions, searched through to the end of the game once few cubes are left.
+ * - every player takes the action that maximises its own share of the win, ties go to the first action found,
+ * - a roll is a chance node over the faces of RollDiceActionService.diceValues, after GRAPPLE and WIND
+ *   the roller takes its best target or direction,
+ * - a turn ends once the mover has no legal action left, as in LegalActionService, and the game ends
+ *   at the end of a turn as in GameOverDetector, the climbers on the highest level sharing the win.
+ * Positions are solved back from the end of the game, every decision once under its canonical key, the branches
+ * of a root in parallel sharing what each other solved. The game always reaches its end: every round a player
+ * holding cubes has to build one, unless nothing can be built, which ends the game.
+ * The solved decisions are written as an EndgameTablebase.
+ * usage: EndgameSolver <positions> <seed> <file> [players cubes left]
+ */
+public class EndgameSolver {
+    private static final String[] FACES = {GRAPPLE, BLANK, WIND};
+    private static final long FACE_TAG = 7L << 60;
+
+    private final Map<Long, Solved> solved = new ConcurrentHashMap<>();
+
+    public static void main(String[] args) throws IOException {
+        int positions = args.length > 0 ? Integer.parseInt(args[0]) : 100;
+        long seed = args.length > 1 ? Long.parseLong(args[1]) : System.currentTimeMillis();
+        Path file = Path.of(args.length > 2 ? args[2] : "endgame.tablebase");
+        int players = args.length > 3 ? Integer.parseInt(args[3]) : 2;
+        int cubesLeft = args.length > 4 ? Integer.parseInt(args[4]) : ENDGAME_CUBES_LEFT;
+
+        System.out.println("Solving " + positions + " endgames of " + players + " players with " + cubesLeft + " cubes left, seed " + seed);
+        long start = System.nanoTime();
+        EndgameSolver solver = new EndgameSolver();
+        int solvedRoots = 0;
+        for (Scenario scenario : endgames(positions, seed, players, cubesLeft)) {
+            Climber mover = scenario.getGameState().getPlayersList().get(scenario.getPlayerTurn());
+            solver.solve(scenario.getGameState(), mover);
+            solvedRoots++;
+        }
+        int entries = solver.write(file);
+        System.out.printf("%d positions, %d decisions in %s, %.1f s%n", solvedRoots, entries, file, (System.nanoTime() - start) / 1e9);
+    }
+
+    // generated positions with at most cubesLeft cubes left that aren't over yet
+    public static List<Scenario> endgames(int count, long seed, int players, int cubesLeft) {
+        BoardSetup boardSetup = BoardSetup.standard();
+        int inHands = boardSetup.cubesPerPlayer(players) * players;
+        double density = (double) (inHands - cubesLeft) / inHands;
+        ScenarioGenerator generator = new ScenarioGenerator(new ScenarioSpec(boardSetup, players, inHands, density, 2, 2), seed);
+        List<Scenario> endgames = new ArrayList<>();
+        for (long index = 0; endgames.size() < count && index < 20L * count; index++) {
+            Scenario scenario = generator.generate(index);
+            GameState gameState = scenario.getGameState();
+            EndgamePosition position = EndgamePosition.of(gameState, gameState.getPlayersList().get(scenario.getPlayerTurn()));
+            if (position.cubesLeft() > 0 && position.cubesLeft() <= cubesLeft && !GameRules.buildColumns(position.layout).isEmpty()) {
+                endgames.add(scenario);
+            }
+        }
+        return endgames;
+    }
+
+    // share of the win of every climber by slot, with every player playing perfectly from here
+    public double[] solve(GameState gameState, Climber mover) {
+        EndgamePosition position = EndgamePosition.of(gameState, mover);
+        CanonicalKey canonicalKey = position.canonicalKey();
+        Solved known = solved.get(canonicalKey.getKey());
+        if (known != null) {
+            return known.values.clone();
+        }
+        // the root's actions in parallel, everything below them on the thread that reached it first
+        List<Integer> actions = legalActions(position);
+        if (actions.isEmpty()) {
+            return endTurn(position).clone();
+        }
+        double[][] values = new double[actions.size()][];
+        IntStream.range(0, actions.size()).parallel().forEach(i -> values[i] = valueOf(position, actions.get(i), canonicalKey));
+        return decide(position, canonicalKey, actions, values).values.clone();
+    }
+
+    // the best action of the mover, NO_ACTION when the mover has none left
+    public int bestAction(GameState gameState, Climber mover) {
+        solve(gameState, mover);
+        CanonicalKey canonicalKey = EndgamePosition.of(gameState, mover).canonicalKey();
+        Solved known = solved.get(canonicalKey.getKey());
+        return known == null || known.code == EndgameTablebase.NO_ENTRY ? EndgameTablebase.NO_ENTRY
+            : StateCanonicalizer.transformCode(known.code, BoardGeometry.inverse(canonicalKey.getTransform()), BoardGeometry.of(gameState.getBoardSetup()));
+    }
+
+    public int getSolvedPositions() {
+        return solved.size();
+    }
+
+    // writes every solved decision, returns the number of entries
+    public int write(Path file) throws IOException {
+        List<Long> keys = new ArrayList<>(solved.keySet());
+        keys.sort(Long::compareUnsigned);
+        ByteBuffer tablebase = MappedTable.allocate(EndgameTablebase.MAGIC, EndgameTablebase.VERSION, EndgameTablebase.ENTRY_BYTES, keys.size());
+        for (long key : keys) {
+            Solved decision = solved.get(key);
+            tablebase.putLong(key).putInt(decision.code).putChar(EndgameTablebase.quantize(decision.values[decision.mover]));
+        }
+        Files.write(file, tablebase.array());
+        return keys.size();
+    }
+
+    private Solved solve(EndgamePosition position) {
+        CanonicalKey canonicalKey = position.canonicalKey();
+        Solved known = solved.get(canonicalKey.getKey());
+        if (known != null) {
+            return known;
+        }
+        List<Integer> actions = legalActions(position);
+        double[][] values = new double[actions.size()][];
+        for (int i = 0; i < actions.size(); i++) {
+            values[i] = valueOf(position, actions.get(i), canonicalKey);
+        }
+        return decide(position, canonicalKey, actions, values);
+    }
+
+    private Solved decide(EndgamePosition position, CanonicalKey canonicalKey, List<Integer> actions, double[][] values) {
+        int best = 0;
+        for (int i = 1; i < actions.size(); i++) {
+            if (values[i][position.mover] > values[best][position.mover]) {
+                best = i;
+            }
+        }
+        int code = StateCanonicalizer.transformCode(actions.get(best), canonicalKey.getTransform(), position.geometry());
+        Solved decision = new Solved(values[best], code, position.mover);
+        Solved raced = solved.putIfAbsent(canonicalKey.getKey(), decision);
+        return raced == null ? decision : raced;
+    }
+
+    // value of the position after the action, a roll being the expectation over the faces
+    private double[] valueOf(EndgamePosition position, int code, CanonicalKey canonicalKey) {
+        if (ActionCodes.type(code) != ActionCodes.ROLL) {
+            return valueAfter(apply(position, code));
+        }
+        double[] expectation = new double[position.columns.length];
+        for (int face = 0; face < FACES.length; face++) {
+            String faceValue = FACES[face];
+            double probability = (double) RollDiceActionService.diceValues.stream().filter(faceValue::equals).count()
+                / RollDiceActionService.diceValues.size();
+            List<Integer> choices = rollChoices(position, faceValue);
+            double[] best = null;
+            int bestChoice = 0;
+            for (int choice : choices) {
+                double[] value = valueAfter(apply(position, choice));
+                if (best == null || value[position.mover] > best[position.mover]) {
+                    best = value;
+                    bestChoice = choice;
+                }
+            }
+            // what to pick after the face, looked up separately from the decision to roll
+            if (choices.size() > 1) {
+                int canonicalChoice = StateCanonicalizer.transformCode(bestChoice, canonicalKey.getTransform(), position.geometry());
+                solved.putIfAbsent(faceKey(canonicalKey.getKey(), face), new Solved(best, canonicalChoice, position.mover));
+            }
+            for (int slot = 0; slot < expectation.length; slot++) {
+                expectation[slot] += probability * best[slot];
+            }
+        }
+        return expectation;
+    }
+
+    static long faceKey(long key, int face) {
+        return GameState.mix(key + GameState.mix(FACE_TAG | face));
+    }
+
+    static int faceIndex(String faceValue) {
+        for (int face = 0; face < FACES.length; face++) {
+            if (FACES[face].equals(faceValue)) {
+                return face;
+            }
+        }
+        throw new IllegalArgumentException("Unknown dice face " + faceValue);
+    }
+
+    private double[] valueAfter(EndgamePosition position) {
+        return legalActions(position).isEmpty() ? endTurn(position) : solve(position).values;
+    }
+
+    private double[] endTurn(EndgamePosition position) {
+        if (position.cubesLeft() == 0 || GameRules.buildColumns(position.layout).isEmpty()) {
+            return shares(position);
+        }
+        EndgamePosition next = position.copy();
+        next.mover = (position.mover + 1) % position.columns.length;
+        next.actions = PlayerTable.ALL_ACTIONS;
+        return valueAfter(next);
+    }
+
+    private static double[] shares(EndgamePosition position) {
+        int highest = 0;
+        for (int slot = 0; slot < position.columns.length; slot++) {
+            highest = Math.max(highest, position.level(slot));
+        }
+        int leaders = 0;
+        for (int slot = 0; slot < position.columns.length; slot++) {
+            leaders += position.level(slot) == highest ? 1 : 0;
+        }
+        double[] shares = new double[position.columns.length];
+        for (int slot = 0; slot < shares.length; slot++) {
+            shares[slot] = position.level(slot) == highest ? 1.0 / leaders : 0;
+        }
+        return shares;
+    }
+
+    // the codes LegalActionService enumerates, with a single roll code standing for the dice
+    private static List<Integer> legalActions(EndgamePosition position) {
+        List<Integer> actions = new ArrayList<>();
+        int cubesToBuild = position.has(PlayerTable.CAN_BUILD) ? position.cubesToBuild() : 0;
+        if (cubesToBuild > 0) {
+            for (int first : GameRules.buildColumns(position.layout)) {
+                if (cubesToBuild == 1) {
+                    actions.add(ActionCodes.build(first));
+                    continue;
+                }
+                position.layout.addCube(first);
+                List<Integer> secondColumns = GameRules.buildColumns(position.layout);
+                position.layout.removeCube(first);
+                if (secondColumns.isEmpty()) {
+                    actions.add(ActionCodes.build(first));
+                }
+                for (int second : secondColumns) {
+                    actions.add(ActionCodes.build(first, second));
+                }
+            }
+        }
+        if (position.has(PlayerTable.CAN_MOVE)) {
+            for (int destination : GameRules.moveDestinations(position.layout, position.columns[position.mover], position.level(position.mover))) {
+                actions.add(ActionCodes.move(destination));
+            }
+        }
+        if (position.has(PlayerTable.CAN_ROLL)) {
+            actions.add(ActionCodes.roll());
+        }
+        return actions;
+    }
+
+    private static List<Integer> rollChoices(EndgamePosition position, String face) {
+        List<Integer> choices = new ArrayList<>();
+        if (face.equals(GRAPPLE)) {
+            for (int destination : GameRules.grappleDestinations(position.layout, position.columns[position.mover], position.level(position.mover))) {
+                choices.add(ActionCodes.grapple(destination));
+            }
+        } else if (face.equals(WIND)) {
+            for (int direction = 0; direction < ActionCodes.WIND_DIRECTIONS.length; direction++) {
+                choices.add(ActionCodes.wind(direction));
+            }
+        }
+        // a blank, or a grapple with no space to grapple to, only uses up the roll
+        if (choices.isEmpty()) {
+            choices.add(ActionCodes.roll());
+        }
+        return choices;
+    }
+
+    private static EndgamePosition apply(EndgamePosition position, int code) {
+        EndgamePosition next = position.copy();
+        switch (ActionCodes.type(code)) {
+            case ActionCodes.BUILD:
+                int first = ActionCodes.firstColumn(code);
+                next.build(first);
+                if (ActionCodes.hasSecondColumn(code)) {
+                    next.build(ActionCodes.secondColumn(code));
+                }
+                next.actions &= ~PlayerTable.CAN_BUILD;
+                break;
+            case ActionCodes.MOVE:
+                next.place(next.mover, ActionCodes.firstColumn(code));
+                next.actions &= ~PlayerTable.CAN_MOVE;
+                break;
+            case ActionCodes.GRAPPLE:
+                next.place(next.mover, ActionCodes.firstColumn(code));
+                next.actions &= ~PlayerTable.CAN_ROLL;
+                break;
+            case ActionCodes.WIND:
+                next.shift(GameRules.windDestinations(next.layout, next.columns, ActionCodes.direction(code)));
+                next.actions &= ~PlayerTable.CAN_ROLL;
+                break;
+            default:
+                next.actions &= ~PlayerTable.CAN_ROLL;
+        }
+        return next;
+    }
+
+    private static class Solved {
+        final double[] values;
+        final int code;
+        final int mover;
+
+        Solved(double[] values, int code, int mover) {
+            this.values = values;
+            this.code = code;
+            this.mover = mover;
+        }
+    }
+}
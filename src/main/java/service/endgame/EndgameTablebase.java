@@ -0,0 +1,77 @@
+package service.endgame;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.file.Path;
+
+import entities.Climber;
+import entities.GameState;
+import service.memory.MappedTable;
+import service.rules.BoardGeometry;
+import service.rules.CanonicalKey;
+import service.rules.StateCanonicalizer;
+
+/*
+ * Decisions solved by the EndgameSolver, served from a MappedTable file without loading it.
+ * Decisions are keyed by the canonical key of their EndgamePosition, the action is stored for the canonical
+ * position and mapped back through the inverse transform. The choice after a GRAPPLE or WIND face has its own
+ * entry, the decision to roll only says to roll now.
+ * entry: key long, code int, mover's share of the win char (in 1/65535)
+ */
+public class EndgameTablebase implements Closeable {
+    public static final int NO_ENTRY = -1;
+    static final int MAGIC = 0x4D434554;
+    static final int VERSION = 1;
+    static final int ENTRY_BYTES = Long.BYTES + Integer.BYTES + Character.BYTES;
+    private static final int SHARE_SCALE = Character.MAX_VALUE;
+    private static final String KIND = "an endgame tablebase";
+
+    private final MappedTable table;
+
+    private EndgameTablebase(MappedTable table) {
+        this.table = table;
+    }
+
+    public static EndgameTablebase open(Path file) throws IOException {
+        return new EndgameTablebase(MappedTable.open(file, MAGIC, VERSION, ENTRY_BYTES, KIND));
+    }
+
+    static char quantize(double share) {
+        return (char) Math.round(share * SHARE_SCALE);
+    }
+
+    public int size() {
+        return table.size();
+    }
+
+    // the perfect action for the climber to take now, NO_ENTRY when the position wasn't solved
+    public int lookup(GameState gameState, Climber climber) {
+        CanonicalKey canonicalKey = EndgamePosition.of(gameState, climber).canonicalKey();
+        return code(table.find(canonicalKey.getKey()), canonicalKey, gameState);
+    }
+
+    // the best target or direction after the dice showed GRAPPLE or WIND, NO_ENTRY when not solved or there is no choice
+    public int lookupChoice(GameState gameState, Climber climber, String face) {
+        CanonicalKey canonicalKey = EndgamePosition.of(gameState, climber).canonicalKey();
+        return code(table.find(EndgameSolver.faceKey(canonicalKey.getKey(), EndgameSolver.faceIndex(face))), canonicalKey, gameState);
+    }
+
+    // the climber's share of the win with perfect play, NaN when the position wasn't solved
+    public double value(GameState gameState, Climber climber) {
+        int entry = table.find(EndgamePosition.of(gameState, climber).canonicalKey().getKey());
+        return entry == MappedTable.NOT_FOUND ? Double.NaN : (double) table.getChar(entry, Long.BYTES + Integer.BYTES) / SHARE_SCALE;
+    }
+
+    @Override
+    public void close() {
+        table.close();
+    }
+
+    private int code(int entry, CanonicalKey canonicalKey, GameState gameState) {
+        if (entry == MappedTable.NOT_FOUND) {
+            return NO_ENTRY;
+        }
+        return StateCanonicalizer.transformCode(table.getInt(entry, Long.BYTES),
+                BoardGeometry.inverse(canonicalKey.getTransform()), BoardGeometry.of(gameState.getBoardSetup()));
+    }
+}
@@ -0,0 +1,117 @@
+package service.eval;
+
+import service.rules.BoardGeometry;
+import service.rules.ColumnLayout;
+import service.rules.DistanceField;
+
+/*
+ * Heuristic features of a whole BoardBatch at once. The column features run on the JDK Vector API when
+ * the jdk.incubator.vector module is resolved (--add-modules jdk.incubator.vector), otherwise on plain loops.
+ * Features per state, at state * FEATURES:
+ * MAX_HEIGHT       height of the highest column
+ * TOTAL_HEIGHT     cubes on the board
+ * REACHABLE_TOPS   columns exactly one level above the climber
+ * LEVEL_LEAD       climber level minus the highest opponent level
+ * CUBES_LEAD       climber cubes remaining minus the most any opponent has left
+ * LEVEL            climber level
+ * CLIMB_STEPS      columns next to the climber exactly one level above it
+ * SUMMIT_DISTANCE  fewest moves to the top of a highest column, other climbers not counted, UNREACHABLE_SUMMIT if none
+ */
+public class BatchEvaluator {
+    public static final int MAX_HEIGHT = 0;
+    public static final int TOTAL_HEIGHT = 1;
+    public static final int REACHABLE_TOPS = 2;
+    public static final int LEVEL_LEAD = 3;
+    public static final int CUBES_LEAD = 4;
+    public static final int LEVEL = 5;
+    public static final int CLIMB_STEPS = 6;
+    public static final int SUMMIT_DISTANCE = 7;
+    public static final int FEATURES = 8;
+    public static final int UNREACHABLE_SUMMIT = 16;
+
+    private final FeatureKernel kernel;
+
+    public BatchEvaluator() {
+        this(vectorApiAvailable());
+    }
+
+    public BatchEvaluator(boolean vectorized) {
+        this.kernel = vectorized ? new VectorFeatureKernel() : new ScalarFeatureKernel();
+    }
+
+    public static boolean vectorApiAvailable() {
+        return ModuleLayer.boot().findModule("jdk.incubator.vector").isPresent();
+    }
+
+    public boolean isVectorized() {
+        return kernel instanceof VectorFeatureKernel;
+    }
+
+    public float[] features(BoardBatch batch) {
+        return features(batch, true);
+    }
+
+    // the summit distance searches every state's board, it is left at 0 when nobody weighs it
+    private float[] features(BoardBatch batch, boolean summitDistance) {
+        float[] features = new float[batch.size * FEATURES];
+        kernel.columnFeatures(batch.heights, batch.columns(), batch.size, batch.levels, features);
+        BoardGeometry geometry = batch.geometry();
+        for (int state = 0; state < batch.size; state++) {
+            int out = state * FEATURES;
+            features[out + LEVEL_LEAD] = batch.levels[state] - batch.opponentLevels[state];
+            features[out + CUBES_LEAD] = batch.cubes[state] - batch.opponentCubes[state];
+            features[out + LEVEL] = batch.levels[state];
+            int index = geometry.columnIndex(batch.climberColumns[state]);
+            int steps = 0;
+            for (int direction = 0; direction < 4; direction++) {
+                int neighbour = geometry.columnNeighbour(index, direction);
+                if (neighbour != BoardGeometry.OFF_BOARD && batch.heights[state * batch.columns() + neighbour] == batch.levels[state] + 1) {
+                    steps++;
+                }
+            }
+            features[out + CLIMB_STEPS] = steps;
+        }
+        if (summitDistance) {
+            summitDistances(batch, features);
+        }
+        return features;
+    }
+
+    private static void summitDistances(BoardBatch batch, float[] features) {
+        BoardGeometry geometry = batch.geometry();
+        int columns = batch.columns();
+        DistanceField distanceField = null;
+        for (int state = 0; state < batch.size; state++) {
+            if (distanceField == null) {
+                distanceField = new DistanceField(new ColumnLayout(geometry), batch.climberColumns[state]);
+            }
+            int base = state * columns;
+            for (int index = 0; index < columns; index++) {
+                distanceField.setHeight(geometry.columnCode(index), batch.heights[base + index]);
+            }
+            distanceField.moveSource(batch.climberColumns[state]);
+            int maxHeight = (int) features[state * FEATURES + MAX_HEIGHT];
+            int distance = UNREACHABLE_SUMMIT;
+            for (int index = 0; index < columns; index++) {
+                if (batch.heights[base + index] == maxHeight) {
+                    distance = Math.min(distance, distanceField.turnsTo(geometry.columnCode(index)));
+                }
+            }
+            features[state * FEATURES + SUMMIT_DISTANCE] = distance;
+        }
+    }
+
+    // weighted sum of the features of every state
+    public float[] evaluate(BoardBatch batch, float[] weights) {
+        float[] features = features(batch, weights[SUMMIT_DISTANCE] != 0);
+        float[] scores = new float[batch.size];
+        for (int state = 0; state < batch.size; state++) {
+            float score = 0;
+            for (int feature = 0; feature < FEATURES; feature++) {
+                score += weights[feature] * features[state * FEATURES + feature];
+            }
+            scores[state] = score;
+        }
+        return scores;
+    }
+}
@@ -0,0 +1,93 @@
+package service.eval;
+
+import java.util.Arrays;
+
+import entities.Climber;
+import entities.GameState;
+import entities.PlayerTable;
+import service.rules.ActionCodes;
+import service.rules.BoardGeometry;
+import service.rules.ColumnLayout;
+
+/*
+ * Many states laid out contiguously for batch evaluation, each seen by the climber it is evaluated for:
+ * the column heights of state i at i * columns, and per state the climber's column and level, the highest
+ * level of its opponents, its cubes remaining and the most cubes an opponent has remaining.
+ */
+public class BoardBatch {
+    private final BoardGeometry geometry;
+    private final int columns;
+    int size = 0;
+    int[] heights;
+    int[] climberColumns;
+    int[] levels;
+    int[] opponentLevels;
+    int[] cubes;
+    int[] opponentCubes;
+
+    public BoardBatch(int capacity) {
+        this(capacity, BoardGeometry.standard());
+    }
+
+    public BoardBatch(int capacity, BoardGeometry geometry) {
+        this.geometry = geometry;
+        this.columns = geometry.columns();
+        heights = new int[capacity * columns];
+        climberColumns = new int[capacity];
+        levels = new int[capacity];
+        opponentLevels = new int[capacity];
+        cubes = new int[capacity];
+        opponentCubes = new int[capacity];
+    }
+
+    public int add(GameState gameState, Climber perspective) {
+        PlayerTable players = gameState.getPlayerTable();
+        int opponentLevel = 0;
+        int opponentCube = 0;
+        for (int slot = 0; slot < players.size(); slot++) {
+            if (slot != perspective.getSlot()) {
+                opponentLevel = Math.max(opponentLevel, ActionCodes.cellLevel(players.getCell(slot)));
+                opponentCube = Math.max(opponentCube, players.getCubesRemaining(slot));
+            }
+        }
+        return add(ColumnLayout.of(gameState, geometry), ActionCodes.cellColumn(perspective.getCell()),
+            ActionCodes.cellLevel(perspective.getCell()), opponentLevel, perspective.getTotalCubes(), opponentCube);
+    }
+
+    // a state that is only looked ahead to, given by its layout and the climber's numbers
+    public int add(ColumnLayout layout, int column, int level, int opponentLevel, int cubesRemaining, int opponentCubesRemaining) {
+        if (size == levels.length) {
+            int capacity = Math.max(1, size * 2);
+            heights = Arrays.copyOf(heights, capacity * columns);
+            climberColumns = Arrays.copyOf(climberColumns, capacity);
+            levels = Arrays.copyOf(levels, capacity);
+            opponentLevels = Arrays.copyOf(opponentLevels, capacity);
+            cubes = Arrays.copyOf(cubes, capacity);
+            opponentCubes = Arrays.copyOf(opponentCubes, capacity);
+        }
+        int state = size++;
+        layout.copyHeights(heights, state * columns);
+        climberColumns[state] = column;
+        levels[state] = level;
+        opponentLevels[state] = opponentLevel;
+        cubes[state] = cubesRemaining;
+        opponentCubes[state] = opponentCubesRemaining;
+        return state;
+    }
+
+    public void clear() {
+        size = 0;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public int columns() {
+        return columns;
+    }
+
+    BoardGeometry geometry() {
+        return geometry;
+    }
+}
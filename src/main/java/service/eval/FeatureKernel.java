@@ -0,0 +1,7 @@
+package service.eval;
+
+// features over the column heights of many states laid out one after another, see BoardBatch
+interface FeatureKernel {
+
+    void columnFeatures(int[] heights, int columns, int states, int[] levels, float[] features);
+}
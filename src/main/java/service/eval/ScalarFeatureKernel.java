@@ -0,0 +1,25 @@
+package service.eval;
+
+class ScalarFeatureKernel implements FeatureKernel {
+
+    @Override
+    public void columnFeatures(int[] heights, int columns, int states, int[] levels, float[] features) {
+        for (int state = 0; state < states; state++) {
+            int base = state * columns;
+            int target = levels[state] + 1;
+            int maxHeight = 0;
+            int totalHeight = 0;
+            int reachableTops = 0;
+            for (int i = base; i < base + columns; i++) {
+                int height = heights[i];
+                maxHeight = Math.max(maxHeight, height);
+                totalHeight += height;
+                reachableTops += height == target ? 1 : 0;
+            }
+            int out = state * BatchEvaluator.FEATURES;
+            features[out + BatchEvaluator.MAX_HEIGHT] = maxHeight;
+            features[out + BatchEvaluator.TOTAL_HEIGHT] = totalHeight;
+            features[out + BatchEvaluator.REACHABLE_TOPS] = reachableTops;
+        }
+    }
+}
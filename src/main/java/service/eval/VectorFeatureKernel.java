@@ -0,0 +1,42 @@
+package service.eval;
+
+import jdk.incubator.vector.IntVector;
+import jdk.incubator.vector.VectorOperators;
+import jdk.incubator.vector.VectorSpecies;
+
+// only loaded when the jdk.incubator.vector module is resolved, see BatchEvaluator
+class VectorFeatureKernel implements FeatureKernel {
+    private static final VectorSpecies<Integer> SPECIES = IntVector.SPECIES_PREFERRED;
+
+    @Override
+    public void columnFeatures(int[] heights, int columns, int states, int[] levels, float[] features) {
+        int loopBound = SPECIES.loopBound(columns);
+        for (int state = 0; state < states; state++) {
+            int base = state * columns;
+            int target = levels[state] + 1;
+            IntVector targets = IntVector.broadcast(SPECIES, target);
+            IntVector max = IntVector.zero(SPECIES);
+            IntVector sum = IntVector.zero(SPECIES);
+            int reachableTops = 0;
+            int i = 0;
+            for (; i < loopBound; i += SPECIES.length()) {
+                IntVector height = IntVector.fromArray(SPECIES, heights, base + i);
+                max = max.max(height);
+                sum = sum.add(height);
+                reachableTops += height.compare(VectorOperators.EQ, targets).trueCount();
+            }
+            int maxHeight = max.reduceLanes(VectorOperators.MAX);
+            int totalHeight = sum.reduceLanes(VectorOperators.ADD);
+            for (; i < columns; i++) {
+                int height = heights[base + i];
+                maxHeight = Math.max(maxHeight, height);
+                totalHeight += height;
+                reachableTops += height == target ? 1 : 0;
+            }
+            int out = state * BatchEvaluator.FEATURES;
+            features[out + BatchEvaluator.MAX_HEIGHT] = maxHeight;
+            features[out + BatchEvaluator.TOTAL_HEIGHT] = totalHeight;
+            features[out + BatchEvaluator.REACHABLE_TOPS] = reachableTops;
+        }
+    }
+}
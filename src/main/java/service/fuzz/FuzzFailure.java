@@ -0,0 +1,32 @@
+package service.fuzz;
+
+import java.util.List;
+
+public class FuzzFailure {
+    final long seed;
+    final List<FuzzStep> trace;
+    final String message;
+
+    FuzzFailure(long seed, List<FuzzStep> trace, String message) {
+        this.seed = seed;
+        this.trace = trace;
+        this.message = message;
+    }
+
+    public long getSeed() {
+        return seed;
+    }
+
+    public List<FuzzStep> getTrace() {
+        return trace;
+    }
+
+    public String getMessage() {
+        return message;
+    }
+
+    @Override
+    public String toString() {
+        return "seed " + seed + ": " + message + "\n  trace (" + trace.size() + " steps): " + trace;
+    }
+}
@@ -0,0 +1,52 @@
+package service.fuzz;
+
+import java.util.List;
+
+import entities.Position;
+import service.rules.ActionCodes;
+
+/*
+ * One action the fuzzer plays for the climber whose turn it is, in the form the action services take it.
+ * Steps don't depend on the state they were generated for, so any subsequence of a trace can be replayed.
+ */
+public class FuzzStep {
+    final int type;
+    final List<Position> positions;
+    final String direction;
+
+    FuzzStep(int type, List<Position> positions, String direction) {
+        this.type = type;
+        this.positions = positions;
+        this.direction = direction;
+    }
+
+    public int getType() {
+        return type;
+    }
+
+    public List<Position> getPositions() {
+        return positions;
+    }
+
+    public String getDirection() {
+        return direction;
+    }
+
+    @Override
+    public String toString() {
+        switch (type) {
+            case ActionCodes.BUILD:
+                return "BUILD " + positions;
+            case ActionCodes.MOVE:
+                return "MOVE " + positions;
+            case ActionCodes.ROLL:
+                return "BLANK";
+            case ActionCodes.GRAPPLE:
+                return "GRAPPLE " + positions;
+            case ActionCodes.WIND:
+                return "WIND " + direction;
+            default:
+                return "?" + type;
+        }
+    }
+}
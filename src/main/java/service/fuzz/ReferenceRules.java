@@ -0,0 +1,200 @@
+package service.fuzz;
+
+import static config.CommonConfiguration.CUBE_PIECE;
+import static config.CommonConfiguration.MAXIMUM_BUILD_CAPACITY;
+
+import java.util.ArrayDeque;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+
+import entities.BoardSetup;
+import entities.Climber;
+import entities.GameState;
+import entities.Piece;
+import entities.Position;
+import service.rules.ActionCodes;
+
+/*
+ * The rulebook written out a second time, as plainly as possible, for the fuzzer to hold the rule code against.
+ * It shares nothing with GameRules, ColumnLayout or BoardGeometry: heights are counted by looking up cube after
+ * cube in the positionPieceMap and occupants by scanning the climbers, into plain grids by grid coordinates.
+ * Meant to be obviously right rather than fast.
+ */
+final class ReferenceRules {
+    private static final int[] DX = {0, -1, 0, 1};
+    private static final int[] DZ = {1, 0, -1, 0};
+
+    private final GameState gameState;
+    private final Map<Position, Piece> positionPieceMap;
+    private final int minX;
+    private final int minZ;
+    private final int width;
+    private final int depth;
+    private final int[][] heights;
+    private final boolean[][] occupied;
+
+    ReferenceRules(GameState gameState) {
+        this.gameState = gameState;
+        this.positionPieceMap = gameState.getPositionPieceMap();
+        BoardSetup boardSetup = gameState.getBoardSetup();
+        this.width = boardSetup.getWidth();
+        this.depth = boardSetup.getDepth();
+        this.minX = -width / 2;
+        this.minZ = -depth / 2;
+        this.heights = new int[width][depth];
+        this.occupied = new boolean[width][depth];
+        for (int x = 0; x < width; x++) {
+            for (int z = 0; z < depth; z++) {
+                int column = ActionCodes.column(x + minX, z + minZ);
+                while (isCube(positionPieceMap.get(ActionCodes.toPosition(column, heights[x][z])))) {
+                    heights[x][z]++;
+                }
+            }
+        }
+        for (Climber climber : gameState.getPlayersList()) {
+            int x = ActionCodes.gridX(climber.getPosition());
+            int z = ActionCodes.gridZ(climber.getPosition());
+            if (onBoard(x, z)) {
+                occupied[x - minX][z - minZ] = true;
+            }
+        }
+    }
+
+    // every action code the climber may play, in no particular order
+    Set<Integer> legalActions(Climber climber) {
+        Set<Integer> actions = new HashSet<>();
+        int x = ActionCodes.gridX(climber.getPosition());
+        int z = ActionCodes.gridZ(climber.getPosition());
+        int level = ActionCodes.level(climber.getPosition());
+        if (climber.getCanBuild()) {
+            addBuilds(actions, climber);
+        }
+        if (climber.getCanMove()) {
+            addMoves(actions, x, z, level);
+        }
+        if (climber.getCanRoll()) {
+            actions.add(ActionCodes.roll());
+            for (int direction = 0; direction < 4; direction++) {
+                int toX = x + DX[direction];
+                int toZ = z + DZ[direction];
+                int height = height(toX, toZ);
+                if (onBoard(toX, toZ) && (height == level + 1 || height == level + 2) && !occupied(toX, toZ)) {
+                    actions.add(ActionCodes.grapple(ActionCodes.column(toX, toZ)));
+                }
+                actions.add(ActionCodes.wind(direction));
+            }
+        }
+        return actions;
+    }
+
+    private void addBuilds(Set<Integer> actions, Climber climber) {
+        int cubesLeft = gameState.getBoardSetup().getCubeSupply() - gameState.getUsedCubes();
+        int cubes = Math.min(Math.min(cubesLeft, climber.getTotalCubes()), MAXIMUM_BUILD_CAPACITY);
+        if (cubes <= 0) {
+            return;
+        }
+        for (int x = minX; x < minX + width; x++) {
+            for (int z = minZ; z < minZ + depth; z++) {
+                if (!canBuild(x, z)) {
+                    continue;
+                }
+                int first = ActionCodes.column(x, z);
+                if (cubes == 1) {
+                    actions.add(ActionCodes.build(first));
+                    continue;
+                }
+                // the second cube goes on the board with the first one already built
+                heights[x - minX][z - minZ]++;
+                boolean paired = false;
+                for (int secondX = minX; secondX < minX + width; secondX++) {
+                    for (int secondZ = minZ; secondZ < minZ + depth; secondZ++) {
+                        if (canBuild(secondX, secondZ)) {
+                            actions.add(ActionCodes.build(first, ActionCodes.column(secondX, secondZ)));
+                            paired = true;
+                        }
+                    }
+                }
+                heights[x - minX][z - minZ]--;
+                if (!paired) {
+                    actions.add(ActionCodes.build(first));
+                }
+            }
+        }
+    }
+
+    private void addMoves(Set<Integer> actions, int x, int z, int level) {
+        if (level == 0) {
+            // from the ground any free ground space
+            for (int toX = minX; toX < minX + width; toX++) {
+                for (int toZ = minZ; toZ < minZ + depth; toZ++) {
+                    if ((toX != x || toZ != z) && height(toX, toZ) == 0 && !occupied(toX, toZ)) {
+                        actions.add(ActionCodes.move(ActionCodes.column(toX, toZ)));
+                    }
+                }
+            }
+        } else {
+            // along the level, through cubes and climbers at that height
+            Set<Integer> seen = new HashSet<>();
+            ArrayDeque<int[]> queue = new ArrayDeque<>();
+            seen.add(ActionCodes.column(x, z));
+            queue.add(new int[]{x, z});
+            while (!queue.isEmpty()) {
+                int[] current = queue.poll();
+                for (int direction = 0; direction < 4; direction++) {
+                    int toX = current[0] + DX[direction];
+                    int toZ = current[1] + DZ[direction];
+                    if (!onBoard(toX, toZ) || height(toX, toZ) != level || !seen.add(ActionCodes.column(toX, toZ))) {
+                        continue;
+                    }
+                    queue.add(new int[]{toX, toZ});
+                    if (!occupied(toX, toZ)) {
+                        actions.add(ActionCodes.move(ActionCodes.column(toX, toZ)));
+                    }
+                }
+            }
+        }
+        // one level up or any number down next to the climber
+        for (int direction = 0; direction < 4; direction++) {
+            int toX = x + DX[direction];
+            int toZ = z + DZ[direction];
+            int height = height(toX, toZ);
+            if (onBoard(toX, toZ) && !occupied(toX, toZ) && (height == level + 1 || height < level)) {
+                actions.add(ActionCodes.move(ActionCodes.column(toX, toZ)));
+            }
+        }
+    }
+
+    // no building on or under climbers, no overhangs and no cubes cut off from the others
+    private boolean canBuild(int x, int z) {
+        if (!onBoard(x, z) || occupied(x, z)) {
+            return false;
+        }
+        if (height(x, z) > 0) {
+            return true;
+        }
+        for (int direction = 0; direction < 4; direction++) {
+            if (height(x + DX[direction], z + DZ[direction]) > 0) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    // 0 off the board
+    private int height(int x, int z) {
+        return onBoard(x, z) ? heights[x - minX][z - minZ] : 0;
+    }
+
+    private boolean occupied(int x, int z) {
+        return onBoard(x, z) && occupied[x - minX][z - minZ];
+    }
+
+    private boolean onBoard(int x, int z) {
+        return x >= minX && x < minX + width && z >= minZ && z < minZ + depth;
+    }
+
+    private static boolean isCube(Piece piece) {
+        return piece != null && piece.getPieceType().equals(CUBE_PIECE);
+    }
+}
@@ -0,0 +1,358 @@
+package service.fuzz;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.BooleanSupplier;
+
+import entities.BoardSetup;
+import entities.Climber;
+import entities.ClimberColour;
+import entities.GameState;
+import entities.Position;
+import service.BoardService;
+import service.actions.BuildActionService;
+import service.actions.MoveActionService;
+import service.actions.RollDiceActionService;
+import service.rules.ActionCodes;
+import service.rules.BoardGeometry;
+import service.rules.ColumnLayout;
+import service.rules.GameOverDetector;
+import service.rules.GameStateInvariants;
+import service.rules.LegalActionService;
+
+/*
+ * Plays random sequences of legal and illegal actions through the action services, one game per seed,
+ * spread over all cores. After every step it checks that
+ * - LegalActionService lists the same actions as ReferenceRules, a naive second reading of the rulebook,
+ * - an action is accepted exactly when the ReferenceRules allow it,
+ * - a rejected action leaves the state untouched,
+ * - GameStateInvariants hold,
+ * - the incremental GameOverDetector agrees with one built from scratch.
+ * A failing trace is shrunk to a minimal reproduction before it is reported.
+ */
+public class RuleFuzzer {
+    private static final String[] DIRECTIONS = {"W", "A", "S", "D", "X"};
+    private static final int MAXIMUM_SHRINK_REPLAYS = 2000;
+
+    private final int stepsPerGame;
+    private final AtomicLong stepsPlayed = new AtomicLong();
+    // shrinking replays the trace many times, within a campaign only the first failure is shrunk
+    private final AtomicBoolean failureShrunk = new AtomicBoolean();
+
+    public RuleFuzzer(int stepsPerGame) {
+        this.stepsPerGame = stepsPerGame;
+    }
+
+    public static void main(String[] args) throws InterruptedException {
+        int games = args.length > 0 ? Integer.parseInt(args[0]) : 1000;
+        int steps = args.length > 1 ? Integer.parseInt(args[1]) : 200;
+        long seed = args.length > 2 ? Long.parseLong(args[2]) : System.currentTimeMillis();
+
+        RuleFuzzer ruleFuzzer = new RuleFuzzer(steps);
+        long start = System.nanoTime();
+        List<FuzzFailure> failures = ruleFuzzer.runCampaign(seed, games);
+        long millis = (System.nanoTime() - start) / 1_000_000;
+        System.out.println("Fuzzed " + games + " games from seed " + seed + ", " + ruleFuzzer.getStepsPlayed()
+            + " steps in " + millis + " ms, " + failures.size() + " failures");
+        failures.forEach(System.out::println);
+    }
+
+    public List<FuzzFailure> runCampaign(long seed, int games) throws InterruptedException {
+        ExecutorService pool = Executors.newFixedThreadPool(Runtime.getRuntime().availableProcessors());
+        try {
+            List<Future<FuzzFailure>> futures = new ArrayList<>();
+            for (int i = 0; i < games; i++) {
+                long gameSeed = seed + i;
+                futures.add(pool.submit(() -> fuzz(gameSeed, () -> !failureShrunk.getAndSet(true))));
+            }
+            List<FuzzFailure> failures = new ArrayList<>();
+            for (Future<FuzzFailure> future : futures) {
+                FuzzFailure failure = future.get();
+                if (failure != null) {
+                    failures.add(failure);
+                }
+            }
+            return failures;
+        } catch (ExecutionException e) {
+            throw new IllegalStateException("Fuzzing task failed", e.getCause());
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    // plays one game, returns its shrunk failure or null when every step passed
+    public FuzzFailure fuzz(long seed) {
+        return fuzz(seed, () -> true);
+    }
+
+    private FuzzFailure fuzz(long seed, BooleanSupplier shrinkFailure) {
+        FuzzGame game = new FuzzGame(seed);
+        Random random = new Random(~seed);
+        List<FuzzStep> trace = new ArrayList<>();
+        for (int i = 0; i < stepsPerGame; i++) {
+            FuzzStep step = game.nextStep(random);
+            trace.add(step);
+            String failure = game.play(step);
+            stepsPlayed.incrementAndGet();
+            if (failure == null) {
+                continue;
+            }
+            if (shrinkFailure.getAsBoolean()) {
+                List<FuzzStep> shrunkTrace = shrink(seed, trace);
+                return new FuzzFailure(seed, shrunkTrace, replay(seed, shrunkTrace));
+            }
+            return new FuzzFailure(seed, trace, failure);
+        }
+        return null;
+    }
+
+    // replays the trace on the game of the seed, returns the first failure or null
+    public String replay(long seed, List<FuzzStep> trace) {
+        FuzzGame game = new FuzzGame(seed);
+        for (FuzzStep step : trace) {
+            String failure = game.play(step);
+            if (failure != null) {
+                return failure;
+            }
+        }
+        return null;
+    }
+
+    // delta debugging: keep dropping chunks of the trace as long as the rest still fails
+    List<FuzzStep> shrink(long seed, List<FuzzStep> trace) {
+        List<FuzzStep> current = trace;
+        int granularity = 2;
+        int replays = 0;
+        while (current.size() >= 2 && replays < MAXIMUM_SHRINK_REPLAYS) {
+            int chunk = (current.size() + granularity - 1) / granularity;
+            boolean reduced = false;
+            for (int start = 0; start < current.size() && replays < MAXIMUM_SHRINK_REPLAYS; start += chunk) {
+                List<FuzzStep> complement = new ArrayList<>(current.subList(0, start));
+                complement.addAll(current.subList(Math.min(start + chunk, current.size()), current.size()));
+                replays++;
+                if (replay(seed, complement) != null) {
+                    current = complement;
+                    granularity = Math.max(granularity - 1, 2);
+                    reduced = true;
+                    break;
+                }
+            }
+            if (!reduced) {
+                if (granularity >= current.size()) {
+                    break;
+                }
+                granularity = Math.min(current.size(), granularity * 2);
+            }
+        }
+        return current;
+    }
+
+    public long getStepsPlayed() {
+        return stepsPlayed.get();
+    }
+
+    private static class FuzzGame {
+        private final GameState gameState = new GameState();
+        private final BuildActionService buildActionService;
+        private final MoveActionService moveActionService;
+        private final RollDiceActionService rollDiceActionService;
+        private final LegalActionService legalActionService = new LegalActionService();
+        private final GameOverDetector gameOverDetector;
+        private final int numberOfPlayers;
+        private int currentPlayer = 0;
+
+        FuzzGame(long seed) {
+            Random random = new Random(seed);
+            gameState.setOut(GameState.QUIET);
+            // every fourth game on a larger board with up to eight players
+            if (random.nextInt(4) == 0) {
+                gameState.setBoardSetup(BoardSetup.scaled(8 + 2 * random.nextInt(5), 8 + 2 * random.nextInt(5), 68 + random.nextInt(200)));
+            }
+            new BoardService(gameState).initialiseBoard();
+            buildActionService = new BuildActionService(gameState);
+            moveActionService = new MoveActionService(gameState);
+            rollDiceActionService = new RollDiceActionService(gameState, random);
+
+            BoardSetup boardSetup = gameState.getBoardSetup();
+            List<Position> seats = boardSetup.getSeats();
+            numberOfPlayers = 2 + random.nextInt(seats.size() - 1);
+            int totalCubes = boardSetup.cubesPerPlayer(numberOfPlayers);
+            for (int i = 0; i < numberOfPlayers; i++) {
+                gameState.addPlayer(i, totalCubes, new Position(seats.get(i)), ClimberColour.values()[i], List.of());
+            }
+            gameOverDetector = new GameOverDetector(gameState);
+        }
+
+        String play(FuzzStep step) {
+            Climber climber = gameState.getPlayersList().get(currentPlayer);
+            Set<Integer> legalActions = new HashSet<>();
+            for (int action : legalActionService.enumerateLegalActions(gameState, climber)) {
+                legalActions.add(action);
+            }
+            Set<Integer> referenceActions = new ReferenceRules(gameState).legalActions(climber);
+            if (!legalActions.equals(referenceActions)) {
+                return "before " + step + " LegalActionService and the reference rules disagree on " + difference(legalActions, referenceActions);
+            }
+            int code = expectedCode(step, ColumnLayout.of(gameState));
+            boolean expected = code != -1 && referenceActions.contains(code);
+            long fingerprint = gameState.fingerprint();
+
+            boolean accepted;
+            try {
+                accepted = apply(step, climber);
+            } catch (RuntimeException e) {
+                return step + " threw " + e;
+            }
+            if (accepted != expected) {
+                return step + (accepted ? " accepted but not a legal action" : " rejected but a legal action");
+            }
+            if (!accepted && gameState.fingerprint() != fingerprint) {
+                return step + " rejected but changed the state";
+            }
+            List<String> violations = GameStateInvariants.check(gameState, numberOfPlayers);
+            if (!violations.isEmpty()) {
+                return step + " broke " + violations;
+            }
+            GameOverDetector rebuilt = new GameOverDetector(gameState.copy());
+            if (rebuilt.getBuildableColumns() != gameOverDetector.getBuildableColumns()
+                || rebuilt.getHighestLevel() != gameOverDetector.getHighestLevel()) {
+                return step + " left the game over detector out of date";
+            }
+            if (legalActionService.enumerateLegalActions(gameState, climber).length == 0) {
+                currentPlayer = (currentPlayer + 1) % numberOfPlayers;
+                gameState.getPlayerTable().resetActions(currentPlayer);
+            }
+            return null;
+        }
+
+        private static List<String> difference(Set<Integer> legalActions, Set<Integer> referenceActions) {
+            List<String> difference = new ArrayList<>();
+            for (int action : legalActions) {
+                if (!referenceActions.contains(action)) {
+                    difference.add("+" + ActionCodes.toString(action));
+                }
+            }
+            for (int action : referenceActions) {
+                if (!legalActions.contains(action)) {
+                    difference.add("-" + ActionCodes.toString(action));
+                }
+            }
+            return difference;
+        }
+
+        private boolean apply(FuzzStep step, Climber climber) {
+            switch (step.type) {
+                case ActionCodes.BUILD:
+                    return buildActionService.performBuildAction(climber, step.positions);
+                case ActionCodes.MOVE:
+                    return moveActionService.moveClimber(climber, step.positions.get(0));
+                case ActionCodes.ROLL:
+                    return rollDiceActionService.performBlankAction(climber);
+                case ActionCodes.GRAPPLE:
+                    return rollDiceActionService.performGrappleAction(climber, step.positions.get(0));
+                case ActionCodes.WIND:
+                    return rollDiceActionService.performWindAction(climber, step.direction);
+                default:
+                    return false;
+            }
+        }
+
+        // the action code the step stands for, -1 when its positions aren't the top spaces of their columns
+        private int expectedCode(FuzzStep step, ColumnLayout layout) {
+            if (step.type == ActionCodes.ROLL) {
+                return ActionCodes.roll();
+            }
+            if (step.type == ActionCodes.WIND) {
+                int direction = Arrays.asList(ActionCodes.WIND_DIRECTIONS).indexOf(step.direction);
+                return direction < 0 ? -1 : ActionCodes.wind(direction);
+            }
+            int first = topColumn(step.positions.get(0), layout, -1);
+            if (first == -1) {
+                return -1;
+            }
+            if (step.type != ActionCodes.BUILD) {
+                return step.type == ActionCodes.MOVE ? ActionCodes.move(first) : ActionCodes.grapple(first);
+            }
+            if (step.positions.size() == 1) {
+                return ActionCodes.build(first);
+            }
+            int second = topColumn(step.positions.get(1), layout, first);
+            return second == -1 ? -1 : ActionCodes.build(first, second);
+        }
+
+        private int topColumn(Position position, ColumnLayout layout, int builtColumn) {
+            int column = ActionCodes.columnOf(position);
+            int height = layout.height(column) + (column == builtColumn ? 1 : 0);
+            return layout.isOnBoard(column) && ActionCodes.toPosition(column, height).equals(position) ? column : -1;
+        }
+
+        FuzzStep nextStep(Random random) {
+            Climber climber = gameState.getPlayersList().get(currentPlayer);
+            int[] legalActions = legalActionService.enumerateLegalActions(gameState, climber);
+            ColumnLayout layout = ColumnLayout.of(gameState);
+            if (legalActions.length > 0 && random.nextInt(4) != 0) {
+                return toStep(legalActions[random.nextInt(legalActions.length)], layout);
+            }
+            int type = 1 + random.nextInt(5);
+            switch (type) {
+                case ActionCodes.BUILD:
+                    int cubes = 1 + random.nextInt(2);
+                    List<Position> positions = new ArrayList<>();
+                    for (int i = 0; i < cubes; i++) {
+                        positions.add(randomPosition(random, layout));
+                    }
+                    return new FuzzStep(type, positions, null);
+                case ActionCodes.WIND:
+                    return new FuzzStep(type, List.of(), DIRECTIONS[random.nextInt(DIRECTIONS.length)]);
+                case ActionCodes.ROLL:
+                    return new FuzzStep(type, List.of(), null);
+                default:
+                    return new FuzzStep(type, List.of(randomPosition(random, layout)), null);
+            }
+        }
+
+        private FuzzStep toStep(int code, ColumnLayout layout) {
+            int type = ActionCodes.type(code);
+            int first = ActionCodes.firstColumn(code);
+            switch (type) {
+                case ActionCodes.BUILD:
+                    Position firstPosition = ActionCodes.toPosition(first, layout.height(first));
+                    if (!ActionCodes.hasSecondColumn(code)) {
+                        return new FuzzStep(type, List.of(firstPosition), null);
+                    }
+                    int second = ActionCodes.secondColumn(code);
+                    Position secondPosition = ActionCodes.toPosition(second, layout.height(second) + (second == first ? 1 : 0));
+                    return new FuzzStep(type, List.of(firstPosition, secondPosition), null);
+                case ActionCodes.WIND:
+                    return new FuzzStep(type, List.of(), ActionCodes.WIND_DIRECTIONS[ActionCodes.direction(code)]);
+                case ActionCodes.ROLL:
+                    return new FuzzStep(type, List.of(), null);
+                default:
+                    return new FuzzStep(type, List.of(ActionCodes.toPosition(first, layout.height(first))), null);
+            }
+        }
+
+        // mostly top spaces around and just off the board, sometimes buried, floating or between cells
+        private Position randomPosition(Random random, ColumnLayout layout) {
+            BoardGeometry geometry = layout.geometry();
+            int column = ActionCodes.column(random.nextInt(geometry.width() + 4) - geometry.width() / 2 - 2,
+                random.nextInt(geometry.depth() + 4) - geometry.depth() / 2 - 2);
+            int level = random.nextBoolean() ? Math.max(layout.height(column), 0) : random.nextInt(5);
+            Position position = ActionCodes.toPosition(column, level);
+            if (random.nextInt(8) == 0) {
+                position.setX(position.getX() + 1);
+            }
+            return position;
+        }
+    }
+}
@@ -0,0 +1,176 @@
+package service.load;
+
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryMXBean;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import entities.BoardSetup;
+import entities.Climber;
+import entities.GameState;
+import service.BoardService;
+import service.PlayerService;
+import service.actions.ActionExecutor;
+import service.actions.RandomPlayout;
+import service.rules.ActionCodes;
+import service.rules.GameOverDetector;
+import service.rules.LegalActionService;
+
+/*
+ * Simulated clients hammering the engine in one process, each plays whole games of random legal actions
+ * through the real action services, all clients sharing one LegalActionService as a server would.
+ * Clients run on virtual threads when the JVM has them (Java 21), each on a thread of its own otherwise.
+ * A roll is picked like any other action and the dice decide what it does, see RandomPlayout.
+ * Only the action service calls are timed, picking the action is the client's think time.
+ * usage: LoadGenerator <clients,clients,...> <games per client> <seed> [width depth cubes]
+ */
+public class LoadGenerator {
+    private final int gamesPerClient;
+    private final long seed;
+    private final BoardSetup boardSetup;
+    private final LegalActionService legalActionService = new LegalActionService();
+
+    public LoadGenerator(int gamesPerClient, long seed, BoardSetup boardSetup) {
+        this.gamesPerClient = gamesPerClient;
+        this.seed = seed;
+        this.boardSetup = boardSetup;
+    }
+
+    public static void main(String[] args) throws InterruptedException {
+        String[] steps = (args.length > 0 ? args[0] : "1,10,100,1000").split(",");
+        int gamesPerClient = args.length > 1 ? Integer.parseInt(args[1]) : 5;
+        long seed = args.length > 2 ? Long.parseLong(args[2]) : System.currentTimeMillis();
+        BoardSetup boardSetup = args.length > 5
+            ? BoardSetup.scaled(Integer.parseInt(args[3]), Integer.parseInt(args[4]), Integer.parseInt(args[5]))
+            : BoardSetup.standard();
+
+        LoadGenerator loadGenerator = new LoadGenerator(gamesPerClient, seed, boardSetup);
+        System.out.println("Load from seed " + seed + " on a " + boardSetup + ", " + gamesPerClient + " games per client");
+        for (String step : steps) {
+            System.out.println(loadGenerator.run(Integer.parseInt(step.trim())));
+        }
+    }
+
+    public LoadReport run(int clients) throws InterruptedException {
+        LoadReport report = new LoadReport(clients);
+        MemoryMXBean memory = ManagementFactory.getMemoryMXBean();
+        System.gc();
+        long heapBefore = memory.getHeapMemoryUsage().getUsed();
+        long gcMillisBefore = gcMillis();
+        long gcCountBefore = gcCount();
+
+        ExecutorService executor = newClientExecutor(clients);
+        report.executor = executor.getClass().getSimpleName().contains("ThreadPerTask") ? "virtual threads" : "a thread per client";
+        long start = System.nanoTime();
+        try {
+            List<Future<LoadClient>> futures = new ArrayList<>(clients);
+            for (int i = 0; i < clients; i++) {
+                LoadClient client = new LoadClient(seed + i);
+                futures.add(executor.submit(() -> {
+                    client.play();
+                    return client;
+                }));
+            }
+            for (Future<LoadClient> future : futures) {
+                LoadClient client = future.get();
+                report.latencies.merge(client.latencies);
+                report.games += client.games;
+                report.turns += client.turns;
+            }
+        } catch (ExecutionException e) {
+            throw new IllegalStateException("Load client failed", e.getCause());
+        } finally {
+            report.elapsedNanos = System.nanoTime() - start;
+            executor.shutdown();
+        }
+
+        report.gcPauseMillis = gcMillis() - gcMillisBefore;
+        report.gcCount = gcCount() - gcCountBefore;
+        // growth that survives a collection, what the games left behind
+        System.gc();
+        report.heapGrowthBytes = memory.getHeapMemoryUsage().getUsed() - heapBefore;
+        return report;
+    }
+
+    // virtual threads are looked up reflectively, the build targets Java 17
+    private static ExecutorService newClientExecutor(int clients) {
+        try {
+            return (ExecutorService) Executors.class.getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+        } catch (ReflectiveOperationException | UnsupportedOperationException e) {
+            return Executors.newFixedThreadPool(clients);
+        }
+    }
+
+    private static long gcMillis() {
+        long millis = 0;
+        for (GarbageCollectorMXBean collector : ManagementFactory.getGarbageCollectorMXBeans()) {
+            millis += Math.max(0, collector.getCollectionTime());
+        }
+        return millis;
+    }
+
+    private static long gcCount() {
+        long count = 0;
+        for (GarbageCollectorMXBean collector : ManagementFactory.getGarbageCollectorMXBeans()) {
+            count += Math.max(0, collector.getCollectionCount());
+        }
+        return count;
+    }
+
+    private class LoadClient {
+        private final Random random;
+        private final LatencyHistogram latencies = new LatencyHistogram();
+        private long games = 0;
+        private long turns = 0;
+
+        LoadClient(long seed) {
+            this.random = new Random(seed);
+        }
+
+        void play() {
+            for (int i = 0; i < gamesPerClient; i++) {
+                playGame();
+                games++;
+            }
+        }
+
+        private void playGame() {
+            GameState gameState = new GameState();
+            gameState.setBoardSetup(boardSetup);
+            gameState.setOut(GameState.QUIET);
+            int numberOfPlayers = 2 + random.nextInt(boardSetup.getMaximumPlayers() - 1);
+            new PlayerService(gameState, random).initialisePlayers(numberOfPlayers);
+            new BoardService(gameState).initialiseBoard();
+            ActionExecutor actionExecutor = new ActionExecutor(gameState, random);
+            GameOverDetector gameOverDetector = new GameOverDetector(gameState);
+
+            int playerTurn = 0;
+            Climber climber = gameState.getPlayersList().get(playerTurn);
+            climber.resetActions();
+            while (!gameOverDetector.isGameOver()) {
+                int[] legalActions = legalActionService.enumerateLegalActions(gameState, climber);
+                if (legalActions.length == 0) {
+                    turns++;
+                    gameOverDetector.turnEnded();
+                    playerTurn = (playerTurn + 1) % numberOfPlayers;
+                    climber = gameState.getPlayersList().get(playerTurn);
+                    climber.resetActions();
+                    continue;
+                }
+                int code = RandomPlayout.pickLegal(gameState, climber, legalActions, random);
+                long start = System.nanoTime();
+                boolean accepted = actionExecutor.perform(climber, code);
+                latencies.record(System.nanoTime() - start);
+                if (!accepted) {
+                    throw new IllegalStateException("Legal action " + ActionCodes.toString(code) + " was rejected");
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,58 @@
+package service.load;
+
+public class LoadReport {
+    final int clients;
+    final LatencyHistogram latencies = new LatencyHistogram();
+    long games = 0;
+    long turns = 0;
+    long elapsedNanos = 0;
+    long heapGrowthBytes = 0;
+    long gcPauseMillis = 0;
+    long gcCount = 0;
+    String executor;
+
+    LoadReport(int clients) {
+        this.clients = clients;
+    }
+
+    public int getClients() {
+        return clients;
+    }
+
+    public long getActions() {
+        return latencies.getCount();
+    }
+
+    public long getGames() {
+        return games;
+    }
+
+    public long getTurns() {
+        return turns;
+    }
+
+    public LatencyHistogram getLatencies() {
+        return latencies;
+    }
+
+    public double getActionsPerSecond() {
+        return elapsedNanos == 0 ? 0 : latencies.getCount() * 1e9 / elapsedNanos;
+    }
+
+    public long getHeapGrowthBytes() {
+        return heapGrowthBytes;
+    }
+
+    public long getGcPauseMillis() {
+        return gcPauseMillis;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("%6d clients on %s: %d games, %d turns, %d actions in %d ms, %.0f actions/s, "
+                + "latency p50 %.1f us p99 %.1f us p999 %.1f us max %.1f us, heap growth %d KB, %d GCs pausing %d ms",
+            clients, executor, games, turns, latencies.getCount(), elapsedNanos / 1_000_000, getActionsPerSecond(),
+            latencies.percentile(50) / 1e3, latencies.percentile(99) / 1e3, latencies.percentile(99.9) / 1e3,
+            latencies.getMax() / 1e3, heapGrowthBytes / 1024, gcCount, gcPauseMillis);
+    }
+}
@@ -0,0 +1,128 @@
+package service.memory;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import entities.BoardSetup;
+import entities.Cube;
+import entities.GameState;
+import entities.Piece;
+import service.BoardService;
+import service.PlayerService;
+import service.rules.BoardGeometry;
+import service.rules.GameOverDetector;
+import service.rules.ReachabilityTracker;
+import service.sync.StateSyncService;
+
+/*
+ * Retained heap of one game by structure, what capacity planning multiplies by the number of active games.
+ * Structures are measured in the order below, an object reachable from several is counted with the first:
+ * positionPieceMap (table and entries), positions, cubes, playerTable with its Climber views, the column heights
+ * kept for ColumnLayout, every cache in turn, then what else the GameState holds.
+ * The BoardSetup, BoardGeometry and output stream are shared between games and left out.
+ * Caches are the optional structures a session keeps next to the game, rebuilt on demand, see GameSession.
+ * A SizedCache reports its own bytes, the others are walked.
+ * usage: GameFootprint [players [width depth cubes]]
+ */
+public class GameFootprint {
+    public static final String POSITION_PIECE_MAP = "positionPieceMap";
+    public static final String POSITIONS = "positions";
+    public static final String CUBES = "cubes";
+    public static final String PLAYER_TABLE = "playerTable";
+    public static final String COLUMN_HEIGHTS = "columnHeights";
+    public static final String GAME_STATE = "gameState";
+    public static final String CACHE_PREFIX = "cache:";
+
+    private final Map<String, Long> structures = new LinkedHashMap<>();
+    private long total = 0;
+
+    public static GameFootprint measure(GameState gameState) {
+        return measure(gameState, Map.of());
+    }
+
+    public static GameFootprint measure(GameState gameState, Map<String, ?> caches) {
+        GameFootprint footprint = new GameFootprint();
+        ObjectLayout.Walker walker = new ObjectLayout.Walker();
+        walker.exclude(gameState);
+        walker.exclude(gameState.getBoardSetup());
+        walker.exclude(BoardGeometry.of(gameState.getBoardSetup()));
+        walker.exclude(gameState.getOut());
+
+        Map<?, Piece> positionPieceMap = gameState.getPositionPieceMap();
+        footprint.add(POSITION_PIECE_MAP, walker.measureShell(positionPieceMap));
+        long positions = 0;
+        for (Map.Entry<?, Piece> entry : positionPieceMap.entrySet()) {
+            positions += walker.measure(entry.getKey()) + walker.measure(entry.getValue().getPosition());
+        }
+        footprint.add(POSITIONS, positions);
+        long cubes = 0;
+        for (Piece piece : positionPieceMap.values()) {
+            if (piece instanceof Cube) {
+                cubes += walker.measure(piece);
+            }
+        }
+        footprint.add(CUBES, cubes);
+        footprint.add(PLAYER_TABLE, walker.measure(gameState.getPlayerTable()));
+        footprint.add(COLUMN_HEIGHTS, walker.measure(gameState.getColumnHeights()));
+        for (Map.Entry<String, ?> cache : caches.entrySet()) {
+            Object value = cache.getValue();
+            footprint.add(CACHE_PREFIX + cache.getKey(), value instanceof SizedCache ? ((SizedCache) value).getRetainedBytes() : walker.measure(value));
+        }
+        footprint.add(GAME_STATE, ObjectLayout.shallowSize(GameState.class) + walker.measureFields(gameState));
+        return footprint;
+    }
+
+    private void add(String structure, long bytes) {
+        structures.put(structure, bytes);
+        total += bytes;
+    }
+
+    public long getTotal() {
+        return total;
+    }
+
+    // 0 for structures that weren't measured
+    public long getBytes(String structure) {
+        return structures.getOrDefault(structure, 0L);
+    }
+
+    public long getCacheBytes(String cacheName) {
+        return getBytes(CACHE_PREFIX + cacheName);
+    }
+
+    public Map<String, Long> getStructures() {
+        return structures;
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder builder = new StringBuilder("Game footprint ").append(total).append(" bytes");
+        for (Map.Entry<String, Long> structure : structures.entrySet()) {
+            builder.append(System.lineSeparator()).append(String.format("%-24s %8d", structure.getKey(), structure.getValue()));
+        }
+        return builder.toString();
+    }
+
+    public static void main(String[] args) {
+        int players = args.length > 0 ? Integer.parseInt(args[0]) : 4;
+        BoardSetup boardSetup = args.length > 3
+            ? BoardSetup.scaled(Integer.parseInt(args[1]), Integer.parseInt(args[2]), Integer.parseInt(args[3]))
+            : BoardSetup.standard();
+
+        GameState gameState = new GameState();
+        gameState.setBoardSetup(boardSetup);
+        gameState.setOut(GameState.QUIET);
+        new PlayerService(gameState).initialisePlayers(players);
+        new BoardService(gameState).initialiseBoard();
+        // the caches a hosted game usually carries
+        Map<String, Object> caches = new LinkedHashMap<>();
+        caches.put("gameOverDetector", new GameOverDetector(gameState));
+        caches.put("reachabilityTracker", new ReachabilityTracker(gameState));
+        StateSyncService stateSyncService = new StateSyncService(gameState);
+        stateSyncService.publish();
+        caches.put("stateSync", stateSyncService);
+
+        System.out.println(players + " players on a " + boardSetup);
+        System.out.println(measure(gameState, caches));
+    }
+}
@@ -0,0 +1,96 @@
+package service.memory;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/*
+ * A table of fixed size entries sorted by a long key as unsigned, served from a file mapped into memory
+ * without loading it, as written offline for the OpeningBook and the EndgameTablebase.
+ * Entries are found by binary search and read in place, each starting with its key.
+ * magic int, version int, entries int, then the entries
+ * close unmaps the file, no entry can be read after it.
+ */
+public final class MappedTable implements Closeable {
+    public static final int NOT_FOUND = -1;
+    public static final int HEADER_BYTES = 3 * Integer.BYTES;
+
+    private final ByteBuffer table;
+    private final ByteBuffer entries;
+    private final int entryBytes;
+    private final int size;
+
+    public MappedTable(ByteBuffer table, int magic, int version, int entryBytes, String kind) {
+        if (table.getInt(0) != magic || table.getInt(Integer.BYTES) != version) {
+            throw new IllegalArgumentException("Not " + kind + " of version " + version);
+        }
+        this.table = table;
+        this.entryBytes = entryBytes;
+        this.size = table.getInt(2 * Integer.BYTES);
+        this.entries = table.duplicate().position(HEADER_BYTES).slice();
+    }
+
+    public static MappedTable open(Path file, int magic, int version, int entryBytes, String kind) throws IOException {
+        MappedByteBuffer table;
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            table = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+        }
+        try {
+            return new MappedTable(table, magic, version, entryBytes, kind);
+        } catch (IllegalArgumentException e) {
+            MappedBuffers.unmap(table);
+            throw e;
+        }
+    }
+
+    // a table to be filled with the given number of entries after the header
+    public static ByteBuffer allocate(int magic, int version, int entryBytes, int size) {
+        return ByteBuffer.allocate(HEADER_BYTES + size * entryBytes).putInt(magic).putInt(version).putInt(size);
+    }
+
+    public int size() {
+        return size;
+    }
+
+    // the entry with the key, NOT_FOUND when there is none
+    public int find(long key) {
+        int low = 0;
+        int high = size - 1;
+        while (low <= high) {
+            int middle = (low + high) >>> 1;
+            int compared = Long.compareUnsigned(entries.getLong(middle * entryBytes), key);
+            if (compared < 0) {
+                low = middle + 1;
+            } else if (compared > 0) {
+                high = middle - 1;
+            } else {
+                return middle;
+            }
+        }
+        return NOT_FOUND;
+    }
+
+    // the values of an entry by their offset from the start of the entry, where the key is
+    public int getInt(int entry, int offset) {
+        return entries.getInt(entry * entryBytes + offset);
+    }
+
+    public char getChar(int entry, int offset) {
+        return entries.getChar(entry * entryBytes + offset);
+    }
+
+    public float getFloat(int entry, int offset) {
+        return entries.getFloat(entry * entryBytes + offset);
+    }
+
+    @Override
+    public void close() {
+        if (table instanceof MappedByteBuffer) {
+            MappedBuffers.unmap((MappedByteBuffer) table);
+        }
+    }
+}
@@ -0,0 +1,245 @@
+package service.memory;
+
+import java.lang.management.ManagementFactory;
+import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/*
+ * Retained heap estimate of object graphs in the way JOL lays objects out, without an agent:
+ * headers, fields rounded up to the alignment, arrays with their length.
+ * The sizes of our own classes come from their fields by reflection. JDK classes can't be opened,
+ * strings, boxes and the common collections are sized from their known layout and their elements
+ * are followed, any other JDK object counts with its own fields only.
+ * Enums and classes are shared by every game and never counted.
+ */
+public final class ObjectLayout {
+    public static final int REFERENCE_BYTES;
+    public static final int HEADER_BYTES;
+    public static final int ARRAY_HEADER_BYTES;
+    public static final int ALIGNMENT = 8;
+
+    private static final Map<Class<?>, Long> SHALLOW_SIZES = new ConcurrentHashMap<>();
+    private static final Map<Class<?>, List<Field>> REFERENCE_FIELDS = new ConcurrentHashMap<>();
+
+    static {
+        boolean compressedOops = vmOption("UseCompressedOops");
+        boolean compressedClassPointers = vmOption("UseCompressedClassPointers");
+        REFERENCE_BYTES = compressedOops ? 4 : 8;
+        HEADER_BYTES = compressedClassPointers ? 12 : 16;
+        ARRAY_HEADER_BYTES = compressedClassPointers ? 16 : 24;
+    }
+
+    private ObjectLayout() {
+    }
+
+    // the defaults of a 64-bit HotSpot below 32 GB of heap when the option can't be read
+    private static boolean vmOption(String name) {
+        try {
+            return Boolean.parseBoolean(ManagementFactory.getPlatformMXBean(com.sun.management.HotSpotDiagnosticMXBean.class)
+                .getVMOption(name).getValue());
+        } catch (RuntimeException | LinkageError e) {
+            return true;
+        }
+    }
+
+    public static long align(long bytes) {
+        return (bytes + ALIGNMENT - 1) / ALIGNMENT * ALIGNMENT;
+    }
+
+    // instance size of the class, the fields of its superclasses included
+    public static long shallowSize(Class<?> type) {
+        return SHALLOW_SIZES.computeIfAbsent(type, ObjectLayout::computeShallowSize);
+    }
+
+    private static long computeShallowSize(Class<?> type) {
+        long bytes = HEADER_BYTES;
+        for (Class<?> current = type; current != null; current = current.getSuperclass()) {
+            for (Field field : current.getDeclaredFields()) {
+                if (!Modifier.isStatic(field.getModifiers())) {
+                    bytes += fieldBytes(field.getType());
+                }
+            }
+        }
+        return align(bytes);
+    }
+
+    public static long arraySize(Class<?> componentType, int length) {
+        return align(ARRAY_HEADER_BYTES + (long) fieldBytes(componentType) * length);
+    }
+
+    private static int fieldBytes(Class<?> type) {
+        if (type == long.class || type == double.class) {
+            return 8;
+        }
+        if (type == int.class || type == float.class) {
+            return 4;
+        }
+        if (type == short.class || type == char.class) {
+            return 2;
+        }
+        if (type == byte.class || type == boolean.class) {
+            return 1;
+        }
+        return REFERENCE_BYTES;
+    }
+
+    // HashMap grows its table to the next power of two that keeps the load factor below 0.75
+    static int hashTableCapacity(int size) {
+        int capacity = 16;
+        while (size > capacity * 3 / 4) {
+            capacity *= 2;
+        }
+        return capacity;
+    }
+
+    private static List<Field> referenceFields(Class<?> type) {
+        return REFERENCE_FIELDS.computeIfAbsent(type, ignored -> {
+            List<Field> fields = new ArrayList<>();
+            for (Class<?> current = type; current != null; current = current.getSuperclass()) {
+                for (Field field : current.getDeclaredFields()) {
+                    if (!Modifier.isStatic(field.getModifiers()) && !field.getType().isPrimitive()) {
+                        field.setAccessible(true);
+                        fields.add(field);
+                    }
+                }
+            }
+            return fields;
+        });
+    }
+
+    private static boolean isJdkClass(Class<?> type) {
+        String name = type.getName();
+        return name.startsWith("java.") || name.startsWith("javax.") || name.startsWith("jdk.") || name.startsWith("sun.");
+    }
+
+    // walks object graphs, every object is counted once over all measure calls of a walker
+    public static class Walker {
+        private final Set<Object> seen = Collections.newSetFromMap(new IdentityHashMap<>());
+        private final Deque<Object> pending = new ArrayDeque<>();
+
+        // marks objects shared with other games, they and whatever only they reach are left out
+        public void exclude(Object object) {
+            if (object != null) {
+                seen.add(object);
+            }
+        }
+
+        // bytes of everything reachable from the root that no earlier measure counted
+        public long measure(Object root) {
+            push(root);
+            return walk();
+        }
+
+        // bytes of what the object's fields reach, the object itself is counted as excluded or measured before
+        public long measureFields(Object object) {
+            for (Field field : referenceFields(object.getClass())) {
+                push(read(field, object));
+            }
+            return walk();
+        }
+
+        // bytes of a map itself, its table and entries, without the keys and values
+        public long measureShell(Map<?, ?> map) {
+            if (!seen.add(map)) {
+                return 0;
+            }
+            return mapBytes(map);
+        }
+
+        private long walk() {
+            long bytes = 0;
+            while (!pending.isEmpty()) {
+                Object object = pending.pop();
+                if (object instanceof Class || object instanceof Enum || !seen.add(object)) {
+                    continue;
+                }
+                bytes += sizeOf(object);
+            }
+            return bytes;
+        }
+
+        private long sizeOf(Object object) {
+            Class<?> type = object.getClass();
+            if (type.isArray()) {
+                int length = java.lang.reflect.Array.getLength(object);
+                if (!type.getComponentType().isPrimitive()) {
+                    for (Object element : (Object[]) object) {
+                        push(element);
+                    }
+                }
+                return arraySize(type.getComponentType(), length);
+            }
+            if (object instanceof String) {
+                String string = (String) object;
+                boolean latin1 = string.chars().allMatch(c -> c <= 0xFF);
+                return shallowSize(String.class) + arraySize(byte.class, latin1 ? string.length() : 2 * string.length());
+            }
+            if (object instanceof Map) {
+                Map<?, ?> map = (Map<?, ?>) object;
+                for (Map.Entry<?, ?> entry : map.entrySet()) {
+                    push(entry.getKey());
+                    push(entry.getValue());
+                }
+                return mapBytes(map);
+            }
+            if (object instanceof Collection && isJdkClass(type)) {
+                Collection<?> collection = (Collection<?>) object;
+                for (Object element : collection) {
+                    push(element);
+                }
+                if (object instanceof Set) {
+                    // a HashSet is a HashMap of its elements
+                    return shallowSize(type) + align(HEADER_BYTES + 8L * REFERENCE_BYTES)
+                        + arraySize(Object.class, hashTableCapacity(collection.size())) + nodeBytes(false) * collection.size();
+                }
+                return shallowSize(type) + (collection.isEmpty() ? 0 : arraySize(Object.class, Math.max(10, collection.size())));
+            }
+            if (isJdkClass(type)) {
+                return shallowSize(type);
+            }
+            for (Field field : referenceFields(type)) {
+                push(read(field, object));
+            }
+            return shallowSize(type);
+        }
+
+        private void push(Object object) {
+            if (object != null) {
+                pending.push(object);
+            }
+        }
+
+        private static long mapBytes(Map<?, ?> map) {
+            long bytes = shallowSize(map.getClass());
+            if (!map.isEmpty()) {
+                bytes += arraySize(Object.class, hashTableCapacity(map.size()));
+                bytes += nodeBytes(map instanceof LinkedHashMap) * map.size();
+            }
+            return bytes;
+        }
+
+        // hash, key, value and next, a linked entry adds before and after
+        private static long nodeBytes(boolean linked) {
+            return align(HEADER_BYTES + 4 + (linked ? 5 : 3) * REFERENCE_BYTES);
+        }
+
+        private static Object read(Field field, Object object) {
+            try {
+                return field.get(object);
+            } catch (IllegalAccessException e) {
+                throw new IllegalStateException("Can't read " + field, e);
+            }
+        }
+    }
+}
@@ -0,0 +1,6 @@
+package service.memory;
+
+// a cache that knows its retained bytes, GameFootprint takes them instead of walking the cache
+public interface SizedCache {
+    long getRetainedBytes();
+}
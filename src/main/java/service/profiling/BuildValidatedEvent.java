@@ -0,0 +1,13 @@
+package service.profiling;
+
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+@Name("magnetcube.BuildValidated")
+@Label("Build Validated")
+@Description("A cube position was checked against the build rules")
+public class BuildValidatedEvent extends GameEvent {
+    @Label("Valid")
+    public boolean valid;
+}
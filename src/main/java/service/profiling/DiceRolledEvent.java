@@ -0,0 +1,13 @@
+package service.profiling;
+
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+@Name("magnetcube.DiceRolled")
+@Label("Dice Rolled")
+@Description("The dice was rolled")
+public class DiceRolledEvent extends GameEvent {
+    @Label("Face")
+    public String face;
+}
@@ -0,0 +1,34 @@
+package service.profiling;
+
+import entities.Climber;
+import entities.GameState;
+import jdk.jfr.Category;
+import jdk.jfr.Label;
+
+/*
+ * Flight Recorder events of the engine, one per rule phase, so a recording can attribute time and allocation
+ * to a phase, a game and a board density. Every event follows the same pattern:
+ *   XEvent event = new XEvent();
+ *   event.begin();
+ *   ... the phase ...
+ *   if (event.shouldCommit()) { event.describe(gameState, climber); ... event.commit(); }
+ * While the event is disabled shouldCommit is false and the JIT removes the allocation, so the cost is
+ * a couple of branches. Enable them with -XX:StartFlightRecording or a jdk.jfr.Recording, category MagnetCube.
+ */
+@Category("MagnetCube")
+public abstract class GameEvent extends jdk.jfr.Event {
+    @Label("Game Id")
+    public String gameId;
+
+    @Label("Player")
+    public int player;
+
+    @Label("Cubes On Board")
+    public int cubesOnBoard;
+
+    public void describe(GameState gameState, Climber climber) {
+        gameId = gameState.getGameId();
+        player = climber.getId();
+        cubesOnBoard = gameState.getUsedCubes();
+    }
+}
@@ -0,0 +1,16 @@
+package service.profiling;
+
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+@Name("magnetcube.GrappleResolved")
+@Label("Grapple Resolved")
+@Description("A grapple was checked and carried out")
+public class GrappleResolvedEvent extends GameEvent {
+    @Label("Destinations")
+    public int destinations;
+
+    @Label("Accepted")
+    public boolean accepted;
+}
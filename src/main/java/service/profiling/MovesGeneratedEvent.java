@@ -0,0 +1,13 @@
+package service.profiling;
+
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+@Name("magnetcube.MovesGenerated")
+@Label("Moves Generated")
+@Description("The spaces a climber can move to were generated")
+public class MovesGeneratedEvent extends GameEvent {
+    @Label("Destinations")
+    public int destinations;
+}
@@ -0,0 +1,13 @@
+package service.profiling;
+
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+@Name("magnetcube.TurnEnded")
+@Label("Turn Ended")
+@Description("A player's turn ended, the duration is the whole turn")
+public class TurnEndedEvent extends GameEvent {
+    @Label("Actions")
+    public int actions;
+}
@@ -0,0 +1,11 @@
+package service.profiling;
+
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+@Name("magnetcube.TurnStarted")
+@Label("Turn Started")
+@Description("A player's turn started")
+public class TurnStartedEvent extends GameEvent {
+}
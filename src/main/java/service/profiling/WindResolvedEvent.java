@@ -0,0 +1,16 @@
+package service.profiling;
+
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+@Name("magnetcube.WindResolved")
+@Label("Wind Resolved")
+@Description("The wind shifted the climbers")
+public class WindResolvedEvent extends GameEvent {
+    @Label("Direction")
+    public String direction;
+
+    @Label("Shifted Players")
+    public int shiftedPlayers;
+}
@@ -0,0 +1,48 @@
+package service.records;
+
+import static service.codec.VarInts.readVarInt;
+import static service.codec.VarInts.readVarLong;
+
+import java.nio.ByteBuffer;
+
+// reads the values of a column file in order, across its blocks
+class ColumnScanner {
+    private final ByteBuffer buffer;
+    private int blockEnd = 0;
+
+    ColumnScanner(ByteBuffer buffer) {
+        this.buffer = buffer;
+    }
+
+    boolean hasNext() {
+        while (buffer.position() == blockEnd && buffer.remaining() >= 2 * Integer.BYTES) {
+            buffer.getInt();
+            int bytes = buffer.getInt();
+            blockEnd = buffer.position() + bytes;
+        }
+        return buffer.position() < blockEnd;
+    }
+
+    int nextInt() {
+        hasNext();
+        return readVarInt(buffer);
+    }
+
+    long nextLong() {
+        hasNext();
+        return readVarLong(buffer);
+    }
+
+    // rows of all blocks from the block headers, without decoding the values
+    long rows() {
+        long rows = 0;
+        ByteBuffer headers = buffer.duplicate();
+        headers.position(0);
+        while (headers.remaining() >= 2 * Integer.BYTES) {
+            rows += headers.getInt();
+            int bytes = headers.getInt();
+            headers.position(headers.position() + bytes);
+        }
+        return rows;
+    }
+}
@@ -0,0 +1,65 @@
+package service.records;
+
+import entities.ClimberColour;
+
+/*
+ * Everything kept of a finished game, by seat in turn order.
+ * actions are ActionCodes, rolls as the face they showed: roll for a blank or a grapple without space,
+ * grapple with its column, wind with its direction. diceFaces holds the face of every roll in order.
+ * cardMasks have bit i set for PowerCard.values()[i], heights are by column index of the board the game was
+ * played on, width by depth columns.
+ */
+public class GameRecord {
+    final String outcome;
+    final int turns;
+    final ClimberColour[] colours;
+    final long[] cardMasks;
+    final int[] cubesUsed;
+    final int[] levels;
+    final boolean[] won;
+    final int[] actions;
+    final String[] diceFaces;
+    final int[] heights;
+    final int width;
+    final int depth;
+
+    public GameRecord(String outcome, int turns, ClimberColour[] colours, long[] cardMasks, int[] cubesUsed, int[] levels,
+                      boolean[] won, int[] actions, String[] diceFaces, int[] heights, int width, int depth) {
+        this.outcome = outcome;
+        this.turns = turns;
+        this.colours = colours;
+        this.cardMasks = cardMasks;
+        this.cubesUsed = cubesUsed;
+        this.levels = levels;
+        this.won = won;
+        this.actions = actions;
+        this.diceFaces = diceFaces;
+        this.heights = heights;
+        this.width = width;
+        this.depth = depth;
+    }
+
+    public int getPlayers() {
+        return colours.length;
+    }
+
+    public int[] getActions() {
+        return actions;
+    }
+
+    public String[] getDiceFaces() {
+        return diceFaces;
+    }
+
+    public int[] getHeights() {
+        return heights;
+    }
+
+    public int getWidth() {
+        return width;
+    }
+
+    public int getDepth() {
+        return depth;
+    }
+}
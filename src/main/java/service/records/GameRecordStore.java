@@ -0,0 +1,383 @@
+package service.records;
+
+import static config.CommonConfiguration.RECORD_BLOCK_GAMES;
+import static service.codec.VarInts.writeVarInt;
+import static service.codec.VarInts.writeVarLong;
+import static service.codec.VarInts.unZigZag;
+import static service.codec.VarInts.zigZag;
+
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import entities.PowerCard;
+import service.rules.ActionCodes;
+import service.rules.BoardGeometry;
+
+/*
+ * Finished games stored column by column in a directory, one file per column, so an aggregate only
+ * reads the columns it needs. Games are buffered and appended as blocks of RECORD_BLOCK_GAMES.
+ * block: rows int, bytes int, then the values
+ * Values are varints, the enums are dictionary coded against dictionaries.txt, which only ever grows,
+ * so renamed or reordered enums don't change the meaning of stored codes.
+ * game.*   one row per game: players, turns, outcome, action and roll counts, and the sides of its board,
+ *          game.side holding the width then the depth in columns
+ * seat.*   one row per seat in turn order: colour, cards (bit per card code), cubes used, level, won
+ * action.type / roll.face   one row per action and per roll, the action type in bits 2 and up, below it
+ *                           the wind direction or 1 for a build of two cubes
+ * action.column   one row per column operand, the zigzag delta of its index on the game's board to the
+ *                 column before it in the same game, as in the replays
+ * board.heights   one row per game, runs of empty columns then a height, over the columns of the game's board
+ */
+public class GameRecordStore implements Closeable {
+    static final String GAME_PLAYERS = "game.players";
+    static final String GAME_TURNS = "game.turns";
+    static final String GAME_OUTCOME = "game.outcome";
+    static final String GAME_ACTIONS = "game.actions";
+    static final String GAME_ROLLS = "game.rolls";
+    static final String GAME_SIDE = "game.side";
+    static final String SEAT_COLOUR = "seat.colour";
+    static final String SEAT_CARDS = "seat.cards";
+    static final String SEAT_CUBES_USED = "seat.cubes_used";
+    static final String SEAT_LEVEL = "seat.level";
+    static final String SEAT_WON = "seat.won";
+    static final String ACTION_TYPE = "action.type";
+    static final String ACTION_COLUMN = "action.column";
+    static final String ROLL_FACE = "roll.face";
+    static final String BOARD_HEIGHTS = "board.heights";
+    private static final String[] COLUMNS = {GAME_PLAYERS, GAME_TURNS, GAME_OUTCOME, GAME_ACTIONS, GAME_ROLLS, GAME_SIDE, SEAT_COLOUR,
+        SEAT_CARDS, SEAT_CUBES_USED, SEAT_LEVEL, SEAT_WON, ACTION_TYPE, ACTION_COLUMN, ROLL_FACE,
+        BOARD_HEIGHTS};
+
+    private static final String CARD = "card";
+    private static final String COLOUR = "colour";
+    private static final String DICE = "dice";
+    private static final String OUTCOME = "outcome";
+    private static final String DICTIONARIES = "dictionaries.txt";
+    private static final int BUILD_PAIR = 1;
+
+    private final Path directory;
+    private final Map<String, ColumnBuffer> buffers = new LinkedHashMap<>();
+    private final Map<String, Dictionary> dictionaries = new LinkedHashMap<>();
+    private int bufferedGames = 0;
+    private long storedGames = 0;
+
+    public GameRecordStore(Path directory) throws IOException {
+        this.directory = directory;
+        Files.createDirectories(directory);
+        for (String column : COLUMNS) {
+            buffers.put(column, new ColumnBuffer());
+        }
+        for (String name : new String[]{CARD, COLOUR, DICE, OUTCOME}) {
+            dictionaries.put(name, new Dictionary());
+        }
+        Path dictionaryFile = directory.resolve(DICTIONARIES);
+        if (Files.exists(dictionaryFile)) {
+            for (String line : Files.readAllLines(dictionaryFile, StandardCharsets.UTF_8)) {
+                int separator = line.indexOf('=');
+                Dictionary dictionary = dictionaries.get(line.substring(0, separator));
+                for (String value : line.substring(separator + 1).split(",")) {
+                    if (!value.isEmpty()) {
+                        dictionary.code(value);
+                    }
+                }
+            }
+        }
+        ColumnScanner games = scanner(GAME_PLAYERS);
+        storedGames = games.rows();
+    }
+
+    public synchronized void append(GameRecord record) throws IOException {
+        BoardGeometry board = geometry(record.width, record.depth);
+        if (record.heights.length != board.columns()) {
+            throw new IllegalArgumentException(record.heights.length + " heights for a board of " + record.width + "x" + record.depth);
+        }
+        Dictionary cards = dictionaries.get(CARD);
+        Dictionary colours = dictionaries.get(COLOUR);
+        Dictionary dice = dictionaries.get(DICE);
+        int seats = record.getPlayers();
+        buffers.get(GAME_PLAYERS).add(seats);
+        buffers.get(GAME_TURNS).add(record.turns);
+        buffers.get(GAME_OUTCOME).add(dictionaries.get(OUTCOME).code(record.outcome));
+        buffers.get(GAME_ACTIONS).add(record.actions.length);
+        buffers.get(GAME_ROLLS).add(record.diceFaces.length);
+        ColumnBuffer side = buffers.get(GAME_SIDE);
+        side.out(record.width);
+        side.out(record.depth);
+        side.rows++;
+        for (int seat = 0; seat < seats; seat++) {
+            buffers.get(SEAT_COLOUR).add(colours.code(record.colours[seat].name()));
+            long codedCards = 0;
+            for (PowerCard card : PowerCard.values()) {
+                if ((record.cardMasks[seat] & 1L << card.ordinal()) != 0) {
+                    codedCards |= 1L << cards.code(card.name());
+                }
+            }
+            buffers.get(SEAT_CARDS).addLong(codedCards);
+            buffers.get(SEAT_CUBES_USED).add(record.cubesUsed[seat]);
+            buffers.get(SEAT_LEVEL).add(record.levels[seat]);
+            buffers.get(SEAT_WON).add(record.won[seat] ? 1 : 0);
+        }
+        ColumnBuffer actionTypes = buffers.get(ACTION_TYPE);
+        ColumnBuffer actionColumns = buffers.get(ACTION_COLUMN);
+        int lastColumn = 0;
+        for (int code : record.actions) {
+            int type = ActionCodes.type(code);
+            switch (type) {
+                case ActionCodes.BUILD:
+                    actionTypes.add(type << 2 | (ActionCodes.hasSecondColumn(code) ? BUILD_PAIR : 0));
+                    lastColumn = addColumn(actionColumns, board, ActionCodes.firstColumn(code), lastColumn);
+                    if (ActionCodes.hasSecondColumn(code)) {
+                        lastColumn = addColumn(actionColumns, board, ActionCodes.secondColumn(code), lastColumn);
+                    }
+                    break;
+                case ActionCodes.MOVE:
+                case ActionCodes.GRAPPLE:
+                    actionTypes.add(type << 2);
+                    lastColumn = addColumn(actionColumns, board, ActionCodes.firstColumn(code), lastColumn);
+                    break;
+                case ActionCodes.WIND:
+                    actionTypes.add(type << 2 | ActionCodes.direction(code));
+                    break;
+                default:
+                    actionTypes.add(type << 2);
+            }
+        }
+        ColumnBuffer faces = buffers.get(ROLL_FACE);
+        for (String face : record.diceFaces) {
+            faces.add(dice.code(face));
+        }
+        ColumnBuffer heights = buffers.get(BOARD_HEIGHTS);
+        int emptyRun = 0;
+        for (int height : record.heights) {
+            if (height == 0) {
+                emptyRun++;
+                continue;
+            }
+            heights.out(emptyRun);
+            heights.out(height);
+            emptyRun = 0;
+        }
+        if (emptyRun > 0) {
+            heights.out(emptyRun);
+        }
+        heights.rows++;
+
+        if (++bufferedGames >= RECORD_BLOCK_GAMES) {
+            flush();
+        }
+    }
+
+    public synchronized void flush() throws IOException {
+        if (bufferedGames == 0) {
+            return;
+        }
+        for (Map.Entry<String, ColumnBuffer> entry : buffers.entrySet()) {
+            ColumnBuffer buffer = entry.getValue();
+            byte[] values = buffer.out.toByteArray();
+            ByteBuffer block = ByteBuffer.allocate(2 * Integer.BYTES + values.length);
+            block.putInt(buffer.rows).putInt(values.length).put(values);
+            Files.write(columnFile(entry.getKey()), block.array(), StandardOpenOption.CREATE, StandardOpenOption.APPEND);
+            buffer.out.reset();
+            buffer.rows = 0;
+        }
+        StringBuilder lines = new StringBuilder();
+        for (Map.Entry<String, Dictionary> entry : dictionaries.entrySet()) {
+            lines.append(entry.getKey()).append('=').append(String.join(",", entry.getValue().values)).append('\n');
+        }
+        // a crash while writing must not lose the codes of the blocks already appended
+        Path temporary = directory.resolve(DICTIONARIES + ".tmp");
+        Files.write(temporary, lines.toString().getBytes(StandardCharsets.UTF_8));
+        Files.move(temporary, directory.resolve(DICTIONARIES), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        storedGames += bufferedGames;
+        bufferedGames = 0;
+    }
+
+    public synchronized long getGames() {
+        return storedGames + bufferedGames;
+    }
+
+    // share of the seats holding the card that ended on the highest level, NaN when nobody held it
+    public synchronized double winRate(PowerCard card) throws IOException {
+        flush();
+        Integer code = dictionaries.get(CARD).codes.get(card.name());
+        if (code == null) {
+            return Double.NaN;
+        }
+        long bit = 1L << code;
+        ColumnScanner cards = scanner(SEAT_CARDS);
+        ColumnScanner won = scanner(SEAT_WON);
+        long holders = 0;
+        long wins = 0;
+        while (cards.hasNext()) {
+            boolean holds = (cards.nextLong() & bit) != 0;
+            int seatWon = won.nextInt();
+            if (holds) {
+                holders++;
+                wins += seatWon;
+            }
+        }
+        return holders == 0 ? Double.NaN : (double) wins / holders;
+    }
+
+    // average cubes built from each seat, by seat in turn order
+    public synchronized double[] averageCubesUsedBySeat() throws IOException {
+        flush();
+        long[] totals = new long[0];
+        long[] games = new long[0];
+        ColumnScanner players = scanner(GAME_PLAYERS);
+        ColumnScanner cubesUsed = scanner(SEAT_CUBES_USED);
+        while (players.hasNext()) {
+            int seats = players.nextInt();
+            if (seats > totals.length) {
+                totals = Arrays.copyOf(totals, seats);
+                games = Arrays.copyOf(games, seats);
+            }
+            for (int seat = 0; seat < seats; seat++) {
+                totals[seat] += cubesUsed.nextInt();
+                games[seat]++;
+            }
+        }
+        double[] averages = new double[totals.length];
+        for (int seat = 0; seat < totals.length; seat++) {
+            averages[seat] = (double) totals[seat] / games[seat];
+        }
+        return averages;
+    }
+
+    // action codes of every game in order, decoded from the type and column columns
+    public synchronized List<int[]> actions() throws IOException {
+        flush();
+        List<int[]> games = new ArrayList<>();
+        ColumnScanner sides = scanner(GAME_SIDE);
+        ColumnScanner counts = scanner(GAME_ACTIONS);
+        ColumnScanner types = scanner(ACTION_TYPE);
+        ColumnScanner columns = scanner(ACTION_COLUMN);
+        while (counts.hasNext()) {
+            BoardGeometry board = geometry(sides.nextInt(), sides.nextInt());
+            int[] actions = new int[counts.nextInt()];
+            int lastColumn = 0;
+            for (int action = 0; action < actions.length; action++) {
+                int word = types.nextInt();
+                int type = word >>> 2;
+                switch (type) {
+                    case ActionCodes.BUILD:
+                        lastColumn += unZigZag(columns.nextInt());
+                        int first = board.columnCode(lastColumn);
+                        if ((word & BUILD_PAIR) != 0) {
+                            lastColumn += unZigZag(columns.nextInt());
+                            actions[action] = ActionCodes.build(first, board.columnCode(lastColumn));
+                        } else {
+                            actions[action] = ActionCodes.build(first);
+                        }
+                        break;
+                    case ActionCodes.MOVE:
+                    case ActionCodes.GRAPPLE:
+                        lastColumn += unZigZag(columns.nextInt());
+                        actions[action] = type << 28 | board.columnCode(lastColumn);
+                        break;
+                    case ActionCodes.WIND:
+                        actions[action] = ActionCodes.wind(word & 0x3);
+                        break;
+                    default:
+                        actions[action] = type << 28;
+                }
+            }
+            games.add(actions);
+        }
+        return games;
+    }
+
+    // raw values of a column, for aggregates not covered above
+    public synchronized List<Long> column(String name) throws IOException {
+        flush();
+        List<Long> values = new ArrayList<>();
+        ColumnScanner scanner = scanner(name);
+        while (scanner.hasNext()) {
+            values.add(scanner.nextLong());
+        }
+        return values;
+    }
+
+    // column files are mapped rather than read onto the heap, each has to stay below 2 GB
+    private ColumnScanner scanner(String column) throws IOException {
+        Path file = columnFile(column);
+        if (!Files.exists(file)) {
+            return new ColumnScanner(ByteBuffer.allocate(0));
+        }
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            return new ColumnScanner(channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size()));
+        }
+    }
+
+    // column indexes only depend on the sides of the board, not on how high it can be built
+    private static BoardGeometry geometry(int width, int depth) {
+        return BoardGeometry.of(width, depth, BoardGeometry.standard().levels());
+    }
+
+    private static int addColumn(ColumnBuffer buffer, BoardGeometry board, int column, int lastColumn) {
+        int index = board.columnIndex(column);
+        if (index == BoardGeometry.OFF_BOARD) {
+            throw new IllegalArgumentException("Column off the board " + ActionCodes.gridX(column) + "," + ActionCodes.gridZ(column));
+        }
+        buffer.add(zigZag(index - lastColumn));
+        return index;
+    }
+
+    private Path columnFile(String column) {
+        return directory.resolve(column + ".col");
+    }
+
+    @Override
+    public void close() throws IOException {
+        flush();
+    }
+
+    private static class ColumnBuffer {
+        final ByteArrayOutputStream out = new ByteArrayOutputStream();
+        int rows = 0;
+
+        void add(int value) {
+            writeVarInt(out, value);
+            rows++;
+        }
+
+        void addLong(long value) {
+            writeVarLong(out, value);
+            rows++;
+        }
+
+        // a value that is part of a multi value row
+        void out(int value) {
+            writeVarInt(out, value);
+        }
+    }
+
+    private static class Dictionary {
+        final List<String> values = new ArrayList<>();
+        final Map<String, Integer> codes = new HashMap<>();
+
+        int code(String value) {
+            Integer code = codes.get(value);
+            if (code == null) {
+                code = values.size();
+                values.add(value);
+                codes.put(value, code);
+            }
+            return code;
+        }
+    }
+}
@@ -0,0 +1,128 @@
+package service.records;
+
+import static config.CommonConfiguration.GRAPPLE;
+import static config.CommonConfiguration.WIND;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import entities.BoardListener;
+import entities.Climber;
+import entities.ClimberColour;
+import entities.GameState;
+import entities.PlayerTable;
+import entities.Position;
+import service.actions.RollDiceActionService;
+import service.rules.ActionCodes;
+import service.rules.ColumnLayout;
+import service.rules.GameOverDetector;
+
+/*
+ * Writes down a game as it is played. The caller brackets every action with beginAction and endAction,
+ * an action counts once its flag was used up, what it did is taken from the board changes in between.
+ */
+public class GameRecorder implements BoardListener {
+    private final GameState gameState;
+    private final int[] initialCubes;
+    private int[] actions = new int[64];
+    private int actionCount = 0;
+    private final List<String> diceFaces = new ArrayList<>();
+    private final List<Integer> builtColumns = new ArrayList<>();
+    private Climber actingClimber;
+    private int flagsBefore;
+    private boolean actingClimberMoved;
+    private int turns = 0;
+
+    public GameRecorder(GameState gameState) {
+        this.gameState = gameState;
+        PlayerTable players = gameState.getPlayerTable();
+        initialCubes = new int[players.size()];
+        for (int slot = 0; slot < players.size(); slot++) {
+            initialCubes[slot] = players.getCubesRemaining(slot);
+        }
+        gameState.addBoardListener(this);
+    }
+
+    @Override
+    public void cubePlaced(Position position) {
+        builtColumns.add(ActionCodes.columnOf(position));
+    }
+
+    @Override
+    public void cubeRemoved(Position position) {
+        // a build rolled back
+        builtColumns.remove(Integer.valueOf(ActionCodes.columnOf(position)));
+    }
+
+    @Override
+    public void climberMoved(Climber climber, Position from) {
+        actingClimberMoved |= climber == actingClimber;
+    }
+
+    public void beginAction(Climber climber) {
+        actingClimber = climber;
+        flagsBefore = gameState.getPlayerTable().getActionFlags(climber.getSlot());
+        builtColumns.clear();
+        actingClimberMoved = false;
+    }
+
+    public void endAction(Climber climber, RollDiceActionService rollDiceActionService) {
+        int used = flagsBefore & ~gameState.getPlayerTable().getActionFlags(climber.getSlot());
+        int column = ActionCodes.columnOf(climber.getPosition());
+        if ((used & PlayerTable.CAN_BUILD) != 0 && !builtColumns.isEmpty()) {
+            add(builtColumns.size() == 1 ? ActionCodes.build(builtColumns.get(0)) : ActionCodes.build(builtColumns.get(0), builtColumns.get(1)));
+        }
+        if ((used & PlayerTable.CAN_MOVE) != 0) {
+            add(ActionCodes.move(column));
+        }
+        if ((used & PlayerTable.CAN_ROLL) != 0) {
+            String face = rollDiceActionService.getLastDiceValue();
+            diceFaces.add(face);
+            if (WIND.equals(face)) {
+                add(ActionCodes.wind(Arrays.asList(ActionCodes.WIND_DIRECTIONS).indexOf(rollDiceActionService.getLastWindDirection())));
+            } else if (GRAPPLE.equals(face) && actingClimberMoved) {
+                add(ActionCodes.grapple(column));
+            } else {
+                add(ActionCodes.roll());
+            }
+        }
+        actingClimber = null;
+    }
+
+    public void turnEnded() {
+        turns++;
+    }
+
+    public GameRecord finish(GameOverDetector gameOverDetector) {
+        gameState.removeBoardListener(this);
+        PlayerTable players = gameState.getPlayerTable();
+        int seats = players.size();
+        ClimberColour[] colours = new ClimberColour[seats];
+        long[] cardMasks = new long[seats];
+        int[] cubesUsed = new int[seats];
+        int[] levels = new int[seats];
+        boolean[] won = new boolean[seats];
+        for (int slot = 0; slot < seats; slot++) {
+            Climber climber = players.get(slot);
+            colours[slot] = climber.getColour();
+            cardMasks[slot] = players.getPowerCardMask(slot);
+            cubesUsed[slot] = initialCubes[slot] - players.getCubesRemaining(slot);
+            levels[slot] = ActionCodes.cellLevel(players.getCell(slot));
+            won[slot] = gameOverDetector.getLeaders().contains(climber);
+        }
+        ColumnLayout layout = ColumnLayout.of(gameState);
+        int[] heights = new int[layout.size()];
+        layout.copyHeights(heights, 0);
+        return new GameRecord(gameOverDetector.getOutcome().toString(), turns, colours, cardMasks, cubesUsed, levels, won,
+            Arrays.copyOf(actions, actionCount), diceFaces.toArray(new String[0]), heights,
+            gameState.getBoardSetup().getWidth(), gameState.getBoardSetup().getDepth());
+    }
+
+    private void add(int code) {
+        if (actionCount == actions.length) {
+            actions = Arrays.copyOf(actions, actionCount * 2);
+        }
+        actions[actionCount++] = code;
+    }
+}
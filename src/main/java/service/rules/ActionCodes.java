@@ -0,0 +1,147 @@
+package service.rules;
+
+import static config.CommonConfiguration.CUBE_LENGTH_X;
+import static config.CommonConfiguration.CUBE_LENGTH_Y;
+import static config.CommonConfiguration.CUBE_LENGTH_Z;
+
+import entities.Position;
+
+/*
+ * Compact int encoding of a single player choice.
+ * bits 28-31: action type
+ * bits 0-11 : first column, 6 bit signed grid x followed by 6 bit signed grid z
+ * bits 12-23: second column of a build pair
+ * bit 24    : set when the build pair has a second cube
+ * A wind code keeps its direction in bits 0-1.
+ */
+public final class ActionCodes {
+    public static final int BUILD = 1;
+    public static final int MOVE = 2;
+    public static final int ROLL = 3;
+    public static final int GRAPPLE = 4;
+    public static final int WIND = 5;
+
+    // same keys as the wind prompt of RollDiceActionService
+    public static final String[] WIND_DIRECTIONS = {"W", "A", "S", "D"};
+    public static final int[] WIND_DIRECTION_X = {0, -1, 0, 1};
+    public static final int[] WIND_DIRECTION_Z = {1, 0, -1, 0};
+
+    private static final int COLUMN_MASK = 0xFFF;
+    private static final int SECOND_COLUMN_FLAG = 1 << 24;
+
+    private ActionCodes() {
+    }
+
+    public static int build(int firstColumn) {
+        return BUILD << 28 | firstColumn;
+    }
+
+    public static int build(int firstColumn, int secondColumn) {
+        return BUILD << 28 | SECOND_COLUMN_FLAG | secondColumn << 12 | firstColumn;
+    }
+
+    public static int move(int column) {
+        return MOVE << 28 | column;
+    }
+
+    public static int roll() {
+        return ROLL << 28;
+    }
+
+    public static int grapple(int column) {
+        return GRAPPLE << 28 | column;
+    }
+
+    public static int wind(int direction) {
+        return WIND << 28 | direction;
+    }
+
+    public static int type(int code) {
+        return code >>> 28;
+    }
+
+    public static int firstColumn(int code) {
+        return code & COLUMN_MASK;
+    }
+
+    public static int secondColumn(int code) {
+        return (code >>> 12) & COLUMN_MASK;
+    }
+
+    public static boolean hasSecondColumn(int code) {
+        return (code & SECOND_COLUMN_FLAG) != 0;
+    }
+
+    public static int direction(int code) {
+        return code & 0x3;
+    }
+
+    public static int column(int gridX, int gridZ) {
+        return (gridX & 0x3F) << 6 | (gridZ & 0x3F);
+    }
+
+    public static int gridX(int column) {
+        return (column << 20) >> 26;
+    }
+
+    public static int gridZ(int column) {
+        return (column << 26) >> 26;
+    }
+
+    public static int gridX(Position position) {
+        return Math.floorDiv(Math.round(position.getX()), CUBE_LENGTH_X);
+    }
+
+    public static int gridZ(Position position) {
+        return Math.floorDiv(Math.round(position.getZ()), CUBE_LENGTH_Z);
+    }
+
+    public static int columnOf(Position position) {
+        return column(gridX(position), gridZ(position));
+    }
+
+    public static int level(Position position) {
+        return Math.round(position.getY()) / CUBE_LENGTH_Y;
+    }
+
+    // a cell is a column together with its level, level in bits 12 and up
+    public static int cellOf(Position position) {
+        return level(position) << 12 | columnOf(position);
+    }
+
+    public static int cellColumn(int cell) {
+        return cell & COLUMN_MASK;
+    }
+
+    public static int cellLevel(int cell) {
+        return cell >>> 12;
+    }
+
+    // centre of the cell at the given column and level, in the same coordinates as the board
+    public static Position toPosition(int column, int level) {
+        return new Position(gridX(column) * CUBE_LENGTH_X + CUBE_LENGTH_X / 2,
+            level * CUBE_LENGTH_Y,
+            gridZ(column) * CUBE_LENGTH_Z + CUBE_LENGTH_Z / 2);
+    }
+
+    public static String toString(int code) {
+        switch (type(code)) {
+            case BUILD:
+                return "B" + columnToString(firstColumn(code)) + (hasSecondColumn(code) ? columnToString(secondColumn(code)) : "");
+            case MOVE:
+                return "M" + columnToString(firstColumn(code));
+            case ROLL:
+                return "R";
+            case GRAPPLE:
+                return "G" + columnToString(firstColumn(code));
+            case WIND:
+                return "W" + WIND_DIRECTIONS[direction(code)];
+            default:
+                return "?" + Integer.toHexString(code);
+        }
+    }
+
+    private static String columnToString(int column) {
+        return "(" + gridX(column) + "," + gridZ(column) + ")";
+    }
+}
@@ -0,0 +1,228 @@
+package service.rules;
+
+import static config.CommonConfiguration.BOARD_DEPTH;
+import static config.CommonConfiguration.BOARD_WIDTH;
+import static config.CommonConfiguration.MAXIMUM_CUBE_PIECE;
+
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import entities.BoardSetup;
+import entities.Position;
+
+/*
+ * Lookup tables over dense indexes of the board, generated once so the rule loops index arrays
+ * instead of doing coordinate arithmetic on Positions.
+ * column index: (gridZ - minGridZ) * width + (gridX - minGridX)
+ * cell index  : level * columns + column index
+ * Neighbours, above and below cells outside the board are OFF_BOARD. Cells are worked out from the column tables,
+ * so a geometry takes the same few KB however many levels its cube supply allows.
+ * Symmetry transforms of the X-Z plane, see transformColumn, are only valid if they map the board onto itself,
+ * all 8 for a square board, identity, half turn and the two mirror flips otherwise.
+ * Geometries of other BoardSetups are shared, the GEOMETRY_CACHE_SIZE used last.
+ */
+public final class BoardGeometry {
+    public static final int OFF_BOARD = -1;
+    public static final int TRANSFORMS = 8;
+    // 0 identity, 1-3 quarter turns, 4 mirror x, 5 mirror z, 6 and 7 mirror along the diagonals
+    private static final int[] INVERSE_TRANSFORMS = {0, 3, 2, 1, 4, 5, 6, 7};
+
+    // a column can't grow higher than the whole cube supply
+    private static final BoardGeometry STANDARD = new BoardGeometry(BOARD_WIDTH, BOARD_DEPTH, MAXIMUM_CUBE_PIECE + 1);
+    private static final int GEOMETRY_CACHE_SIZE = 64;
+    private static final Map<Long, BoardGeometry> GEOMETRIES = new LinkedHashMap<>(16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<Long, BoardGeometry> eldest) {
+            return size() > GEOMETRY_CACHE_SIZE;
+        }
+    };
+
+    private final int width;
+    private final int depth;
+    private final int levels;
+    private final int minGridX;
+    private final int minGridZ;
+    private final int[] columnIndexByCode = new int[1 << 12];
+    private final int[] columnCodes;
+    private final int[] columnNeighbours;
+    private final int[][] columnTransforms = new int[TRANSFORMS][];
+    private final int[][] directionTransforms = new int[TRANSFORMS][4];
+
+    public BoardGeometry(int width, int depth, int levels) {
+        this.width = width;
+        this.depth = depth;
+        this.levels = levels;
+        this.minGridX = -width / 2;
+        this.minGridZ = -depth / 2;
+        int columns = width * depth;
+        columnCodes = new int[columns];
+        columnNeighbours = new int[columns * 4];
+
+        Arrays.fill(columnIndexByCode, OFF_BOARD);
+        for (int index = 0; index < columns; index++) {
+            int code = ActionCodes.column(index % width + minGridX, index / width + minGridZ);
+            columnCodes[index] = code;
+            columnIndexByCode[code] = index;
+        }
+        for (int index = 0; index < columns; index++) {
+            for (int direction = 0; direction < 4; direction++) {
+                int x = index % width + ActionCodes.WIND_DIRECTION_X[direction];
+                int z = index / width + ActionCodes.WIND_DIRECTION_Z[direction];
+                columnNeighbours[index * 4 + direction] = x < 0 || x >= width || z < 0 || z >= depth ? OFF_BOARD : z * width + x;
+            }
+        }
+        for (int transform = 0; transform < TRANSFORMS; transform++) {
+            if (width != depth && transform != 0 && transform != 2 && transform != 4 && transform != 5) {
+                continue;
+            }
+            columnTransforms[transform] = new int[columns];
+            for (int index = 0; index < columns; index++) {
+                // odd coordinates symmetric around the centre of the board
+                int u = 2 * (index % width) - (width - 1);
+                int v = 2 * (index / width) - (depth - 1);
+                int[] transformed = transform(transform, u, v);
+                columnTransforms[transform][index] = (transformed[1] + depth - 1) / 2 * width + (transformed[0] + width - 1) / 2;
+            }
+            for (int direction = 0; direction < 4; direction++) {
+                int[] transformed = transform(transform, ActionCodes.WIND_DIRECTION_X[direction], ActionCodes.WIND_DIRECTION_Z[direction]);
+                for (int target = 0; target < 4; target++) {
+                    if (ActionCodes.WIND_DIRECTION_X[target] == transformed[0] && ActionCodes.WIND_DIRECTION_Z[target] == transformed[1]) {
+                        directionTransforms[transform][direction] = target;
+                    }
+                }
+            }
+        }
+    }
+
+    private static int[] transform(int transform, int u, int v) {
+        switch (transform) {
+            case 1:
+                return new int[]{-v, u};
+            case 2:
+                return new int[]{-u, -v};
+            case 3:
+                return new int[]{v, -u};
+            case 4:
+                return new int[]{-u, v};
+            case 5:
+                return new int[]{u, -v};
+            case 6:
+                return new int[]{v, u};
+            case 7:
+                return new int[]{-v, -u};
+            default:
+                return new int[]{u, v};
+        }
+    }
+
+    public static BoardGeometry standard() {
+        return STANDARD;
+    }
+
+    public static BoardGeometry of(BoardSetup boardSetup) {
+        return of(boardSetup.getWidth(), boardSetup.getDepth(), boardSetup.getCubeSupply() + 1);
+    }
+
+    public static BoardGeometry of(int width, int depth, int levels) {
+        if (width == STANDARD.width && depth == STANDARD.depth && levels == STANDARD.levels) {
+            return STANDARD;
+        }
+        long key = (long) width << 48 | (long) depth << 32 | levels;
+        synchronized (GEOMETRIES) {
+            return GEOMETRIES.computeIfAbsent(key, ignored -> new BoardGeometry(width, depth, levels));
+        }
+    }
+
+    public int width() {
+        return width;
+    }
+
+    public int depth() {
+        return depth;
+    }
+
+    public int columns() {
+        return columnCodes.length;
+    }
+
+    public int cells() {
+        return columnCodes.length * levels;
+    }
+
+    public int levels() {
+        return levels;
+    }
+
+    // index of an ActionCodes column, OFF_BOARD when outside the board
+    public int columnIndex(int columnCode) {
+        return columnIndexByCode[columnCode & 0xFFF];
+    }
+
+    public int columnCode(int columnIndex) {
+        return columnCodes[columnIndex];
+    }
+
+    public int columnX(int columnIndex) {
+        return columnIndex % width + minGridX;
+    }
+
+    public int columnZ(int columnIndex) {
+        return columnIndex / width + minGridZ;
+    }
+
+    public int columnNeighbour(int columnIndex, int direction) {
+        return columnNeighbours[columnIndex * 4 + direction];
+    }
+
+    public int cellIndex(int columnIndex, int level) {
+        return columnIndex == OFF_BOARD || level < 0 || level >= levels ? OFF_BOARD : level * columnCodes.length + columnIndex;
+    }
+
+    public int cellIndex(Position position) {
+        return cellIndex(columnIndex(ActionCodes.columnOf(position)), ActionCodes.level(position));
+    }
+
+    public int cellNeighbour(int cell, int direction) {
+        int column = cell % columnCodes.length;
+        int neighbour = columnNeighbours[column * 4 + direction];
+        return neighbour == OFF_BOARD ? OFF_BOARD : cell - column + neighbour;
+    }
+
+    public int cellAbove(int cell) {
+        return cell + columnCodes.length < cells() ? cell + columnCodes.length : OFF_BOARD;
+    }
+
+    public int cellBelow(int cell) {
+        return cell >= columnCodes.length ? cell - columnCodes.length : OFF_BOARD;
+    }
+
+    public int cellColumn(int cell) {
+        return cell % columnCodes.length;
+    }
+
+    public int cellLevel(int cell) {
+        return cell / columnCodes.length;
+    }
+
+    public boolean isSymmetry(int transform) {
+        return columnTransforms[transform] != null;
+    }
+
+    public static int inverse(int transform) {
+        return INVERSE_TRANSFORMS[transform];
+    }
+
+    public int transformColumn(int transform, int columnIndex) {
+        return columnTransforms[transform][columnIndex];
+    }
+
+    public int transformCell(int transform, int cell) {
+        int columns = columnCodes.length;
+        return cell - cell % columns + columnTransforms[transform][cell % columns];
+    }
+
+    public int transformDirection(int transform, int direction) {
+        return directionTransforms[transform][direction];
+    }
+}
@@ -0,0 +1,20 @@
+package service.rules;
+
+// key of the canonical representative of a state and the symmetry transform that maps the state onto it
+public class CanonicalKey {
+    final long key;
+    final int transform;
+
+    public CanonicalKey(long key, int transform) {
+        this.key = key;
+        this.transform = transform;
+    }
+
+    public long getKey() {
+        return key;
+    }
+
+    public int getTransform() {
+        return transform;
+    }
+}
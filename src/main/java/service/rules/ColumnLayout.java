@@ -0,0 +1,184 @@
+package service.rules;
+
+import static config.CommonConfiguration.CUBE_PIECE;
+
+import entities.Climber;
+import entities.ColumnHeights;
+import entities.GameState;
+import entities.Piece;
+import entities.PlayerTable;
+import entities.Position;
+
+/*
+ * Height of every column of the board and the climber standing on top of it, by column index
+ * of the BoardGeometry. A column of height h holds cubes on levels 0..h-1 and its top space is level h.
+ * The heights of a game are scanned once when it is set up, see track, and then kept up to date by its board
+ * events alone, a layout copies them. Whoever changes the board of a tracked game tells its listeners.
+ * The layout of a game that isn't tracked is scanned from its pieces every time.
+ */
+public class ColumnLayout {
+    private final BoardGeometry geometry;
+    private final int[] heights;
+    private final Climber[] occupants;
+
+    public ColumnLayout(BoardGeometry geometry) {
+        this.geometry = geometry;
+        this.heights = new int[geometry.columns()];
+        this.occupants = new Climber[geometry.columns()];
+    }
+
+    // called once when the game is set up, before the board changes through its events
+    public static void track(GameState gameState) {
+        LiveHeights live = new LiveHeights(BoardGeometry.of(gameState.getBoardSetup()));
+        scanHeights(gameState, live.geometry, live.heights);
+        gameState.setColumnHeights(live);
+    }
+
+    public static ColumnLayout of(GameState gameState) {
+        return of(gameState, BoardGeometry.of(gameState.getBoardSetup()));
+    }
+
+    public static ColumnLayout of(GameState gameState, BoardGeometry geometry) {
+        ColumnHeights tracked = gameState.getColumnHeights();
+        if (!(tracked instanceof LiveHeights) || !((LiveHeights) tracked).covers(geometry)) {
+            return scan(gameState, geometry);
+        }
+        ColumnLayout layout = new ColumnLayout(geometry);
+        System.arraycopy(((LiveHeights) tracked).heights, 0, layout.heights, 0, layout.heights.length);
+        layout.placeClimbers(gameState);
+        return layout;
+    }
+
+    // the layout of the pieces on the board, whatever the tracked heights say
+    public static ColumnLayout scan(GameState gameState, BoardGeometry geometry) {
+        ColumnLayout layout = new ColumnLayout(geometry);
+        scanHeights(gameState, geometry, layout.heights);
+        layout.placeClimbers(gameState);
+        return layout;
+    }
+
+    private static void scanHeights(GameState gameState, BoardGeometry geometry, int[] heights) {
+        for (Piece piece : gameState.getPositionPieceMap().values()) {
+            if (!piece.getPieceType().equals(CUBE_PIECE)) {
+                continue;
+            }
+            int index = geometry.columnIndex(ActionCodes.columnOf(piece.getPosition()));
+            if (index >= 0) {
+                heights[index] = Math.max(heights[index], ActionCodes.level(piece.getPosition()) + 1);
+            }
+        }
+    }
+
+    private void placeClimbers(GameState gameState) {
+        PlayerTable players = gameState.getPlayerTable();
+        for (int slot = 0; slot < players.size(); slot++) {
+            int index = geometry.columnIndex(ActionCodes.cellColumn(players.getCell(slot)));
+            if (index >= 0) {
+                occupants[index] = players.get(slot);
+            }
+        }
+    }
+
+    public ColumnLayout copy() {
+        ColumnLayout copy = new ColumnLayout(geometry);
+        System.arraycopy(heights, 0, copy.heights, 0, heights.length);
+        System.arraycopy(occupants, 0, copy.occupants, 0, occupants.length);
+        return copy;
+    }
+
+    public BoardGeometry geometry() {
+        return geometry;
+    }
+
+    public int index(int column) {
+        return geometry.columnIndex(column);
+    }
+
+    public int columnAt(int index) {
+        return geometry.columnCode(index);
+    }
+
+    public int size() {
+        return heights.length;
+    }
+
+    public boolean isOnBoard(int column) {
+        return index(column) >= 0;
+    }
+
+    // -1 for columns off the board
+    public int height(int column) {
+        return heightAt(index(column));
+    }
+
+    public Climber occupant(int column) {
+        return occupantAt(index(column));
+    }
+
+    public int heightAt(int index) {
+        return index < 0 ? -1 : heights[index];
+    }
+
+    public Climber occupantAt(int index) {
+        return index < 0 ? null : occupants[index];
+    }
+
+    public void copyHeights(int[] destination, int offset) {
+        System.arraycopy(heights, 0, destination, offset, heights.length);
+    }
+
+    public void addCube(int column) {
+        heights[index(column)]++;
+    }
+
+    public void removeCube(int column) {
+        heights[index(column)]--;
+    }
+
+    public void setOccupant(int column, Climber climber) {
+        occupants[index(column)] = climber;
+    }
+
+    private static class LiveHeights implements ColumnHeights {
+        final BoardGeometry geometry;
+        final int[] heights;
+
+        LiveHeights(BoardGeometry geometry) {
+            this.geometry = geometry;
+            this.heights = new int[geometry.columns()];
+        }
+
+        // column indexes only depend on the sides of the board
+        boolean covers(BoardGeometry other) {
+            return geometry.width() == other.width() && geometry.depth() == other.depth();
+        }
+
+        @Override
+        public ColumnHeights copy() {
+            LiveHeights copy = new LiveHeights(geometry);
+            System.arraycopy(heights, 0, copy.heights, 0, heights.length);
+            return copy;
+        }
+
+        @Override
+        public void cubePlaced(Position position) {
+            int index = geometry.columnIndex(ActionCodes.columnOf(position));
+            if (index >= 0) {
+                heights[index] = Math.max(heights[index], ActionCodes.level(position) + 1);
+            }
+        }
+
+        @Override
+        public void cubeRemoved(Position position) {
+            // only the top cube of a column is ever taken back
+            int index = geometry.columnIndex(ActionCodes.columnOf(position));
+            if (index >= 0) {
+                heights[index] = Math.min(heights[index], ActionCodes.level(position));
+            }
+        }
+
+        @Override
+        public void climberMoved(Climber climber, Position from) {
+        }
+    }
+}
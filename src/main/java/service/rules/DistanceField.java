@@ -0,0 +1,416 @@
+package service.rules;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import service.memory.ObjectLayout;
+
+/*
+ * Fewest move actions a climber needs to stand on top of every column, kept up to date as the board changes.
+ * Move actions form a 0-1 weighted graph over the columns of the BoardGeometry:
+ * - stand node of a column: the climber ends a move on its top space,
+ * - walk node of a column: the climber passes the column during a same-level move, through other climbers,
+ * - one ground hub: from the ground a move reaches every free ground space.
+ * Starting a move costs 1, walking on along the same level and stopping cost 0.
+ * Changes of heights and occupancy invalidate the shortest path subtrees hanging off the changed columns,
+ * which are then repaired from their still valid neighbours with a bucket queue.
+ * The children of every node are kept in linked lists as parents change, so a repair only visits
+ * the changed columns, the subtrees below them and the nodes their new distances reach.
+ */
+public class DistanceField {
+    public static final int UNREACHABLE = Integer.MAX_VALUE;
+    private static final int NO_PARENT = -1;
+
+    private final BoardGeometry geometry;
+    private final int columns;
+    private final int hub;
+    private final int[] heights;
+    private final boolean[] occupied;
+    private int source;
+
+    private final int[] distance;
+    private final int[] parent;
+    private final boolean[] changed;
+    private final int[] changedColumns;
+    private int changedCount = 0;
+    private boolean hubChanged = false;
+    // nodes visited by the last rebuild or repair
+    private int visited = 0;
+
+    // reused edge, repair and bucket queue buffers
+    private final int[] edgeTargets;
+    private final int[] edgeWeights;
+    private final int[] bucketHeads;
+    private final int[] stack;
+    private final int[] childHeads;
+    private final int[] childNext;
+    private final int[] childPrevious;
+    private final boolean[] invalid;
+    private final int[] invalidNodes;
+    private int[] entryNodes = new int[64];
+    private int[] entryNext = new int[64];
+    private int entries = 0;
+    private int lowestBucket = Integer.MAX_VALUE;
+    private int highestBucket = -1;
+
+    public DistanceField(ColumnLayout layout, int sourceColumn) {
+        this.geometry = layout.geometry();
+        this.columns = geometry.columns();
+        this.hub = 2 * columns;
+        this.heights = new int[columns];
+        this.occupied = new boolean[columns];
+        this.distance = new int[2 * columns + 1];
+        this.parent = new int[2 * columns + 1];
+        this.changed = new boolean[columns];
+        this.changedColumns = new int[columns];
+        this.edgeTargets = new int[columns + 4];
+        this.edgeWeights = new int[columns + 4];
+        this.bucketHeads = new int[2 * columns + 2];
+        this.stack = new int[2 * (2 * columns + 1)];
+        this.childHeads = new int[2 * columns + 1];
+        this.childNext = new int[2 * columns + 1];
+        this.childPrevious = new int[2 * columns + 1];
+        this.invalid = new boolean[2 * columns + 1];
+        this.invalidNodes = new int[2 * columns + 1];
+        Arrays.fill(bucketHeads, -1);
+        for (int index = 0; index < columns; index++) {
+            heights[index] = layout.heightAt(index);
+            occupied[index] = layout.occupantAt(index) != null;
+        }
+        rebuild(layout.index(sourceColumn));
+    }
+
+    public long getRetainedBytes() {
+        return ObjectLayout.shallowSize(DistanceField.class)
+            + ObjectLayout.arraySize(int.class, heights.length) + ObjectLayout.arraySize(boolean.class, occupied.length)
+            + ObjectLayout.arraySize(int.class, distance.length) + ObjectLayout.arraySize(int.class, parent.length)
+            + ObjectLayout.arraySize(boolean.class, changed.length) + ObjectLayout.arraySize(int.class, changedColumns.length)
+            + ObjectLayout.arraySize(int.class, edgeTargets.length)
+            + ObjectLayout.arraySize(int.class, edgeWeights.length) + ObjectLayout.arraySize(int.class, bucketHeads.length)
+            + ObjectLayout.arraySize(int.class, stack.length) + ObjectLayout.arraySize(int.class, childHeads.length)
+            + ObjectLayout.arraySize(int.class, childNext.length) + ObjectLayout.arraySize(int.class, childPrevious.length)
+            + ObjectLayout.arraySize(boolean.class, invalid.length) + ObjectLayout.arraySize(int.class, invalidNodes.length)
+            + ObjectLayout.arraySize(int.class, entryNodes.length) + ObjectLayout.arraySize(int.class, entryNext.length);
+    }
+
+    // fewest move actions to stand on top of the column, UNREACHABLE if it can't be reached
+    public int turnsTo(int column) {
+        int index = geometry.columnIndex(column);
+        return index == BoardGeometry.OFF_BOARD ? UNREACHABLE : distance[index];
+    }
+
+    // columns on which each move of a shortest route ends, empty for the climber's own column
+    public List<Integer> pathTo(int column) {
+        List<Integer> path = new ArrayList<>();
+        int index = geometry.columnIndex(column);
+        if (index == BoardGeometry.OFF_BOARD || distance[index] == UNREACHABLE) {
+            return path;
+        }
+        // every stand node on the way back to the source is where a move ended
+        for (int node = index; node != source; node = parent[node]) {
+            if (node < columns) {
+                path.add(geometry.columnCode(node));
+            }
+        }
+        Collections.reverse(path);
+        return path;
+    }
+
+    int getVisitedNodes() {
+        return visited;
+    }
+
+    public int getSourceColumn() {
+        return geometry.columnCode(source);
+    }
+
+    // the climber itself moved, distances from a new source are rebuilt from scratch
+    public void moveSource(int column) {
+        rebuild(geometry.columnIndex(column));
+    }
+
+    public void setHeight(int column, int height) {
+        int index = geometry.columnIndex(column);
+        if (heights[index] != height) {
+            if (heights[index] == 0 || height == 0) {
+                hubChanged = true;
+            }
+            heights[index] = height;
+            markChanged(index);
+        }
+    }
+
+    public void setOccupied(int column, boolean isOccupied) {
+        int index = geometry.columnIndex(column);
+        if (occupied[index] != isOccupied) {
+            occupied[index] = isOccupied;
+            if (heights[index] == 0) {
+                hubChanged = true;
+            }
+            // only the edges into the stand node depend on who occupies the column
+            change(index);
+        }
+    }
+
+    private void markChanged(int index) {
+        change(index);
+        for (int direction = 0; direction < 4; direction++) {
+            int neighbour = geometry.columnNeighbour(index, direction);
+            if (neighbour != BoardGeometry.OFF_BOARD) {
+                change(neighbour);
+            }
+        }
+    }
+
+    private void change(int index) {
+        if (!changed[index]) {
+            changed[index] = true;
+            changedColumns[changedCount++] = index;
+        }
+    }
+
+    private void clearChanges() {
+        for (int i = 0; i < changedCount; i++) {
+            changed[changedColumns[i]] = false;
+        }
+        changedCount = 0;
+        hubChanged = false;
+    }
+
+    // moves the node into the child list of its new parent
+    private void setParent(int node, int newParent) {
+        int oldParent = parent[node];
+        if (oldParent == newParent) {
+            return;
+        }
+        if (oldParent != NO_PARENT) {
+            if (childPrevious[node] == -1) {
+                childHeads[oldParent] = childNext[node];
+            } else {
+                childNext[childPrevious[node]] = childNext[node];
+            }
+            if (childNext[node] != -1) {
+                childPrevious[childNext[node]] = childPrevious[node];
+            }
+        }
+        parent[node] = newParent;
+        if (newParent != NO_PARENT) {
+            childPrevious[node] = -1;
+            childNext[node] = childHeads[newParent];
+            if (childHeads[newParent] != -1) {
+                childPrevious[childHeads[newParent]] = node;
+            }
+            childHeads[newParent] = node;
+        }
+    }
+
+    private void rebuild(int sourceIndex) {
+        source = sourceIndex;
+        Arrays.fill(distance, UNREACHABLE);
+        Arrays.fill(parent, NO_PARENT);
+        Arrays.fill(childHeads, -1);
+        clearChanges();
+        distance[source] = 0;
+        visited = 0;
+        entries = 0;
+        push(source, 0);
+        propagate();
+    }
+
+    // applies the heights and occupancy set since the last repair,
+    // an edge only changes next to a changed column so its target is always among the affected nodes
+    public void repair() {
+        int top = 0;
+        for (int i = 0; i < changedCount; i++) {
+            stack[top++] = changedColumns[i];
+            stack[top++] = columns + changedColumns[i];
+        }
+        if (hubChanged) {
+            stack[top++] = hub;
+        }
+
+        // invalidate the affected nodes and every node whose shortest path runs through one of them
+        int invalidCount = 0;
+        while (top > 0) {
+            int node = stack[--top];
+            if (node == source || invalid[node]) {
+                continue;
+            }
+            invalid[node] = true;
+            invalidNodes[invalidCount++] = node;
+            for (int child = childHeads[node]; child != -1; child = childNext[child]) {
+                stack[top++] = child;
+            }
+        }
+        visited = invalidCount;
+        for (int i = 0; i < invalidCount; i++) {
+            distance[invalidNodes[i]] = UNREACHABLE;
+            setParent(invalidNodes[i], NO_PARENT);
+        }
+
+        // seed the invalidated nodes from their valid predecessors, valid affected nodes relax their new edges
+        entries = 0;
+        for (int i = 0; i < invalidCount; i++) {
+            int node = invalidNodes[i];
+            int count = inEdges(node);
+            for (int edge = 0; edge < count; edge++) {
+                int from = edgeTargets[edge];
+                if (!invalid[from] && distance[from] != UNREACHABLE && distance[from] + edgeWeights[edge] < distance[node]) {
+                    distance[node] = distance[from] + edgeWeights[edge];
+                    setParent(node, from);
+                }
+            }
+            if (distance[node] != UNREACHABLE) {
+                push(node, distance[node]);
+            }
+        }
+        for (int i = 0; i < changedCount; i++) {
+            pushValid(changedColumns[i]);
+            pushValid(columns + changedColumns[i]);
+        }
+        if (hubChanged) {
+            pushValid(hub);
+        }
+        for (int i = 0; i < invalidCount; i++) {
+            invalid[invalidNodes[i]] = false;
+        }
+        clearChanges();
+        propagate();
+    }
+
+    private void pushValid(int node) {
+        if (!invalid[node] && distance[node] != UNREACHABLE) {
+            push(node, distance[node]);
+        }
+    }
+
+    // Dial's algorithm over the bucket queue, relaxing the outgoing edges of every settled node
+    // from the lowest to the highest bucket pushed since the queue was last empty
+    private void propagate() {
+        for (int bucket = lowestBucket; bucket <= highestBucket; bucket++) {
+            while (bucketHeads[bucket] != -1) {
+                int entry = bucketHeads[bucket];
+                bucketHeads[bucket] = entryNext[entry];
+                int node = entryNodes[entry];
+                if (distance[node] != bucket) {
+                    continue;
+                }
+                visited++;
+                int count = outEdges(node);
+                for (int i = 0; i < count; i++) {
+                    int target = edgeTargets[i];
+                    int candidate = bucket + edgeWeights[i];
+                    if (candidate < distance[target]) {
+                        distance[target] = candidate;
+                        setParent(target, node);
+                        push(target, candidate);
+                    }
+                }
+            }
+        }
+        lowestBucket = Integer.MAX_VALUE;
+        highestBucket = -1;
+    }
+
+    private void push(int node, int bucket) {
+        lowestBucket = Math.min(lowestBucket, bucket);
+        highestBucket = Math.max(highestBucket, bucket);
+        if (entries == entryNodes.length) {
+            entryNodes = Arrays.copyOf(entryNodes, entries * 2);
+            entryNext = Arrays.copyOf(entryNext, entries * 2);
+        }
+        entryNodes[entries] = node;
+        entryNext[entries] = bucketHeads[bucket];
+        bucketHeads[bucket] = entries++;
+    }
+
+    private boolean canStand(int index) {
+        return index == source || !occupied[index];
+    }
+
+    private int outEdges(int node) {
+        int count = 0;
+        if (node == hub) {
+            for (int index = 0; index < columns; index++) {
+                if (heights[index] == 0 && canStand(index)) {
+                    count = edge(count, index, 0);
+                }
+            }
+            return count;
+        }
+        int index = node % columns;
+        int height = heights[index];
+        if (node < columns) {
+            for (int direction = 0; direction < 4; direction++) {
+                int neighbour = geometry.columnNeighbour(index, direction);
+                if (neighbour == BoardGeometry.OFF_BOARD) {
+                    continue;
+                }
+                int neighbourHeight = heights[neighbour];
+                if (canStand(neighbour) && (neighbourHeight == height + 1 || neighbourHeight < height)) {
+                    count = edge(count, neighbour, 1);
+                }
+                if (height > 0 && neighbourHeight == height) {
+                    count = edge(count, columns + neighbour, 1);
+                }
+            }
+            if (height == 0) {
+                count = edge(count, hub, 1);
+            }
+        } else {
+            for (int direction = 0; direction < 4; direction++) {
+                int neighbour = geometry.columnNeighbour(index, direction);
+                if (neighbour != BoardGeometry.OFF_BOARD && heights[neighbour] == height) {
+                    count = edge(count, columns + neighbour, 0);
+                }
+            }
+            if (canStand(index)) {
+                count = edge(count, index, 0);
+            }
+        }
+        return count;
+    }
+
+    private int inEdges(int node) {
+        int count = 0;
+        if (node == hub) {
+            for (int index = 0; index < columns; index++) {
+                if (heights[index] == 0) {
+                    count = edge(count, index, 1);
+                }
+            }
+            return count;
+        }
+        int index = node % columns;
+        int height = heights[index];
+        if (node < columns) {
+            if (!canStand(index)) {
+                return 0;
+            }
+            for (int direction = 0; direction < 4; direction++) {
+                int neighbour = geometry.columnNeighbour(index, direction);
+                if (neighbour != BoardGeometry.OFF_BOARD && (height == heights[neighbour] + 1 || height < heights[neighbour])) {
+                    count = edge(count, neighbour, 1);
+                }
+            }
+            count = height > 0 ? edge(count, columns + index, 0) : edge(count, hub, 0);
+        } else if (height > 0) {
+            for (int direction = 0; direction < 4; direction++) {
+                int neighbour = geometry.columnNeighbour(index, direction);
+                if (neighbour != BoardGeometry.OFF_BOARD && heights[neighbour] == height) {
+                    count = edge(count, neighbour, 1);
+                    count = edge(count, columns + neighbour, 0);
+                }
+            }
+        }
+        return count;
+    }
+
+    private int edge(int count, int target, int weight) {
+        edgeTargets[count] = target;
+        edgeWeights[count] = weight;
+        return count + 1;
+    }
+}
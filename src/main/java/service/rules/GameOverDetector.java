@@ -0,0 +1,171 @@
+package service.rules;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import entities.BoardListener;
+import entities.Climber;
+import entities.GameState;
+import entities.PlayerTable;
+import entities.Position;
+
+/*
+ * Decides when a game is over without rescanning the board, from the board changes it is told about.
+ * The game keeps going until the player who builds the last remaining cube ends their turn,
+ * the player at the highest level at the end of the game wins.
+ * - CUBES_EXHAUSTED: no cube can be built any more, the supply on the table or in the players' hands ran out
+ * - STALEMATE: cubes are left but no column can take one, the game could never reach its end otherwise
+ * Moving and rolling never get stuck, a player who can't move is placed on the ground instead.
+ * Keeps a live ColumnLayout, the number of columns open to building and how many climbers stand on each level.
+ */
+public class GameOverDetector implements BoardListener {
+    public enum Outcome {
+        IN_PROGRESS, CUBES_EXHAUSTED, STALEMATE
+    }
+
+    private final GameState gameState;
+    private final ColumnLayout layout;
+    private final boolean[] buildable;
+    private int buildableColumns = 0;
+    private final int[] climbersOnLevel;
+    private int highestLevel = 0;
+    private Outcome outcome = Outcome.IN_PROGRESS;
+
+    public GameOverDetector(GameState gameState) {
+        this(gameState, BoardGeometry.of(gameState.getBoardSetup()));
+    }
+
+    public GameOverDetector(GameState gameState, BoardGeometry geometry) {
+        this.gameState = gameState;
+        this.layout = ColumnLayout.of(gameState, geometry);
+        this.buildable = new boolean[geometry.columns()];
+        this.climbersOnLevel = new int[geometry.levels() + 1];
+        for (int index = 0; index < buildable.length; index++) {
+            updateBuildable(index);
+        }
+        PlayerTable players = gameState.getPlayerTable();
+        for (int slot = 0; slot < players.size(); slot++) {
+            addClimberLevel(ActionCodes.cellLevel(players.getCell(slot)));
+        }
+        gameState.addBoardListener(this);
+    }
+
+    @Override
+    public void cubePlaced(Position position) {
+        int column = ActionCodes.columnOf(position);
+        layout.addCube(column);
+        updateAround(column);
+    }
+
+    @Override
+    public void cubeRemoved(Position position) {
+        int column = ActionCodes.columnOf(position);
+        layout.removeCube(column);
+        updateAround(column);
+    }
+
+    @Override
+    public void climberMoved(Climber climber, Position from) {
+        int fromColumn = ActionCodes.columnOf(from);
+        int toColumn = ActionCodes.columnOf(climber.getPosition());
+        // wind reports the shifted climbers one by one, another climber may already stand on the vacated column
+        if (layout.occupant(fromColumn) == climber) {
+            layout.setOccupant(fromColumn, null);
+            updateBuildable(layout.index(fromColumn));
+        }
+        layout.setOccupant(toColumn, climber);
+        updateBuildable(layout.index(toColumn));
+        removeClimberLevel(ActionCodes.level(from));
+        addClimberLevel(ActionCodes.level(climber.getPosition()));
+    }
+
+    // the end of every turn is where the game can end
+    public Outcome turnEnded() {
+        if (outcome == Outcome.IN_PROGRESS) {
+            if (cubesLeft() == 0) {
+                outcome = Outcome.CUBES_EXHAUSTED;
+            } else if (buildableColumns == 0) {
+                outcome = Outcome.STALEMATE;
+            }
+        }
+        return outcome;
+    }
+
+    public boolean isGameOver() {
+        return outcome != Outcome.IN_PROGRESS;
+    }
+
+    public Outcome getOutcome() {
+        return outcome;
+    }
+
+    // cubes that can still be built, limited by both the table and the players' hands
+    public int cubesLeft() {
+        PlayerTable players = gameState.getPlayerTable();
+        int inHands = 0;
+        for (int slot = 0; slot < players.size(); slot++) {
+            inHands += Math.max(0, players.getCubesRemaining(slot));
+        }
+        return Math.max(0, Math.min(gameState.getBoardSetup().getCubeSupply() - gameState.getUsedCubes(), inHands));
+    }
+
+    public int getBuildableColumns() {
+        return buildableColumns;
+    }
+
+    public boolean canBuild(Climber climber) {
+        return buildableColumns > 0 && GameRules.cubesToBuild(gameState, climber) > 0;
+    }
+
+    // rulebook fallback, a player who can't move is placed on a ground space instead
+    public boolean mustPlaceAtGround(Climber climber) {
+        Position position = climber.getPosition();
+        return GameRules.moveDestinations(layout, ActionCodes.columnOf(position), ActionCodes.level(position)).isEmpty();
+    }
+
+    public int getHighestLevel() {
+        return highestLevel;
+    }
+
+    // players on the highest level, more than one when they share it
+    public List<Climber> getLeaders() {
+        List<Climber> leaders = new ArrayList<>();
+        for (Climber climber : gameState.getPlayersList()) {
+            if (ActionCodes.level(climber.getPosition()) == highestLevel) {
+                leaders.add(climber);
+            }
+        }
+        return leaders;
+    }
+
+    private void updateAround(int column) {
+        int index = layout.index(column);
+        updateBuildable(index);
+        for (int direction = 0; direction < 4; direction++) {
+            int neighbour = layout.geometry().columnNeighbour(index, direction);
+            if (neighbour != BoardGeometry.OFF_BOARD) {
+                updateBuildable(neighbour);
+            }
+        }
+    }
+
+    private void updateBuildable(int index) {
+        boolean canBuild = GameRules.canBuildOn(layout, layout.columnAt(index));
+        if (canBuild != buildable[index]) {
+            buildable[index] = canBuild;
+            buildableColumns += canBuild ? 1 : -1;
+        }
+    }
+
+    private void addClimberLevel(int level) {
+        climbersOnLevel[level]++;
+        highestLevel = Math.max(highestLevel, level);
+    }
+
+    private void removeClimberLevel(int level) {
+        climbersOnLevel[level]--;
+        while (highestLevel > 0 && climbersOnLevel[highestLevel] == 0) {
+            highestLevel--;
+        }
+    }
+}
@@ -0,0 +1,231 @@
+package service.rules;
+
+import static config.CommonConfiguration.MAXIMUM_BUILD_CAPACITY;
+import static service.rules.BoardGeometry.OFF_BOARD;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import entities.Climber;
+import entities.GameState;
+import entities.Position;
+
+/*
+ * The rulebook's placement rules on top of a ColumnLayout, shared by the action services
+ * which validate player input and by LegalActionService which enumerates the choices.
+ * A climber always stands on the top space of its column, i.e. its level is the column height.
+ */
+public final class GameRules {
+
+    private GameRules() {
+    }
+
+    // cubes the climber builds in its next build action
+    public static int cubesToBuild(GameState gameState, Climber climber) {
+        int availableCubes = Math.min(gameState.getBoardSetup().getCubeSupply() - gameState.getUsedCubes(), climber.getTotalCubes());
+        return Math.max(0, Math.min(availableCubes, MAXIMUM_BUILD_CAPACITY));
+    }
+
+    public static boolean canBuildOn(ColumnLayout layout, int column) {
+        return canBuildAt(layout, layout.index(column));
+    }
+
+    private static boolean canBuildAt(ColumnLayout layout, int index) {
+        /*
+        1. Players may build anywhere on the mountain by stacking cubes
+            or by connecting cubes on ground level.
+        2. Players can't build cubes on or under players.
+        3. Players can't build overhangs or disconnected cubes.
+        */
+        if (index == OFF_BOARD || layout.occupantAt(index) != null) {
+            return false;
+        }
+        return layout.heightAt(index) > 0 || hasGroundNeighbour(layout, index);
+    }
+
+    public static List<Integer> buildColumns(ColumnLayout layout) {
+        List<Integer> columns = new ArrayList<>();
+        for (int index = 0; index < layout.size(); index++) {
+            if (canBuildAt(layout, index)) {
+                columns.add(layout.columnAt(index));
+            }
+        }
+        return columns;
+    }
+
+    private static boolean hasGroundNeighbour(ColumnLayout layout, int index) {
+        BoardGeometry geometry = layout.geometry();
+        for (int direction = 0; direction < 4; direction++) {
+            if (layout.heightAt(geometry.columnNeighbour(index, direction)) > 0) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    public static List<Integer> moveDestinations(ColumnLayout layout, int column, int level) {
+        /*
+        1. Move to any space on the same level that's on a continuous path to your player,
+            paths go through cubes and players on the same level but not diagonally.
+        2. Move up an adjacent space no more than 1 level.
+        3. Move down an adjacent space any amount of levels.
+        Players can move to any other space at ground level when at ground level
+        and can't be placed on spaces occupied by other players.
+        */
+        List<Integer> destinations = new ArrayList<>();
+        int start = layout.index(column);
+        if (start == OFF_BOARD) {
+            return destinations;
+        }
+        BoardGeometry geometry = layout.geometry();
+        boolean[] visited = new boolean[layout.size()];
+        boolean[] added = new boolean[layout.size()];
+        visited[start] = true;
+        added[start] = true;
+        if (level == 0) {
+            for (int index = 0; index < layout.size(); index++) {
+                if (!added[index] && layout.heightAt(index) == 0 && layout.occupantAt(index) == null) {
+                    added[index] = true;
+                    destinations.add(layout.columnAt(index));
+                }
+            }
+        } else {
+            int[] queue = new int[layout.size()];
+            int head = 0;
+            int tail = 0;
+            queue[tail++] = start;
+            while (head < tail) {
+                int current = queue[head++];
+                for (int direction = 0; direction < 4; direction++) {
+                    int neighbour = geometry.columnNeighbour(current, direction);
+                    if (neighbour == OFF_BOARD || visited[neighbour] || layout.heightAt(neighbour) != level) {
+                        continue;
+                    }
+                    visited[neighbour] = true;
+                    queue[tail++] = neighbour;
+                    if (layout.occupantAt(neighbour) == null) {
+                        added[neighbour] = true;
+                        destinations.add(layout.columnAt(neighbour));
+                    }
+                }
+            }
+        }
+        for (int direction = 0; direction < 4; direction++) {
+            int neighbour = geometry.columnNeighbour(start, direction);
+            if (neighbour == OFF_BOARD || added[neighbour] || layout.occupantAt(neighbour) != null) {
+                continue;
+            }
+            int height = layout.heightAt(neighbour);
+            if (height == level + 1 || height < level) {
+                added[neighbour] = true;
+                destinations.add(layout.columnAt(neighbour));
+            }
+        }
+        return destinations;
+    }
+
+    public static List<Integer> grappleDestinations(ColumnLayout layout, int column, int level) {
+        // grapple climbs 1 or 2 levels onto an adjacent space
+        List<Integer> destinations = new ArrayList<>();
+        int start = layout.index(column);
+        if (start == OFF_BOARD) {
+            return destinations;
+        }
+        BoardGeometry geometry = layout.geometry();
+        for (int direction = 0; direction < 4; direction++) {
+            int neighbour = geometry.columnNeighbour(start, direction);
+            int height = layout.heightAt(neighbour);
+            if ((height == level + 1 || height == level + 2) && layout.occupantAt(neighbour) == null) {
+                destinations.add(layout.columnAt(neighbour));
+            }
+        }
+        return destinations;
+    }
+
+    /*
+     * Wind shifts every climber one space in the chosen direction onto the top of that column.
+     * A climber is blocked by a column higher than itself, by the edge of the board and by a
+     * climber who could not be shifted. Climbers furthest along the direction are shifted first.
+     * Returns the new column of every climber, in the order of the given columns.
+     */
+    public static int[] windDestinations(ColumnLayout layout, int[] climberColumns, int direction) {
+        BoardGeometry geometry = layout.geometry();
+        int[] indexes = new int[climberColumns.length];
+        Integer[] order = new Integer[climberColumns.length];
+        for (int i = 0; i < order.length; i++) {
+            indexes[i] = layout.index(climberColumns[i]);
+            order[i] = i;
+        }
+        int dx = ActionCodes.WIND_DIRECTION_X[direction];
+        int dz = ActionCodes.WIND_DIRECTION_Z[direction];
+        Arrays.sort(order, (a, b) -> Integer.compare(progress(climberColumns[b], dx, dz), progress(climberColumns[a], dx, dz)));
+
+        int[] destinations = climberColumns.clone();
+        boolean[] occupied = new boolean[layout.size()];
+        for (int index : indexes) {
+            if (index != OFF_BOARD) {
+                occupied[index] = true;
+            }
+        }
+        for (int climber : order) {
+            int index = indexes[climber];
+            int target = index == OFF_BOARD ? OFF_BOARD : geometry.columnNeighbour(index, direction);
+            if (target == OFF_BOARD || occupied[target] || layout.heightAt(target) > layout.heightAt(index)) {
+                continue;
+            }
+            occupied[index] = false;
+            occupied[target] = true;
+            destinations[climber] = layout.columnAt(target);
+        }
+        return destinations;
+    }
+
+    private static int progress(int column, int dx, int dz) {
+        return ActionCodes.gridX(column) * dx + ActionCodes.gridZ(column) * dz;
+    }
+
+    // moves the climber to a new space, keeping the board map keyed by the climber's position
+    public static void placeClimber(GameState gameState, Climber climber, Position position) {
+        Position from = climber.getPosition();
+        gameState.getPositionPieceMap().remove(from);
+        climber.setPosition(position);
+        gameState.getPositionPieceMap().put(position, climber);
+        gameState.notifyClimberMoved(climber, from);
+    }
+
+    // shifts every climber with the wind, returns the number of climbers that moved
+    public static int applyWind(GameState gameState, int direction) {
+        List<Climber> players = gameState.getPlayersList();
+        int[] climberColumns = new int[players.size()];
+        for (int i = 0; i < players.size(); i++) {
+            climberColumns[i] = ActionCodes.cellColumn(players.get(i).getCell());
+        }
+        ColumnLayout layout = ColumnLayout.of(gameState);
+        int[] destinations = windDestinations(layout, climberColumns, direction);
+
+        // remove every shifted climber first, so that climbers shifted into each other's space don't clash
+        int shifted = 0;
+        Position[] from = new Position[players.size()];
+        for (int i = 0; i < players.size(); i++) {
+            if (destinations[i] != climberColumns[i]) {
+                from[i] = players.get(i).getPosition();
+                gameState.getPositionPieceMap().remove(from[i]);
+                shifted++;
+            }
+        }
+        for (int i = 0; i < players.size(); i++) {
+            if (destinations[i] != climberColumns[i]) {
+                Position position = ActionCodes.toPosition(destinations[i], layout.height(destinations[i]));
+                players.get(i).setPosition(position);
+                gameState.getPositionPieceMap().put(position, players.get(i));
+            }
+        }
+        for (int i = 0; i < players.size(); i++) {
+            if (from[i] != null) {
+                gameState.notifyClimberMoved(players.get(i), from[i]);
+            }
+        }
+        return shifted;
+    }
+}
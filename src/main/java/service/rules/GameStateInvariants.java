@@ -0,0 +1,107 @@
+package service.rules;
+
+import static config.CommonConfiguration.CUBE_PIECE;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import entities.Climber;
+import entities.Cube;
+import entities.GameState;
+import entities.Piece;
+import entities.Position;
+
+/*
+ * Structural checks every reachable state has to pass, whatever actions led to it.
+ * Returns a description of every broken invariant, an empty list for a sound state.
+ */
+public final class GameStateInvariants {
+
+    private GameStateInvariants() {
+    }
+
+    public static List<String> check(GameState gameState, int expectedClimbers) {
+        List<String> violations = new ArrayList<>();
+        Map<Position, Piece> positionPieceMap = gameState.getPositionPieceMap();
+        ColumnLayout layout = ColumnLayout.of(gameState);
+        BoardGeometry geometry = layout.geometry();
+        boolean[] cubeCells = new boolean[geometry.cells()];
+        for (Piece piece : positionPieceMap.values()) {
+            int cell = geometry.cellIndex(piece.getPosition());
+            if (cell != BoardGeometry.OFF_BOARD && piece.getPieceType().equals(CUBE_PIECE)) {
+                cubeCells[cell] = true;
+            }
+        }
+
+        int cubes = 0;
+        int climbers = 0;
+        for (Map.Entry<Position, Piece> entry : positionPieceMap.entrySet()) {
+            Piece piece = entry.getValue();
+            // the map must stay keyed by the position each piece holds
+            if (!entry.getKey().equals(piece.getPosition()) || positionPieceMap.get(piece.getPosition()) != piece) {
+                violations.add("key " + entry.getKey() + " doesn't match the position of " + piece);
+            }
+            int cell = geometry.cellIndex(piece.getPosition());
+            if (cell == BoardGeometry.OFF_BOARD) {
+                violations.add("piece off the board " + piece);
+            }
+            if (!piece.getPieceType().equals(CUBE_PIECE)) {
+                climbers++;
+                continue;
+            }
+            cubes++;
+            if (cell == BoardGeometry.OFF_BOARD) {
+                continue;
+            }
+            int below = geometry.cellBelow(cell);
+            int above = geometry.cellAbove(cell);
+            if (below != BoardGeometry.OFF_BOARD && !cubeCells[below]) {
+                violations.add("overhang at " + piece.getPosition());
+            }
+            if (((Cube) piece).isOnTop() != (above == BoardGeometry.OFF_BOARD || !cubeCells[above])) {
+                violations.add("isOnTop out of date for " + piece);
+            }
+        }
+
+        // the tracked heights must have been told about every change of the board
+        ColumnLayout scanned = ColumnLayout.scan(gameState, geometry);
+        for (int index = 0; index < geometry.columns(); index++) {
+            if (layout.heightAt(index) != scanned.heightAt(index)) {
+                violations.add("height " + layout.heightAt(index) + " tracked for column " + index + " of height " + scanned.heightAt(index));
+            }
+        }
+
+        int cubeSupply = gameState.getBoardSetup().getCubeSupply();
+        if (gameState.getUsedCubes() > cubeSupply) {
+            violations.add("usedCubes " + gameState.getUsedCubes() + " above " + cubeSupply);
+        }
+        if (gameState.getUsedCubes() != cubes) {
+            violations.add("usedCubes " + gameState.getUsedCubes() + " but " + cubes + " cubes on the board");
+        }
+        if (climbers != expectedClimbers || gameState.getPlayersList().size() != expectedClimbers) {
+            violations.add(climbers + " climbers on the board, expected " + expectedClimbers);
+        }
+
+        Set<Integer> climberColumns = new HashSet<>();
+        for (Climber climber : gameState.getPlayersList()) {
+            int column = ActionCodes.columnOf(climber.getPosition());
+            if (positionPieceMap.get(climber.getPosition()) != climber) {
+                violations.add("climber missing from the board " + climber);
+            }
+            if (!climberColumns.add(column)) {
+                violations.add("two climbers share the column of " + climber);
+            }
+            // a climber always stands on the top of its column, with no cube under or above it
+            if (ActionCodes.level(climber.getPosition()) != layout.height(column)) {
+                violations.add("climber not on top of its column " + climber);
+            }
+            if (climber.getTotalCubes() < 0) {
+                violations.add("negative cube supply " + climber);
+            }
+        }
+        return violations;
+    }
+}
@@ -0,0 +1,151 @@
+package service.rules;
+
+import static config.CommonConfiguration.LEGAL_ACTION_CACHE_SIZE;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import entities.Climber;
+import entities.GameState;
+import entities.Position;
+
+/*
+ * Lists every choice a climber can legally make in a state as action codes (see ActionCodes):
+ * build pairs, moves, the roll and the grapple targets and wind directions the roll may lead to.
+ * Results are cached by the canonical key of the state as the climber sees it (see StateCanonicalizer),
+ * so repeated queries for the same state or a rotated or mirrored copy of it, e.g. hover highlighting
+ * or bots searching, don't walk the board again. The cache holds the actions of the canonical state
+ * next to the canonical state itself, a hit on a key whose state differs is a collision and counts as a miss.
+ */
+public class LegalActionService {
+    private final Map<Long, CachedActions> legalActionCache = new LinkedHashMap<>(16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<Long, CachedActions> eldest) {
+            return size() > LEGAL_ACTION_CACHE_SIZE;
+        }
+    };
+    private long cacheHits = 0;
+    private long cacheMisses = 0;
+
+    public int[] enumerateLegalActions(GameState gameState, Climber climber) {
+        BoardGeometry geometry = BoardGeometry.of(gameState.getBoardSetup());
+        CanonicalKey canonicalKey = StateCanonicalizer.canonicalKey(gameState, climber, geometry);
+        int transform = canonicalKey.getTransform();
+        long[] canonicalState = StateCanonicalizer.canonicalState(gameState, climber, geometry, transform);
+        synchronized (legalActionCache) {
+            CachedActions cached = legalActionCache.get(canonicalKey.getKey());
+            if (cached != null && Arrays.equals(cached.canonicalState, canonicalState)) {
+                cacheHits++;
+                return StateCanonicalizer.transformCodes(cached.canonicalActions, BoardGeometry.inverse(transform), geometry);
+            }
+            cacheMisses++;
+        }
+        int[] legalActions = computeLegalActions(gameState, climber);
+        int[] canonicalActions = StateCanonicalizer.transformCodes(legalActions, transform, geometry);
+        cache(canonicalKey.getKey(), canonicalState, canonicalActions);
+        return legalActions;
+    }
+
+    void cache(long key, long[] canonicalState, int[] canonicalActions) {
+        synchronized (legalActionCache) {
+            legalActionCache.put(key, new CachedActions(canonicalState, canonicalActions));
+        }
+    }
+
+    // positions a climber would end up on for the move or grapple codes, used for highlighting
+    public List<Position> legalDestinations(GameState gameState, Climber climber, int actionType) {
+        ColumnLayout layout = ColumnLayout.of(gameState);
+        List<Position> destinations = new ArrayList<>();
+        for (int code : enumerateLegalActions(gameState, climber)) {
+            if (ActionCodes.type(code) == actionType) {
+                int column = ActionCodes.firstColumn(code);
+                destinations.add(ActionCodes.toPosition(column, layout.height(column)));
+            }
+        }
+        return destinations;
+    }
+
+    public long getCacheHits() {
+        return cacheHits;
+    }
+
+    public long getCacheMisses() {
+        return cacheMisses;
+    }
+
+    private int[] computeLegalActions(GameState gameState, Climber climber) {
+        ColumnLayout layout = ColumnLayout.of(gameState);
+        int[] actions = new int[64];
+        int count = 0;
+        if (climber.getCanBuild()) {
+            int[] buildActions = findBuildActions(layout, GameRules.cubesToBuild(gameState, climber));
+            actions = ensureCapacity(actions, count + buildActions.length);
+            System.arraycopy(buildActions, 0, actions, count, buildActions.length);
+            count += buildActions.length;
+        }
+        int column = ActionCodes.columnOf(climber.getPosition());
+        int level = ActionCodes.level(climber.getPosition());
+        if (climber.getCanMove()) {
+            for (int destination : GameRules.moveDestinations(layout, column, level)) {
+                actions = ensureCapacity(actions, count + 1);
+                actions[count++] = ActionCodes.move(destination);
+            }
+        }
+        if (climber.getCanRoll()) {
+            actions = ensureCapacity(actions, count + 9);
+            actions[count++] = ActionCodes.roll();
+            for (int destination : GameRules.grappleDestinations(layout, column, level)) {
+                actions[count++] = ActionCodes.grapple(destination);
+            }
+            for (int direction = 0; direction < 4; direction++) {
+                actions[count++] = ActionCodes.wind(direction);
+            }
+        }
+        return Arrays.copyOf(actions, count);
+    }
+
+    private int[] findBuildActions(ColumnLayout layout, int cubesToBuild) {
+        if (cubesToBuild <= 0) {
+            return new int[0];
+        }
+        List<Integer> firstColumns = GameRules.buildColumns(layout);
+        int[] buildActions = new int[16];
+        int count = 0;
+        for (int firstColumn : firstColumns) {
+            if (cubesToBuild == 1) {
+                buildActions = ensureCapacity(buildActions, count + 1);
+                buildActions[count++] = ActionCodes.build(firstColumn);
+                continue;
+            }
+            // the second cube is validated against the board with the first one already built
+            layout.addCube(firstColumn);
+            List<Integer> secondColumns = GameRules.buildColumns(layout);
+            layout.removeCube(firstColumn);
+            buildActions = ensureCapacity(buildActions, count + Math.max(secondColumns.size(), 1));
+            if (secondColumns.isEmpty()) {
+                buildActions[count++] = ActionCodes.build(firstColumn);
+            }
+            for (int secondColumn : secondColumns) {
+                buildActions[count++] = ActionCodes.build(firstColumn, secondColumn);
+            }
+        }
+        return Arrays.copyOf(buildActions, count);
+    }
+
+    private static class CachedActions {
+        final long[] canonicalState;
+        final int[] canonicalActions;
+
+        CachedActions(long[] canonicalState, int[] canonicalActions) {
+            this.canonicalState = canonicalState;
+            this.canonicalActions = canonicalActions;
+        }
+    }
+
+    private static int[] ensureCapacity(int[] array, int capacity) {
+        return array.length >= capacity ? array : Arrays.copyOf(array, Math.max(capacity, array.length * 2));
+    }
+}
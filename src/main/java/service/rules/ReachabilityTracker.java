@@ -0,0 +1,103 @@
+package service.rules;
+
+import entities.Climber;
+import entities.GameState;
+import entities.PlayerTable;
+import service.memory.ObjectLayout;
+import service.memory.SizedCache;
+
+/*
+ * Keeps a DistanceField per climber in step with a game. update compares the board against the heights
+ * and climber columns seen last time, so built cubes, moves and wind shifts are all picked up the same way:
+ * changed columns are repaired in every field, a climber that moved gets its own field rebuilt.
+ */
+public class ReachabilityTracker implements SizedCache {
+    private final GameState gameState;
+    private final BoardGeometry geometry;
+    private final int[] heights;
+    private int[] climberColumns = new int[0];
+    private DistanceField[] fields = new DistanceField[0];
+
+    public ReachabilityTracker(GameState gameState) {
+        this(gameState, BoardGeometry.of(gameState.getBoardSetup()));
+    }
+
+    public ReachabilityTracker(GameState gameState, BoardGeometry geometry) {
+        this.gameState = gameState;
+        this.geometry = geometry;
+        this.heights = new int[geometry.columns()];
+        update();
+    }
+
+    public DistanceField field(Climber climber) {
+        return fields[climber.getSlot()];
+    }
+
+    public int turnsTo(Climber climber, int column) {
+        return fields[climber.getSlot()].turnsTo(column);
+    }
+
+    @Override
+    public long getRetainedBytes() {
+        long bytes = ObjectLayout.shallowSize(ReachabilityTracker.class) + ObjectLayout.arraySize(int.class, heights.length)
+            + ObjectLayout.arraySize(int.class, climberColumns.length) + ObjectLayout.arraySize(DistanceField.class, fields.length);
+        for (DistanceField field : fields) {
+            bytes += field.getRetainedBytes();
+        }
+        return bytes;
+    }
+
+    public void update() {
+        ColumnLayout layout = ColumnLayout.of(gameState, geometry);
+        PlayerTable players = gameState.getPlayerTable();
+        if (players.size() != fields.length) {
+            // players joined, start over
+            fields = new DistanceField[players.size()];
+            climberColumns = new int[players.size()];
+            for (int slot = 0; slot < players.size(); slot++) {
+                climberColumns[slot] = ActionCodes.cellColumn(players.getCell(slot));
+                fields[slot] = new DistanceField(layout, climberColumns[slot]);
+            }
+            layout.copyHeights(heights, 0);
+            return;
+        }
+
+        for (int index = 0; index < heights.length; index++) {
+            int height = layout.heightAt(index);
+            if (height != heights[index]) {
+                heights[index] = height;
+                for (DistanceField field : fields) {
+                    field.setHeight(geometry.columnCode(index), height);
+                }
+            }
+        }
+        // free every vacated column before occupying the new ones, wind can move a climber onto a column just left
+        boolean anyMoved = false;
+        for (int slot = 0; slot < fields.length; slot++) {
+            if (ActionCodes.cellColumn(players.getCell(slot)) != climberColumns[slot]) {
+                anyMoved = true;
+                for (DistanceField field : fields) {
+                    field.setOccupied(climberColumns[slot], false);
+                }
+            }
+        }
+        if (anyMoved) {
+            for (int slot = 0; slot < fields.length; slot++) {
+                int column = ActionCodes.cellColumn(players.getCell(slot));
+                if (column != climberColumns[slot]) {
+                    climberColumns[slot] = column;
+                    for (DistanceField field : fields) {
+                        field.setOccupied(column, true);
+                    }
+                }
+            }
+        }
+        for (int slot = 0; slot < fields.length; slot++) {
+            if (fields[slot].getSourceColumn() != climberColumns[slot]) {
+                fields[slot].moveSource(climberColumns[slot]);
+            } else {
+                fields[slot].repair();
+            }
+        }
+    }
+}
@@ -0,0 +1,29 @@
+package service.rules;
+
+import java.util.Arrays;
+
+import entities.GameState;
+
+// resulting state of a roll together with every action code leading to it, e.g. the wind directions that don't move anybody
+public class RollChoice {
+    final int[] codes;
+    final GameState state;
+
+    RollChoice(int[] codes, GameState state) {
+        this.codes = codes;
+        this.state = state;
+    }
+
+    public int[] getCodes() {
+        return codes;
+    }
+
+    public GameState getState() {
+        return state;
+    }
+
+    @Override
+    public String toString() {
+        return Arrays.stream(codes).mapToObj(ActionCodes::toString).reduce((a, b) -> a + "|" + b).orElse("");
+    }
+}
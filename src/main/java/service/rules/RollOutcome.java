@@ -0,0 +1,33 @@
+package service.rules;
+
+import java.util.List;
+
+// one face of the dice with its probability and the states the climber can choose between after it
+public class RollOutcome {
+    final String face;
+    final double probability;
+    final List<RollChoice> choices;
+
+    RollOutcome(String face, double probability, List<RollChoice> choices) {
+        this.face = face;
+        this.probability = probability;
+        this.choices = choices;
+    }
+
+    public String getFace() {
+        return face;
+    }
+
+    public double getProbability() {
+        return probability;
+    }
+
+    public List<RollChoice> getChoices() {
+        return choices;
+    }
+
+    @Override
+    public String toString() {
+        return face + " p=" + probability + " " + choices;
+    }
+}
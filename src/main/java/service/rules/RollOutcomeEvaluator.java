@@ -0,0 +1,106 @@
+package service.rules;
+
+import static config.CommonConfiguration.BLANK;
+import static config.CommonConfiguration.GRAPPLE;
+import static config.CommonConfiguration.WIND;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.ToDoubleFunction;
+
+import entities.Climber;
+import entities.GameState;
+import service.actions.RollDiceActionService;
+
+/*
+ * Exact outcome distribution of a roll without sampling the dice. The faces come with the probability
+ * of RollDiceActionService.diceValues, after GRAPPLE the climber picks a target and after WIND a direction,
+ * directions that end in the same state are merged into one choice.
+ * Searching players take the expectation over the faces of their best choice instead of rolling many times.
+ */
+public final class RollOutcomeEvaluator {
+
+    private RollOutcomeEvaluator() {
+    }
+
+    public static List<RollOutcome> outcomes(GameState gameState, Climber climber) {
+        List<RollOutcome> outcomes = new ArrayList<>();
+        if (!climber.getCanRoll()) {
+            return outcomes;
+        }
+        for (String face : List.of(GRAPPLE, BLANK, WIND)) {
+            double probability = (double) RollDiceActionService.diceValues.stream().filter(face::equals).count()
+                / RollDiceActionService.diceValues.size();
+            if (probability == 0) {
+                continue;
+            }
+            switch (face) {
+                case GRAPPLE:
+                    outcomes.add(new RollOutcome(face, probability, grappleChoices(gameState, climber)));
+                    break;
+                case WIND:
+                    outcomes.add(new RollOutcome(face, probability, windChoices(gameState, climber)));
+                    break;
+                default:
+                    outcomes.add(new RollOutcome(face, probability, List.of(new RollChoice(new int[]{ActionCodes.roll()}, afterRoll(gameState, climber)))));
+            }
+        }
+        return outcomes;
+    }
+
+    // expected evaluation of rolling, assuming the climber takes its best choice after every face
+    public static double expectedValue(GameState gameState, Climber climber, ToDoubleFunction<GameState> evaluation) {
+        double expectation = 0;
+        for (RollOutcome outcome : outcomes(gameState, climber)) {
+            double best = Double.NEGATIVE_INFINITY;
+            for (RollChoice choice : outcome.choices) {
+                best = Math.max(best, evaluation.applyAsDouble(choice.state));
+            }
+            expectation += outcome.probability * best;
+        }
+        return expectation;
+    }
+
+    private static List<RollChoice> grappleChoices(GameState gameState, Climber climber) {
+        ColumnLayout layout = ColumnLayout.of(gameState);
+        int column = ActionCodes.cellColumn(climber.getCell());
+        List<Integer> targets = GameRules.grappleDestinations(layout, column, ActionCodes.cellLevel(climber.getCell()));
+        List<RollChoice> choices = new ArrayList<>();
+        if (targets.isEmpty()) {
+            // no space to grapple to, the roll is used up
+            choices.add(new RollChoice(new int[]{ActionCodes.roll()}, afterRoll(gameState, climber)));
+        }
+        for (int target : targets) {
+            GameState state = afterRoll(gameState, climber);
+            GameRules.placeClimber(state, state.getPlayersList().get(climber.getSlot()), ActionCodes.toPosition(target, layout.height(target)));
+            choices.add(new RollChoice(new int[]{ActionCodes.grapple(target)}, state));
+        }
+        return choices;
+    }
+
+    private static List<RollChoice> windChoices(GameState gameState, Climber climber) {
+        Map<Long, List<Integer>> codesByState = new LinkedHashMap<>();
+        Map<Long, GameState> states = new LinkedHashMap<>();
+        for (int direction = 0; direction < ActionCodes.WIND_DIRECTIONS.length; direction++) {
+            GameState state = afterRoll(gameState, climber);
+            GameRules.applyWind(state, direction);
+            long fingerprint = state.fingerprint();
+            states.putIfAbsent(fingerprint, state);
+            codesByState.computeIfAbsent(fingerprint, key -> new ArrayList<>()).add(ActionCodes.wind(direction));
+        }
+        List<RollChoice> choices = new ArrayList<>();
+        for (Map.Entry<Long, List<Integer>> entry : codesByState.entrySet()) {
+            int[] codes = entry.getValue().stream().mapToInt(Integer::intValue).toArray();
+            choices.add(new RollChoice(codes, states.get(entry.getKey())));
+        }
+        return choices;
+    }
+
+    private static GameState afterRoll(GameState gameState, Climber climber) {
+        GameState state = gameState.copy();
+        state.getPlayersList().get(climber.getSlot()).setCanRoll(false);
+        return state;
+    }
+}
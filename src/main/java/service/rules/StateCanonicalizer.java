@@ -0,0 +1,190 @@
+package service.rules;
+
+import static config.CommonConfiguration.CUBE_PIECE;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+
+import config.CommonConfiguration;
+import entities.Climber;
+import entities.GameState;
+import entities.Piece;
+import entities.PlayerTable;
+import entities.Position;
+
+/*
+ * Maps a state to its canonical representative under the symmetries of the board, the quarter turns and
+ * mirror flips of the X-Z plane (see BoardGeometry). The starting layout and the four seats are symmetric under
+ * all of them, so states that differ by a rotation or a flip share one key for caches and the replay archive.
+ * The representative is the transform with the smallest hash, actions of the representative map back to
+ * the state through the inverse transform.
+ * Climbers keep their turn order and colour under a transform, only their cells and seats move.
+ */
+public final class StateCanonicalizer {
+    private static final long CUBE_TAG = 1L << 60;
+    private static final long CLIMBER_TAG = 2L << 60;
+    private static final long OCCUPANT_TAG = 3L << 60;
+    private static final long PERSPECTIVE_TAG = 4L << 60;
+    private static final long GEOMETRY_TAG = 5L << 60;
+    private static final List<Position> SEATS = new ArrayList<>(CommonConfiguration.availablePlayerPositions);
+
+    static {
+        SEATS.sort(Comparator.comparing(Position::getX).thenComparing(Position::getZ));
+    }
+
+    private StateCanonicalizer() {
+    }
+
+    // canonical key of the whole state, every climber keyed by its place in the turn order
+    public static CanonicalKey canonicalKey(GameState gameState) {
+        return canonicalKey(gameState, null, BoardGeometry.of(gameState.getBoardSetup()));
+    }
+
+    /*
+     * Canonical key of the state as one climber sees it when choosing its actions: the other climbers are
+     * only obstacles, so states that differ in who stands where around the climber share a key.
+     */
+    public static CanonicalKey canonicalKey(GameState gameState, Climber perspective) {
+        return canonicalKey(gameState, perspective, BoardGeometry.of(gameState.getBoardSetup()));
+    }
+
+    public static CanonicalKey canonicalKey(GameState gameState, Climber perspective, BoardGeometry geometry) {
+        int[] cubeCells = cubeCells(gameState, geometry);
+        int[] climberCells = climberCells(gameState, geometry);
+        PlayerTable players = gameState.getPlayerTable();
+
+        long bestKey = 0;
+        int bestTransform = -1;
+        for (int transform = 0; transform < BoardGeometry.TRANSFORMS; transform++) {
+            if (!geometry.isSymmetry(transform)) {
+                continue;
+            }
+            // the same pieces on another board or with another cube supply are another state
+            long key = GameState.mix(gameState.getUsedCubes()) + GameState.mix(geometryTag(geometry));
+            for (int cell : cubeCells) {
+                key += GameState.mix(cubeTag(geometry, transform, cell));
+            }
+            for (int slot = 0; slot < players.size(); slot++) {
+                key += GameState.mix(climberTag(players, perspective, slot, transformCell(geometry, transform, climberCells[slot])));
+            }
+            if (bestTransform < 0 || Long.compareUnsigned(key, bestKey) < 0) {
+                bestKey = key;
+                bestTransform = transform;
+            }
+        }
+        return new CanonicalKey(bestKey, bestTransform);
+    }
+
+    /*
+     * The values the canonical key mixes and sums for the transform of the key, sorted. Keys of two states
+     * can collide, the states are only the same canonical state if these are equal as well.
+     */
+    public static long[] canonicalState(GameState gameState, Climber perspective, BoardGeometry geometry, int transform) {
+        int[] cubeCells = cubeCells(gameState, geometry);
+        int[] climberCells = climberCells(gameState, geometry);
+        PlayerTable players = gameState.getPlayerTable();
+        long[] state = new long[2 + cubeCells.length + players.size()];
+        int count = 0;
+        state[count++] = gameState.getUsedCubes();
+        state[count++] = geometryTag(geometry);
+        for (int cell : cubeCells) {
+            state[count++] = cubeTag(geometry, transform, cell);
+        }
+        for (int slot = 0; slot < players.size(); slot++) {
+            state[count++] = climberTag(players, perspective, slot, transformCell(geometry, transform, climberCells[slot]));
+        }
+        Arrays.sort(state);
+        return state;
+    }
+
+    private static int[] cubeCells(GameState gameState, BoardGeometry geometry) {
+        int[] cubeCells = new int[gameState.getPositionPieceMap().size()];
+        int cubes = 0;
+        for (Piece piece : gameState.getPositionPieceMap().values()) {
+            if (piece.getPieceType().equals(CUBE_PIECE)) {
+                cubeCells[cubes++] = geometry.cellIndex(piece.getPosition());
+            }
+        }
+        return Arrays.copyOf(cubeCells, cubes);
+    }
+
+    private static int[] climberCells(GameState gameState, BoardGeometry geometry) {
+        PlayerTable players = gameState.getPlayerTable();
+        int[] climberCells = new int[players.size()];
+        for (int slot = 0; slot < players.size(); slot++) {
+            int cell = players.getCell(slot);
+            climberCells[slot] = geometry.cellIndex(geometry.columnIndex(ActionCodes.cellColumn(cell)), ActionCodes.cellLevel(cell));
+        }
+        return climberCells;
+    }
+
+    private static long geometryTag(BoardGeometry geometry) {
+        return GEOMETRY_TAG | (long) geometry.width() << 40 | (long) geometry.depth() << 24 | geometry.levels();
+    }
+
+    private static long cubeTag(BoardGeometry geometry, int transform, int cell) {
+        return CUBE_TAG | transformCell(geometry, transform, cell);
+    }
+
+    private static long climberTag(PlayerTable players, Climber perspective, int slot, long cell) {
+        if (perspective == null) {
+            return CLIMBER_TAG | (long) slot << 48 | climberState(players, slot) << 24 | cell;
+        }
+        return slot == perspective.getSlot() ? PERSPECTIVE_TAG | climberState(players, slot) << 24 | cell : OCCUPANT_TAG | cell;
+    }
+
+    private static long climberState(PlayerTable players, int slot) {
+        return (long) players.getCubesRemaining(slot) << 3 | players.getActionFlags(slot);
+    }
+
+    private static long transformCell(BoardGeometry geometry, int transform, int cell) {
+        // pieces off the board can't be transformed, they keep a cell no transform produces
+        return cell == BoardGeometry.OFF_BOARD ? 0xFFFFFFL : geometry.transformCell(transform, cell);
+    }
+
+    public static int[] transformCodes(int[] codes, int transform, BoardGeometry geometry) {
+        int[] transformed = new int[codes.length];
+        for (int i = 0; i < codes.length; i++) {
+            transformed[i] = transformCode(codes[i], transform, geometry);
+        }
+        return transformed;
+    }
+
+    public static int transformCode(int code, int transform, BoardGeometry geometry) {
+        switch (ActionCodes.type(code)) {
+            case ActionCodes.BUILD:
+                int first = transformColumn(ActionCodes.firstColumn(code), transform, geometry);
+                return ActionCodes.hasSecondColumn(code)
+                    ? ActionCodes.build(first, transformColumn(ActionCodes.secondColumn(code), transform, geometry))
+                    : ActionCodes.build(first);
+            case ActionCodes.MOVE:
+                return ActionCodes.move(transformColumn(ActionCodes.firstColumn(code), transform, geometry));
+            case ActionCodes.GRAPPLE:
+                return ActionCodes.grapple(transformColumn(ActionCodes.firstColumn(code), transform, geometry));
+            case ActionCodes.WIND:
+                return ActionCodes.wind(geometry.transformDirection(transform, ActionCodes.direction(code)));
+            default:
+                return code;
+        }
+    }
+
+    private static int transformColumn(int column, int transform, BoardGeometry geometry) {
+        return geometry.columnCode(geometry.transformColumn(transform, geometry.columnIndex(column)));
+    }
+
+    public static Position transformPosition(Position position, int transform, BoardGeometry geometry) {
+        return ActionCodes.toPosition(transformColumn(ActionCodes.columnOf(position), transform, geometry), ActionCodes.level(position));
+    }
+
+    // seat i, in the order of x then z of CommonConfiguration.availablePlayerPositions, moves to the returned seat
+    // on the board of the geometry
+    public static int[] seatPermutation(int transform, BoardGeometry geometry) {
+        int[] permutation = new int[SEATS.size()];
+        for (int seat = 0; seat < SEATS.size(); seat++) {
+            permutation[seat] = SEATS.indexOf(transformPosition(SEATS.get(seat), transform, geometry));
+        }
+        return permutation;
+    }
+}
@@ -0,0 +1,22 @@
+package service.scenario;
+
+import entities.GameState;
+
+// a generated game, stopped at the start of the turn of playerTurn
+public class Scenario {
+    private final GameState gameState;
+    private final int playerTurn;
+
+    public Scenario(GameState gameState, int playerTurn) {
+        this.gameState = gameState;
+        this.playerTurn = playerTurn;
+    }
+
+    public GameState getGameState() {
+        return gameState;
+    }
+
+    public int getPlayerTurn() {
+        return playerTurn;
+    }
+}
@@ -0,0 +1,235 @@
+package service.scenario;
+
+import static service.codec.VarInts.readVarInt;
+import static service.codec.VarInts.writeVarInt;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.stream.LongStream;
+import java.util.stream.Stream;
+
+import entities.BoardSetup;
+import entities.Climber;
+import entities.GameState;
+import service.BoardService;
+import service.PlayerService;
+import service.actions.ActionExecutor;
+import service.actions.RandomPlayout;
+import service.rules.ActionCodes;
+import service.rules.ColumnLayout;
+import service.rules.GameOverDetector;
+import service.rules.GameRules;
+import service.session.SessionCodec;
+
+/*
+ * Seeded game states in bulk for benchmarks, fuzzing and bot training, played through the real action services
+ * from legal actions only, so every scenario is a position a game can actually reach.
+ * No scenario repeats a state, so the actions are drawn from the rules directly instead of the cached enumeration.
+ * Scenario i depends on nothing but the seed and i, any range of them can be generated apart and in parallel.
+ * The actions of a turn are picked at random among those keeping to the ScenarioSpec:
+ * - builds while the cubes built lag behind the spec's density spread over its turns,
+ * - while the climber is below the spec's level: builds making it a step next to its column, the highest
+ *   climbing moves, level moves only when there is neither; once there moves not going above it,
+ * - rolls always, the face rolled from the dice before the space or direction is picked.
+ * The turn ends early once nothing else keeps to the spec.
+ * Snapshots are SessionCodec records, each preceded by its length as a varint.
+ * usage: ScenarioGenerator <count> <seed> <file> [players turns density level cards [width depth cubes]]
+ */
+public class ScenarioGenerator {
+    private static final int NO_ACTION = -1;
+    // stands in for all builds while picking, the columns are drawn once a build is picked
+    private static final int DRAWN_BUILD = -2;
+    // stands in for the roll, what it does is up to the dice once it is picked
+    private static final int DRAWN_ROLL = -3;
+
+    private final ScenarioSpec spec;
+    private final long seed;
+
+    public ScenarioGenerator(ScenarioSpec spec, long seed) {
+        this.spec = spec;
+        this.seed = seed;
+    }
+
+    public static void main(String[] args) throws IOException {
+        long count = args.length > 0 ? Long.parseLong(args[0]) : 100_000;
+        long seed = args.length > 1 ? Long.parseLong(args[1]) : System.currentTimeMillis();
+        Path file = Path.of(args.length > 2 ? args[2] : "scenarios.bin");
+        ScenarioSpec spec = ScenarioSpec.midGame();
+        if (args.length > 7) {
+            BoardSetup boardSetup = args.length > 10
+                ? BoardSetup.scaled(Integer.parseInt(args[8]), Integer.parseInt(args[9]), Integer.parseInt(args[10]))
+                : BoardSetup.standard();
+            spec = new ScenarioSpec(boardSetup, Integer.parseInt(args[3]), Integer.parseInt(args[4]), Double.parseDouble(args[5]),
+                    Integer.parseInt(args[6]), Integer.parseInt(args[7]));
+        }
+
+        System.out.println("Generating " + count + " scenarios from seed " + seed + ", " + spec);
+        long start = System.nanoTime();
+        try (OutputStream out = Files.newOutputStream(file)) {
+            new ScenarioGenerator(spec, seed).writeSnapshots(out, 0, count);
+        }
+        double seconds = (System.nanoTime() - start) / 1e9;
+        System.out.printf("%d scenarios in %.1f s, %.0f per second, %d bytes in %s%n",
+                count, seconds, count / seconds, Files.size(file), file);
+    }
+
+    // in memory fixtures, the stream can be made parallel
+    public Stream<Scenario> scenarios(long first, long count) {
+        return LongStream.range(first, first + count).mapToObj(this::generate);
+    }
+
+    // generated in parallel, written in order
+    public void writeSnapshots(OutputStream out, long first, long count) throws IOException {
+        try {
+            scenarios(first, count).parallel().map(ScenarioGenerator::snapshot).forEachOrdered(record -> {
+                try {
+                    out.write(record);
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            });
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+    }
+
+    // the next snapshot of the buffer, null once it is used up
+    public static Scenario readSnapshot(ByteBuffer in) {
+        if (!in.hasRemaining()) {
+            return null;
+        }
+        int length = readVarInt(in);
+        ByteBuffer record = in.slice().limit(length);
+        in.position(in.position() + length);
+        return new Scenario(SessionCodec.decode(record.duplicate()), SessionCodec.playerTurn(record));
+    }
+
+    public static void readSnapshots(Path file, List<Scenario> scenarios) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            ByteBuffer in = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            for (Scenario scenario = readSnapshot(in); scenario != null; scenario = readSnapshot(in)) {
+                scenarios.add(scenario);
+            }
+        }
+    }
+
+    private static byte[] snapshot(Scenario scenario) {
+        byte[] record = SessionCodec.encode(scenario.getGameState(), scenario.getPlayerTurn());
+        ByteArrayOutputStream out = new ByteArrayOutputStream(record.length + 3);
+        writeVarInt(out, record.length);
+        out.write(record, 0, record.length);
+        return out.toByteArray();
+    }
+
+    public Scenario generate(long index) {
+        Random random = new Random(GameState.mix(GameState.mix(seed) + index));
+        BoardSetup boardSetup = spec.getBoardSetup();
+        GameState gameState = new GameState();
+        gameState.setBoardSetup(boardSetup);
+        gameState.setOut(GameState.QUIET);
+        int numberOfPlayers = spec.getPlayers() != 0 ? spec.getPlayers() : 2 + random.nextInt(boardSetup.getMaximumPlayers() - 1);
+        new PlayerService(gameState, random).initialisePlayers(numberOfPlayers);
+        for (Climber climber : gameState.getPlayersList()) {
+            climber.setPowerCards(climber.getPowerCards().subList(0, spec.getPowerCards()));
+        }
+        new BoardService(gameState).initialiseBoard();
+        ActionExecutor actionExecutor = new ActionExecutor(gameState, random);
+        GameOverDetector gameOverDetector = new GameOverDetector(gameState);
+        int startingCubes = gameState.getUsedCubes();
+        long cubesToBuild = Math.round(spec.getCubeDensity() * boardSetup.cubesPerPlayer(numberOfPlayers) * numberOfPlayers);
+
+        int playerTurn = 0;
+        Climber climber = gameState.getPlayersList().get(playerTurn);
+        climber.resetActions();
+        for (int turn = 0; turn < spec.getTurns(); ) {
+            boolean buildMore = gameState.getUsedCubes() - startingCubes < cubesToBuild * (turn + 1) / spec.getTurns();
+            int code = pickAction(gameState, climber, buildMore, random);
+            if (code != NO_ACTION) {
+                if (!actionExecutor.perform(climber, code)) {
+                    throw new IllegalStateException("Legal action " + ActionCodes.toString(code) + " was rejected in scenario " + index);
+                }
+                continue;
+            }
+            turn++;
+            climber.clearActions();
+            GameOverDetector.Outcome outcome = gameOverDetector.turnEnded();
+            playerTurn = (playerTurn + 1) % numberOfPlayers;
+            climber = gameState.getPlayersList().get(playerTurn);
+            climber.resetActions();
+            if (outcome != GameOverDetector.Outcome.IN_PROGRESS) {
+                break;
+            }
+        }
+        gameState.removeBoardListener(gameOverDetector);
+        return new Scenario(gameState, playerTurn);
+    }
+
+    // one of the climber's legal actions that keeps to the spec, drawn from the rules the LegalActionService
+    // enumerates with, except that the cubes of a build are drawn one column at a time rather than from every pair
+    private int pickAction(GameState gameState, Climber climber, boolean buildMore, Random random) {
+        ColumnLayout layout = ColumnLayout.of(gameState);
+        int column = ActionCodes.columnOf(climber.getPosition());
+        int level = ActionCodes.level(climber.getPosition());
+        List<Integer> kept = new ArrayList<>();
+        boolean climbing = level < spec.getClimberLevel();
+        int cubesToBuild = climber.getCanBuild() && buildMore ? GameRules.cubesToBuild(gameState, climber) : 0;
+        List<Integer> buildColumns = cubesToBuild > 0 ? GameRules.buildColumns(layout) : List.of();
+        // a climber below the spec's level builds itself a step next to its column when it can
+        List<Integer> steps = new ArrayList<>(4);
+        if (climbing) {
+            for (int buildColumn : buildColumns) {
+                if (layout.height(buildColumn) == level && isNeighbour(column, buildColumn)) {
+                    steps.add(buildColumn);
+                }
+            }
+        }
+        if (!buildColumns.isEmpty()) {
+            kept.add(DRAWN_BUILD);
+        }
+        if (climber.getCanMove()) {
+            List<Integer> destinations = GameRules.moveDestinations(layout, column, level);
+            int highest = -1;
+            for (int destination : destinations) {
+                highest = Math.max(highest, layout.height(destination));
+            }
+            for (int destination : destinations) {
+                int height = layout.height(destination);
+                // climbing moves first when there are any, no walking away from a step still to be built
+                boolean keep = climbing
+                    ? height > level ? height == highest : height == level && highest <= level && steps.isEmpty()
+                    : height <= spec.getClimberLevel();
+                if (keep) {
+                    kept.add(ActionCodes.move(destination));
+                }
+            }
+        }
+        if (climber.getCanRoll()) {
+            kept.add(DRAWN_ROLL);
+        }
+        if (kept.isEmpty()) {
+            return NO_ACTION;
+        }
+        int code = kept.get(random.nextInt(kept.size()));
+        if (code == DRAWN_ROLL) {
+            return RandomPlayout.rollDice(gameState, climber, random);
+        }
+        if (code == DRAWN_BUILD) {
+            return RandomPlayout.drawBuild(layout, steps.isEmpty() ? buildColumns : steps, cubesToBuild, random);
+        }
+        return code;
+    }
+
+    private static boolean isNeighbour(int column, int other) {
+        return Math.abs(ActionCodes.gridX(column) - ActionCodes.gridX(other)) + Math.abs(ActionCodes.gridZ(column) - ActionCodes.gridZ(other)) == 1;
+    }
+}
@@ -0,0 +1,71 @@
+package service.scenario;
+
+import entities.BoardSetup;
+
+/*
+ * Densities generated scenarios are steered towards.
+ * - players: seats taken, 0 for a random number of players the board can seat
+ * - turns: turns played before the snapshot, fewer when the game ends sooner
+ * - cubeDensity: share of the cubes in the players' hands built by then, 0 to 1, as far as the turns allow
+ * - climberLevel: level the climbers try to climb to and stay around
+ * - powerCards: cards each player still holds, 0 to 2
+ */
+public class ScenarioSpec {
+    private final BoardSetup boardSetup;
+    private final int players;
+    private final int turns;
+    private final double cubeDensity;
+    private final int climberLevel;
+    private final int powerCards;
+
+    public ScenarioSpec(BoardSetup boardSetup, int players, int turns, double cubeDensity, int climberLevel, int powerCards) {
+        if (players != 0 && (players < 2 || players > boardSetup.getMaximumPlayers())) {
+            throw new IllegalArgumentException("2 to " + boardSetup.getMaximumPlayers() + " players can play on a " + boardSetup);
+        }
+        if (turns < 0 || cubeDensity < 0 || cubeDensity > 1 || climberLevel < 0 || powerCards < 0 || powerCards > 2) {
+            throw new IllegalArgumentException("Invalid scenario spec: turns " + turns + ", cube density " + cubeDensity
+                    + ", climber level " + climberLevel + ", power cards " + powerCards);
+        }
+        this.boardSetup = boardSetup;
+        this.players = players;
+        this.turns = turns;
+        this.cubeDensity = cubeDensity;
+        this.climberLevel = climberLevel;
+        this.powerCards = powerCards;
+    }
+
+    // a game half way through on the standard board
+    public static ScenarioSpec midGame() {
+        return new ScenarioSpec(BoardSetup.standard(), 0, 24, 0.5, 2, 2);
+    }
+
+    public BoardSetup getBoardSetup() {
+        return boardSetup;
+    }
+
+    public int getPlayers() {
+        return players;
+    }
+
+    public int getTurns() {
+        return turns;
+    }
+
+    public double getCubeDensity() {
+        return cubeDensity;
+    }
+
+    public int getClimberLevel() {
+        return climberLevel;
+    }
+
+    public int getPowerCards() {
+        return powerCards;
+    }
+
+    @Override
+    public String toString() {
+        return "ScenarioSpec{" + boardSetup + ", players=" + players + ", turns=" + turns + ", cubeDensity=" + cubeDensity
+                + ", climberLevel=" + climberLevel + ", powerCards=" + powerCards + '}';
+    }
+}
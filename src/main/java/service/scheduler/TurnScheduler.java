@@ -0,0 +1,117 @@
+package service.scheduler;
+
+import static config.CommonConfiguration.ACTION_TIME_LIMIT_MILLIS;
+import static config.CommonConfiguration.TIMER_WHEEL_SIZE;
+import static config.CommonConfiguration.TIMER_WHEEL_TICK_MILLIS;
+import static config.CommonConfiguration.TURN_TIME_LIMIT_MILLIS;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+import entities.Climber;
+
+/*
+ * Keeps the per-turn and per-action deadlines of every running game on one shared timer wheel.
+ * A turn has a single turn deadline for its whole duration and an action deadline which is
+ * re-armed before every action; whichever expires first ends the turn through the game's handler.
+ * The handler is told which turn expired by the token the game started it with, so a deadline that fires
+ * as the turn ends can be told apart from one of the next turn.
+ */
+public class TurnScheduler {
+    private static TurnScheduler sharedInstance;
+
+    private final HashedTimerWheel timerWheel;
+    private final long turnTimeLimitMillis;
+    private final long actionTimeLimitMillis;
+    private final Map<String, ScheduledTurn> scheduledTurns = new ConcurrentHashMap<>();
+
+    public TurnScheduler(HashedTimerWheel timerWheel, long turnTimeLimitMillis, long actionTimeLimitMillis) {
+        this.timerWheel = timerWheel;
+        this.turnTimeLimitMillis = turnTimeLimitMillis;
+        this.actionTimeLimitMillis = actionTimeLimitMillis;
+    }
+
+    public static synchronized TurnScheduler getSharedInstance() {
+        if (sharedInstance == null) {
+            HashedTimerWheel timerWheel = new HashedTimerWheel(TIMER_WHEEL_TICK_MILLIS, TimeUnit.MILLISECONDS, TIMER_WHEEL_SIZE);
+            sharedInstance = new TurnScheduler(timerWheel, TURN_TIME_LIMIT_MILLIS, ACTION_TIME_LIMIT_MILLIS);
+        }
+        return sharedInstance;
+    }
+
+    public void startTurn(String gameId, long turnToken, Climber player, TurnTimeoutHandler handler) {
+        ScheduledTurn turn = new ScheduledTurn(gameId, turnToken, player, handler);
+        synchronized (turn) {
+            ScheduledTurn previousTurn = scheduledTurns.put(gameId, turn);
+            if (previousTurn != null) {
+                previousTurn.cancel();
+            }
+            turn.turnTimeout = timerWheel.schedule(() -> expire(turn, DeadlineType.TURN), turnTimeLimitMillis, TimeUnit.MILLISECONDS);
+            turn.actionTimeout = timerWheel.schedule(() -> expire(turn, DeadlineType.ACTION), actionTimeLimitMillis, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    public void startAction(String gameId) {
+        ScheduledTurn turn = scheduledTurns.get(gameId);
+        if (turn == null) {
+            return;
+        }
+        synchronized (turn) {
+            if (turn.actionTimeout != null) {
+                turn.actionTimeout.cancel();
+            }
+            turn.actionTimeout = timerWheel.schedule(() -> expire(turn, DeadlineType.ACTION), actionTimeLimitMillis, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    public void endTurn(String gameId) {
+        ScheduledTurn turn = scheduledTurns.remove(gameId);
+        if (turn != null) {
+            turn.cancel();
+        }
+    }
+
+    public int activeTurns() {
+        return scheduledTurns.size();
+    }
+
+    private void expire(ScheduledTurn turn, DeadlineType deadlineType) {
+        // a stale timeout of an already finished turn must not end the next one
+        if (!scheduledTurns.remove(turn.gameId, turn)) {
+            return;
+        }
+        turn.cancel();
+        turn.handler.onTurnExpired(turn.gameId, turn.turnToken, turn.player, deadlineType);
+    }
+
+    public enum DeadlineType {
+        ACTION,
+        TURN
+    }
+
+    private static final class ScheduledTurn {
+        final String gameId;
+        final long turnToken;
+        final Climber player;
+        final TurnTimeoutHandler handler;
+        HashedTimerWheel.Timeout turnTimeout;
+        HashedTimerWheel.Timeout actionTimeout;
+
+        ScheduledTurn(String gameId, long turnToken, Climber player, TurnTimeoutHandler handler) {
+            this.gameId = gameId;
+            this.turnToken = turnToken;
+            this.player = player;
+            this.handler = handler;
+        }
+
+        synchronized void cancel() {
+            if (turnTimeout != null) {
+                turnTimeout.cancel();
+            }
+            if (actionTimeout != null) {
+                actionTimeout.cancel();
+            }
+        }
+    }
+}
@@ -0,0 +1,10 @@
+package service.scheduler;
+
+import entities.Climber;
+
+@FunctionalInterface
+public interface TurnTimeoutHandler {
+    // called from the timer wheel thread, so implementations must not block. The turn token may be of a turn
+    // that has ended since
+    void onTurnExpired(String gameId, long turnToken, Climber player, TurnScheduler.DeadlineType deadlineType);
+}
@@ -0,0 +1,107 @@
+package service.session;
+
+import static config.CommonConfiguration.FOOTPRINT_SAMPLE_RELEASES;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import entities.BoardListener;
+import entities.GameState;
+
+/*
+ * A hosted game. Hibernating it frees its cubes, their positions, the entries of its positionPieceMap and its
+ * caches, the bulk of a game in play. What others may hold on to stays on the heap so the game is restored
+ * in place, into the same GameState: the GameState with its emptied map, the PlayerTable and its Climber views,
+ * and the board listeners with what they keep, such as a GameRecorder journal, a GameOverDetector layout or
+ * the column heights. Restoring brings back the very board they were told about, they need no catching up.
+ * Caches are optional structures derived from the state, such as a ReachabilityTracker, whoever uses one
+ * rebuilds it when getCache returns null. They are dropped when the game is hibernated or goes over its byte budget.
+ */
+public class GameSession {
+    final String gameId;
+    final GameState gameState;
+    int playerTurn;
+    int hibernationSlot = -1;
+    // second chance bit of the clock, set on every access
+    boolean referenced = true;
+    int pins = 0;
+    final Map<String, Object> caches = new LinkedHashMap<>();
+    long footprintBytes = 0;
+    // what the footprint was last measured at
+    int measuredPieces = -1;
+    int releasesSinceMeasure = 0;
+    boolean cachesChanged = true;
+    // hibernations for the budget in a row, and over budget measurements let off before the next one
+    int budgetStrikes = 0;
+    int budgetGrace = 0;
+
+    GameSession(String gameId, GameState gameState, int playerTurn) {
+        this.gameId = gameId;
+        this.gameState = gameState;
+        this.playerTurn = playerTurn;
+    }
+
+    public String getGameId() {
+        return gameId;
+    }
+
+    public GameState getGameState() {
+        return gameState;
+    }
+
+    public int getPlayerTurn() {
+        return playerTurn;
+    }
+
+    public void setPlayerTurn(int playerTurn) {
+        this.playerTurn = playerTurn;
+    }
+
+    public boolean isHibernated() {
+        return hibernationSlot >= 0;
+    }
+
+    public void putCache(String name, Object cache) {
+        dropCache(name);
+        caches.put(name, cache);
+        cachesChanged = true;
+    }
+
+    // null when the cache was never built or has been dropped
+    public Object getCache(String name) {
+        return caches.get(name);
+    }
+
+    public void dropCache(String name) {
+        Object cache = caches.remove(name);
+        cachesChanged |= cache != null;
+        // a cache kept up to date by board changes must stop listening
+        if (cache instanceof BoardListener) {
+            gameState.removeBoardListener((BoardListener) cache);
+        }
+    }
+
+    void dropCaches() {
+        for (String name : caches.keySet().toArray(new String[0])) {
+            dropCache(name);
+        }
+    }
+
+    // measuring walks the whole game, it is only done again once pieces or caches changed, or every
+    // FOOTPRINT_SAMPLE_RELEASES releases for caches that grow on their own
+    boolean isFootprintStale() {
+        return cachesChanged || measuredPieces != gameState.getPositionPieceMap().size() || ++releasesSinceMeasure >= FOOTPRINT_SAMPLE_RELEASES;
+    }
+
+    void footprintMeasured(long bytes) {
+        footprintBytes = bytes;
+        measuredPieces = gameState.getPositionPieceMap().size();
+        releasesSinceMeasure = 0;
+        cachesChanged = false;
+    }
+
+    // retained bytes of the game and its caches when it was last measured, 0 without a budget
+    public long getFootprintBytes() {
+        return footprintBytes;
+    }
+}
@@ -0,0 +1,105 @@
+package service.session;
+
+import static config.CommonConfiguration.HIBERNATION_SLOTS_PER_SEGMENT;
+import static config.CommonConfiguration.HIBERNATION_SLOT_BYTES;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import service.memory.MappedBuffers;
+
+/*
+ * Fixed size record slots in a memory-mapped file, outside the heap and out of the garbage collector's way.
+ * The file is mapped in segments as it grows, freed slots are reused before the file grows again.
+ * slot: record length as an int, then the record
+ * close unmaps the segments, records read before must not be used after it.
+ */
+public class HibernationStore implements Closeable {
+    private final Path path;
+    private final FileChannel channel;
+    private final int slotBytes;
+    private final int slotsPerSegment;
+    private final List<MappedByteBuffer> segments = new ArrayList<>();
+    private int[] freeSlots = new int[64];
+    private int freeCount = 0;
+    private int nextSlot = 0;
+
+    public HibernationStore() throws IOException {
+        this(Files.createTempFile("sessions", ".hibernate"), HIBERNATION_SLOT_BYTES, HIBERNATION_SLOTS_PER_SEGMENT);
+        path.toFile().deleteOnExit();
+    }
+
+    public HibernationStore(Path path, int slotBytes, int slotsPerSegment) throws IOException {
+        this.path = path;
+        this.slotBytes = slotBytes;
+        this.slotsPerSegment = slotsPerSegment;
+        this.channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+    }
+
+    // the slot the record went to, an IllegalArgumentException when it doesn't fit in a slot
+    public int write(byte[] record) {
+        if (record.length > slotBytes - Integer.BYTES) {
+            throw new IllegalArgumentException("Record of " + record.length + " bytes doesn't fit a " + slotBytes + " byte slot");
+        }
+        int slot = freeCount > 0 ? freeSlots[--freeCount] : nextSlot++;
+        ByteBuffer buffer = slotBuffer(slot);
+        buffer.putInt(record.length);
+        buffer.put(record);
+        return slot;
+    }
+
+    // view on the record of the slot, valid until the slot is freed
+    public ByteBuffer read(int slot) {
+        ByteBuffer buffer = slotBuffer(slot);
+        int length = buffer.getInt();
+        buffer.limit(buffer.position() + length);
+        return buffer.slice();
+    }
+
+    public void free(int slot) {
+        if (freeCount == freeSlots.length) {
+            freeSlots = Arrays.copyOf(freeSlots, freeCount * 2);
+        }
+        freeSlots[freeCount++] = slot;
+    }
+
+    public int getUsedSlots() {
+        return nextSlot - freeCount;
+    }
+
+    private ByteBuffer slotBuffer(int slot) {
+        int segment = slot / slotsPerSegment;
+        while (segments.size() <= segment) {
+            try {
+                long offset = (long) segments.size() * slotsPerSegment * slotBytes;
+                segments.add(channel.map(FileChannel.MapMode.READ_WRITE, offset, (long) slotsPerSegment * slotBytes));
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+        ByteBuffer buffer = segments.get(segment).duplicate();
+        int offset = slot % slotsPerSegment * slotBytes;
+        buffer.position(offset);
+        buffer.limit(offset + slotBytes);
+        return buffer;
+    }
+
+    @Override
+    public void close() throws IOException {
+        for (MappedByteBuffer segment : segments) {
+            MappedBuffers.unmap(segment);
+        }
+        segments.clear();
+        channel.close();
+    }
+}
@@ -0,0 +1,189 @@
+package service.session;
+
+import static config.CommonConfiguration.CUBE_PIECE;
+import static service.codec.VarInts.readVarInt;
+import static service.codec.VarInts.readVarLong;
+import static service.codec.VarInts.unZigZag;
+import static service.codec.VarInts.writeVarInt;
+import static service.codec.VarInts.writeVarLong;
+import static service.codec.VarInts.zigZag;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+
+import entities.BoardSetup;
+import entities.Climber;
+import entities.ClimberColour;
+import entities.Cube;
+import entities.GameState;
+import entities.Piece;
+import entities.PlayerTable;
+import entities.Position;
+import entities.PowerCard;
+import service.rules.ActionCodes;
+import service.rules.ColumnLayout;
+
+/*
+ * Packed form of a whole game, the record a hibernated session is kept as and the snapshot format of
+ * generated scenarios.
+ * version, player turn, usedCubes, board width, depth and cube supply
+ * climber count, then per climber: id, cubes left (zigzag), cell, colour ordinal, power card mask, action flags
+ * cube count, then per cube in id order: id delta, cell, placed by (0 the board, id + 1 a player)
+ * isOnTop isn't stored, it follows from the cube above.
+ */
+public final class SessionCodec {
+    private static final int VERSION = 2;
+    private static final String PLAYER_PREFIX = "Player";
+
+    private SessionCodec() {
+    }
+
+    public static byte[] encode(GameState gameState, int playerTurn) {
+        ByteArrayOutputStream out = new ByteArrayOutputStream(256);
+        out.write(VERSION);
+        writeVarInt(out, playerTurn);
+        writeVarInt(out, gameState.getUsedCubes());
+        BoardSetup boardSetup = gameState.getBoardSetup();
+        writeVarInt(out, boardSetup.getWidth());
+        writeVarInt(out, boardSetup.getDepth());
+        writeVarInt(out, boardSetup.getCubeSupply());
+
+        PlayerTable players = gameState.getPlayerTable();
+        writeVarInt(out, players.size());
+        for (int slot = 0; slot < players.size(); slot++) {
+            Climber climber = players.get(slot);
+            writeVarInt(out, climber.getId());
+            writeVarInt(out, zigZag(players.getCubesRemaining(slot)));
+            writeVarInt(out, players.getCell(slot));
+            out.write(climber.getColour().ordinal());
+            writeVarLong(out, players.getPowerCardMask(slot));
+            out.write(players.getActionFlags(slot));
+        }
+
+        List<Cube> cubes = new ArrayList<>();
+        for (Piece piece : gameState.getPositionPieceMap().values()) {
+            if (piece.getPieceType().equals(CUBE_PIECE)) {
+                cubes.add((Cube) piece);
+            }
+        }
+        cubes.sort(Comparator.comparingInt(Cube::getId));
+        writeVarInt(out, cubes.size());
+        int lastId = 0;
+        for (Cube cube : cubes) {
+            writeVarInt(out, cube.getId() - lastId);
+            lastId = cube.getId();
+            writeVarInt(out, ActionCodes.cellOf(cube.getPosition()));
+            writeVarInt(out, placedByCode(cube.getPlacedBy()));
+        }
+        return out.toByteArray();
+    }
+
+    private static int placedByCode(String placedBy) {
+        return placedBy.startsWith(PLAYER_PREFIX) ? Integer.parseInt(placedBy.substring(PLAYER_PREFIX.length())) + 1 : 0;
+    }
+
+    // brings the game and turn of the record back into the GameState the session was hibernated from, so the
+    // services and board listeners holding that state keep working on it. The kept climbers take the
+    // position, cubes, power cards and action flags of the record.
+    static void restore(ByteBuffer in, GameSession session) {
+        session.playerTurn = playerTurn(in);
+        decode(in, session.gameState);
+    }
+
+    // the turn of the record, without moving past it
+    public static int playerTurn(ByteBuffer record) {
+        ByteBuffer in = record.duplicate();
+        checkVersion(in);
+        return readVarInt(in);
+    }
+
+    public static GameState decode(ByteBuffer in) {
+        GameState gameState = new GameState();
+        decode(in, gameState);
+        ColumnLayout.track(gameState);
+        return gameState;
+    }
+
+    // into a new state, or one whose board was released while its players were kept
+    private static void decode(ByteBuffer in, GameState gameState) {
+        checkVersion(in);
+        readVarInt(in);
+        gameState.setUsedCubes(readVarInt(in));
+        int width = readVarInt(in);
+        int depth = readVarInt(in);
+        int cubeSupply = readVarInt(in);
+        BoardSetup standard = BoardSetup.standard();
+        if (width != standard.getWidth() || depth != standard.getDepth() || cubeSupply != standard.getCubeSupply()) {
+            gameState.setBoardSetup(BoardSetup.scaled(width, depth, cubeSupply));
+        }
+
+        PlayerTable players = gameState.getPlayerTable();
+        boolean keptPlayers = players.size() > 0;
+        int climbers = readVarInt(in);
+        if (keptPlayers && climbers != players.size()) {
+            throw new IllegalArgumentException("Record of " + climbers + " players for a game of " + players.size());
+        }
+        PowerCard[] cards = PowerCard.values();
+        Map<Position, Piece> positionPieceMap = gameState.getPositionPieceMap();
+        for (int slot = 0; slot < climbers; slot++) {
+            int id = readVarInt(in);
+            int cubesRemaining = unZigZag(readVarInt(in));
+            Position position = toPosition(readVarInt(in));
+            ClimberColour colour = ClimberColour.values()[in.get()];
+            long mask = readVarLong(in);
+            int flags = in.get();
+            List<PowerCard> hand = new ArrayList<>();
+            for (PowerCard card : cards) {
+                if ((mask & 1L << card.ordinal()) != 0) {
+                    hand.add(card);
+                }
+            }
+            Climber climber;
+            if (keptPlayers) {
+                climber = players.get(slot);
+                if (climber.getId() != id || climber.getColour() != colour) {
+                    throw new IllegalArgumentException("Record of player " + id + " " + colour + " for " + climber);
+                }
+                players.setPosition(slot, position);
+                climber.setTotalCubes(cubesRemaining);
+                climber.setPowerCards(hand);
+                positionPieceMap.put(position, climber);
+            } else {
+                climber = gameState.addPlayer(id, cubesRemaining, position, colour, hand);
+            }
+            players.clearActions(climber.getSlot());
+            players.setAction(climber.getSlot(), flags, true);
+        }
+
+        int cubes = readVarInt(in);
+        int id = 0;
+        for (int i = 0; i < cubes; i++) {
+            id += readVarInt(in);
+            Position position = toPosition(readVarInt(in));
+            int placedBy = readVarInt(in);
+            positionPieceMap.put(position, new Cube(id, position, placedBy == 0 ? "COMPUTER" : PLAYER_PREFIX + (placedBy - 1), true));
+        }
+        for (Piece piece : positionPieceMap.values()) {
+            if (piece.getPieceType().equals(CUBE_PIECE)) {
+                Position above = ActionCodes.toPosition(ActionCodes.columnOf(piece.getPosition()), ActionCodes.level(piece.getPosition()) + 1);
+                Piece pieceAbove = positionPieceMap.get(above);
+                ((Cube) piece).setOnTop(pieceAbove == null || !pieceAbove.getPieceType().equals(CUBE_PIECE));
+            }
+        }
+    }
+
+    private static void checkVersion(ByteBuffer in) {
+        int version = in.get();
+        if (version != VERSION) {
+            throw new IllegalArgumentException("Unknown session record version " + version);
+        }
+    }
+
+    private static Position toPosition(int cell) {
+        return ActionCodes.toPosition(ActionCodes.cellColumn(cell), ActionCodes.cellLevel(cell));
+    }
+}
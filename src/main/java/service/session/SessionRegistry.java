@@ -0,0 +1,214 @@
+package service.session;
+
+import static config.CommonConfiguration.BUDGET_BACKOFF_LIMIT;
+import static config.CommonConfiguration.RESIDENT_SESSION_LIMIT;
+import static config.CommonConfiguration.SESSION_BYTE_BUDGET;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+
+import entities.GameState;
+import service.memory.GameFootprint;
+
+/*
+ * Hosts many games of which only the recently used ones stay on the heap. Once more than
+ * residentLimit games are resident the clock evicts idle ones into the HibernationStore:
+ * the hand sweeps the resident games, clearing the referenced bit of the ones used since its last
+ * pass and hibernating the first one that wasn't. Games in use by an action are never evicted.
+ * A hibernated game is restored by the next withSession on it, into the GameState it was opened with.
+ * Actions on the same game run one at a time, actions on different games in parallel.
+ * Every game is held to a byte budget, measured by GameFootprint when the last user releases it after a change:
+ * over budget its optional caches are dropped, largest first, and if that isn't enough it is hibernated.
+ * A game hibernated for its budget before is let off twice as many over budget measurements each time,
+ * up to BUDGET_BACKOFF_LIMIT, so a game that never fits isn't restored and hibernated on every access.
+ */
+public class SessionRegistry implements Closeable {
+    private final HibernationStore store;
+    private final int residentLimit;
+    private final long sessionByteBudget;
+    private final Map<String, GameSession> sessions = new HashMap<>();
+    private final List<GameSession> resident = new ArrayList<>();
+    private int hand = 0;
+    private long hibernations = 0;
+    private long restorations = 0;
+    private long cacheEvictions = 0;
+    private long budgetHibernations = 0;
+
+    public SessionRegistry() throws IOException {
+        this(new HibernationStore(), RESIDENT_SESSION_LIMIT, SESSION_BYTE_BUDGET);
+    }
+
+    public SessionRegistry(HibernationStore store, int residentLimit) {
+        this(store, residentLimit, 0);
+    }
+
+    public SessionRegistry(HibernationStore store, int residentLimit, long sessionByteBudget) {
+        this.store = store;
+        this.residentLimit = residentLimit;
+        this.sessionByteBudget = sessionByteBudget;
+    }
+
+    public synchronized GameSession open(String gameId, GameState gameState, int playerTurn) {
+        if (sessions.containsKey(gameId)) {
+            throw new IllegalArgumentException("Game " + gameId + " is already hosted");
+        }
+        GameSession session = new GameSession(gameId, gameState, playerTurn);
+        sessions.put(gameId, session);
+        resident.add(session);
+        evictIdle();
+        return session;
+    }
+
+    // runs the action on the game, restoring it first if it was hibernated
+    public <T> T withSession(String gameId, Function<GameSession, T> action) {
+        GameSession session = acquire(gameId);
+        try {
+            synchronized (session) {
+                return action.apply(session);
+            }
+        } finally {
+            release(session);
+        }
+    }
+
+    public synchronized void close(String gameId) {
+        GameSession session = sessions.remove(gameId);
+        if (session == null) {
+            return;
+        }
+        if (session.isHibernated()) {
+            store.free(session.hibernationSlot);
+        } else {
+            removeResident(resident.indexOf(session));
+        }
+    }
+
+    public synchronized boolean isHosted(String gameId) {
+        return sessions.containsKey(gameId);
+    }
+
+    public synchronized int getResidentCount() {
+        return resident.size();
+    }
+
+    public synchronized int getHibernatedCount() {
+        return sessions.size() - resident.size();
+    }
+
+    public synchronized long getHibernations() {
+        return hibernations;
+    }
+
+    public synchronized long getRestorations() {
+        return restorations;
+    }
+
+    public synchronized long getCacheEvictions() {
+        return cacheEvictions;
+    }
+
+    public synchronized long getBudgetHibernations() {
+        return budgetHibernations;
+    }
+
+    private synchronized GameSession acquire(String gameId) {
+        GameSession session = sessions.get(gameId);
+        if (session == null) {
+            throw new IllegalArgumentException("No game " + gameId);
+        }
+        if (session.isHibernated()) {
+            SessionCodec.restore(store.read(session.hibernationSlot), session);
+            store.free(session.hibernationSlot);
+            session.hibernationSlot = -1;
+            resident.add(session);
+            restorations++;
+        }
+        session.referenced = true;
+        session.pins++;
+        evictIdle();
+        return session;
+    }
+
+    private synchronized void release(GameSession session) {
+        session.pins--;
+        if (sessionByteBudget > 0 && session.pins == 0 && !session.isHibernated() && sessions.get(session.gameId) == session
+            && session.isFootprintStale()) {
+            enforceBudget(session);
+        }
+    }
+
+    private void enforceBudget(GameSession session) {
+        GameFootprint footprint = GameFootprint.measure(session.gameState, session.caches);
+        long bytes = footprint.getTotal();
+        while (bytes > sessionByteBudget && !session.caches.isEmpty()) {
+            String largest = null;
+            for (String name : session.caches.keySet()) {
+                if (largest == null || footprint.getCacheBytes(name) > footprint.getCacheBytes(largest)) {
+                    largest = name;
+                }
+            }
+            bytes -= footprint.getCacheBytes(largest);
+            session.dropCache(largest);
+            cacheEvictions++;
+        }
+        session.footprintMeasured(bytes);
+        if (bytes <= sessionByteBudget) {
+            session.budgetStrikes = 0;
+        } else if (session.budgetGrace > 0) {
+            session.budgetGrace--;
+        } else if (hibernate(session, resident.indexOf(session))) {
+            budgetHibernations++;
+            session.budgetGrace = Math.min(1 << Math.min(session.budgetStrikes, 30), BUDGET_BACKOFF_LIMIT);
+            session.budgetStrikes++;
+        }
+    }
+
+    private void evictIdle() {
+        // two full passes clear every referenced bit, after that only pinned games are left
+        int checked = 0;
+        while (resident.size() > residentLimit && checked < 2 * resident.size()) {
+            hand = hand % resident.size();
+            GameSession session = resident.get(hand);
+            checked++;
+            if (session.pins > 0 || session.referenced) {
+                session.referenced = false;
+                hand++;
+                continue;
+            }
+            if (!hibernate(session, hand)) {
+                hand++;
+            }
+        }
+    }
+
+    // false when the game is too big for a slot, it stays on the heap
+    private boolean hibernate(GameSession session, int residentIndex) {
+        try {
+            session.hibernationSlot = store.write(SessionCodec.encode(session.gameState, session.playerTurn));
+        } catch (IllegalArgumentException e) {
+            return false;
+        }
+        session.dropCaches();
+        session.gameState.releaseBoard();
+        removeResident(residentIndex);
+        hibernations++;
+        return true;
+    }
+
+    // swaps the last resident game into the freed place, the hand looks at it next
+    private void removeResident(int index) {
+        int last = resident.size() - 1;
+        resident.set(index, resident.get(last));
+        resident.remove(last);
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+        store.close();
+    }
+}
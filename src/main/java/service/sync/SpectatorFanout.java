@@ -0,0 +1,206 @@
+package service.sync;
+
+import static config.CommonConfiguration.SPECTATOR_QUEUE_FRAMES;
+
+import java.io.Closeable;
+import java.nio.ByteBuffer;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+/*
+ * Hands the frames of a StateSyncService to any number of spectators without slowing the game down.
+ * The service encodes every frame once, the fan-out only passes read-only views of it on:
+ * - the game thread just queues the frame, copying it to the spectators happens on the executor,
+ * - every spectator has a bounded queue, a drain task for it is scheduled on the same executor only while
+ *   the queue holds frames, and gives its thread up after a queue's worth of frames so spectators take turns,
+ * - a spectator whose queue overflows loses the queued frames and resyncs from the latest keyframe,
+ *   as does one that would see a gap in the sequence.
+ * An onFrame blocked on its connection holds a thread of the executor, connections write with a timeout.
+ * Closing the fan-out, when the game ends, stops it taking frames, what is already queued is still delivered.
+ */
+public class SpectatorFanout implements StateSyncSubscriber, Closeable {
+    // shared by the fan-outs of all games, a popular game doesn't get threads of its own
+    private static final ExecutorService SHARED_EXECUTOR = Executors.newFixedThreadPool(Runtime.getRuntime().availableProcessors(), task -> {
+        Thread thread = new Thread(task, "spectator-fanout");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    private final StateSyncService stateSyncService;
+    private final int queueFrames;
+    private final ExecutorService executor;
+    private final Queue<ByteBuffer> published = new ConcurrentLinkedQueue<>();
+    private final AtomicBoolean dispatching = new AtomicBoolean(false);
+    private final List<Spectator> spectators = new CopyOnWriteArrayList<>();
+    private volatile boolean closed = false;
+
+    public SpectatorFanout(StateSyncService stateSyncService) {
+        this(stateSyncService, SPECTATOR_QUEUE_FRAMES, SHARED_EXECUTOR);
+    }
+
+    public SpectatorFanout(StateSyncService stateSyncService, int queueFrames, ExecutorService executor) {
+        this.stateSyncService = stateSyncService;
+        this.queueFrames = queueFrames;
+        this.executor = executor;
+        stateSyncService.subscribe(this);
+    }
+
+    // the spectator starts from a keyframe, like every spectator that falls behind
+    public Spectator subscribe(StateSyncSubscriber subscriber) {
+        if (closed) {
+            throw new IllegalStateException("The game is over");
+        }
+        Spectator spectator = new Spectator(subscriber);
+        spectators.add(spectator);
+        spectator.scheduleDrain();
+        return spectator;
+    }
+
+    // frames still queued for the spectator are dropped
+    public void unsubscribe(Spectator spectator) {
+        spectators.remove(spectator);
+        spectator.unsubscribed = true;
+    }
+
+    public int getSpectators() {
+        return spectators.size();
+    }
+
+    public boolean isClosed() {
+        return closed;
+    }
+
+    // called on the game thread while it publishes
+    @Override
+    public void onFrame(long sequence, ByteBuffer frame, boolean keyframe) {
+        published.add(frame);
+        if (dispatching.compareAndSet(false, true)) {
+            execute(this::dispatch);
+        }
+    }
+
+    private void dispatch() {
+        while (true) {
+            ByteBuffer frame;
+            while ((frame = published.poll()) != null) {
+                for (Spectator spectator : spectators) {
+                    spectator.offer(frame.duplicate());
+                }
+            }
+            dispatching.set(false);
+            // a frame published after the last poll but before the flag was cleared found the dispatch still running
+            if (published.isEmpty() || !dispatching.compareAndSet(false, true)) {
+                return;
+            }
+        }
+    }
+
+    private boolean execute(Runnable task) {
+        try {
+            executor.execute(task);
+            return true;
+        } catch (RejectedExecutionException e) {
+            // the executor was shut down under a game still being watched
+            return false;
+        }
+    }
+
+    @Override
+    public void close() {
+        closed = true;
+        stateSyncService.unsubscribe(this);
+        spectators.clear();
+    }
+
+    public class Spectator {
+        private final StateSyncSubscriber subscriber;
+        private final ArrayBlockingQueue<ByteBuffer> queue = new ArrayBlockingQueue<>(queueFrames);
+        // set while a drain task is scheduled or running, at most one per spectator
+        private final AtomicBoolean draining = new AtomicBoolean(false);
+        private volatile boolean resync = true;
+        private volatile boolean unsubscribed = false;
+        private long lastSequence = -1;
+        private final AtomicLong delivered = new AtomicLong();
+        private final AtomicLong resyncs = new AtomicLong();
+
+        Spectator(StateSyncSubscriber subscriber) {
+            this.subscriber = subscriber;
+        }
+
+        public long getDelivered() {
+            return delivered.get();
+        }
+
+        // keyframes sent because the spectator fell behind or just joined
+        public long getResyncs() {
+            return resyncs.get();
+        }
+
+        void offer(ByteBuffer frame) {
+            if (!queue.offer(frame)) {
+                // whatever is queued is overtaken by the keyframe
+                resync = true;
+                queue.clear();
+            }
+            scheduleDrain();
+        }
+
+        void scheduleDrain() {
+            if (draining.compareAndSet(false, true) && !execute(this::drain)) {
+                draining.set(false);
+            }
+        }
+
+        private boolean hasWork() {
+            return !unsubscribed && (resync || !queue.isEmpty());
+        }
+
+        private void drain() {
+            int frames = 0;
+            while (!unsubscribed && frames < queueFrames) {
+                if (resync) {
+                    resync = false;
+                    deliver(stateSyncService.keyframe(), true);
+                    resyncs.incrementAndGet();
+                    frames++;
+                }
+                ByteBuffer frame = queue.poll();
+                if (frame == null) {
+                    break;
+                }
+                long sequence = StateSyncService.sequenceOf(frame);
+                if (sequence <= lastSequence) {
+                    // already part of the keyframe
+                    continue;
+                }
+                boolean keyframe = StateSyncService.typeOf(frame) == StateSyncService.KEYFRAME;
+                if (sequence != lastSequence + 1 && !keyframe) {
+                    resync = true;
+                    continue;
+                }
+                deliver(frame, keyframe);
+                frames++;
+            }
+            draining.set(false);
+            // frames offered after the last poll found the drain still scheduled, and a long queue is finished by
+            // a new task behind the other spectators
+            if (hasWork()) {
+                scheduleDrain();
+            }
+        }
+
+        private void deliver(ByteBuffer frame, boolean keyframe) {
+            lastSequence = StateSyncService.sequenceOf(frame);
+            subscriber.onFrame(lastSequence, frame, keyframe);
+            delivered.incrementAndGet();
+        }
+    }
+}
@@ -0,0 +1,199 @@
+package service.sync;
+
+import static config.CommonConfiguration.SYNC_KEYFRAME_INTERVAL;
+import static service.codec.VarInts.readVarLong;
+import static service.codec.VarInts.writeVarInt;
+import static service.codec.VarInts.writeVarLong;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.ByteBuffer;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import entities.GameState;
+
+/*
+ * Publishes the changes of a game to its clients and spectators as small binary frames.
+ * A frame is encoded once and handed to every subscriber as a read-only view of its own.
+ * After every action the state is diffed against the last published snapshot and only the
+ * changed cubes, climbers and flags are sent. Every SYNC_KEYFRAME_INTERVAL frames a full keyframe
+ * is sent instead, and a subscriber who missed a frame can ask for a fresh keyframe to resync.
+ *
+ * frame    : type byte, sequence varlong, body
+ * keyframe : usedCubes, cube count, delta coded sorted cube cells, climber count, then cell, flags, cubes per climber
+ * delta    : op count, then per op its code byte and arguments
+ */
+public class StateSyncService {
+    public static final byte KEYFRAME = 0;
+    public static final byte DELTA = 1;
+
+    static final int OP_CUBE_PLACED = 1;
+    static final int OP_CUBE_REMOVED = 2;
+    static final int OP_CLIMBER_MOVED = 3;
+    static final int OP_FLAGS_CHANGED = 4;
+    static final int OP_CUBES_REMAINING = 5;
+    static final int OP_USED_CUBES = 6;
+
+    private final GameState gameState;
+    private final int keyframeInterval;
+    private final List<StateSyncSubscriber> subscribers = new CopyOnWriteArrayList<>();
+    private SyncSnapshot lastSnapshot;
+    private long sequence = 0;
+    private int framesSinceKeyframe = 0;
+    private ByteBuffer cachedKeyframe;
+    private long cachedKeyframeSequence = -1;
+
+    public StateSyncService(GameState gameState) {
+        this(gameState, SYNC_KEYFRAME_INTERVAL);
+    }
+
+    public StateSyncService(GameState gameState, int keyframeInterval) {
+        this.gameState = gameState;
+        this.keyframeInterval = keyframeInterval;
+    }
+
+    // returns the keyframe the new subscriber has to start from
+    public synchronized ByteBuffer subscribe(StateSyncSubscriber subscriber) {
+        subscribers.add(subscriber);
+        return keyframe();
+    }
+
+    public void unsubscribe(StateSyncSubscriber subscriber) {
+        subscribers.remove(subscriber);
+    }
+
+    public synchronized ByteBuffer keyframe() {
+        if (lastSnapshot == null) {
+            lastSnapshot = SyncSnapshot.of(gameState);
+        }
+        if (cachedKeyframeSequence != sequence) {
+            cachedKeyframe = readOnly(encodeKeyframe(lastSnapshot, sequence));
+            cachedKeyframeSequence = sequence;
+        }
+        return cachedKeyframe.duplicate();
+    }
+
+    public synchronized long getSequence() {
+        return sequence;
+    }
+
+    public static byte typeOf(ByteBuffer frame) {
+        return frame.get(frame.position());
+    }
+
+    public static long sequenceOf(ByteBuffer frame) {
+        return readVarLong(frame.duplicate().position(frame.position() + 1));
+    }
+
+    private static ByteBuffer readOnly(byte[] frame) {
+        return ByteBuffer.wrap(frame).asReadOnlyBuffer();
+    }
+
+    public synchronized void publish() {
+        SyncSnapshot snapshot = SyncSnapshot.of(gameState);
+        if (lastSnapshot == null) {
+            lastSnapshot = snapshot;
+            return;
+        }
+        byte[] encoded;
+        boolean keyframe = framesSinceKeyframe + 1 >= keyframeInterval
+            || snapshot.climberCells.length != lastSnapshot.climberCells.length;
+        if (keyframe) {
+            encoded = encodeKeyframe(snapshot, sequence + 1);
+        } else {
+            encoded = encodeDelta(lastSnapshot, snapshot, sequence + 1);
+            if (encoded == null) {
+                // nothing changed
+                return;
+            }
+        }
+        sequence++;
+        framesSinceKeyframe = keyframe ? 0 : framesSinceKeyframe + 1;
+        lastSnapshot = snapshot;
+        ByteBuffer frame = readOnly(encoded);
+        if (keyframe) {
+            cachedKeyframe = frame;
+            cachedKeyframeSequence = sequence;
+        }
+        for (StateSyncSubscriber subscriber : subscribers) {
+            subscriber.onFrame(sequence, frame.duplicate(), keyframe);
+        }
+    }
+
+    static byte[] encodeKeyframe(SyncSnapshot snapshot, long sequence) {
+        ByteArrayOutputStream out = new ByteArrayOutputStream(16 + snapshot.cubeCells.length * 2);
+        out.write(KEYFRAME);
+        writeVarLong(out, sequence);
+        writeVarInt(out, snapshot.usedCubes);
+        writeVarInt(out, snapshot.cubeCells.length);
+        int previousCell = 0;
+        for (int cell : snapshot.cubeCells) {
+            writeVarInt(out, cell - previousCell);
+            previousCell = cell;
+        }
+        writeVarInt(out, snapshot.climberCells.length);
+        for (int i = 0; i < snapshot.climberCells.length; i++) {
+            writeVarInt(out, snapshot.climberCells[i]);
+            out.write(snapshot.climberFlags[i]);
+            writeVarInt(out, snapshot.climberCubes[i]);
+        }
+        return out.toByteArray();
+    }
+
+    static byte[] encodeDelta(SyncSnapshot previous, SyncSnapshot current, long sequence) {
+        ByteArrayOutputStream ops = new ByteArrayOutputStream(32);
+        int opCount = 0;
+        // both cube lists are sorted, so placed and removed cubes fall out of a single merge
+        int i = 0;
+        int j = 0;
+        while (i < previous.cubeCells.length || j < current.cubeCells.length) {
+            if (j == current.cubeCells.length || (i < previous.cubeCells.length && previous.cubeCells[i] < current.cubeCells[j])) {
+                ops.write(OP_CUBE_REMOVED);
+                writeVarInt(ops, previous.cubeCells[i++]);
+                opCount++;
+            } else if (i == previous.cubeCells.length || current.cubeCells[j] < previous.cubeCells[i]) {
+                ops.write(OP_CUBE_PLACED);
+                writeVarInt(ops, current.cubeCells[j++]);
+                opCount++;
+            } else {
+                i++;
+                j++;
+            }
+        }
+        for (int climber = 0; climber < current.climberCells.length; climber++) {
+            if (previous.climberCells[climber] != current.climberCells[climber]) {
+                ops.write(OP_CLIMBER_MOVED);
+                writeVarInt(ops, climber);
+                writeVarInt(ops, previous.climberCells[climber]);
+                writeVarInt(ops, current.climberCells[climber]);
+                opCount++;
+            }
+            if (previous.climberFlags[climber] != current.climberFlags[climber]) {
+                ops.write(OP_FLAGS_CHANGED);
+                writeVarInt(ops, climber);
+                ops.write(current.climberFlags[climber]);
+                opCount++;
+            }
+            if (previous.climberCubes[climber] != current.climberCubes[climber]) {
+                ops.write(OP_CUBES_REMAINING);
+                writeVarInt(ops, climber);
+                writeVarInt(ops, current.climberCubes[climber]);
+                opCount++;
+            }
+        }
+        if (previous.usedCubes != current.usedCubes) {
+            ops.write(OP_USED_CUBES);
+            writeVarInt(ops, current.usedCubes);
+            opCount++;
+        }
+        if (opCount == 0) {
+            return null;
+        }
+        ByteArrayOutputStream out = new ByteArrayOutputStream(ops.size() + 12);
+        out.write(DELTA);
+        writeVarLong(out, sequence);
+        writeVarInt(out, opCount);
+        out.writeBytes(ops.toByteArray());
+        return out.toByteArray();
+    }
+}
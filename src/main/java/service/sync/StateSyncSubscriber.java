@@ -0,0 +1,9 @@
+package service.sync;
+
+import java.nio.ByteBuffer;
+
+@FunctionalInterface
+public interface StateSyncSubscriber {
+    // a read-only view of the frame, its position is the subscriber's own
+    void onFrame(long sequence, ByteBuffer frame, boolean keyframe);
+}
@@ -0,0 +1,54 @@
+package service.sync;
+
+import static config.CommonConfiguration.CUBE_PIECE;
+
+import java.util.Arrays;
+
+import entities.GameState;
+import entities.Piece;
+import entities.PlayerTable;
+import service.rules.ActionCodes;
+
+// compact copy of the synced parts of a game state, two consecutive snapshots are diffed into a delta
+class SyncSnapshot {
+    static final int FLAG_CAN_BUILD = PlayerTable.CAN_BUILD;
+    static final int FLAG_CAN_MOVE = PlayerTable.CAN_MOVE;
+    static final int FLAG_CAN_ROLL = PlayerTable.CAN_ROLL;
+
+    final int[] cubeCells;
+    final int[] climberCells;
+    final int[] climberFlags;
+    final int[] climberCubes;
+    final int usedCubes;
+
+    private SyncSnapshot(int[] cubeCells, int[] climberCells, int[] climberFlags, int[] climberCubes, int usedCubes) {
+        this.cubeCells = cubeCells;
+        this.climberCells = climberCells;
+        this.climberFlags = climberFlags;
+        this.climberCubes = climberCubes;
+        this.usedCubes = usedCubes;
+    }
+
+    static SyncSnapshot of(GameState gameState) {
+        int[] cubeCells = new int[gameState.getPositionPieceMap().size()];
+        int cubes = 0;
+        for (Piece piece : gameState.getPositionPieceMap().values()) {
+            if (piece.getPieceType().equals(CUBE_PIECE)) {
+                cubeCells[cubes++] = ActionCodes.cellOf(piece.getPosition());
+            }
+        }
+        cubeCells = Arrays.copyOf(cubeCells, cubes);
+        Arrays.sort(cubeCells);
+
+        PlayerTable players = gameState.getPlayerTable();
+        int[] climberCells = new int[players.size()];
+        int[] climberFlags = new int[players.size()];
+        int[] climberCubes = new int[players.size()];
+        for (int slot = 0; slot < players.size(); slot++) {
+            climberCells[slot] = players.getCell(slot);
+            climberFlags[slot] = players.getActionFlags(slot);
+            climberCubes[slot] = players.getCubesRemaining(slot);
+        }
+        return new SyncSnapshot(cubeCells, climberCells, climberFlags, climberCubes, gameState.getUsedCubes());
+    }
+}
@@ -0,0 +1,130 @@
+package service.sync;
+
+import static service.codec.VarInts.readVarInt;
+import static service.codec.VarInts.readVarLong;
+
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.TreeSet;
+
+/*
+ * Client side replica of a game rebuilt from the frames of a StateSyncService.
+ * apply returns false when a frame was missed, the client then has to ask for a keyframe.
+ */
+public class SyncedState {
+    private final TreeSet<Integer> cubeCells = new TreeSet<>();
+    private int[] climberCells = new int[0];
+    private int[] climberFlags = new int[0];
+    private int[] climberCubes = new int[0];
+    private int usedCubes;
+    private long sequence = -1;
+
+    public boolean apply(ByteBuffer frame) {
+        ByteBuffer in = frame.duplicate();
+        byte type = in.get();
+        long frameSequence = readVarLong(in);
+        if (type == StateSyncService.KEYFRAME) {
+            applyKeyframe(in);
+            sequence = frameSequence;
+            return true;
+        }
+        if (sequence < 0 || frameSequence > sequence + 1) {
+            // missed a frame
+            return false;
+        }
+        if (frameSequence <= sequence) {
+            // already contained in the keyframe this replica resynced from
+            return true;
+        }
+        applyDelta(in);
+        sequence = frameSequence;
+        return true;
+    }
+
+    private void applyKeyframe(ByteBuffer in) {
+        usedCubes = readVarInt(in);
+        int cubes = readVarInt(in);
+        cubeCells.clear();
+        int cell = 0;
+        for (int i = 0; i < cubes; i++) {
+            cell += readVarInt(in);
+            cubeCells.add(cell);
+        }
+        int climbers = readVarInt(in);
+        climberCells = new int[climbers];
+        climberFlags = new int[climbers];
+        climberCubes = new int[climbers];
+        for (int i = 0; i < climbers; i++) {
+            climberCells[i] = readVarInt(in);
+            climberFlags[i] = in.get();
+            climberCubes[i] = readVarInt(in);
+        }
+    }
+
+    private void applyDelta(ByteBuffer in) {
+        int ops = readVarInt(in);
+        for (int i = 0; i < ops; i++) {
+            int op = in.get();
+            switch (op) {
+                case StateSyncService.OP_CUBE_PLACED:
+                    cubeCells.add(readVarInt(in));
+                    break;
+                case StateSyncService.OP_CUBE_REMOVED:
+                    cubeCells.remove(readVarInt(in));
+                    break;
+                case StateSyncService.OP_CLIMBER_MOVED:
+                    int movedClimber = readVarInt(in);
+                    readVarInt(in);
+                    climberCells[movedClimber] = readVarInt(in);
+                    break;
+                case StateSyncService.OP_FLAGS_CHANGED:
+                    int flaggedClimber = readVarInt(in);
+                    climberFlags[flaggedClimber] = in.get();
+                    break;
+                case StateSyncService.OP_CUBES_REMAINING:
+                    int climber = readVarInt(in);
+                    climberCubes[climber] = readVarInt(in);
+                    break;
+                case StateSyncService.OP_USED_CUBES:
+                    usedCubes = readVarInt(in);
+                    break;
+                default:
+                    throw new IllegalArgumentException("Unknown delta op " + op);
+            }
+        }
+    }
+
+    public long getSequence() {
+        return sequence;
+    }
+
+    public int[] getCubeCells() {
+        return cubeCells.stream().mapToInt(Integer::intValue).toArray();
+    }
+
+    public int[] getClimberCells() {
+        return climberCells.clone();
+    }
+
+    public int[] getClimberFlags() {
+        return climberFlags.clone();
+    }
+
+    public int[] getClimberCubes() {
+        return climberCubes.clone();
+    }
+
+    public int getUsedCubes() {
+        return usedCubes;
+    }
+
+    @Override
+    public String toString() {
+        return "SyncedState{" +
+            "sequence=" + sequence +
+            ", cubeCells=" + cubeCells +
+            ", climberCells=" + Arrays.toString(climberCells) +
+            ", climberFlags=" + Arrays.toString(climberFlags) +
+            '}';
+    }
+}
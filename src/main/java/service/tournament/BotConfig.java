@@ -0,0 +1,63 @@
+package service.tournament;
+
+import java.util.Arrays;
+
+import service.eval.BatchEvaluator;
+
+/*
+ * A bot entered in a tournament: a name and the BatchEvaluator weights it plays by.
+ * A bot without weights picks uniformly among its choices, the baseline the other bots are rated against.
+ * Features left out at the end of the weights weigh 0.
+ * spec: name for a random bot, name=w0,w1,... for a weighted one
+ */
+public class BotConfig {
+    private final String name;
+    private final float[] weights;
+
+    public BotConfig(String name, float[] weights) {
+        if (weights != null && weights.length > BatchEvaluator.FEATURES) {
+            throw new IllegalArgumentException("A bot has at most " + BatchEvaluator.FEATURES + " weights, " + name + " has " + weights.length);
+        }
+        this.name = name;
+        this.weights = weights == null ? null : Arrays.copyOf(weights, BatchEvaluator.FEATURES);
+    }
+
+    public static BotConfig random(String name) {
+        return new BotConfig(name, null);
+    }
+
+    public static BotConfig parse(String spec) {
+        int separator = spec.indexOf('=');
+        if (separator < 0) {
+            return random(spec.trim());
+        }
+        String[] values = spec.substring(separator + 1).split(",");
+        float[] weights = new float[values.length];
+        for (int i = 0; i < values.length; i++) {
+            weights[i] = Float.parseFloat(values[i].trim());
+        }
+        return new BotConfig(spec.substring(0, separator).trim(), weights);
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public boolean isRandom() {
+        return weights == null;
+    }
+
+    // null for a random bot
+    public float[] getWeights() {
+        return weights == null ? null : weights.clone();
+    }
+
+    float[] weights() {
+        return weights;
+    }
+
+    @Override
+    public String toString() {
+        return weights == null ? name : name + "=" + Arrays.toString(weights);
+    }
+}
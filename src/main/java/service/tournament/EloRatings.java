@@ -0,0 +1,156 @@
+package service.tournament;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/*
+ * Elo ratings of the bots of a tournament from all its results at once, the maximum likelihood Bradley-Terry
+ * strengths rather than updates in the order games finished, so the ratings don't depend on the scheduling.
+ * A game of more players counts as a game between every two seats held by different bots: a win for the larger
+ * share, a draw for equal shares. Every bot also has one virtual draw against a bot rated 0, which keeps
+ * the ratings of bots that never won or never lost finite. Ratings are shifted to average 0.
+ * The interval is a 95% confidence interval from the curvature of the likelihood at the ratings.
+ */
+public class EloRatings {
+    private static final double ELO_PER_NATURAL_LOG = 400 / Math.log(10);
+    private static final double CONFIDENCE_Z = 1.96;
+    private static final int MAX_ITERATIONS = 10_000;
+
+    private final List<BotConfig> bots;
+    private final double[][] wins;
+    private final double[][] games;
+    private final double[] shares;
+    private final long[] seats;
+    private long matches = 0;
+    private double[] ratings;
+    private double[] intervals;
+
+    public EloRatings(List<BotConfig> bots) {
+        this.bots = bots;
+        this.wins = new double[bots.size()][bots.size()];
+        this.games = new double[bots.size()][bots.size()];
+        this.shares = new double[bots.size()];
+        this.seats = new long[bots.size()];
+    }
+
+    public synchronized void add(MatchResult result) {
+        Match match = result.getMatch();
+        for (int seat = 0; seat < match.getPlayers(); seat++) {
+            int bot = match.getBot(seat);
+            shares[bot] += result.getShare(seat);
+            seats[bot]++;
+            for (int other = seat + 1; other < match.getPlayers(); other++) {
+                int otherBot = match.getBot(other);
+                if (otherBot == bot) {
+                    continue;
+                }
+                games[bot][otherBot]++;
+                games[otherBot][bot]++;
+                double difference = result.getShare(seat) - result.getShare(other);
+                wins[bot][otherBot] += difference > 0 ? 1 : difference == 0 ? 0.5 : 0;
+                wins[otherBot][bot] += difference < 0 ? 1 : difference == 0 ? 0.5 : 0;
+            }
+        }
+        matches++;
+        ratings = null;
+    }
+
+    public synchronized void addAll(List<MatchResult> results) {
+        for (MatchResult result : results) {
+            add(result);
+        }
+    }
+
+    public synchronized long getMatches() {
+        return matches;
+    }
+
+    public synchronized long getGames(int bot) {
+        return seats[bot];
+    }
+
+    // average share of the win the bot took per game
+    public synchronized double getScore(int bot) {
+        return seats[bot] == 0 ? 0 : shares[bot] / seats[bot];
+    }
+
+    public synchronized double getRating(int bot) {
+        solve();
+        return ratings[bot];
+    }
+
+    // half width of the 95% confidence interval of the rating
+    public synchronized double getInterval(int bot) {
+        solve();
+        return intervals[bot];
+    }
+
+    // minorization-maximization iterations for the strengths, see Hunter, MM algorithms for generalized Bradley-Terry models
+    private void solve() {
+        if (ratings != null) {
+            return;
+        }
+        int count = bots.size();
+        double[] strengths = new double[count];
+        Arrays.fill(strengths, 1);
+        for (int iteration = 0; iteration < MAX_ITERATIONS; iteration++) {
+            double change = 0;
+            for (int bot = 0; bot < count; bot++) {
+                double won = 0.5;
+                double expected = 1 / (strengths[bot] + 1);
+                for (int other = 0; other < count; other++) {
+                    if (games[bot][other] > 0) {
+                        won += wins[bot][other];
+                        expected += games[bot][other] / (strengths[bot] + strengths[other]);
+                    }
+                }
+                double strength = won / expected;
+                change = Math.max(change, Math.abs(Math.log(strength / strengths[bot])));
+                strengths[bot] = strength;
+            }
+            if (change < 1e-9) {
+                break;
+            }
+        }
+
+        ratings = new double[count];
+        intervals = new double[count];
+        double mean = 0;
+        for (int bot = 0; bot < count; bot++) {
+            ratings[bot] = ELO_PER_NATURAL_LOG * Math.log(strengths[bot]);
+            mean += ratings[bot] / count;
+            double expectedVirtual = strengths[bot] / (strengths[bot] + 1);
+            double information = expectedVirtual * (1 - expectedVirtual);
+            for (int other = 0; other < count; other++) {
+                double expected = strengths[bot] / (strengths[bot] + strengths[other]);
+                information += games[bot][other] * expected * (1 - expected);
+            }
+            intervals[bot] = CONFIDENCE_Z * ELO_PER_NATURAL_LOG / Math.sqrt(information);
+        }
+        for (int bot = 0; bot < count; bot++) {
+            ratings[bot] -= mean;
+        }
+    }
+
+    // bots from the highest rating down
+    public synchronized List<Integer> standings() {
+        solve();
+        List<Integer> standings = new ArrayList<>();
+        for (int bot = 0; bot < bots.size(); bot++) {
+            standings.add(bot);
+        }
+        standings.sort((a, b) -> Double.compare(ratings[b], ratings[a]));
+        return standings;
+    }
+
+    @Override
+    public synchronized String toString() {
+        StringBuilder table = new StringBuilder(String.format("%d games%n", matches));
+        for (int bot : standings()) {
+            table.append(String.format("%-16s %7.1f +- %5.1f  %6d games  %5.3f score%n",
+                bots.get(bot).getName(), ratings[bot], intervals[bot], seats[bot], getScore(bot)));
+        }
+        return table.toString();
+    }
+}
@@ -0,0 +1,31 @@
+package service.tournament;
+
+import java.util.Arrays;
+
+// one game of a tournament: the seed of its deal and the bot, by index, in every seat in turn order
+public class Match {
+    private final long seed;
+    private final int[] seats;
+
+    public Match(long seed, int[] seats) {
+        this.seed = seed;
+        this.seats = seats.clone();
+    }
+
+    public long getSeed() {
+        return seed;
+    }
+
+    public int getPlayers() {
+        return seats.length;
+    }
+
+    public int getBot(int seat) {
+        return seats[seat];
+    }
+
+    @Override
+    public String toString() {
+        return "Match{seed=" + seed + ", seats=" + Arrays.toString(seats) + "}";
+    }
+}
@@ -0,0 +1,252 @@
+package service.tournament;
+
+import static config.CommonConfiguration.BLANK;
+import static config.CommonConfiguration.GRAPPLE;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+import entities.BoardSetup;
+import entities.Climber;
+import entities.GameState;
+import entities.PlayerTable;
+import service.BoardService;
+import service.PlayerService;
+import service.actions.ActionExecutor;
+import service.actions.RollDiceActionService;
+import service.eval.BatchEvaluator;
+import service.eval.BoardBatch;
+import service.rules.ActionCodes;
+import service.rules.BoardGeometry;
+import service.rules.ColumnLayout;
+import service.rules.GameOverDetector;
+import service.rules.GameRules;
+import service.rules.LegalActionService;
+
+/*
+ * Plays the Matches of a tournament through the action services, one player per thread.
+ * A match is decided by its seed alone, the deal and the dice come from it, so every seat rotation of a deal
+ * gets the same colours, cards and dice and a match plays out the same on any thread or worker process.
+ * Every choice is a build, a move or the roll, the dice then decide whether the roll becomes a grapple,
+ * a wind or a blank. A weighted bot scores the state each build and move leads to with the BatchEvaluator,
+ * and the roll by the states its faces lead to: a grapple on half the faces, a blank on a third, a wind on a sixth.
+ */
+public class MatchPlayer {
+    private static final int NO_ACTION = -1;
+
+    private final List<BotConfig> bots;
+    private final BoardSetup boardSetup;
+    private final BoardGeometry geometry;
+    private final LegalActionService legalActionService = new LegalActionService();
+    private final BatchEvaluator batchEvaluator = new BatchEvaluator();
+    private final BoardBatch batch;
+
+    public MatchPlayer(List<BotConfig> bots, BoardSetup boardSetup) {
+        this.bots = bots;
+        this.boardSetup = boardSetup;
+        this.geometry = BoardGeometry.of(boardSetup);
+        this.batch = new BoardBatch(64, geometry);
+    }
+
+    public MatchResult play(Match match) {
+        return play(match, null);
+    }
+
+    // the listener is told the position every turn starts in, before the mover's first action
+    public MatchResult play(Match match, PositionListener positionListener) {
+        Random random = new Random(match.getSeed());
+        GameState gameState = new GameState();
+        gameState.setBoardSetup(boardSetup);
+        gameState.setOut(GameState.QUIET);
+        new PlayerService(gameState, random).initialisePlayers(match.getPlayers());
+        new BoardService(gameState).initialiseBoard();
+        ActionExecutor actionExecutor = new ActionExecutor(gameState, random);
+        GameOverDetector gameOverDetector = new GameOverDetector(gameState);
+
+        int turns = 0;
+        Climber climber = gameState.getPlayersList().get(0);
+        climber.resetActions();
+        boolean turnStarted = true;
+        while (!gameOverDetector.isGameOver()) {
+            if (turnStarted && positionListener != null) {
+                positionListener.position(gameState, climber);
+            }
+            turnStarted = false;
+            // cached actions come back in the order of the state they were cached for, sorted a match plays the same
+            // whatever the player's cache saw before
+            int[] legalActions = legalActionService.enumerateLegalActions(gameState, climber).clone();
+            Arrays.sort(legalActions);
+            if (legalActions.length == 0) {
+                turns++;
+                gameOverDetector.turnEnded();
+                climber = gameState.getPlayersList().get(turns % match.getPlayers());
+                climber.resetActions();
+                turnStarted = true;
+                continue;
+            }
+            BotConfig bot = bots.get(match.getBot(climber.getSlot()));
+            int code = bot.isRandom() ? randomAction(legalActions, random) : bestAction(gameState, climber, legalActions, bot.weights(), random);
+            if (!actionExecutor.perform(climber, code)) {
+                throw new IllegalStateException("Legal action " + ActionCodes.toString(code) + " was rejected in " + match);
+            }
+        }
+
+        List<Climber> leaders = gameOverDetector.getLeaders();
+        double[] shares = new double[match.getPlayers()];
+        for (Climber leader : leaders) {
+            shares[leader.getSlot()] = 1.0 / leaders.size();
+        }
+        return new MatchResult(match, shares, turns);
+    }
+
+    private static int randomAction(int[] legalActions, Random random) {
+        int choices = 0;
+        boolean canRoll = false;
+        for (int code : legalActions) {
+            if (ActionCodes.type(code) < ActionCodes.ROLL) {
+                choices++;
+            } else {
+                canRoll = true;
+            }
+        }
+        int choice = random.nextInt(choices + (canRoll ? 1 : 0));
+        if (choice == choices) {
+            int face = rollFace(random);
+            return pick(legalActions, face, null, random);
+        }
+        for (int code : legalActions) {
+            if (ActionCodes.type(code) < ActionCodes.ROLL && choice-- == 0) {
+                return code;
+            }
+        }
+        throw new IllegalStateException("No choice left");
+    }
+
+    private int bestAction(GameState gameState, Climber climber, int[] legalActions, float[] weights, Random random) {
+        ColumnLayout layout = ColumnLayout.of(gameState, geometry);
+        PlayerTable players = gameState.getPlayerTable();
+        int self = climber.getSlot();
+        int[] columns = new int[players.size()];
+        int[] levels = new int[players.size()];
+        int[] cubes = new int[players.size()];
+        for (int slot = 0; slot < players.size(); slot++) {
+            columns[slot] = ActionCodes.cellColumn(players.getCell(slot));
+            levels[slot] = ActionCodes.cellLevel(players.getCell(slot));
+            cubes[slot] = players.getCubesRemaining(slot);
+        }
+
+        // every state one action ahead, the current state stands for a blank
+        batch.clear();
+        int current = addState(layout, columns, levels, cubes, self);
+        for (int code : legalActions) {
+            switch (ActionCodes.type(code)) {
+                case ActionCodes.BUILD:
+                    ColumnLayout built = layout.copy();
+                    built.addCube(ActionCodes.firstColumn(code));
+                    int[] cubesAfter = cubes.clone();
+                    cubesAfter[self]--;
+                    if (ActionCodes.hasSecondColumn(code)) {
+                        built.addCube(ActionCodes.secondColumn(code));
+                        cubesAfter[self]--;
+                    }
+                    addState(built, columns, levels, cubesAfter, self);
+                    break;
+                case ActionCodes.MOVE:
+                case ActionCodes.GRAPPLE:
+                    int[] columnsAfter = columns.clone();
+                    int[] levelsAfter = levels.clone();
+                    columnsAfter[self] = ActionCodes.firstColumn(code);
+                    levelsAfter[self] = layout.height(columnsAfter[self]);
+                    addState(layout, columnsAfter, levelsAfter, cubes, self);
+                    break;
+                case ActionCodes.WIND:
+                    int[] destinations = GameRules.windDestinations(layout, columns, ActionCodes.direction(code));
+                    int[] windLevels = new int[destinations.length];
+                    for (int slot = 0; slot < destinations.length; slot++) {
+                        windLevels[slot] = layout.height(destinations[slot]);
+                    }
+                    addState(layout, destinations, windLevels, cubes, self);
+                    break;
+                default:
+                    addState(layout, columns, levels, cubes, self);
+            }
+        }
+        float[] scores = batchEvaluator.evaluate(batch, weights);
+
+        // the states follow the current one in the order of the legal actions
+        double bestGrapple = scores[current];
+        double bestWind = Double.NEGATIVE_INFINITY;
+        boolean canRoll = false;
+        for (int i = 0; i < legalActions.length; i++) {
+            int type = ActionCodes.type(legalActions[i]);
+            if (type == ActionCodes.GRAPPLE) {
+                bestGrapple = Math.max(bestGrapple, scores[current + 1 + i]);
+            } else if (type == ActionCodes.WIND) {
+                bestWind = Math.max(bestWind, scores[current + 1 + i]);
+            }
+            canRoll |= type >= ActionCodes.ROLL;
+        }
+        double rollScore = canRoll ? (3 * bestGrapple + 2 * scores[current] + bestWind) / 6 : Double.NEGATIVE_INFINITY;
+
+        int best = NO_ACTION;
+        double bestScore = rollScore;
+        int ties = 1;
+        for (int i = 0; i < legalActions.length; i++) {
+            if (ActionCodes.type(legalActions[i]) >= ActionCodes.ROLL) {
+                continue;
+            }
+            double score = scores[current + 1 + i];
+            if (score > bestScore) {
+                best = legalActions[i];
+                bestScore = score;
+                ties = 1;
+            } else if (score == bestScore && random.nextInt(++ties) == 0) {
+                best = legalActions[i];
+            }
+        }
+        if (best != NO_ACTION) {
+            return best;
+        }
+        return pick(legalActions, rollFace(random), scores, random);
+    }
+
+    private int addState(ColumnLayout layout, int[] columns, int[] levels, int[] cubes, int self) {
+        int opponentLevel = 0;
+        int opponentCubes = 0;
+        for (int slot = 0; slot < levels.length; slot++) {
+            if (slot != self) {
+                opponentLevel = Math.max(opponentLevel, levels[slot]);
+                opponentCubes = Math.max(opponentCubes, cubes[slot]);
+            }
+        }
+        return batch.add(layout, columns[self], levels[self], opponentLevel, cubes[self], opponentCubes);
+    }
+
+    private static int rollFace(Random random) {
+        String face = RollDiceActionService.diceValues.get(random.nextInt(RollDiceActionService.diceValues.size()));
+        return face.equals(GRAPPLE) ? ActionCodes.GRAPPLE : face.equals(BLANK) ? ActionCodes.ROLL : ActionCodes.WIND;
+    }
+
+    // the action the rolled face leads to, the best scoring one when there are scores, a random one otherwise;
+    // a grapple with no space to grapple to gives the roll up like a blank
+    private static int pick(int[] legalActions, int face, float[] scores, Random random) {
+        int best = ActionCodes.roll();
+        double bestScore = Double.NEGATIVE_INFINITY;
+        int seen = 0;
+        for (int i = 0; i < legalActions.length; i++) {
+            if (ActionCodes.type(legalActions[i]) != face || face == ActionCodes.ROLL) {
+                continue;
+            }
+            if (scores == null) {
+                if (random.nextInt(++seen) == 0) {
+                    best = legalActions[i];
+                }
+            } else if (scores[i + 1] > bestScore) {
+                best = legalActions[i];
+                bestScore = scores[i + 1];
+            }
+        }
+        return best;
+    }
+}
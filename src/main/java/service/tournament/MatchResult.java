@@ -0,0 +1,33 @@
+package service.tournament;
+
+import java.util.Arrays;
+
+// share of the win of every seat of a Match, split evenly between the climbers who ended on the highest level
+public class MatchResult {
+    private final Match match;
+    private final double[] shares;
+    private final int turns;
+
+    public MatchResult(Match match, double[] shares, int turns) {
+        this.match = match;
+        this.shares = shares.clone();
+        this.turns = turns;
+    }
+
+    public Match getMatch() {
+        return match;
+    }
+
+    public double getShare(int seat) {
+        return shares[seat];
+    }
+
+    public int getTurns() {
+        return turns;
+    }
+
+    @Override
+    public String toString() {
+        return "MatchResult{" + match + ", shares=" + Arrays.toString(shares) + ", turns=" + turns + "}";
+    }
+}
@@ -0,0 +1,10 @@
+package service.tournament;
+
+import entities.Climber;
+import entities.GameState;
+
+// positions a MatchPlayer passes through, e.g. collected as training positions for the WeightTuner
+public interface PositionListener {
+
+    void position(GameState gameState, Climber mover);
+}
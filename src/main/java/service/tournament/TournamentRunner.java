@@ -0,0 +1,379 @@
+package service.tournament;
+
+import static config.CommonConfiguration.TOURNAMENT_LEASE_MATCHES;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import entities.BoardSetup;
+import entities.GameState;
+import service.eval.BatchEvaluator;
+
+/*
+ * Plays tournaments between bots and rates them with EloRatings.
+ * - round robin: every group of as many bots as a game has players meets on the given number of deals
+ * - swiss: every round groups the bots by their score so far, avoiding groups that already met
+ * Every deal is played once in every rotation of the group over the seats, so each bot plays each seat
+ * with the same colours, cards and dice. The matches of a run go into one queue, which the runner's threads
+ * and any worker processes connected to its loopback port (see TournamentWorker) take from as they go idle,
+ * a worker process a lease of TOURNAMENT_LEASE_MATCHES at a time. A match is decided by its seed, so the
+ * results don't depend on who played them; the matches of a worker process that goes away are played again.
+ * usage: TournamentRunner <deals> <seed> <bot;bot;...> [players threads workers swiss-rounds], see BotConfig for bots
+ */
+public class TournamentRunner implements Closeable {
+    private final List<BotConfig> bots;
+    private final BoardSetup boardSetup;
+    private final int players;
+    private final long seed;
+    private final int threads;
+    private final AtomicInteger connectedWorkers = new AtomicInteger();
+    private final List<Process> workerProcesses = new ArrayList<>();
+    private ServerSocket server;
+    private Run current;
+    private boolean closed = false;
+    private long deals = 0;
+
+    public TournamentRunner(List<BotConfig> bots, BoardSetup boardSetup, int players, long seed, int threads) {
+        if (bots.size() < players) {
+            throw new IllegalArgumentException(players + " player games need at least " + players + " bots, got " + bots.size());
+        }
+        this.bots = List.copyOf(bots);
+        this.boardSetup = boardSetup;
+        this.players = players;
+        this.seed = seed;
+        this.threads = threads;
+    }
+
+    public static void main(String[] args) throws IOException, InterruptedException {
+        int deals = args.length > 0 ? Integer.parseInt(args[0]) : 100;
+        long seed = args.length > 1 ? Long.parseLong(args[1]) : System.currentTimeMillis();
+        String specs = args.length > 2 ? args[2] : "random;level=0,0,0,1,0;spender=0,0,0,1,-0.5";
+        int players = args.length > 3 ? Integer.parseInt(args[3]) : 2;
+        int threads = args.length > 4 ? Integer.parseInt(args[4]) : Runtime.getRuntime().availableProcessors();
+        int workers = args.length > 5 ? Integer.parseInt(args[5]) : 0;
+        int rounds = args.length > 6 ? Integer.parseInt(args[6]) : 0;
+
+        List<BotConfig> bots = new ArrayList<>();
+        for (String spec : specs.split(";")) {
+            bots.add(BotConfig.parse(spec));
+        }
+        System.out.println((rounds > 0 ? rounds + " swiss rounds" : "Round robin") + " of " + deals + " deals for " + bots
+            + " in " + players + " player games from seed " + seed + " on " + threads + " threads and " + workers + " worker processes");
+        long start = System.nanoTime();
+        try (TournamentRunner runner = new TournamentRunner(bots, BoardSetup.standard(), players, seed, threads)) {
+            if (workers > 0) {
+                runner.launchWorkers(workers);
+            }
+            EloRatings ratings = rounds > 0 ? runner.runSwiss(rounds, deals) : runner.runRoundRobin(deals);
+            System.out.print(ratings);
+            System.out.printf("%.1f s%n", (System.nanoTime() - start) / 1e9);
+        }
+    }
+
+    public List<BotConfig> getBots() {
+        return bots;
+    }
+
+    public EloRatings runRoundRobin(int dealsPerGroup) throws InterruptedException {
+        EloRatings ratings = new EloRatings(bots);
+        ratings.addAll(run(scheduleRoundRobin(dealsPerGroup)));
+        return ratings;
+    }
+
+    public List<Match> scheduleRoundRobin(int dealsPerGroup) {
+        List<Match> matches = new ArrayList<>();
+        addGroups(matches, new int[players], 0, 0, dealsPerGroup);
+        return matches;
+    }
+
+    private void addGroups(List<Match> matches, int[] group, int size, int firstBot, int dealsPerGroup) {
+        if (size == group.length) {
+            addDeals(matches, group, dealsPerGroup);
+            return;
+        }
+        for (int bot = firstBot; bot < bots.size(); bot++) {
+            group[size] = bot;
+            addGroups(matches, group, size + 1, bot + 1, dealsPerGroup);
+        }
+    }
+
+    public EloRatings runSwiss(int rounds, int dealsPerGroup) throws InterruptedException {
+        EloRatings ratings = new EloRatings(bots);
+        Set<List<Integer>> met = new HashSet<>();
+        int[] byes = new int[bots.size()];
+        for (int round = 0; round < rounds; round++) {
+            List<Integer> order = new ArrayList<>();
+            for (int bot = 0; bot < bots.size(); bot++) {
+                order.add(bot);
+            }
+            order.sort((a, b) -> Double.compare(ratings.getScore(b), ratings.getScore(a)));
+
+            // bots left over sit the round out, the lowest placed of those who sat out the fewest rounds
+            for (int left = order.size() % players; left > 0; left--) {
+                int bye = order.get(order.size() - 1);
+                for (int bot : order) {
+                    if (byes[bot] <= byes[bye]) {
+                        bye = bot;
+                    }
+                }
+                byes[bye]++;
+                order.remove(Integer.valueOf(bye));
+            }
+
+            // the leading bot meets the next ones in the order, the last of them swapped for a later bot
+            // while the group already met
+            List<Match> matches = new ArrayList<>();
+            while (!order.isEmpty()) {
+                List<Integer> group = new ArrayList<>(order.subList(0, players));
+                for (int candidate = players; candidate < order.size() && met.contains(sorted(group)); candidate++) {
+                    group.set(players - 1, order.get(candidate));
+                }
+                if (met.contains(sorted(group))) {
+                    group = new ArrayList<>(order.subList(0, players));
+                }
+                met.add(sorted(group));
+                order.removeAll(group);
+                addDeals(matches, group.stream().mapToInt(Integer::intValue).toArray(), dealsPerGroup);
+            }
+            ratings.addAll(run(matches));
+        }
+        return ratings;
+    }
+
+    private static List<Integer> sorted(List<Integer> group) {
+        List<Integer> sorted = new ArrayList<>(group);
+        sorted.sort(null);
+        return sorted;
+    }
+
+    private void addDeals(List<Match> matches, int[] group, int dealsPerGroup) {
+        for (int deal = 0; deal < dealsPerGroup; deal++) {
+            long dealSeed = GameState.mix(GameState.mix(seed) + deals++);
+            for (int rotation = 0; rotation < group.length; rotation++) {
+                int[] seats = new int[group.length];
+                for (int seat = 0; seat < seats.length; seat++) {
+                    seats[seat] = group[(seat + rotation) % group.length];
+                }
+                matches.add(new Match(dealSeed, seats));
+            }
+        }
+    }
+
+    // plays the matches, the results come back in the order of the matches
+    public List<MatchResult> run(List<Match> matches) throws InterruptedException {
+        Run run = new Run(matches);
+        ExecutorService executor = Executors.newFixedThreadPool(Math.max(1, threads));
+        synchronized (this) {
+            current = run;
+            notifyAll();
+        }
+        try {
+            List<Future<?>> futures = new ArrayList<>();
+            for (int thread = 0; thread < threads; thread++) {
+                futures.add(executor.submit(() -> playLocally(run)));
+            }
+            while (!run.done.await(100, TimeUnit.MILLISECONDS)) {
+                boolean localsDone = true;
+                for (Future<?> future : futures) {
+                    localsDone &= future.isDone();
+                }
+                // matches handed back by a worker process that went away, when no thread is left to take them
+                if (localsDone && !run.pending.isEmpty() && (threads > 0 || connectedWorkers.get() == 0)) {
+                    futures.add(executor.submit(() -> playLocally(run)));
+                }
+                for (Future<?> future : futures) {
+                    if (future.isDone()) {
+                        future.get();
+                    }
+                }
+            }
+            for (Future<?> future : futures) {
+                future.get();
+            }
+        } catch (ExecutionException e) {
+            throw new IllegalStateException("Tournament match failed", e.getCause());
+        } finally {
+            synchronized (this) {
+                current = null;
+            }
+            executor.shutdownNow();
+        }
+        return Arrays.asList(run.results);
+    }
+
+    private static void playLocally(Run run) {
+        MatchPlayer matchPlayer = null;
+        for (Integer id = run.pending.poll(); id != null; id = run.pending.poll()) {
+            if (matchPlayer == null) {
+                matchPlayer = run.matchPlayer();
+            }
+            run.complete(id, matchPlayer.play(run.matches.get(id)));
+        }
+    }
+
+    // opens the loopback port worker processes connect to, returns the port
+    public synchronized int listen() throws IOException {
+        if (server == null) {
+            server = new ServerSocket(0, 50, InetAddress.getLoopbackAddress());
+            Thread acceptor = new Thread(this::accept, "tournament-acceptor");
+            acceptor.setDaemon(true);
+            acceptor.start();
+        }
+        return server.getLocalPort();
+    }
+
+    // starts worker processes on this machine with the JVM and class path of this one
+    public void launchWorkers(int count) throws IOException {
+        int port = listen();
+        String java = ProcessHandle.current().info().command().orElse("java");
+        for (int i = 0; i < count; i++) {
+            List<String> command = new ArrayList<>(List.of(java));
+            if (BatchEvaluator.vectorApiAvailable()) {
+                command.addAll(List.of("--add-modules", "jdk.incubator.vector"));
+            }
+            command.addAll(List.of("-cp", System.getProperty("java.class.path"), TournamentWorker.class.getName(), String.valueOf(port)));
+            Process process = new ProcessBuilder(command).redirectError(ProcessBuilder.Redirect.INHERIT).start();
+            synchronized (this) {
+                workerProcesses.add(process);
+            }
+        }
+    }
+
+    public int getConnectedWorkers() {
+        return connectedWorkers.get();
+    }
+
+    private void accept() {
+        try {
+            while (true) {
+                Socket socket = server.accept();
+                Thread handler = new Thread(() -> serve(socket), "tournament-worker-" + socket.getPort());
+                handler.setDaemon(true);
+                handler.start();
+            }
+        } catch (IOException e) {
+            // the server socket was closed
+        }
+    }
+
+    private void serve(Socket socket) {
+        connectedWorkers.incrementAndGet();
+        Run run = null;
+        List<Integer> leased = new ArrayList<>();
+        try (socket;
+             DataInputStream in = new DataInputStream(new BufferedInputStream(socket.getInputStream()));
+             DataOutputStream out = new DataOutputStream(new BufferedOutputStream(socket.getOutputStream()))) {
+            TournamentWorker.writeSetup(out, boardSetup, bots);
+            out.flush();
+            while ((run = awaitWork()) != null) {
+                Integer next;
+                while (leased.size() < TOURNAMENT_LEASE_MATCHES && (next = run.pending.poll()) != null) {
+                    leased.add(next);
+                }
+                if (leased.isEmpty()) {
+                    continue;
+                }
+                out.writeInt(leased.size());
+                for (int id : leased) {
+                    TournamentWorker.writeMatch(out, id, run.matches.get(id));
+                }
+                out.flush();
+                while (!leased.isEmpty()) {
+                    int id = in.readInt();
+                    if (!leased.remove(Integer.valueOf(id))) {
+                        throw new IOException("Worker answered match " + id + " it was not leased");
+                    }
+                    run.complete(id, TournamentWorker.readResult(in, run.matches.get(id)));
+                }
+            }
+            out.writeInt(0);
+            out.flush();
+        } catch (IOException | InterruptedException e) {
+            if (run != null) {
+                run.pending.addAll(leased);
+            }
+        } finally {
+            connectedWorkers.decrementAndGet();
+        }
+    }
+
+    // the run with matches left to lease, null once the runner is closed
+    private synchronized Run awaitWork() throws InterruptedException {
+        while (!closed && (current == null || current.pending.isEmpty())) {
+            wait(100);
+        }
+        return closed ? null : current;
+    }
+
+    @Override
+    public void close() throws IOException {
+        List<Process> processes;
+        synchronized (this) {
+            closed = true;
+            notifyAll();
+            processes = new ArrayList<>(workerProcesses);
+        }
+        for (Process process : processes) {
+            try {
+                if (!process.waitFor(5, TimeUnit.SECONDS)) {
+                    process.destroy();
+                }
+            } catch (InterruptedException e) {
+                process.destroy();
+                Thread.currentThread().interrupt();
+            }
+        }
+        synchronized (this) {
+            if (server != null) {
+                server.close();
+            }
+        }
+    }
+
+    private class Run {
+        final List<Match> matches;
+        final ConcurrentLinkedQueue<Integer> pending = new ConcurrentLinkedQueue<>();
+        final MatchResult[] results;
+        final CountDownLatch done;
+
+        Run(List<Match> matches) {
+            this.matches = matches;
+            this.results = new MatchResult[matches.size()];
+            this.done = new CountDownLatch(matches.size());
+            for (int id = 0; id < matches.size(); id++) {
+                pending.add(id);
+            }
+        }
+
+        MatchPlayer matchPlayer() {
+            return new MatchPlayer(bots, boardSetup);
+        }
+
+        synchronized void complete(int id, MatchResult result) {
+            if (results[id] == null) {
+                results[id] = result;
+                done.countDown();
+            }
+        }
+    }
+}
@@ -0,0 +1,117 @@
+package service.tournament;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.Socket;
+import java.util.ArrayList;
+import java.util.List;
+
+import entities.BoardSetup;
+
+/*
+ * A worker process of a TournamentRunner, it connects to the runner's loopback port and plays the matches
+ * it is handed until the runner closes. The runner sends the board and the bots once, then leases of
+ * matches: count int, then id int, seed long, players int and the bot of every seat; a count of 0 ends the work.
+ * The worker answers every match with its id, turns and the share of every seat as doubles.
+ * usage: TournamentWorker <port>
+ */
+public class TournamentWorker {
+
+    public static void main(String[] args) throws IOException {
+        work(Integer.parseInt(args[0]));
+    }
+
+    // returns the number of matches played
+    public static long work(int port) throws IOException {
+        try (Socket socket = new Socket(InetAddress.getLoopbackAddress(), port);
+             DataInputStream in = new DataInputStream(new BufferedInputStream(socket.getInputStream()));
+             DataOutputStream out = new DataOutputStream(new BufferedOutputStream(socket.getOutputStream()))) {
+            BoardSetup boardSetup = readBoardSetup(in);
+            MatchPlayer matchPlayer = new MatchPlayer(readBots(in), boardSetup);
+            long played = 0;
+            for (int count = in.readInt(); count > 0; count = in.readInt()) {
+                int[] ids = new int[count];
+                Match[] matches = new Match[count];
+                for (int i = 0; i < count; i++) {
+                    ids[i] = in.readInt();
+                    long seed = in.readLong();
+                    int[] seats = new int[in.readInt()];
+                    for (int seat = 0; seat < seats.length; seat++) {
+                        seats[seat] = in.readInt();
+                    }
+                    matches[i] = new Match(seed, seats);
+                }
+                for (int i = 0; i < count; i++) {
+                    MatchResult result = matchPlayer.play(matches[i]);
+                    out.writeInt(ids[i]);
+                    out.writeInt(result.getTurns());
+                    for (int seat = 0; seat < matches[i].getPlayers(); seat++) {
+                        out.writeDouble(result.getShare(seat));
+                    }
+                    out.flush();
+                    played++;
+                }
+            }
+            return played;
+        }
+    }
+
+    static void writeSetup(DataOutputStream out, BoardSetup boardSetup, List<BotConfig> bots) throws IOException {
+        out.writeInt(boardSetup.getWidth());
+        out.writeInt(boardSetup.getDepth());
+        out.writeInt(boardSetup.getCubeSupply());
+        out.writeBoolean(boardSetup.isStandard());
+        out.writeInt(bots.size());
+        for (BotConfig bot : bots) {
+            out.writeUTF(bot.getName());
+            float[] weights = bot.weights();
+            out.writeInt(weights == null ? -1 : weights.length);
+            for (int i = 0; weights != null && i < weights.length; i++) {
+                out.writeFloat(weights[i]);
+            }
+        }
+    }
+
+    static void writeMatch(DataOutputStream out, int id, Match match) throws IOException {
+        out.writeInt(id);
+        out.writeLong(match.getSeed());
+        out.writeInt(match.getPlayers());
+        for (int seat = 0; seat < match.getPlayers(); seat++) {
+            out.writeInt(match.getBot(seat));
+        }
+    }
+
+    static MatchResult readResult(DataInputStream in, Match match) throws IOException {
+        int turns = in.readInt();
+        double[] shares = new double[match.getPlayers()];
+        for (int seat = 0; seat < shares.length; seat++) {
+            shares[seat] = in.readDouble();
+        }
+        return new MatchResult(match, shares, turns);
+    }
+
+    private static BoardSetup readBoardSetup(DataInputStream in) throws IOException {
+        int width = in.readInt();
+        int depth = in.readInt();
+        int cubeSupply = in.readInt();
+        return in.readBoolean() ? BoardSetup.standard() : BoardSetup.scaled(width, depth, cubeSupply);
+    }
+
+    private static List<BotConfig> readBots(DataInputStream in) throws IOException {
+        List<BotConfig> bots = new ArrayList<>();
+        for (int count = in.readInt(); count > 0; count--) {
+            String name = in.readUTF();
+            int weightCount = in.readInt();
+            float[] weights = weightCount < 0 ? null : new float[weightCount];
+            for (int i = 0; i < weightCount; i++) {
+                weights[i] = in.readFloat();
+            }
+            bots.add(new BotConfig(name, weights));
+        }
+        return bots;
+    }
+}
@@ -0,0 +1,39 @@
+package service.tuning;
+
+import entities.GameState;
+import service.eval.BatchEvaluator;
+
+// BatchEvaluator features of positions, each labelled with the share of the win its mover went on to take
+public class LabelledPositions {
+    final float[] features;
+    final float[] labels;
+
+    LabelledPositions(float[] features, float[] labels) {
+        this.features = features;
+        this.labels = labels;
+    }
+
+    public int size() {
+        return labels.length;
+    }
+
+    public float getFeature(int position, int feature) {
+        return features[position * BatchEvaluator.FEATURES + feature];
+    }
+
+    public float getLabel(int position) {
+        return labels[position];
+    }
+
+    // tells positions apart from any others, e.g. self-play of other deals or bots
+    public long digest() {
+        long digest = GameState.mix(labels.length);
+        for (float feature : features) {
+            digest = GameState.mix(digest + Float.floatToIntBits(feature));
+        }
+        for (float label : labels) {
+            digest = GameState.mix(digest + Float.floatToIntBits(label));
+        }
+        return digest;
+    }
+}
@@ -0,0 +1,107 @@
+package service.tuning;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/*
+ * Progress of a WeightTuner run, written after every step so a run that is stopped goes on where it was.
+ * The parameters are the tuner's own, kept exactly so a resumed run takes the same steps as one that never stopped.
+ * The digest stands for what the run tunes on, the positions of a texel run or the deals and start of an spsa run.
+ * The weights are the BatchEvaluator weights they stand for, ready to be given to a BotConfig.
+ * A text file of key=value lines, replaced in one move so a crash never leaves half a checkpoint.
+ */
+public class TuningCheckpoint {
+    private final String method;
+    private final long seed;
+    private final long digest;
+    private final int iteration;
+    private final double[] parameters;
+    private final float[] weights;
+
+    public TuningCheckpoint(String method, long seed, long digest, int iteration, double[] parameters, float[] weights) {
+        this.method = method;
+        this.seed = seed;
+        this.digest = digest;
+        this.iteration = iteration;
+        this.parameters = parameters.clone();
+        this.weights = weights.clone();
+    }
+
+    // null when there is no checkpoint yet
+    public static TuningCheckpoint read(Path file) throws IOException {
+        if (file == null || !Files.exists(file)) {
+            return null;
+        }
+        Map<String, String> values = new HashMap<>();
+        for (String line : Files.readAllLines(file, StandardCharsets.UTF_8)) {
+            int separator = line.indexOf('=');
+            if (separator > 0) {
+                values.put(line.substring(0, separator), line.substring(separator + 1));
+            }
+        }
+        String[] parameterValues = values.get("parameters").split(",");
+        double[] parameters = new double[parameterValues.length];
+        for (int i = 0; i < parameters.length; i++) {
+            parameters[i] = Double.parseDouble(parameterValues[i]);
+        }
+        String[] weightValues = values.get("weights").split(",");
+        float[] weights = new float[weightValues.length];
+        for (int i = 0; i < weights.length; i++) {
+            weights[i] = Float.parseFloat(weightValues[i]);
+        }
+        return new TuningCheckpoint(values.get("method"), Long.parseLong(values.get("seed")),
+            Long.parseUnsignedLong(values.get("digest"), 16), Integer.parseInt(values.get("iteration")), parameters, weights);
+    }
+
+    public void write(Path file) throws IOException {
+        List<String> lines = new ArrayList<>();
+        lines.add("method=" + method);
+        lines.add("seed=" + seed);
+        lines.add("digest=" + Long.toHexString(digest));
+        lines.add("iteration=" + iteration);
+        StringBuilder parameterValues = new StringBuilder();
+        for (double parameter : parameters) {
+            parameterValues.append(parameterValues.length() == 0 ? "" : ",").append(parameter);
+        }
+        lines.add("parameters=" + parameterValues);
+        StringBuilder weightValues = new StringBuilder();
+        for (float weight : weights) {
+            weightValues.append(weightValues.length() == 0 ? "" : ",").append(weight);
+        }
+        lines.add("weights=" + weightValues);
+        Path temporary = file.resolveSibling(file.getFileName() + ".tmp");
+        Files.write(temporary, lines, StandardCharsets.UTF_8);
+        Files.move(temporary, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    public String getMethod() {
+        return method;
+    }
+
+    public long getSeed() {
+        return seed;
+    }
+
+    public long getDigest() {
+        return digest;
+    }
+
+    public int getIteration() {
+        return iteration;
+    }
+
+    public double[] getParameters() {
+        return parameters.clone();
+    }
+
+    public float[] getWeights() {
+        return weights.clone();
+    }
+}
@@ -0,0 +1,307 @@
+package service.tuning;
+
+import static config.CommonConfiguration.TEXEL_CHECKPOINT_ITERATIONS;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import entities.BoardSetup;
+import entities.GameState;
+import service.eval.BatchEvaluator;
+import service.eval.BoardBatch;
+import service.rules.BoardGeometry;
+import service.tournament.BotConfig;
+import service.tournament.EloRatings;
+import service.tournament.Match;
+import service.tournament.MatchPlayer;
+import service.tournament.MatchResult;
+import service.tournament.TournamentRunner;
+
+/*
+ * Tunes the BatchEvaluator weights bots play by, two ways:
+ * - texel: logistic regression of the results on the features of self-play positions, every position a climber
+ *   starts its turn in labelled with the share of the win it went on to take. The features are standardized and
+ *   fitted by full batch gradient descent, the gradient summed over fixed chunks of the positions.
+ * - spsa: simultaneous perturbation stochastic approximation, every iteration plays the weights nudged one way
+ *   against the weights nudged the other way in two player games of a tournament,
+ *   and steps towards the side that scored better.
+ * Self-play, the gradient and the tournaments run on the tuner's threads, the common pool is left alone.
+ * A run is reproducible from its seed, the self-play deals, the nudges and the tournaments all derive from it,
+ * and a run resumed from its TuningCheckpoint with the same arguments takes the same steps as one that never stopped.
+ * A checkpoint of other positions, deals or starting weights is refused.
+ * Only the weights are tuned, a constant added to every score doesn't change what a bot plays.
+ * usage: WeightTuner texel <deals> <iterations> <seed> <checkpoint> [bot;bot;...]
+ *        WeightTuner spsa <deals> <iterations> <seed> <checkpoint> [w0,w1,...]
+ */
+public class WeightTuner {
+    public static final String TEXEL = "texel";
+    public static final String SPSA = "spsa";
+    // chunks of positions the gradient is summed over, fixed so the sums don't depend on the number of cores
+    private static final int CHUNKS = 256;
+    private static final double LEARNING_RATE = 0.5;
+    private static final double RIDGE = 1e-4;
+    // gain sequences of Spall, Implementation of the simultaneous perturbation algorithm for stochastic optimization
+    private static final double SPSA_STEP = 0.2;
+    private static final double SPSA_NUDGE = 0.5;
+    private static final double SPSA_ALPHA = 0.602;
+    private static final double SPSA_GAMMA = 0.101;
+
+    private final BoardSetup boardSetup;
+    private final int players;
+    private final long seed;
+    private final int threads;
+    private final BatchEvaluator batchEvaluator = new BatchEvaluator();
+
+    public WeightTuner(BoardSetup boardSetup, int players, long seed, int threads) {
+        this.boardSetup = boardSetup;
+        this.players = players;
+        this.seed = seed;
+        this.threads = threads;
+    }
+
+    public static void main(String[] args) throws IOException, InterruptedException {
+        String method = args.length > 0 ? args[0] : TEXEL;
+        int deals = args.length > 1 ? Integer.parseInt(args[1]) : method.equals(SPSA) ? 50 : 1000;
+        int iterations = args.length > 2 ? Integer.parseInt(args[2]) : method.equals(SPSA) ? 200 : 2000;
+        long seed = args.length > 3 ? Long.parseLong(args[3]) : System.currentTimeMillis();
+        Path checkpoint = Path.of(args.length > 4 ? args[4] : method + ".checkpoint");
+
+        WeightTuner tuner = new WeightTuner(BoardSetup.standard(), 2, seed, Runtime.getRuntime().availableProcessors());
+        long start = System.nanoTime();
+        float[] weights;
+        if (method.equals(SPSA)) {
+            float[] initial = BotConfig.parse("start=" + (args.length > 5 ? args[5] : "0,0,0,1")).getWeights();
+            System.out.println("SPSA from " + Arrays.toString(initial) + ", " + iterations + " iterations of " + deals + " deals from seed " + seed);
+            weights = tuner.spsa(initial, iterations, deals, checkpoint);
+        } else {
+            List<BotConfig> bots = new ArrayList<>();
+            for (String spec : (args.length > 5 ? args[5] : "level=0,0,0,1;random").split(";")) {
+                bots.add(BotConfig.parse(spec));
+            }
+            LabelledPositions positions = tuner.selfPlay(bots, deals);
+            System.out.printf("%d positions from %d deals of %s, seed %d, %.1f s%n", positions.size(), deals, bots, seed, (System.nanoTime() - start) / 1e9);
+            weights = tuner.texel(positions, iterations, checkpoint);
+        }
+        System.out.printf("weights=%s in %.1f s%n", join(weights), (System.nanoTime() - start) / 1e9);
+    }
+
+    // positions of a round robin of the bots, with every deal played in every seat rotation
+    public LabelledPositions selfPlay(List<BotConfig> bots, int deals) {
+        List<Match> matches;
+        try (TournamentRunner scheduler = new TournamentRunner(bots, boardSetup, players, seed, 0)) {
+            matches = scheduler.scheduleRoundRobin(deals);
+        } catch (IOException e) {
+            throw new IllegalStateException(e);
+        }
+        BoardGeometry geometry = BoardGeometry.of(boardSetup);
+        ThreadLocal<MatchPlayer> matchPlayers = ThreadLocal.withInitial(() -> new MatchPlayer(bots, boardSetup));
+
+        ForkJoinPool pool = new ForkJoinPool(Math.max(1, threads));
+        List<LabelledPositions> games;
+        try {
+            games = pool.submit(() -> matches.parallelStream().map(match -> {
+                BoardBatch batch = new BoardBatch(64, geometry);
+                List<Integer> movers = new ArrayList<>();
+                MatchResult result = matchPlayers.get().play(match, (gameState, mover) -> {
+                    batch.add(gameState, mover);
+                    movers.add(mover.getSlot());
+                });
+                float[] labels = new float[movers.size()];
+                for (int i = 0; i < labels.length; i++) {
+                    labels[i] = (float) result.getShare(movers.get(i));
+                }
+                return new LabelledPositions(batchEvaluator.features(batch), labels);
+            }).collect(Collectors.toList())).join();
+        } finally {
+            pool.shutdown();
+        }
+
+        int size = 0;
+        for (LabelledPositions game : games) {
+            size += game.size();
+        }
+        float[] features = new float[size * BatchEvaluator.FEATURES];
+        float[] labels = new float[size];
+        int offset = 0;
+        for (LabelledPositions game : games) {
+            System.arraycopy(game.features, 0, features, offset * BatchEvaluator.FEATURES, game.features.length);
+            System.arraycopy(game.labels, 0, labels, offset, game.labels.length);
+            offset += game.size();
+        }
+        return new LabelledPositions(features, labels);
+    }
+
+    public float[] texel(LabelledPositions positions, int iterations, Path checkpointFile) throws IOException {
+        int features = BatchEvaluator.FEATURES;
+        double[] mean = new double[features];
+        double[] scale = new double[features];
+        for (int position = 0; position < positions.size(); position++) {
+            for (int feature = 0; feature < features; feature++) {
+                double value = positions.getFeature(position, feature);
+                mean[feature] += value;
+                scale[feature] += value * value;
+            }
+        }
+        for (int feature = 0; feature < features; feature++) {
+            mean[feature] /= positions.size();
+            double variance = scale[feature] / positions.size() - mean[feature] * mean[feature];
+            // a feature that never changes stays at 0 once centred
+            scale[feature] = variance > 1e-12 ? Math.sqrt(variance) : 1;
+        }
+
+        // weights of the standardized features, then the bias
+        double[] parameters = new double[features + 1];
+        int first = 0;
+        long digest = positions.digest();
+        TuningCheckpoint checkpoint = resume(checkpointFile, TEXEL, digest);
+        if (checkpoint != null) {
+            parameters = checkpoint.getParameters();
+            first = checkpoint.getIteration();
+        }
+        ForkJoinPool pool = new ForkJoinPool(Math.max(1, threads));
+        try {
+            for (int iteration = first; iteration < iterations; iteration++) {
+                double[] gradient = gradient(pool, positions, parameters, mean, scale);
+                for (int parameter = 0; parameter <= features; parameter++) {
+                    double ridge = parameter < features ? RIDGE * parameters[parameter] : 0;
+                    parameters[parameter] -= LEARNING_RATE * (gradient[parameter] + ridge);
+                }
+                if ((iteration + 1) % TEXEL_CHECKPOINT_ITERATIONS == 0 || iteration + 1 == iterations) {
+                    float[] weights = texelWeights(parameters, scale);
+                    new TuningCheckpoint(TEXEL, seed, digest, iteration + 1, parameters, weights).write(checkpointFile);
+                    System.out.printf("iteration %d: log loss %.5f, weights=%s%n", iteration + 1, gradient[features + 1], join(weights));
+                }
+            }
+        } finally {
+            pool.shutdown();
+        }
+        return texelWeights(parameters, scale);
+    }
+
+    // mean log loss gradient of every parameter, and the mean log loss itself last
+    private static double[] gradient(ForkJoinPool pool, LabelledPositions positions, double[] parameters, double[] mean, double[] scale) {
+        int features = BatchEvaluator.FEATURES;
+        int size = positions.size();
+        double[][] partials = pool.submit(() -> IntStream.range(0, CHUNKS).parallel().mapToObj(chunk -> {
+            double[] partial = new double[features + 2];
+            double[] standardized = new double[features];
+            for (int position = (int) ((long) size * chunk / CHUNKS); position < (long) size * (chunk + 1) / CHUNKS; position++) {
+                double z = parameters[features];
+                for (int feature = 0; feature < features; feature++) {
+                    standardized[feature] = (positions.getFeature(position, feature) - mean[feature]) / scale[feature];
+                    z += parameters[feature] * standardized[feature];
+                }
+                double predicted = 1 / (1 + Math.exp(-z));
+                double label = positions.getLabel(position);
+                double error = predicted - label;
+                for (int feature = 0; feature < features; feature++) {
+                    partial[feature] += error * standardized[feature];
+                }
+                partial[features] += error;
+                // log loss from z, stable for large |z|
+                partial[features + 1] += Math.max(z, 0) - z * label + Math.log1p(Math.exp(-Math.abs(z)));
+            }
+            return partial;
+        }).toArray(double[][]::new)).join();
+        double[] gradient = new double[features + 2];
+        for (double[] partial : partials) {
+            for (int i = 0; i < gradient.length; i++) {
+                gradient[i] += partial[i];
+            }
+        }
+        for (int i = 0; i < gradient.length; i++) {
+            gradient[i] /= Math.max(1, size);
+        }
+        return gradient;
+    }
+
+    private static float[] texelWeights(double[] parameters, double[] scale) {
+        float[] weights = new float[BatchEvaluator.FEATURES];
+        for (int feature = 0; feature < weights.length; feature++) {
+            weights[feature] = (float) (parameters[feature] / scale[feature]);
+        }
+        return weights;
+    }
+
+    public float[] spsa(float[] initial, int iterations, int deals, Path checkpointFile) throws IOException, InterruptedException {
+        int features = BatchEvaluator.FEATURES;
+        double[] parameters = new double[features];
+        for (int feature = 0; feature < Math.min(features, initial.length); feature++) {
+            parameters[feature] = initial[feature];
+        }
+        int first = 0;
+        long digest = GameState.mix(deals);
+        for (double parameter : parameters) {
+            digest = GameState.mix(digest + Double.doubleToLongBits(parameter));
+        }
+        TuningCheckpoint checkpoint = resume(checkpointFile, SPSA, digest);
+        if (checkpoint != null) {
+            parameters = checkpoint.getParameters();
+            first = checkpoint.getIteration();
+        }
+        for (int iteration = first; iteration < iterations; iteration++) {
+            long iterationSeed = GameState.mix(GameState.mix(seed) + iteration);
+            Random random = new Random(iterationSeed);
+            double gain = SPSA_STEP / Math.pow(iteration + 1 + iterations / 10.0, SPSA_ALPHA);
+            double nudge = SPSA_NUDGE / Math.pow(iteration + 1, SPSA_GAMMA);
+            int[] directions = new int[features];
+            float[] plus = new float[features];
+            float[] minus = new float[features];
+            for (int feature = 0; feature < features; feature++) {
+                directions[feature] = random.nextBoolean() ? 1 : -1;
+                plus[feature] = (float) (parameters[feature] + nudge * directions[feature]);
+                minus[feature] = (float) (parameters[feature] - nudge * directions[feature]);
+            }
+            List<BotConfig> bots = List.of(new BotConfig("plus", plus), new BotConfig("minus", minus));
+            double difference;
+            try (TournamentRunner runner = new TournamentRunner(bots, boardSetup, 2, iterationSeed, threads)) {
+                EloRatings ratings = runner.runRoundRobin(deals);
+                difference = ratings.getScore(0) - ratings.getScore(1);
+            }
+            for (int feature = 0; feature < features; feature++) {
+                parameters[feature] += gain * difference / (2 * nudge * directions[feature]);
+            }
+            float[] weights = spsaWeights(parameters);
+            new TuningCheckpoint(SPSA, seed, digest, iteration + 1, parameters, weights).write(checkpointFile);
+            System.out.printf("iteration %d: plus scored %+.3f over minus, weights=%s%n", iteration + 1, difference, join(weights));
+        }
+        return spsaWeights(parameters);
+    }
+
+    private static float[] spsaWeights(double[] parameters) {
+        float[] weights = new float[parameters.length];
+        for (int feature = 0; feature < weights.length; feature++) {
+            weights[feature] = (float) parameters[feature];
+        }
+        return weights;
+    }
+
+    private TuningCheckpoint resume(Path checkpointFile, String method, long digest) throws IOException {
+        TuningCheckpoint checkpoint = TuningCheckpoint.read(checkpointFile);
+        if (checkpoint != null && (!checkpoint.getMethod().equals(method) || checkpoint.getSeed() != seed)) {
+            throw new IllegalArgumentException(checkpointFile + " is the checkpoint of a " + checkpoint.getMethod()
+                + " run from seed " + checkpoint.getSeed() + ", not of a " + method + " run from seed " + seed);
+        }
+        if (checkpoint != null && checkpoint.getDigest() != digest) {
+            throw new IllegalArgumentException(checkpointFile + " is the checkpoint of a " + method + " run on "
+                + (method.equals(TEXEL) ? "other positions" : "other deals or starting weights"));
+        }
+        return checkpoint;
+    }
+
+    // weights as a BotConfig spec takes them
+    private static String join(float[] weights) {
+        StringBuilder joined = new StringBuilder();
+        for (float weight : weights) {
+            joined.append(joined.length() == 0 ? "" : ",").append(weight);
+        }
+        return joined.toString();
+    }
+}
@@ -0,0 +1,47 @@
+package entities;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+
+import service.BoardService;
+import service.PlayerService;
+import service.rules.ColumnLayout;
+import service.rules.GameOverDetector;
+import service.rules.GameStateInvariants;
+
+class BoardSetupTest {
+
+    @Test
+    void standardSetupTest() {
+        BoardSetup standard = BoardSetup.standard();
+        assertTrue(standard.isStandard());
+        assertEquals(4, standard.getMaximumPlayers());
+        assertEquals(List.of(28, 18, 14), List.of(standard.cubesPerPlayer(2), standard.cubesPerPlayer(3), standard.cubesPerPlayer(4)));
+        // two players sit opposite each other
+        Position first = standard.getSeats().get(0);
+        Position second = standard.getSeats().get(1);
+        assertEquals(-first.getX(), second.getX());
+        assertEquals(-first.getZ(), second.getZ());
+        assertThrows(IllegalArgumentException.class, () -> BoardSetup.scaled(6, 8, 68));
+        assertThrows(IllegalArgumentException.class, () -> BoardSetup.scaled(8, 8, 4));
+    }
+
+    @Test
+    void eightPlayersOnALargeBoardTest() {
+        GameState gameState = new GameState();
+        gameState.setBoardSetup(BoardSetup.scaled(32, 32, 612));
+        new PlayerService(gameState).initialisePlayers(8);
+        new BoardService(gameState).initialiseBoard();
+
+        assertTrue(GameStateInvariants.check(gameState, 8).isEmpty());
+        assertEquals(8 + 12, gameState.getPositionPieceMap().size());
+        assertEquals(1024, ColumnLayout.of(gameState).size());
+        GameOverDetector gameOverDetector = new GameOverDetector(gameState);
+        assertEquals(600, gameOverDetector.cubesLeft());
+        assertEquals(GameOverDetector.Outcome.IN_PROGRESS, gameOverDetector.turnEnded());
+        assertEquals(612, gameState.copy().getBoardSetup().getCubeSupply());
+    }
+}
@@ -0,0 +1,36 @@
+package entities;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+
+class PlayerTableTest {
+
+    @Test
+    void climberViewsAndCopiesTest() {
+        GameState gameState = new GameState();
+        Climber climber = gameState.addPlayer(0, 14, new Position(3, 0, 3), ClimberColour.RED, List.of(PowerCard.KICK, PowerCard.ECHO));
+        climber.setCanMove(false);
+        climber.setTotalCubes(12);
+
+        PlayerTable table = gameState.getPlayerTable();
+        assertEquals(PlayerTable.CAN_BUILD | PlayerTable.CAN_ROLL, table.getActionFlags(0));
+        assertEquals(12, table.getCubesRemaining(0));
+        assertEquals(List.of(PowerCard.ECHO, PowerCard.KICK), climber.getPowerCards());
+        assertSame(climber, gameState.getPositionPieceMap().get(climber.getPosition()));
+
+        GameState copy = gameState.copy();
+        Climber copiedClimber = copy.getPlayersList().get(0);
+        assertSame(copiedClimber, copy.getPositionPieceMap().get(new Position(3, 0, 3)));
+        assertEquals(gameState.fingerprint(), copy.fingerprint());
+        copiedClimber.setPosition(new Position(1, 2, 1));
+        copiedClimber.resetActions();
+
+        assertEquals(new Position(3, 0, 3), climber.getPosition());
+        assertFalse(climber.getCanMove());
+        assertTrue(copiedClimber.getCanMove());
+        assertNotEquals(gameState.fingerprint(), copy.fingerprint());
+    }
+}
@@ -0,0 +1,59 @@
+package service;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
+import java.io.PipedInputStream;
+import java.io.PipedOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.NoSuchElementException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.Test;
+
+class InputManagerTest {
+
+    @Test
+    void readsLinesUntilTheInputEndsTest() {
+        InputManager input = new InputManager(new ByteArrayInputStream("1\n2 3\n".getBytes(StandardCharsets.UTF_8)));
+
+        assertEquals("1", input.nextLine());
+        assertEquals("2 3", input.nextLine());
+        assertThrows(NoSuchElementException.class, input::nextLine);
+    }
+
+    @Test
+    void systemInFollowsSetInTest() {
+        InputStream systemIn = System.in;
+        try {
+            System.setIn(new ByteArrayInputStream("1\n".getBytes(StandardCharsets.UTF_8)));
+            assertEquals("1", InputManager.systemIn().nextLine());
+            System.setIn(new ByteArrayInputStream("2\n".getBytes(StandardCharsets.UTF_8)));
+            assertEquals("2", InputManager.systemIn().nextLine());
+        } finally {
+            System.setIn(systemIn);
+        }
+    }
+
+    @Test
+    void cancelWakesAStalledReadTest() throws Exception {
+        try (PipedOutputStream typed = new PipedOutputStream(); PipedInputStream stalled = new PipedInputStream(typed)) {
+            InputManager input = new InputManager(stalled);
+            CompletableFuture<String> read = CompletableFuture.supplyAsync(input::nextLine);
+            Thread.sleep(50);
+            assertFalse(read.isDone());
+
+            input.cancel();
+            ExecutionException cancelled = assertThrows(ExecutionException.class, () -> read.get(2, TimeUnit.SECONDS));
+            assertTrue(cancelled.getCause() instanceof InputManager.InputCancelledException);
+
+            // a cancellation is used up by the read it woke
+            typed.write("4\n".getBytes(StandardCharsets.UTF_8));
+            typed.flush();
+            assertEquals("4", input.nextLine());
+        }
+    }
+}
@@ -2,23 +2,43 @@ package service.actions;
 
 import static org.junit.jupiter.api.Assertions.*;
 
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
+
+import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.Test;
 
 import entities.Climber;
 import entities.ClimberColour;
+import entities.GameState;
 import entities.Position;
+import service.BoardService;
 
 class BuildActionServiceTest {
+    private final InputStream systemIn = System.in;
     BuildActionService buildActionService;
 
+    @AfterEach
+    void restoreSystemIn() {
+        System.setIn(systemIn);
+    }
+
     @Test
     void performBuildActionTest() {
-        /*
-        * public Climber(int id, int totalCubes, Position position, ClimberColour colour,
-                   List<PowerCard> powerCards, Boolean canBuild, Boolean canMove, Boolean canRoll) {
-        * */
-        buildActionService = new BuildActionService();
-        Climber climber = new Climber(1, 1, new Position(1,1,1), ClimberColour.BLACK, null, true, true, true);
+        GameState gameState = new GameState();
+        new BoardService(gameState).initialiseBoard();
+        Climber climber = gameState.addPlayer(1, 14, new Position(3, 0, 3), ClimberColour.BLACK, null);
+
+        // a floating cube first, which has to be rejected, then two cubes stacked on the ground cube at (3, 0, 1)
+        System.setIn(new ByteArrayInputStream("5\n4\n5\n3\n2\n1\n3\n4\n1\n".getBytes()));
+        buildActionService = new BuildActionService(gameState);
         buildActionService.performBuildAction(climber);
+
+        assertFalse(gameState.getPositionPieceMap().containsKey(new Position(5, 4, 5)));
+        assertTrue(gameState.getPositionPieceMap().containsKey(new Position(3, 2, 1)));
+        assertTrue(gameState.getPositionPieceMap().containsKey(new Position(3, 4, 1)));
+        assertEquals(14, gameState.getUsedCubes());
+        assertEquals(12, climber.getTotalCubes());
+        assertFalse(climber.getCanBuild());
     }
-}
\ No newline at end of file
+}
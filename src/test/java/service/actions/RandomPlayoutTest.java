@@ -0,0 +1,46 @@
+package service.actions;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+
+import entities.Climber;
+import entities.ClimberColour;
+import entities.GameState;
+import entities.Position;
+import service.BoardService;
+import service.rules.ActionCodes;
+
+class RandomPlayoutTest {
+
+    @Test
+    void rollFollowsTheDiceTest() {
+        GameState gameState = new GameState();
+        new BoardService(gameState).initialiseBoard();
+        Climber climber = gameState.addPlayer(1, 14, new Position(3, 0, 3), ClimberColour.BLACK, null);
+        int move = ActionCodes.move(ActionCodes.columnOf(new Position(1, 0, 1)));
+        // many grapple and wind codes still make a single roll next to the one move
+        int[] legalActions = {move, ActionCodes.roll(), ActionCodes.wind(0), ActionCodes.wind(1), ActionCodes.wind(2),
+            ActionCodes.wind(3), ActionCodes.grapple(ActionCodes.columnOf(new Position(3, 0, 1)))};
+        Random random = new Random(42);
+        int moves = 0;
+        int winds = 0;
+        int rolls = 0;
+        for (int i = 0; i < 60_000; i++) {
+            int code = RandomPlayout.pickLegal(gameState, climber, legalActions, random);
+            if (code == move) {
+                moves++;
+            } else if (ActionCodes.type(code) == ActionCodes.WIND) {
+                winds++;
+            } else {
+                rolls++;
+            }
+        }
+        assertEquals(30_000, moves, 600);
+        // half the picks are a roll: one face in six is the wind, the others grapple or turn blank
+        assertEquals(5_000, winds, 300);
+        assertEquals(25_000, rolls, 600);
+    }
+}
@@ -0,0 +1,78 @@
+package service.batch;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.StringReader;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Comparator;
+import java.util.List;
+import java.util.stream.Stream;
+
+import org.junit.jupiter.api.Test;
+
+import service.records.GameRecordStore;
+
+class BatchRunnerTest {
+
+    @Test
+    void runScriptTest() throws IOException {
+        String script = String.join("\n",
+            "# two cubes on the ground cube at (1, 0, 3), a blank roll, then the turn ends",
+            "G 2",
+            "B 1 2 3 1 4 3",
+            "R",
+            "E",
+            "X 1",
+            // taken by the cube just built
+            "B 1 2 3",
+            "G 9",
+            "R W",
+            // the second player can still move
+            "M",
+            "E");
+
+        BatchReport report = new BatchRunner().run(new BufferedReader(new StringReader(script)));
+
+        assertEquals(9, report.getCommands());
+        assertEquals(4, report.getRejected());
+        assertTrue(report.getRejections().get(0).startsWith("line 6 'X 1'"));
+        assertEquals(1, report.getGamesStarted());
+        assertEquals(0, report.getGamesFinished());
+        assertEquals(1, report.getResults().size());
+        assertTrue(report.getResults().get(0).startsWith("Game 1: unfinished after 2 turns"));
+    }
+
+    @Test
+    void finishedGamesAreRecordedTest() throws IOException {
+        // the starting cubes take the whole supply, the game is over after the first turn
+        String script = String.join("\n", "G 2 10 12 12", "M 1 2 3", "E");
+        Path directory = Files.createTempDirectory("records");
+        try {
+            try (GameRecordStore store = new GameRecordStore(directory)) {
+                BatchReport report = new BatchRunner(store).run(new BufferedReader(new StringReader(script)));
+                assertEquals(1, report.getGamesFinished());
+            }
+            try (GameRecordStore store = new GameRecordStore(directory)) {
+                assertEquals(1, store.getGames());
+                assertEquals(List.of(10L, 12L), store.column("game.side"));
+                assertEquals(1, store.actions().get(0).length);
+            }
+        } finally {
+            try (Stream<Path> files = Files.walk(directory)) {
+                files.sorted(Comparator.reverseOrder()).forEach(path -> path.toFile().delete());
+            }
+        }
+    }
+
+    @Test
+    void parseCommandTest() {
+        assertNull(BatchCommand.parse("   "));
+        assertEquals(2, BatchCommand.parse("B 1 2 3 3 2 3").positions.size());
+        assertEquals("W", BatchCommand.parse("r w").roll);
+        assertThrows(IllegalArgumentException.class, () -> BatchCommand.parse("M 1 2"));
+        assertThrows(IllegalArgumentException.class, () -> BatchCommand.parse("R W 1 2 3"));
+    }
+}
@@ -0,0 +1,55 @@
+package service.book;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+
+import org.junit.jupiter.api.Test;
+
+import entities.BoardSetup;
+import entities.Climber;
+import entities.GameState;
+import service.BoardService;
+import service.PlayerService;
+import service.rules.LegalActionService;
+
+class OpeningBookTest {
+
+    @Test
+    void bookServesTheOpeningFromEverySeatTest() throws IOException {
+        OpeningBookBuilder builder = new OpeningBookBuilder(BoardSetup.standard(), 4, 9L);
+        builder.play(300);
+        Path file = Files.createTempFile("opening", ".book");
+        try {
+            int booked = builder.write(file);
+            try (OpeningBook book = OpeningBook.open(file)) {
+                assertEquals(booked, book.size());
+                assertBookServesTheOpening(book);
+            }
+        } finally {
+            Files.deleteIfExists(file);
+        }
+    }
+
+    private static void assertBookServesTheOpening(OpeningBook book) {
+        GameState gameState = new GameState();
+        new PlayerService(gameState).initialisePlayers(4);
+        new BoardService(gameState).initialiseBoard();
+        LegalActionService legalActionService = new LegalActionService();
+        // every seat starts in a rotation or flip of the same state, which the book has seen in every game
+        for (Climber climber : gameState.getPlayersList()) {
+            climber.resetActions();
+            int code = book.lookup(gameState, climber);
+            assertNotEquals(OpeningBook.NO_ENTRY, code);
+            assertTrue(book.games(gameState, climber) >= 16);
+            int[] legalActions = legalActionService.enumerateLegalActions(gameState, climber);
+            assertTrue(Arrays.stream(legalActions).anyMatch(legal -> legal == code), "booked action is legal");
+        }
+
+        gameState.getPlayersList().get(0).clearActions();
+        assertEquals(OpeningBook.NO_ENTRY, book.lookup(gameState, gameState.getPlayersList().get(0)));
+    }
+}
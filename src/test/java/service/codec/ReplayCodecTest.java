@@ -0,0 +1,163 @@
+package service.codec;
+
+import static config.CommonConfiguration.BLANK;
+import static config.CommonConfiguration.GRAPPLE;
+import static config.CommonConfiguration.MAXIMUM_CUBE_PIECE;
+import static config.CommonConfiguration.WIND;
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+
+import entities.Climber;
+import entities.ClimberColour;
+import entities.GameState;
+import entities.Position;
+import service.BoardService;
+import service.actions.BuildActionService;
+import service.actions.MoveActionService;
+import service.actions.RandomPlayout;
+import service.actions.RollDiceActionService;
+import service.rules.ActionCodes;
+import service.rules.ColumnLayout;
+import service.rules.GameOverDetector;
+import service.rules.LegalActionService;
+
+class ReplayCodecTest {
+
+    @Test
+    void fullGameRoundTripTest() throws Exception {
+        GameState gameState = new GameState();
+        new BoardService(gameState).initialiseBoard();
+        int cubes = (MAXIMUM_CUBE_PIECE - gameState.getUsedCubes()) / 2;
+        gameState.addPlayer(0, cubes, new Position(-3, 0, -3), ClimberColour.RED, List.of());
+        gameState.addPlayer(1, cubes, new Position(3, 0, 3), ClimberColour.BLUE, List.of());
+
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        ReplayWriter replayWriter = new ReplayWriter(bytes, gameState.copy());
+        List<Integer> played = new ArrayList<>();
+        List<String> faces = new ArrayList<>();
+        playGame(gameState, replayWriter, played, faces, new Random(7));
+        replayWriter.close();
+        // well under the int an ActionCodes code takes
+        assertTrue(bytes.size() < 2 * played.size(), "replay of " + played.size() + " actions took " + bytes.size() + " bytes");
+
+        ReplayReader replayReader = new ReplayReader(new ByteArrayInputStream(bytes.toByteArray()));
+        assertEquals(2, replayReader.getInitialState().getPlayersList().size());
+        assertEquals(12, replayReader.getInitialState().getUsedCubes());
+        List<Integer> read = new ArrayList<>();
+        List<String> readFaces = new ArrayList<>();
+        while (replayReader.next()) {
+            read.add(replayReader.getCode());
+            readFaces.add(replayReader.getDiceFace());
+        }
+        assertEquals(played, read);
+        assertEquals(faces, readFaces);
+
+        // the replay drives the same game again from its own starting state
+        replayReader = new ReplayReader(new ByteArrayInputStream(bytes.toByteArray()));
+        GameState replayed = replayReader.getInitialState();
+        int player = 0;
+        while (replayReader.next()) {
+            if (replayReader.getCode() == ReplayReader.END_TURN) {
+                player = (player + 1) % 2;
+                replayed.getPlayersList().get(player).resetActions();
+            } else {
+                assertTrue(apply(replayed, replayed.getPlayersList().get(player), replayReader.getCode()));
+            }
+        }
+        assertEquals(gameState.fingerprint(), replayed.fingerprint());
+    }
+
+    @Test
+    void emptyTurnsAreKeptTest() throws Exception {
+        GameState gameState = new GameState();
+        new BoardService(gameState).initialiseBoard();
+        gameState.addPlayer(0, 10, new Position(-3, 0, -3), ClimberColour.RED, List.of());
+        int move = ActionCodes.move(ActionCodes.columnOf(new Position(-3, 0, -1)));
+
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (ReplayWriter replayWriter = new ReplayWriter(bytes, gameState)) {
+            replayWriter.endTurn();
+            replayWriter.endTurn();
+            replayWriter.writeAction(move, null);
+        }
+        ReplayReader replayReader = new ReplayReader(new ByteArrayInputStream(bytes.toByteArray()));
+        List<Integer> read = new ArrayList<>();
+        while (replayReader.next()) {
+            read.add(replayReader.getCode());
+        }
+        assertEquals(List.of(ReplayReader.END_TURN, ReplayReader.END_TURN, move, ReplayReader.END_TURN), read);
+    }
+
+    // random legal actions, the dice rolled before a grapple or wind is picked
+    private static void playGame(GameState gameState, ReplayWriter replayWriter, List<Integer> played, List<String> faces,
+                                 Random random) throws Exception {
+        LegalActionService legalActionService = new LegalActionService();
+        GameOverDetector gameOverDetector = new GameOverDetector(gameState);
+        int player = 0;
+        while (!gameOverDetector.isGameOver()) {
+            Climber climber = gameState.getPlayersList().get(player);
+            int[] legalActions = legalActionService.enumerateLegalActions(gameState, climber);
+            if (legalActions.length == 0) {
+                replayWriter.endTurn();
+                played.add(ReplayReader.END_TURN);
+                faces.add(null);
+                gameOverDetector.turnEnded();
+                player = (player + 1) % 2;
+                gameState.getPlayersList().get(player).resetActions();
+                continue;
+            }
+            int code = RandomPlayout.pickLegal(gameState, climber, legalActions, random);
+            String face = face(code);
+            assertTrue(apply(gameState, climber, code));
+            replayWriter.writeAction(code, face);
+            played.add(code);
+            faces.add(face);
+        }
+    }
+
+    private static String face(int code) {
+        switch (ActionCodes.type(code)) {
+            case ActionCodes.ROLL:
+                return BLANK;
+            case ActionCodes.GRAPPLE:
+                return GRAPPLE;
+            case ActionCodes.WIND:
+                return WIND;
+            default:
+                return null;
+        }
+    }
+
+    private static boolean apply(GameState gameState, Climber climber, int code) {
+        int first = ActionCodes.firstColumn(code);
+        switch (ActionCodes.type(code)) {
+            case ActionCodes.BUILD:
+                List<Position> positions = new ArrayList<>();
+                positions.add(ActionCodes.toPosition(first, height(gameState, first)));
+                if (ActionCodes.hasSecondColumn(code)) {
+                    int second = ActionCodes.secondColumn(code);
+                    positions.add(ActionCodes.toPosition(second, height(gameState, second) + (second == first ? 1 : 0)));
+                }
+                return new BuildActionService(gameState).performBuildAction(climber, positions);
+            case ActionCodes.MOVE:
+                return new MoveActionService(gameState).moveClimber(climber, ActionCodes.toPosition(first, height(gameState, first)));
+            case ActionCodes.ROLL:
+                return new RollDiceActionService(gameState).performBlankAction(climber);
+            case ActionCodes.GRAPPLE:
+                return new RollDiceActionService(gameState).performGrappleAction(climber, ActionCodes.toPosition(first, height(gameState, first)));
+            default:
+                return new RollDiceActionService(gameState).performWindAction(climber, ActionCodes.WIND_DIRECTIONS[ActionCodes.direction(code)]);
+        }
+    }
+
+    private static int height(GameState gameState, int column) {
+        return ColumnLayout.of(gameState).height(column);
+    }
+}
@@ -0,0 +1,62 @@
+package service.endgame;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+
+import entities.Climber;
+import entities.GameState;
+import service.actions.ActionExecutor;
+import service.rules.LegalActionService;
+import service.scenario.Scenario;
+
+class EndgameSolverTest {
+
+    @Test
+    void tablebasePlaysTheSolvedTurnTest() throws IOException {
+        List<Scenario> endgames = EndgameSolver.endgames(1, 3L, 2, 2);
+        assertEquals(1, endgames.size());
+        GameState gameState = endgames.get(0).getGameState();
+        Climber mover = gameState.getPlayersList().get(endgames.get(0).getPlayerTurn());
+
+        EndgameSolver solver = new EndgameSolver();
+        double[] shares = solver.solve(gameState, mover);
+        assertEquals(1.0, Arrays.stream(shares).sum(), 1e-9);
+
+        Path file = Files.createTempFile("endgame", ".tablebase");
+        try {
+            assertEquals(solver.getSolvedPositions(), solver.write(file));
+            try (EndgameTablebase tablebase = EndgameTablebase.open(file)) {
+                assertTablebasePlaysTheTurn(tablebase, solver, shares, gameState, mover);
+            }
+        } finally {
+            Files.deleteIfExists(file);
+        }
+    }
+
+    private static void assertTablebasePlaysTheTurn(EndgameTablebase tablebase, EndgameSolver solver, double[] shares,
+            GameState gameState, Climber mover) {
+        assertEquals(shares[mover.getSlot()], tablebase.value(gameState, mover), 1e-4);
+
+        // every decision of the turn is in the tablebase and legal, the roll resolved as a blank
+        LegalActionService legalActionService = new LegalActionService();
+        ActionExecutor actionExecutor = new ActionExecutor(gameState, new Random(1));
+        int decisions = 0;
+        while (legalActionService.enumerateLegalActions(gameState, mover).length > 0) {
+            int code = tablebase.lookup(gameState, mover);
+            assertEquals(solver.bestAction(gameState, mover), code);
+            int[] legalActions = legalActionService.enumerateLegalActions(gameState, mover);
+            assertTrue(Arrays.stream(legalActions).anyMatch(legal -> legal == code), "solved action is legal");
+            assertTrue(actionExecutor.perform(mover, code));
+            decisions++;
+        }
+        assertTrue(decisions > 0);
+    }
+}
@@ -0,0 +1,52 @@
+package service.eval;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+
+import entities.Climber;
+import entities.ClimberColour;
+import entities.Cube;
+import entities.GameState;
+import entities.Position;
+import service.rules.ActionCodes;
+
+class BatchEvaluatorTest {
+
+    @Test
+    void vectorAndScalarFeaturesMatchTest() {
+        Random random = new Random(34);
+        BoardBatch batch = new BoardBatch(4);
+        for (int i = 0; i < 100; i++) {
+            GameState gameState = new GameState();
+            for (int column = 0; column < 40; column++) {
+                int gridX = random.nextInt(8) - 4;
+                int gridZ = random.nextInt(6) - 4;
+                Position position = ActionCodes.toPosition(ActionCodes.column(gridX, gridZ), random.nextInt(4));
+                gameState.getPositionPieceMap().put(position, new Cube(gameState.nextCubeId(), position, "COMPUTER", true));
+            }
+            // the climbers stand on the free last row
+            Climber climber = gameState.addPlayer(0, 10 + i % 5, new Position(1, 0, 7), ClimberColour.RED, null);
+            gameState.addPlayer(1, 12, new Position(-1, 0, 7), ClimberColour.BLUE, null);
+            batch.add(gameState, climber);
+        }
+
+        float[] scalarFeatures = new BatchEvaluator(false).features(batch);
+        assertEquals(100 * BatchEvaluator.FEATURES, scalarFeatures.length);
+        assertEquals(0, scalarFeatures[BatchEvaluator.LEVEL_LEAD]);
+        assertEquals(-2, scalarFeatures[BatchEvaluator.CUBES_LEAD]);
+        assertTrue(scalarFeatures[BatchEvaluator.MAX_HEIGHT] <= 4);
+        assertEquals(0, scalarFeatures[BatchEvaluator.LEVEL]);
+        assertTrue(scalarFeatures[BatchEvaluator.SUMMIT_DISTANCE] >= 1);
+
+        assertTrue(BatchEvaluator.vectorApiAvailable());
+        BatchEvaluator vectorEvaluator = new BatchEvaluator();
+        assertTrue(vectorEvaluator.isVectorized());
+        assertArrayEquals(scalarFeatures, vectorEvaluator.features(batch));
+
+        float[] scores = vectorEvaluator.evaluate(batch, new float[]{0, 1, 0, 0, 0, 0, 0, 0});
+        assertEquals(scalarFeatures[BatchEvaluator.TOTAL_HEIGHT], scores[0]);
+    }
+}
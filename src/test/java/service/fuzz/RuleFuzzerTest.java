@@ -0,0 +1,19 @@
+package service.fuzz;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+
+class RuleFuzzerTest {
+
+    @Test
+    void randomGamesKeepInvariantsTest() throws InterruptedException {
+        RuleFuzzer ruleFuzzer = new RuleFuzzer(150);
+        List<FuzzFailure> failures = ruleFuzzer.runCampaign(20_240_101L, 64);
+
+        assertEquals(List.of(), failures);
+        assertEquals(64 * 150, ruleFuzzer.getStepsPlayed());
+    }
+}
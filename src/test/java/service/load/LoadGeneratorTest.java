@@ -0,0 +1,33 @@
+package service.load;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import org.junit.jupiter.api.Test;
+
+import entities.BoardSetup;
+
+class LoadGeneratorTest {
+
+    @Test
+    void clientsPlayWholeGamesTest() throws InterruptedException {
+        LoadReport report = new LoadGenerator(2, 42L, BoardSetup.standard()).run(8);
+
+        assertEquals(16, report.getGames());
+        assertTrue(report.getActions() > report.getTurns());
+        LatencyHistogram latencies = report.getLatencies();
+        assertTrue(latencies.percentile(50) <= latencies.percentile(99));
+        assertTrue(latencies.percentile(99.9) <= latencies.getMax());
+    }
+
+    @Test
+    void histogramPercentileTest() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        for (int nanos = 1; nanos <= 1000; nanos++) {
+            histogram.record(nanos * 1000L);
+        }
+        // within the 1/16 resolution of a bucket
+        assertEquals(500_000, histogram.percentile(50), 500_000 / 16.0);
+        assertEquals(990_000, histogram.percentile(99), 990_000 / 16.0);
+        assertEquals(1_000_000, histogram.percentile(100));
+    }
+}
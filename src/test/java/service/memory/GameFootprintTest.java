@@ -0,0 +1,49 @@
+package service.memory;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.List;
+import java.util.Map;
+
+import org.junit.jupiter.api.Test;
+
+import entities.ClimberColour;
+import entities.Cube;
+import entities.GameState;
+import entities.Position;
+import service.BoardService;
+import service.rules.ColumnLayout;
+import service.rules.ReachabilityTracker;
+
+class GameFootprintTest {
+
+    @Test
+    void objectLayoutTest() {
+        // three floats after the header
+        assertEquals(ObjectLayout.align(ObjectLayout.HEADER_BYTES + 12), ObjectLayout.shallowSize(Position.class));
+        // id, isOnTop, position and placedBy
+        assertEquals(ObjectLayout.align(ObjectLayout.HEADER_BYTES + 5 + 2 * ObjectLayout.REFERENCE_BYTES), ObjectLayout.shallowSize(Cube.class));
+        assertEquals(ObjectLayout.align(ObjectLayout.ARRAY_HEADER_BYTES + 40), ObjectLayout.arraySize(int.class, 10));
+        assertEquals(16, ObjectLayout.hashTableCapacity(12));
+        assertEquals(32, ObjectLayout.hashTableCapacity(13));
+    }
+
+    @Test
+    void gameFootprintTest() {
+        GameState gameState = new GameState();
+        new BoardService(gameState).initialiseBoard();
+        gameState.addPlayer(0, 28, new Position(3, 0, 3), ClimberColour.RED, List.of());
+        gameState.addPlayer(1, 28, new Position(-3, 0, -3), ClimberColour.BLUE, List.of());
+
+        ColumnLayout.of(gameState);
+        GameFootprint bare = GameFootprint.measure(gameState);
+        assertTrue(bare.getBytes(GameFootprint.COLUMN_HEIGHTS) > 0);
+        assertEquals(14 * ObjectLayout.shallowSize(Position.class), bare.getBytes(GameFootprint.POSITIONS));
+        assertEquals(bare.getTotal(), bare.getStructures().values().stream().mapToLong(Long::longValue).sum());
+
+        GameFootprint cached = GameFootprint.measure(gameState, Map.of("reachability", new ReachabilityTracker(gameState)));
+        assertTrue(cached.getCacheBytes("reachability") > 0);
+        // the cache refers to the game, which is only counted once
+        assertEquals(bare.getTotal() + cached.getCacheBytes("reachability"), cached.getTotal());
+    }
+}
@@ -0,0 +1,40 @@
+package service.memory;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import org.junit.jupiter.api.Test;
+
+class MappedTableTest {
+    private static final int MAGIC = 0x54455354;
+    private static final int ENTRY_BYTES = Long.BYTES + Integer.BYTES;
+
+    @Test
+    void findsEntriesByUnsignedKeyTest() throws IOException {
+        long[] keys = {3L, 17L, 1L << 40, -5L};
+        ByteBuffer table = MappedTable.allocate(MAGIC, 1, ENTRY_BYTES, keys.length);
+        for (int i = 0; i < keys.length; i++) {
+            table.putLong(keys[i]).putInt(i * 10);
+        }
+        Path file = Files.createTempFile("table", ".bin");
+        try {
+            Files.write(file, table.array());
+            try (MappedTable mapped = MappedTable.open(file, MAGIC, 1, ENTRY_BYTES, "a test table")) {
+                assertEquals(keys.length, mapped.size());
+                for (int i = 0; i < keys.length; i++) {
+                    assertEquals(i, mapped.find(keys[i]));
+                    assertEquals(i * 10, mapped.getInt(i, Long.BYTES));
+                }
+                assertEquals(MappedTable.NOT_FOUND, mapped.find(4L));
+                assertEquals(MappedTable.NOT_FOUND, mapped.find(-1L));
+            }
+            assertThrows(IllegalArgumentException.class, () -> MappedTable.open(file, MAGIC, 2, ENTRY_BYTES, "a test table"));
+        } finally {
+            Files.deleteIfExists(file);
+        }
+    }
+}
@@ -0,0 +1,58 @@
+package service.profiling;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+
+import entities.Climber;
+import entities.ClimberColour;
+import entities.GameState;
+import entities.Position;
+import jdk.jfr.Recording;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingFile;
+import service.BoardService;
+import service.actions.BuildActionService;
+import service.actions.MoveActionService;
+import service.actions.RollDiceActionService;
+
+class GameEventTest {
+
+    @Test
+    void ruleEventsAreRecordedTest() throws Exception {
+        GameState gameState = new GameState();
+        gameState.setGameId("game-1");
+        new BoardService(gameState).initialiseBoard();
+        Climber climber = gameState.addPlayer(0, 28, new Position(3, 0, 3), ClimberColour.RED, List.of());
+
+        Path file = Files.createTempFile("game-events", ".jfr");
+        try (Recording recording = new Recording()) {
+            recording.enable(BuildValidatedEvent.class);
+            recording.enable(MovesGeneratedEvent.class);
+            recording.enable(WindResolvedEvent.class);
+            recording.start();
+            new BuildActionService(gameState).performBuildAction(climber, List.of(new Position(1, 2, 3), new Position(1, 4, 3)));
+            new MoveActionService(gameState).getValidPositionsToMove(climber);
+            new RollDiceActionService(gameState).performWindAction(climber, "D");
+            recording.stop();
+            recording.dump(file);
+        }
+
+        List<RecordedEvent> events = RecordingFile.readAllEvents(file);
+        Files.delete(file);
+        assertEquals(2, count(events, "magnetcube.BuildValidated"));
+        assertEquals(1, count(events, "magnetcube.MovesGenerated"));
+        RecordedEvent wind = events.stream().filter(event -> event.getEventType().getName().equals("magnetcube.WindResolved")).findFirst().get();
+        assertEquals("game-1", wind.getString("gameId"));
+        assertEquals(14, wind.getInt("cubesOnBoard"));
+        assertEquals("D", wind.getString("direction"));
+    }
+
+    private static long count(List<RecordedEvent> events, String name) {
+        return events.stream().filter(event -> event.getEventType().getName().equals(name)).count();
+    }
+}
@@ -0,0 +1,118 @@
+package service.records;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Comparator;
+import java.util.List;
+import java.util.stream.Stream;
+
+import org.junit.jupiter.api.Test;
+
+import entities.Climber;
+import entities.ClimberColour;
+import entities.GameState;
+import entities.Position;
+import entities.PowerCard;
+import service.BoardService;
+import service.actions.BuildActionService;
+import service.actions.RollDiceActionService;
+import service.rules.ActionCodes;
+import service.rules.BoardGeometry;
+import service.rules.GameOverDetector;
+
+class GameRecordStoreTest {
+
+    @Test
+    void recordAndQueryGamesTest() throws IOException {
+        Path directory = Files.createTempDirectory("records");
+        try {
+            GameState gameState = new GameState();
+            gameState.setOut(GameState.QUIET);
+            new BoardService(gameState).initialiseBoard();
+            Climber climber = gameState.addPlayer(0, 28, new Position(3, 0, 3), ClimberColour.RED, List.of(PowerCard.STEAL, PowerCard.KICK));
+            gameState.addPlayer(1, 28, new Position(-3, 0, -3), ClimberColour.BLUE, List.of(PowerCard.ECHO, PowerCard.FREEZE));
+            GameOverDetector gameOverDetector = new GameOverDetector(gameState);
+            GameRecorder gameRecorder = new GameRecorder(gameState);
+            RollDiceActionService rollDiceActionService = new RollDiceActionService(gameState);
+
+            gameRecorder.beginAction(climber);
+            new BuildActionService(gameState).performBuildAction(climber, List.of(new Position(1, 2, 3), new Position(1, 4, 3)));
+            gameRecorder.endAction(climber, rollDiceActionService);
+            // a rejected action isn't recorded
+            gameRecorder.beginAction(climber);
+            rollDiceActionService.performWindAction(climber, "X");
+            gameRecorder.endAction(climber, rollDiceActionService);
+            gameRecorder.beginAction(climber);
+            rollDiceActionService.performWindAction(climber, "S");
+            gameRecorder.endAction(climber, rollDiceActionService);
+            gameRecorder.turnEnded();
+            GameRecord record = gameRecorder.finish(gameOverDetector);
+
+            int cubeColumn = ActionCodes.columnOf(new Position(1, 0, 3));
+            assertArrayEquals(new int[]{ActionCodes.build(cubeColumn, cubeColumn), ActionCodes.wind(2)}, record.getActions());
+            assertArrayEquals(new String[]{"WIND"}, record.getDiceFaces());
+            assertEquals(3, record.getHeights()[BoardGeometry.standard().columnIndex(cubeColumn)]);
+
+            int seatColumn = ActionCodes.columnOf(new Position(-3, 0, -3));
+            int[] moves = {ActionCodes.move(seatColumn), ActionCodes.roll(), ActionCodes.grapple(cubeColumn), ActionCodes.build(seatColumn)};
+            try (GameRecordStore store = new GameRecordStore(directory)) {
+                store.append(record);
+                // the climber holding STEAL is on the ground with the other one, so both share the highest level
+                store.append(new GameRecord("CUBES_EXHAUSTED", 20, new ClimberColour[]{ClimberColour.BLUE, ClimberColour.RED},
+                    new long[]{1L << PowerCard.STEAL.ordinal(), 0}, new int[]{10, 6}, new int[]{2, 4}, new boolean[]{false, true},
+                    moves, new String[]{"BLANK", "GRAPPLE"}, new int[64], 8, 8));
+            }
+            try (GameRecordStore store = new GameRecordStore(directory)) {
+                assertEquals(2, store.getGames());
+                assertEquals(0.5, store.winRate(PowerCard.STEAL), 1e-9);
+                assertTrue(Double.isNaN(store.winRate(PowerCard.TIME_STOP)));
+                assertArrayEquals(new double[]{6.0, 3.0}, store.averageCubesUsedBySeat(), 1e-9);
+                assertEquals(List.of(1L, 20L), store.column(GameRecordStore.GAME_TURNS));
+                List<int[]> actions = store.actions();
+                assertArrayEquals(record.getActions(), actions.get(0));
+                assertArrayEquals(moves, actions.get(1));
+                // the type above two bits for the second cube of a build or the wind direction
+                assertEquals(List.of(1L << 2 | 1, 5L << 2 | 2, 2L << 2, 3L << 2, 4L << 2, 1L << 2), store.column(GameRecordStore.ACTION_TYPE));
+            }
+        } finally {
+            try (Stream<Path> files = Files.walk(directory)) {
+                files.sorted(Comparator.reverseOrder()).forEach(path -> path.toFile().delete());
+            }
+        }
+    }
+
+    @Test
+    void gamesOnLargerBoardsTest() throws IOException {
+        Path directory = Files.createTempDirectory("records");
+        try {
+            // a corner of the larger board, off the standard one
+            int corner = ActionCodes.columnOf(new Position(9, 0, 11));
+            int centre = ActionCodes.columnOf(new Position(1, 0, 1));
+            assertEquals(BoardGeometry.OFF_BOARD, BoardGeometry.standard().columnIndex(corner));
+            int[] moves = {ActionCodes.move(corner), ActionCodes.build(centre, corner), ActionCodes.grapple(centre)};
+            int[] heights = new int[10 * 12];
+            heights[heights.length - 1] = 1;
+            try (GameRecordStore store = new GameRecordStore(directory)) {
+                store.append(new GameRecord("STALEMATE", 3, new ClimberColour[]{ClimberColour.RED, ClimberColour.BLUE},
+                    new long[2], new int[]{1, 0}, new int[]{0, 0}, new boolean[]{true, true}, moves, new String[]{"GRAPPLE"},
+                    heights, 10, 12));
+                // heights of another board than the record's
+                assertThrows(IllegalArgumentException.class, () -> store.append(new GameRecord("STALEMATE", 3, new ClimberColour[0],
+                    new long[0], new int[0], new int[0], new boolean[0], new int[0], new String[0], new int[64], 10, 12)));
+            }
+            try (GameRecordStore store = new GameRecordStore(directory)) {
+                assertEquals(List.of(10L, 12L), store.column(GameRecordStore.GAME_SIDE));
+                assertArrayEquals(moves, store.actions().get(0));
+                // the last column of the board, after 119 empty ones
+                assertEquals(List.of(119L, 1L), store.column(GameRecordStore.BOARD_HEIGHTS));
+            }
+        } finally {
+            try (Stream<Path> files = Files.walk(directory)) {
+                files.sorted(Comparator.reverseOrder()).forEach(path -> path.toFile().delete());
+            }
+        }
+    }
+}
@@ -0,0 +1,34 @@
+package service.rules;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import org.junit.jupiter.api.Test;
+
+import entities.Position;
+
+class BoardGeometryTest {
+
+    @Test
+    void tablesMatchCoordinatesTest() {
+        BoardGeometry geometry = BoardGeometry.standard();
+        int cell = geometry.cellIndex(new Position(3, 2, 1));
+        int column = geometry.cellColumn(cell);
+
+        assertEquals(1, geometry.cellLevel(cell));
+        assertEquals(ActionCodes.columnOf(new Position(3, 0, 1)), geometry.columnCode(column));
+        assertEquals(geometry.cellIndex(new Position(3, 0, 1)), geometry.cellBelow(cell));
+        assertEquals(geometry.cellIndex(new Position(3, 4, 1)), geometry.cellAbove(cell));
+        // D shifts along +x, W along +z
+        assertEquals(geometry.cellIndex(new Position(5, 2, 1)), geometry.cellNeighbour(cell, 3));
+        assertEquals(geometry.cellIndex(new Position(3, 2, 3)), geometry.cellNeighbour(cell, 0));
+
+        int corner = geometry.columnIndex(ActionCodes.columnOf(new Position(7, 0, 7)));
+        assertEquals(BoardGeometry.OFF_BOARD, geometry.columnNeighbour(corner, 0));
+        assertEquals(BoardGeometry.OFF_BOARD, geometry.columnNeighbour(corner, 3));
+        assertEquals(BoardGeometry.OFF_BOARD, geometry.cellBelow(geometry.cellIndex(corner, 0)));
+        assertEquals(BoardGeometry.OFF_BOARD, geometry.cellIndex(new Position(9, 0, 1)));
+        int top = geometry.cellIndex(corner, geometry.levels() - 1);
+        assertEquals(BoardGeometry.OFF_BOARD, geometry.cellAbove(top));
+        assertEquals(geometry.cells() - geometry.columns() + corner, top);
+    }
+}
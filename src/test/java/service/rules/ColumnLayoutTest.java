@@ -0,0 +1,58 @@
+package service.rules;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+
+import entities.ClimberColour;
+import entities.Cube;
+import entities.GameState;
+import entities.Position;
+import service.BoardService;
+
+class ColumnLayoutTest {
+
+    @Test
+    void heightsFollowTheBoardTest() {
+        GameState gameState = new GameState();
+        new BoardService(gameState).initialiseBoard();
+        gameState.addPlayer(0, 28, new Position(3, 0, 3), ClimberColour.RED, List.of());
+        int column = ActionCodes.columnOf(new Position(1, 0, 3));
+        int height = ColumnLayout.of(gameState).height(column);
+
+        Position placed = ActionCodes.toPosition(column, height);
+        gameState.getPositionPieceMap().put(placed, new Cube(gameState.nextCubeId(), placed, "COMPUTER", true));
+        gameState.notifyCubePlaced(placed);
+        assertEquals(height + 1, ColumnLayout.of(gameState).height(column));
+
+        gameState.getPositionPieceMap().remove(placed);
+        gameState.notifyCubeRemoved(placed);
+        assertEquals(height, ColumnLayout.of(gameState).height(column));
+
+        // a copy follows its own board
+        GameState copy = gameState.copy();
+        copy.getPositionPieceMap().put(placed, new Cube(copy.nextCubeId(), placed, "COMPUTER", true));
+        copy.notifyCubePlaced(placed);
+        assertEquals(height + 1, ColumnLayout.of(copy).height(column));
+        assertEquals(height, ColumnLayout.of(gameState).height(column));
+
+        // a cube nobody was told about is only in the scanned layout, which the invariants compare against
+        gameState.getPositionPieceMap().put(placed, new Cube(gameState.nextCubeId(), placed, "COMPUTER", true));
+        assertEquals(height, ColumnLayout.of(gameState).height(column));
+        assertEquals(height + 1, ColumnLayout.scan(gameState, BoardGeometry.standard()).height(column));
+        assertTrue(GameStateInvariants.check(gameState, 1).stream().anyMatch(violation -> violation.contains("tracked")));
+    }
+
+    @Test
+    void readingTheLayoutRegistersNothingTest() {
+        GameState gameState = new GameState();
+        gameState.addPlayer(0, 28, new Position(3, 0, 3), ClimberColour.RED, List.of());
+        Position placed = new Position(1, 0, 1);
+        gameState.getPositionPieceMap().put(placed, new Cube(gameState.nextCubeId(), placed, "COMPUTER", true));
+        // a game that was never set up is scanned every time
+        assertEquals(1, ColumnLayout.of(gameState).height(ActionCodes.columnOf(placed)));
+        assertNull(gameState.getColumnHeights());
+    }
+}
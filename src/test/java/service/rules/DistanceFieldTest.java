@@ -0,0 +1,137 @@
+package service.rules;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+
+import entities.Climber;
+import entities.ClimberColour;
+import entities.GameState;
+import entities.Position;
+import service.BoardService;
+import service.actions.BuildActionService;
+import service.actions.MoveActionService;
+import service.actions.RollDiceActionService;
+
+class DistanceFieldTest {
+
+    @Test
+    void distancesOnStartingBoardTest() {
+        GameState gameState = new GameState();
+        new BoardService(gameState).initialiseBoard();
+        Climber climber = gameState.addPlayer(0, 14, new Position(3, 0, 3), ClimberColour.RED, null);
+        ReachabilityTracker tracker = new ReachabilityTracker(gameState);
+
+        int ownColumn = ActionCodes.columnOf(climber.getPosition());
+        int cubeColumn = ActionCodes.columnOf(new Position(3, 0, 1));
+        assertEquals(0, tracker.turnsTo(climber, ownColumn));
+        assertEquals(1, tracker.turnsTo(climber, cubeColumn));
+        assertEquals(List.of(cubeColumn), tracker.field(climber).pathTo(cubeColumn));
+        assertTrue(tracker.field(climber).pathTo(ownColumn).isEmpty());
+    }
+
+    @Test
+    void repairVisitsLessThanRebuildTest() {
+        // a plateau one cube high on a larger board, the climber in one corner
+        BoardGeometry geometry = BoardGeometry.of(16, 16, BoardGeometry.standard().levels());
+        ColumnLayout layout = new ColumnLayout(geometry);
+        for (int index = 0; index < layout.size(); index++) {
+            layout.addCube(layout.columnAt(index));
+        }
+        DistanceField field = new DistanceField(layout, layout.columnAt(0));
+        int rebuildVisits = field.getVisitedNodes();
+
+        // a cube in the far corner only changes that corner
+        int corner = layout.columnAt(layout.size() - 1);
+        layout.addCube(corner);
+        field.setHeight(corner, layout.height(corner));
+        field.repair();
+        int repairVisits = field.getVisitedNodes();
+
+        DistanceField rebuilt = new DistanceField(layout, layout.columnAt(0));
+        for (int index = 0; index < layout.size(); index++) {
+            assertEquals(rebuilt.turnsTo(layout.columnAt(index)), field.turnsTo(layout.columnAt(index)));
+        }
+        assertTrue(repairVisits * 2 < rebuildVisits, repairVisits + " of " + rebuildVisits);
+    }
+
+    @Test
+    void incrementalRepairMatchesRebuildTest() {
+        for (long seed = 0; seed < 8; seed++) {
+            playRandomGame(seed);
+        }
+    }
+
+    private void playRandomGame(long seed) {
+        Random random = new Random(seed);
+        GameState gameState = new GameState();
+        gameState.setOut(GameState.QUIET);
+        new BoardService(gameState).initialiseBoard();
+        BuildActionService buildActionService = new BuildActionService(gameState);
+        MoveActionService moveActionService = new MoveActionService(gameState);
+        RollDiceActionService rollDiceActionService = new RollDiceActionService(gameState, random);
+        gameState.addPlayer(0, 14, new Position(3, 0, 3), ClimberColour.RED, List.of());
+        gameState.addPlayer(1, 14, new Position(-3, 0, -3), ClimberColour.BLUE, List.of());
+        gameState.addPlayer(2, 14, new Position(-3, 0, 3), ClimberColour.GREEN, List.of());
+        ReachabilityTracker tracker = new ReachabilityTracker(gameState);
+        LegalActionService legalActionService = new LegalActionService();
+
+        for (int step = 0; step < 150; step++) {
+            Climber climber = gameState.getPlayersList().get(random.nextInt(3));
+            climber.resetActions();
+            int[] actions = legalActionService.enumerateLegalActions(gameState, climber);
+            if (actions.length == 0) {
+                continue;
+            }
+            int code = actions[random.nextInt(actions.length)];
+            ColumnLayout layout = ColumnLayout.of(gameState);
+            int first = ActionCodes.firstColumn(code);
+            switch (ActionCodes.type(code)) {
+                case ActionCodes.BUILD:
+                    List<Position> positions = new ArrayList<>();
+                    positions.add(ActionCodes.toPosition(first, layout.height(first)));
+                    if (ActionCodes.hasSecondColumn(code)) {
+                        int second = ActionCodes.secondColumn(code);
+                        positions.add(ActionCodes.toPosition(second, layout.height(second) + (second == first ? 1 : 0)));
+                    }
+                    assertTrue(buildActionService.performBuildAction(climber, positions));
+                    break;
+                case ActionCodes.MOVE:
+                    assertTrue(moveActionService.moveClimber(climber, ActionCodes.toPosition(first, layout.height(first))));
+                    break;
+                case ActionCodes.GRAPPLE:
+                    assertTrue(rollDiceActionService.performGrappleAction(climber, ActionCodes.toPosition(first, layout.height(first))));
+                    break;
+                case ActionCodes.WIND:
+                    assertTrue(rollDiceActionService.performWindAction(climber, ActionCodes.WIND_DIRECTIONS[ActionCodes.direction(code)]));
+                    break;
+                default:
+                    continue;
+            }
+            tracker.update();
+            assertMatchesRebuild(gameState, tracker, "seed " + seed + " step " + step);
+        }
+    }
+
+    private void assertMatchesRebuild(GameState gameState, ReachabilityTracker tracker, String context) {
+        ColumnLayout layout = ColumnLayout.of(gameState);
+        for (Climber climber : gameState.getPlayersList()) {
+            int column = ActionCodes.columnOf(climber.getPosition());
+            DistanceField rebuilt = new DistanceField(layout, column);
+            List<Integer> oneMove = GameRules.moveDestinations(layout, column, ActionCodes.level(climber.getPosition()));
+            for (int index = 0; index < layout.size(); index++) {
+                int target = layout.columnAt(index);
+                int turns = tracker.turnsTo(climber, target);
+                assertEquals(rebuilt.turnsTo(target), turns, context + " column " + target);
+                assertEquals(oneMove.contains(target), turns == 1, context + " move to " + target);
+                if (turns != DistanceField.UNREACHABLE) {
+                    assertEquals(turns, tracker.field(climber).pathTo(target).size(), context + " path to " + target);
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,46 @@
+package service.rules;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+
+import entities.Climber;
+import entities.ClimberColour;
+import entities.GameState;
+import entities.Position;
+import service.BoardService;
+import service.actions.BuildActionService;
+import service.actions.MoveActionService;
+
+class GameOverDetectorTest {
+
+    @Test
+    void gameEndsWhenTheLastCubeIsBuiltTest() {
+        GameState gameState = new GameState();
+        new BoardService(gameState).initialiseBoard();
+        Climber climber = gameState.addPlayer(0, 2, new Position(3, 0, 3), ClimberColour.RED, List.of());
+        Climber opponent = gameState.addPlayer(1, 0, new Position(-3, 0, -3), ClimberColour.BLUE, List.of());
+        GameOverDetector gameOverDetector = new GameOverDetector(gameState);
+        assertEquals(2, gameOverDetector.getLeaders().size());
+
+        // climb the ground cube at (3, 0, 1)
+        assertTrue(new MoveActionService(gameState).moveClimber(climber, new Position(3, 2, 1)));
+        assertEquals(1, gameOverDetector.getHighestLevel());
+        assertEquals(List.of(climber), gameOverDetector.getLeaders());
+        assertEquals(GameOverDetector.Outcome.IN_PROGRESS, gameOverDetector.turnEnded());
+        assertTrue(gameOverDetector.canBuild(climber));
+        assertFalse(gameOverDetector.canBuild(opponent));
+        assertFalse(gameOverDetector.mustPlaceAtGround(climber));
+
+        // the climber's column can't take cubes any more, the climber's last two cubes go on the ground cube at (1, 0, 3)
+        int buildableColumns = gameOverDetector.getBuildableColumns();
+        assertTrue(new BuildActionService(gameState).performBuildAction(climber, List.of(new Position(1, 2, 3), new Position(1, 4, 3))));
+        assertEquals(buildableColumns, gameOverDetector.getBuildableColumns());
+        assertEquals(0, gameOverDetector.cubesLeft());
+        assertFalse(gameOverDetector.isGameOver());
+        assertEquals(GameOverDetector.Outcome.CUBES_EXHAUSTED, gameOverDetector.turnEnded());
+        assertTrue(gameOverDetector.isGameOver());
+    }
+}
@@ -0,0 +1,113 @@
+package service.rules;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+
+import entities.Climber;
+import entities.ClimberColour;
+import entities.GameState;
+import entities.Position;
+import service.BoardService;
+
+class LegalActionServiceTest {
+
+    @Test
+    void enumerateLegalActionsOnStartingBoardTest() {
+        GameState gameState = new GameState();
+        new BoardService(gameState).initialiseBoard();
+        Climber climber = gameState.addPlayer(0, 14, new Position(3, 0, 3), ClimberColour.RED, null);
+
+        LegalActionService legalActionService = new LegalActionService();
+        int[] actions = legalActionService.enumerateLegalActions(gameState, climber);
+
+        // climbing onto the ground cube next to the climber is one level up
+        int cubeColumn = ActionCodes.columnOf(new Position(3, 0, 1));
+        assertTrue(contains(actions, ActionCodes.move(cubeColumn)));
+        // building on the climber's own space is never legal
+        int climberColumn = ActionCodes.columnOf(climber.getPosition());
+        assertTrue(Arrays.stream(actions).noneMatch(code -> ActionCodes.type(code) == ActionCodes.BUILD
+            && (ActionCodes.firstColumn(code) == climberColumn || ActionCodes.secondColumn(code) == climberColumn)));
+        // stacking a second cube on the first one is a legal build pair
+        assertTrue(contains(actions, ActionCodes.build(cubeColumn, cubeColumn)));
+        assertTrue(contains(actions, ActionCodes.roll()));
+        assertTrue(contains(actions, ActionCodes.grapple(cubeColumn)));
+        assertEquals(4, Arrays.stream(actions).filter(code -> ActionCodes.type(code) == ActionCodes.WIND).count());
+
+        List<Position> moveDestinations = legalActionService.legalDestinations(gameState, climber, ActionCodes.MOVE);
+        assertTrue(moveDestinations.contains(new Position(3, 2, 1)));
+        assertEquals(1, legalActionService.getCacheMisses());
+        assertEquals(1, legalActionService.getCacheHits());
+    }
+
+    @Test
+    void usedActionsAreNotEnumeratedTest() {
+        GameState gameState = new GameState();
+        new BoardService(gameState).initialiseBoard();
+        Climber climber = gameState.addPlayer(0, 14, new Position(3, 0, 3), ClimberColour.RED, null);
+        climber.setCanBuild(false);
+        climber.setCanRoll(false);
+
+        int[] actions = new LegalActionService().enumerateLegalActions(gameState, climber);
+
+        assertTrue(actions.length > 0);
+        assertTrue(Arrays.stream(actions).allMatch(code -> ActionCodes.type(code) == ActionCodes.MOVE));
+    }
+
+    private boolean contains(int[] actions, int code) {
+        return Arrays.stream(actions).anyMatch(action -> action == code);
+    }
+
+    @Test
+    void collidingKeysAreNotHitsTest() {
+        GameState gameState = new GameState();
+        new BoardService(gameState).initialiseBoard();
+        Climber climber = gameState.addPlayer(0, 14, new Position(3, 0, 3), ClimberColour.RED, null);
+        GameState otherState = new GameState();
+        new BoardService(otherState).initialiseBoard();
+        Climber otherClimber = otherState.addPlayer(0, 14, new Position(1, 0, 3), ClimberColour.RED, null);
+        BoardGeometry geometry = BoardGeometry.of(gameState.getBoardSetup());
+
+        // the actions of another state filed under the key of this one, as if the two keys collided
+        LegalActionService legalActionService = new LegalActionService();
+        CanonicalKey canonicalKey = StateCanonicalizer.canonicalKey(gameState, climber, geometry);
+        CanonicalKey otherKey = StateCanonicalizer.canonicalKey(otherState, otherClimber, geometry);
+        legalActionService.cache(canonicalKey.getKey(),
+            StateCanonicalizer.canonicalState(otherState, otherClimber, geometry, otherKey.getTransform()), new int[]{ActionCodes.roll()});
+
+        int[] actions = legalActionService.enumerateLegalActions(gameState, climber);
+        assertEquals(0, legalActionService.getCacheHits());
+        int[] expectedActions = new LegalActionService().enumerateLegalActions(gameState, climber);
+        assertArrayEquals(expectedActions, actions);
+        // the real entry replaces the colliding one
+        legalActionService.enumerateLegalActions(gameState, climber);
+        assertEquals(1, legalActionService.getCacheHits());
+    }
+
+    @Test
+    void rotatedStatesShareCacheEntriesTest() {
+        GameState gameState = new GameState();
+        new BoardService(gameState).initialiseBoard();
+        Climber climber = gameState.addPlayer(0, 14, new Position(3, 0, 3), ClimberColour.RED, null);
+        // the same climber a quarter turn around the centre of the board
+        GameState rotatedState = new GameState();
+        new BoardService(rotatedState).initialiseBoard();
+        Climber rotatedClimber = rotatedState.addPlayer(0, 14, new Position(-3, 0, 3), ClimberColour.RED, null);
+
+        LegalActionService legalActionService = new LegalActionService();
+        int[] actions = legalActionService.enumerateLegalActions(gameState, climber);
+        int[] rotatedActions = legalActionService.enumerateLegalActions(rotatedState, rotatedClimber);
+
+        assertEquals(1, legalActionService.getCacheHits());
+        int[] expectedActions = new LegalActionService().enumerateLegalActions(rotatedState, rotatedClimber);
+        Arrays.sort(rotatedActions);
+        Arrays.sort(expectedActions);
+        assertArrayEquals(expectedActions, rotatedActions);
+        assertEquals(actions.length, rotatedActions.length);
+        // seats by x then z: (-3,-3), (-3,3), (3,-3), (3,3), the quarter turn takes (3,3) to (-3,3)
+        assertArrayEquals(new int[]{2, 0, 3, 1}, StateCanonicalizer.seatPermutation(1, BoardGeometry.of(gameState.getBoardSetup())));
+    }
+}
@@ -0,0 +1,43 @@
+package service.rules;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+
+import entities.Climber;
+import entities.ClimberColour;
+import entities.GameState;
+import entities.Position;
+import service.BoardService;
+
+class RollOutcomeEvaluatorTest {
+
+    @Test
+    void rollOutcomesOnStartingBoardTest() {
+        GameState gameState = new GameState();
+        new BoardService(gameState).initialiseBoard();
+        Climber climber = gameState.addPlayer(0, 14, new Position(3, 0, 3), ClimberColour.RED, null);
+
+        List<RollOutcome> outcomes = RollOutcomeEvaluator.outcomes(gameState, climber);
+
+        assertEquals(1.0, outcomes.stream().mapToDouble(RollOutcome::getProbability).sum(), 1e-9);
+        RollOutcome grapple = outcomes.get(0);
+        assertEquals(0.5, grapple.getProbability(), 1e-9);
+        // the ground cubes at (1, 0, 3) and (3, 0, 1)
+        assertEquals(2, grapple.getChoices().size());
+        // W and D shift the climber onto free ground, A and S are blocked by the cubes and merge
+        RollOutcome wind = outcomes.get(2);
+        assertEquals(3, wind.getChoices().size());
+        assertTrue(wind.getChoices().stream().anyMatch(choice -> choice.getCodes().length == 2));
+        // the evaluated states are copies, the game itself is untouched
+        assertTrue(climber.getCanRoll());
+        assertEquals(new Position(3, 0, 3), climber.getPosition());
+
+        // expectation of the climber's height after its best choice: 1/2 * 1 + 1/3 * 0 + 1/6 * 0
+        double expectedLevel = RollOutcomeEvaluator.expectedValue(gameState, climber,
+            state -> ActionCodes.cellLevel(state.getPlayersList().get(0).getCell()));
+        assertEquals(0.5, expectedLevel, 1e-9);
+    }
+}
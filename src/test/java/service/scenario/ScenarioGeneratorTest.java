@@ -0,0 +1,73 @@
+package service.scenario;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import org.junit.jupiter.api.Test;
+
+import entities.BoardSetup;
+import entities.Climber;
+import entities.GameState;
+import service.rules.ActionCodes;
+import service.rules.GameStateInvariants;
+import service.session.SessionCodec;
+
+class ScenarioGeneratorTest {
+
+    @Test
+    void scenariosKeepToTheSpecTest() {
+        ScenarioSpec spec = new ScenarioSpec(BoardSetup.standard(), 3, 18, 0.5, 2, 1);
+        List<Scenario> scenarios = new ScenarioGenerator(spec, 11L).scenarios(0, 40).collect(Collectors.toList());
+
+        int builtCubes = 0;
+        for (Scenario scenario : scenarios) {
+            GameState gameState = scenario.getGameState();
+            assertEquals(List.of(), GameStateInvariants.check(gameState, 3));
+            builtCubes += gameState.getUsedCubes() - BoardSetup.standard().getStartingCubes().size();
+            for (Climber climber : gameState.getPlayersList()) {
+                assertEquals(1, climber.getPowerCards().size());
+            }
+        }
+        // half of the 3 x 18 cubes in hand, a double build can overshoot by one
+        double averageBuilt = builtCubes / 40.0;
+        assertTrue(averageBuilt >= 26 && averageBuilt <= 29, "built " + averageBuilt);
+
+        ScenarioSpec grounded = new ScenarioSpec(BoardSetup.standard(), 3, 18, 0.5, 0, 1);
+        int climbed = climbersAboveGround(scenarios);
+        int stayedDown = climbersAboveGround(new ScenarioGenerator(grounded, 11L).scenarios(0, 40).collect(Collectors.toList()));
+        // the dice still grapple climbers up whatever the spec
+        assertTrue(climbed > 2 * stayedDown, climbed + " climbed, " + stayedDown + " with a ground level spec");
+    }
+
+    private static int climbersAboveGround(List<Scenario> scenarios) {
+        int count = 0;
+        for (Scenario scenario : scenarios) {
+            for (Climber climber : scenario.getGameState().getPlayersList()) {
+                count += ActionCodes.level(climber.getPosition()) > 0 ? 1 : 0;
+            }
+        }
+        return count;
+    }
+
+    @Test
+    void snapshotsAreReproducibleTest() throws IOException {
+        ScenarioGenerator generator = new ScenarioGenerator(ScenarioSpec.midGame(), 5L);
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        generator.writeSnapshots(out, 0, 20);
+
+        ByteBuffer in = ByteBuffer.wrap(out.toByteArray());
+        for (int index = 0; index < 20; index++) {
+            Scenario read = ScenarioGenerator.readSnapshot(in);
+            Scenario generated = generator.generate(index);
+            assertEquals(generated.getPlayerTurn(), read.getPlayerTurn());
+            assertArrayEquals(SessionCodec.encode(generated.getGameState(), generated.getPlayerTurn()),
+                    SessionCodec.encode(read.getGameState(), read.getPlayerTurn()));
+        }
+        assertNull(ScenarioGenerator.readSnapshot(in));
+    }
+}
@@ -0,0 +1,78 @@
+package service.scheduler;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.junit.jupiter.api.Test;
+
+import entities.Climber;
+import entities.ClimberColour;
+import entities.GameState;
+import entities.Position;
+
+class HashedTimerWheelTest {
+
+    @Test
+    void firesTimeoutsAcrossManyGamesTest() throws InterruptedException {
+        HashedTimerWheel timerWheel = new HashedTimerWheel(5, TimeUnit.MILLISECONDS, 8);
+        int totalGames = 2000;
+        CountDownLatch latch = new CountDownLatch(totalGames);
+        for (int i = 0; i < totalGames; i++) {
+            // delays longer than one wheel rotation need more than one round
+            timerWheel.schedule(latch::countDown, 10 + i % 60, TimeUnit.MILLISECONDS);
+        }
+        assertTrue(latch.await(5, TimeUnit.SECONDS));
+        timerWheel.stop();
+    }
+
+    @Test
+    void cancelledTimeoutIsNotFiredTest() throws InterruptedException {
+        HashedTimerWheel timerWheel = new HashedTimerWheel(5, TimeUnit.MILLISECONDS, 8);
+        AtomicInteger fired = new AtomicInteger();
+        HashedTimerWheel.Timeout timeout = timerWheel.schedule(fired::incrementAndGet, 30, TimeUnit.MILLISECONDS);
+        assertTrue(timeout.cancel());
+        CountDownLatch latch = new CountDownLatch(1);
+        timerWheel.schedule(latch::countDown, 60, TimeUnit.MILLISECONDS);
+        assertTrue(latch.await(2, TimeUnit.SECONDS));
+        assertEquals(0, fired.get());
+        assertTrue(timeout.isCancelled());
+        timerWheel.stop();
+    }
+
+    @Test
+    void turnSchedulerExpiresOnlyCurrentTurnTest() throws InterruptedException {
+        HashedTimerWheel timerWheel = new HashedTimerWheel(5, TimeUnit.MILLISECONDS, 16);
+        TurnScheduler turnScheduler = new TurnScheduler(timerWheel, 40, 1000);
+        GameState gameState = new GameState();
+        Climber firstPlayer = gameState.addPlayer(0, 14, new Position(3, 0, 3), ClimberColour.RED, null);
+        Climber secondPlayer = gameState.addPlayer(1, 14, new Position(-3, 0, 3), ClimberColour.BLUE, null);
+        AtomicInteger expiredPlayer = new AtomicInteger(-1);
+        AtomicLong expiredTurn = new AtomicLong(-1);
+        CountDownLatch latch = new CountDownLatch(1);
+
+        // the handlers run on the wheel thread, what they saw is asserted here
+        AtomicBoolean endedTurnExpired = new AtomicBoolean(false);
+        AtomicBoolean turnDeadline = new AtomicBoolean(false);
+        turnScheduler.startTurn("game", 0, firstPlayer, (gameId, turn, player, deadlineType) -> endedTurnExpired.set(true));
+        turnScheduler.endTurn("game");
+        turnScheduler.startTurn("game", 1, secondPlayer, (gameId, turn, player, deadlineType) -> {
+            turnDeadline.set(deadlineType == TurnScheduler.DeadlineType.TURN);
+            expiredTurn.set(turn);
+            expiredPlayer.set(player.getId());
+            latch.countDown();
+        });
+
+        assertTrue(latch.await(2, TimeUnit.SECONDS));
+        assertFalse(endedTurnExpired.get());
+        assertTrue(turnDeadline.get());
+        assertEquals(1, expiredPlayer.get());
+        assertEquals(1, expiredTurn.get());
+        assertEquals(0, turnScheduler.activeTurns());
+        timerWheel.stop();
+    }
+}
@@ -0,0 +1,221 @@
+package service.session;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+
+import entities.BoardListener;
+import entities.Climber;
+import entities.ClimberColour;
+import entities.Cube;
+import entities.GameState;
+import entities.Position;
+import entities.PowerCard;
+import service.BoardService;
+import service.memory.GameFootprint;
+import service.actions.BuildActionService;
+import service.rules.ReachabilityTracker;
+
+class SessionRegistryTest {
+
+    @Test
+    void idleGamesAreHibernatedAndRestoredTest() throws IOException {
+        Path file = Files.createTempFile("sessions", ".hibernate");
+        try (SessionRegistry registry = new SessionRegistry(new HibernationStore(file, 1024, 4), 2)) {
+            GameState gameState = new GameState();
+            gameState.setOut(GameState.QUIET);
+            new BoardService(gameState).initialiseBoard();
+            Climber climber = gameState.addPlayer(7, 28, new Position(3, 0, 3), ClimberColour.GREEN, List.of(PowerCard.STEAL, PowerCard.KICK));
+            gameState.addPlayer(2, 28, new Position(-3, 0, -3), ClimberColour.BLUE, List.of(PowerCard.ECHO));
+            new BuildActionService(gameState).performBuildAction(climber, List.of(new Position(3, 2, 1), new Position(3, 4, 1)));
+            long fingerprint = gameState.fingerprint();
+            List<Position> placed = new ArrayList<>();
+            gameState.addBoardListener(new BoardListener() {
+                @Override
+                public void cubePlaced(Position position) {
+                    placed.add(position);
+                }
+
+                @Override
+                public void cubeRemoved(Position position) {
+                }
+
+                @Override
+                public void climberMoved(Climber climber, Position from) {
+                }
+            });
+            registry.open("first", gameState, 1);
+            for (int i = 0; i < 8; i++) {
+                GameState other = new GameState();
+                other.setOut(GameState.QUIET);
+                new BoardService(other).initialiseBoard();
+                registry.open("game" + i, other, 0);
+            }
+
+            assertEquals(2, registry.getResidentCount());
+            assertEquals(7, registry.getHibernatedCount());
+            assertFalse(registry.withSession("first", GameSession::isHibernated));
+
+            GameState restored = registry.withSession("first", GameSession::getGameState);
+            // restored in place, whoever holds the game or its climbers keeps working on it
+            assertSame(gameState, restored);
+            assertEquals(fingerprint, restored.fingerprint());
+            assertEquals(1, registry.withSession("first", GameSession::getPlayerTurn));
+            Climber restoredClimber = restored.getPlayersList().get(0);
+            assertSame(climber, restoredClimber);
+            assertEquals(7, restoredClimber.getId());
+            assertEquals(ClimberColour.GREEN, restoredClimber.getColour());
+            assertEquals(List.of(PowerCard.KICK, PowerCard.STEAL), restoredClimber.getPowerCards());
+            assertFalse(restoredClimber.getCanBuild());
+            Cube top = (Cube) restored.getPositionPieceMap().get(new Position(3, 4, 1));
+            assertEquals("Player7", top.getPlacedBy());
+            assertTrue(top.isOnTop());
+            assertFalse(((Cube) restored.getPositionPieceMap().get(new Position(3, 2, 1))).isOnTop());
+            assertTrue(registry.getRestorations() >= 1);
+            registry.withSession("first", session -> {
+                climber.resetActions();
+                return new BuildActionService(session.getGameState()).performBuildAction(climber, List.of(new Position(1, 2, 3)));
+            });
+            assertEquals(List.of(new Position(1, 2, 3)), placed);
+
+            registry.close("first");
+            assertFalse(registry.isHosted("first"));
+        } finally {
+            Files.deleteIfExists(file);
+        }
+    }
+
+    @Test
+    void servicesOutliveHibernationTest() throws IOException {
+        Path file = Files.createTempFile("sessions", ".hibernate");
+        try (SessionRegistry registry = new SessionRegistry(new HibernationStore(file, 1024, 4), 1)) {
+            GameState gameState = new GameState();
+            gameState.setOut(GameState.QUIET);
+            new BoardService(gameState).initialiseBoard();
+            Climber climber = gameState.addPlayer(0, 28, new Position(3, 0, 3), ClimberColour.RED, List.of());
+            BuildActionService buildActionService = new BuildActionService(gameState);
+            registry.open("game", gameState, 0);
+            GameState other = new GameState();
+            other.setOut(GameState.QUIET);
+            registry.open("other", other, 0);
+            assertEquals(1, registry.getHibernatedCount());
+
+            // the service took the board before the game was hibernated
+            int usedCubes = gameState.getUsedCubes();
+            boolean built = registry.withSession("game", session -> buildActionService.performBuildAction(climber,
+                    List.of(new Position(3, 2, 1), new Position(3, 4, 1))));
+            assertTrue(built);
+            assertEquals(usedCubes + 2, gameState.getUsedCubes());
+            assertTrue(gameState.getPositionPieceMap().get(new Position(3, 4, 1)) instanceof Cube);
+            assertEquals(1, registry.getRestorations());
+        } finally {
+            Files.deleteIfExists(file);
+        }
+    }
+
+    @Test
+    void restoreTakesTheClimbersOfTheRecordTest() {
+        GameState gameState = new GameState();
+        new BoardService(gameState).initialiseBoard();
+        Climber climber = gameState.addPlayer(4, 28, new Position(3, 0, 3), ClimberColour.RED, List.of(PowerCard.ECHO));
+        climber.setCanMove(false);
+        byte[] record = SessionCodec.encode(gameState, 0);
+        GameSession session = new GameSession("game", gameState, 0);
+        long fingerprint = gameState.fingerprint();
+
+        gameState.releaseBoard();
+        climber.setTotalCubes(3);
+        climber.setPosition(new Position(1, 0, 1));
+        climber.setPowerCards(List.of());
+        climber.resetActions();
+        SessionCodec.restore(ByteBuffer.wrap(record), session);
+
+        assertEquals(fingerprint, gameState.fingerprint());
+        assertEquals(28, climber.getTotalCubes());
+        assertEquals(new Position(3, 0, 3), climber.getPosition());
+        assertSame(climber, gameState.getPositionPieceMap().get(new Position(3, 0, 3)));
+        assertEquals(List.of(PowerCard.ECHO), climber.getPowerCards());
+        assertFalse(climber.getCanMove());
+        assertTrue(climber.getCanBuild());
+    }
+
+    @Test
+    void hibernationFreesTheBoardTest() {
+        GameState gameState = new GameState();
+        new BoardService(gameState).initialiseBoard();
+        gameState.addPlayer(0, 28, new Position(3, 0, 3), ClimberColour.RED, List.of());
+        gameState.addPlayer(1, 28, new Position(-3, 0, -3), ClimberColour.BLUE, List.of());
+        GameFootprint resident = GameFootprint.measure(gameState);
+
+        gameState.releaseBoard();
+        GameFootprint hibernated = GameFootprint.measure(gameState);
+        // what stays is the player table, the emptied map and the GameState itself
+        assertEquals(0, hibernated.getBytes(GameFootprint.CUBES));
+        assertEquals(0, hibernated.getBytes(GameFootprint.POSITIONS));
+        assertTrue(hibernated.getTotal() * 2 < resident.getTotal(), hibernated + " of " + resident);
+    }
+
+    @Test
+    void cachesAreDroppedBeforeTheGameOverBudgetTest() throws IOException {
+        Path file = Files.createTempFile("sessions", ".hibernate");
+        try (SessionRegistry registry = new SessionRegistry(new HibernationStore(file, 1024, 4), 10, 8192)) {
+            GameState gameState = new GameState();
+            gameState.setOut(GameState.QUIET);
+            new BoardService(gameState).initialiseBoard();
+            gameState.addPlayer(0, 28, new Position(3, 0, 3), ClimberColour.RED, List.of());
+            registry.open("game", gameState, 0);
+
+            registry.withSession("game", session -> {
+                session.putCache("small", new int[16]);
+                session.putCache("reachability", new ReachabilityTracker(gameState));
+                return null;
+            });
+            // the tracker alone breaks the budget
+            assertEquals(1, registry.getCacheEvictions());
+            assertNull(registry.withSession("game", session -> session.getCache("reachability")));
+            assertNotNull(registry.withSession("game", session -> session.getCache("small")));
+            assertTrue(registry.withSession("game", GameSession::getFootprintBytes) <= 8192);
+            assertEquals(0, registry.getBudgetHibernations());
+        } finally {
+            Files.deleteIfExists(file);
+        }
+
+        // a game that doesn't fit without its caches is hibernated
+        file = Files.createTempFile("sessions", ".hibernate");
+        try (SessionRegistry registry = new SessionRegistry(new HibernationStore(file, 1024, 4), 10, 512)) {
+            GameState gameState = new GameState();
+            gameState.addPlayer(0, 28, new Position(3, 0, 3), ClimberColour.RED, List.of());
+            registry.open("game", gameState, 0);
+            registry.withSession("game", session -> session.getGameState().getUsedCubes());
+            assertEquals(1, registry.getBudgetHibernations());
+            assertEquals(1, registry.getHibernatedCount());
+
+            // an unchanged game isn't measured again, so it stays once restored
+            for (int i = 0; i < 3; i++) {
+                registry.withSession("game", session -> session.getGameState().getUsedCubes());
+            }
+            assertEquals(1, registry.getRestorations());
+            assertEquals(0, registry.getHibernatedCount());
+            // the first over budget measurement after a budget hibernation is let off
+            registry.withSession("game", session -> {
+                session.putCache("small", new int[16]);
+                return null;
+            });
+            assertEquals(1, registry.getBudgetHibernations());
+            registry.withSession("game", session -> {
+                session.putCache("small", new int[16]);
+                return null;
+            });
+            assertEquals(2, registry.getBudgetHibernations());
+        } finally {
+            Files.deleteIfExists(file);
+        }
+    }
+}
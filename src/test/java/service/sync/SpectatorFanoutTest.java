@@ -0,0 +1,117 @@
+package service.sync;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import org.junit.jupiter.api.Test;
+
+import entities.ClimberColour;
+import entities.Cube;
+import entities.GameState;
+import entities.Position;
+import service.BoardService;
+
+class SpectatorFanoutTest {
+
+    @Test
+    void slowSpectatorResyncsWithoutHoldingUpOthersTest() throws InterruptedException {
+        GameState gameState = new GameState();
+        new BoardService(gameState).initialiseBoard();
+        gameState.addPlayer(0, 14, new Position(3, 0, 3), ClimberColour.RED, null);
+        StateSyncService stateSyncService = new StateSyncService(gameState, 8);
+        // the two stuck spectators hold a thread each, the dispatch and the fast spectator share the rest
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        SpectatorFanout fanout = new SpectatorFanout(stateSyncService, 4, executor);
+
+        SyncedState fastReplica = new SyncedState();
+        AtomicBoolean fastMissedFrame = new AtomicBoolean(false);
+        SpectatorFanout.Spectator fast = fanout.subscribe((sequence, frame, keyframe) -> {
+            if (!fastReplica.apply(frame)) {
+                fastMissedFrame.set(true);
+            }
+        });
+        SyncedState slowReplica = new SyncedState();
+        CountDownLatch release = new CountDownLatch(1);
+        SpectatorFanout.Spectator slow = fanout.subscribe((sequence, frame, keyframe) -> {
+            try {
+                release.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            assertTrue(slowReplica.apply(frame));
+        });
+        // a connection that doesn't come back, only the thread writing to it is held
+        CountDownLatch stuck = new CountDownLatch(1);
+        SpectatorFanout.Spectator gone = fanout.subscribe((sequence, frame, keyframe) -> {
+            try {
+                stuck.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        });
+
+        // the game publishes on while the slow spectator is stuck on its first frame
+        for (int i = 0; i < 24; i++) {
+            Position position = new Position(-7 + 2 * (i % 8), 2 * (i / 8), 5);
+            gameState.getPositionPieceMap().put(position, new Cube(gameState.nextCubeId(), position, "Player0", true));
+            stateSyncService.publish();
+            // let the fast spectator keep up, as a spectator on a live connection would
+            awaitSequence(fastReplica, stateSyncService.getSequence());
+        }
+        release.countDown();
+        awaitSequence(slowReplica, stateSyncService.getSequence());
+
+        assertFalse(fastMissedFrame.get());
+        assertEquals(1, fast.getResyncs());
+        assertEquals(25, fast.getDelivered());
+        assertTrue(slow.getResyncs() >= 2);
+        assertTrue(slow.getDelivered() < 25);
+        assertArrayEquals(fastReplica.getCubeCells(), slowReplica.getCubeCells());
+        assertEquals(24, stateSyncService.getSequence());
+        assertEquals(0, gone.getDelivered());
+
+        stuck.countDown();
+        fanout.close();
+        executor.shutdown();
+    }
+
+    @Test
+    void closedFanoutTakesNoFramesTest() throws InterruptedException {
+        GameState gameState = new GameState();
+        new BoardService(gameState).initialiseBoard();
+        StateSyncService stateSyncService = new StateSyncService(gameState, 8);
+        stateSyncService.publish();
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+        SpectatorFanout fanout = new SpectatorFanout(stateSyncService, 4, executor);
+        SyncedState replica = new SyncedState();
+        SpectatorFanout.Spectator spectator = fanout.subscribe((sequence, frame, keyframe) -> {
+            assertTrue(frame.isReadOnly());
+            assertTrue(replica.apply(frame));
+        });
+        awaitSequence(replica, 0);
+
+        fanout.close();
+        Position position = new Position(3, 2, 1);
+        gameState.getPositionPieceMap().put(position, new Cube(gameState.nextCubeId(), position, "Player0", true));
+        stateSyncService.publish();
+        executor.shutdown();
+        assertTrue(executor.awaitTermination(5, TimeUnit.SECONDS));
+        assertEquals(1, spectator.getDelivered());
+        assertEquals(0, fanout.getSpectators());
+        assertThrows(IllegalStateException.class, () -> fanout.subscribe((sequence, frame, keyframe) -> {
+        }));
+    }
+
+    private static void awaitSequence(SyncedState replica, long sequence) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (replica.getSequence() < sequence) {
+            assertTrue(System.nanoTime() < deadline, "replica stuck at " + replica.getSequence() + " of " + sequence);
+            Thread.sleep(1);
+        }
+    }
+}
@@ -0,0 +1,66 @@
+package service.sync;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+
+import entities.Climber;
+import entities.ClimberColour;
+import entities.Cube;
+import entities.GameState;
+import entities.Position;
+import service.BoardService;
+import service.rules.ActionCodes;
+
+class StateSyncServiceTest {
+
+    @Test
+    void replicaFollowsDeltasAndResyncsFromKeyframeTest() {
+        GameState gameState = new GameState();
+        new BoardService(gameState).initialiseBoard();
+        Climber climber = gameState.addPlayer(0, 14, new Position(3, 0, 3), ClimberColour.RED, null);
+
+        StateSyncService stateSyncService = new StateSyncService(gameState, 4);
+        SyncedState replica = new SyncedState();
+        List<ByteBuffer> frames = new ArrayList<>();
+        assertTrue(replica.apply(stateSyncService.subscribe((sequence, frame, keyframe) -> frames.add(frame))));
+
+        Position cubePosition = new Position(3, 2, 1);
+        gameState.getPositionPieceMap().put(cubePosition, new Cube(gameState.nextCubeId(), cubePosition, "Player0", true));
+        climber.setCanBuild(false);
+        stateSyncService.publish();
+
+        // a build is one cube, one flag and the cube supply
+        assertEquals(1, frames.size());
+        assertTrue(frames.get(0).remaining() < 16);
+        assertTrue(frames.get(0).isReadOnly());
+        assertTrue(replica.apply(frames.get(0)));
+        assertEquals(13, replica.getCubeCells().length);
+        assertEquals(SyncSnapshot.FLAG_CAN_MOVE | SyncSnapshot.FLAG_CAN_ROLL, replica.getClimberFlags()[0]);
+
+        // publishing an unchanged state sends nothing
+        stateSyncService.publish();
+        assertEquals(1, frames.size());
+
+        gameState.getPositionPieceMap().remove(climber.getPosition());
+        climber.setPosition(new Position(3, 4, 1));
+        gameState.getPositionPieceMap().put(climber.getPosition(), climber);
+        stateSyncService.publish();
+
+        // a replica that missed the move needs a keyframe
+        SyncedState lateReplica = new SyncedState();
+        assertFalse(lateReplica.apply(frames.get(1)));
+        assertTrue(lateReplica.apply(stateSyncService.keyframe()));
+        assertTrue(replica.apply(frames.get(1)));
+
+        int expectedCell = ActionCodes.cellOf(new Position(3, 4, 1));
+        assertEquals(expectedCell, replica.getClimberCells()[0]);
+        assertEquals(expectedCell, lateReplica.getClimberCells()[0]);
+        assertArrayEquals(replica.getCubeCells(), lateReplica.getCubeCells());
+        assertEquals(replica.getSequence(), lateReplica.getSequence());
+    }
+}
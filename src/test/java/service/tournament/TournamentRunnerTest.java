@@ -0,0 +1,62 @@
+package service.tournament;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import org.junit.jupiter.api.Test;
+
+import entities.BoardSetup;
+
+class TournamentRunnerTest {
+    private static final List<BotConfig> BOTS = List.of(BotConfig.random("random"), BotConfig.parse("level=0,0,0,1,0"));
+
+    @Test
+    void weightedBotOutratesRandomBotTest() throws Exception {
+        try (TournamentRunner runner = new TournamentRunner(BOTS, BoardSetup.standard(), 2, 42L, 2)) {
+            EloRatings ratings = runner.runRoundRobin(15);
+
+            assertEquals(30, ratings.getMatches());
+            assertEquals(30, ratings.getGames(0));
+            assertEquals(30, ratings.getGames(1));
+            assertEquals(1.0, ratings.getScore(0) + ratings.getScore(1), 1e-9);
+            assertTrue(ratings.getRating(1) > ratings.getRating(0));
+            assertEquals(0.0, ratings.getRating(0) + ratings.getRating(1), 1e-6);
+            assertTrue(ratings.getInterval(1) > 0);
+            assertEquals(List.of(1, 0), ratings.standings());
+        }
+    }
+
+    @Test
+    void workerProcessPlaysTheSameMatchesTest() throws Exception {
+        List<MatchResult> local;
+        try (TournamentRunner runner = new TournamentRunner(BOTS, BoardSetup.standard(), 2, 7L, 2)) {
+            local = runner.run(runner.scheduleRoundRobin(4));
+        }
+
+        // a runner without threads of its own hands every match to the worker over the loopback port
+        ExecutorService workerThread = Executors.newSingleThreadExecutor();
+        List<MatchResult> remote;
+        Future<Long> played;
+        try (TournamentRunner runner = new TournamentRunner(BOTS, BoardSetup.standard(), 2, 7L, 0)) {
+            int port = runner.listen();
+            played = workerThread.submit(() -> TournamentWorker.work(port));
+            while (runner.getConnectedWorkers() == 0) {
+                assertFalse(played.isDone());
+                Thread.sleep(1);
+            }
+            remote = runner.run(runner.scheduleRoundRobin(4));
+        } finally {
+            workerThread.shutdown();
+        }
+
+        assertEquals(8, played.get());
+        assertEquals(local.size(), remote.size());
+        for (int i = 0; i < local.size(); i++) {
+            assertEquals(local.get(i).toString(), remote.get(i).toString());
+        }
+    }
+}
@@ -0,0 +1,73 @@
+package service.tuning;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+
+import entities.BoardSetup;
+import service.eval.BatchEvaluator;
+import service.tournament.BotConfig;
+
+class WeightTunerTest {
+    private static final List<BotConfig> BOTS = List.of(BotConfig.parse("level=0,0,0,1"), BotConfig.random("random"));
+
+    @Test
+    void texelRunResumesFromCheckpointTest() throws Exception {
+        Path uninterrupted = Files.createTempFile("texel", ".checkpoint");
+        Path resumed = Files.createTempFile("texel", ".checkpoint");
+        try {
+            Files.deleteIfExists(uninterrupted);
+            Files.deleteIfExists(resumed);
+            WeightTuner tuner = new WeightTuner(BoardSetup.standard(), 2, 11L, 1);
+            LabelledPositions positions = tuner.selfPlay(BOTS, 6);
+            LabelledPositions again = tuner.selfPlay(BOTS, 6);
+            assertTrue(positions.size() > 100);
+            assertEquals(positions.size(), again.size());
+            for (int position = 0; position < positions.size(); position++) {
+                assertEquals(positions.getLabel(position), again.getLabel(position));
+                assertEquals(positions.getFeature(position, BatchEvaluator.SUMMIT_DISTANCE), again.getFeature(position, BatchEvaluator.SUMMIT_DISTANCE));
+            }
+
+            float[] weights = tuner.texel(positions, 250, uninterrupted);
+            tuner.texel(positions, 100, resumed);
+            assertEquals(100, TuningCheckpoint.read(resumed).getIteration());
+            float[] resumedWeights = new WeightTuner(BoardSetup.standard(), 2, 11L, 1).texel(positions, 250, resumed);
+
+            assertArrayEquals(weights, resumedWeights);
+            assertArrayEquals(weights, TuningCheckpoint.read(uninterrupted).getWeights());
+            // positions of other deals are another run
+            assertThrows(IllegalArgumentException.class, () -> tuner.texel(tuner.selfPlay(BOTS, 2), 300, resumed));
+            // leading the other climbers is what wins
+            assertTrue(weights[BatchEvaluator.LEVEL_LEAD] > 0);
+        } finally {
+            Files.deleteIfExists(uninterrupted);
+            Files.deleteIfExists(resumed);
+        }
+    }
+
+    @Test
+    void spsaCheckpointsEveryIterationTest() throws Exception {
+        Path checkpoint = Files.createTempFile("spsa", ".checkpoint");
+        try {
+            Files.deleteIfExists(checkpoint);
+            WeightTuner tuner = new WeightTuner(BoardSetup.standard(), 2, 3L, 1);
+            float[] weights = tuner.spsa(new float[]{0, 0, 0, 1}, 2, 2, checkpoint);
+
+            TuningCheckpoint saved = TuningCheckpoint.read(checkpoint);
+            assertEquals(WeightTuner.SPSA, saved.getMethod());
+            assertEquals(2, saved.getIteration());
+            assertArrayEquals(weights, saved.getWeights());
+            // a finished run resumes to its result without playing again
+            assertArrayEquals(weights, tuner.spsa(new float[]{0, 0, 0, 1}, 2, 2, checkpoint));
+            assertThrows(IllegalArgumentException.class, () -> tuner.spsa(new float[]{0, 0, 0, 1}, 3, 4, checkpoint));
+            assertThrows(IllegalArgumentException.class, () -> tuner.spsa(new float[]{0, 0, 1, 1}, 3, 2, checkpoint));
+            assertThrows(IllegalArgumentException.class, () -> tuner.texel(tuner.selfPlay(BOTS, 1), 10, checkpoint));
+        } finally {
+            Files.deleteIfExists(checkpoint);
+        }
+    }
+}